@@ -0,0 +1,117 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Compares two (possibly very large) files without reading them into Strings.
+ * Both files are memory-mapped in windows and walked byte by byte, applying the
+ * same rules the normal String comparison uses: leading/trailing whitespace is
+ * ignored (like String.trim) and '\r' is skipped so Windows and Unix line endings
+ * compare equal. Used for test cases whose expected output lives in an external file.
+ */
+public class BlobComparator
+{
+    // Size of each mapped window (files larger than this are mapped piece by piece)
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Returns true if both files have the same content after trimming and line-ending normalization.
+     * ignoreCase compares ASCII letters case-insensitively (used for Boolean test cases).
+     */
+    public static boolean contentEquals(File actual, File expected, boolean ignoreCase) throws IOException
+    {
+        try (MappedReader a = new MappedReader(actual);
+             MappedReader b = new MappedReader(expected))
+        {
+            while (true)
+            {
+                int x = a.next();
+                int y = b.next();
+                if (x < 0 || y < 0)
+                {
+                    return x == y; // Equal only if both ended together
+                }
+                if (x != y && !(ignoreCase && asciiLower(x) == asciiLower(y)))
+                {
+                    return false;
+                }
+            }
+        }
+    }
+
+    // Lower-cases ASCII letters only; other bytes (including UTF-8 sequences) are left alone
+    private static int asciiLower(int value)
+    {
+        return (value >= 'A' && value <= 'Z') ? value + ('a' - 'A') : value;
+    }
+
+    /**
+     * Reads the bytes of a file through memory-mapped windows, limited to its trimmed range
+     * and skipping '\r'. String.trim removes chars <= ' ', which for UTF-8 are exactly the
+     * bytes <= ' ' (multi-byte sequences only use bytes >= 0x80), so trimming bytes is equivalent.
+     */
+    private static class MappedReader implements AutoCloseable
+    {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private long position; // Next byte to read
+        private final long end; // One past the last non-whitespace byte
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader(File source) throws IOException
+        {
+            file = new RandomAccessFile(source, "r");
+            channel = file.getChannel();
+
+            long size = channel.size();
+            long start = 0;
+            while (start < size && byteAt(start) <= ' ')
+            {
+                start++;
+            }
+            long last = size;
+            while (last > start && byteAt(last - 1) <= ' ')
+            {
+                last--;
+            }
+            position = start;
+            end = last;
+        }
+
+        // Returns the next byte (0-255), or -1 at the end of the trimmed range
+        int next() throws IOException
+        {
+            while (position < end)
+            {
+                int value = byteAt(position++);
+                if (value != '\r')
+                {
+                    return value;
+                }
+            }
+            return -1;
+        }
+
+        // Reads one byte, remapping the window when the position leaves it
+        private int byteAt(long offset) throws IOException
+        {
+            if (window == null || offset < windowStart || offset >= windowStart + window.capacity())
+            {
+                windowStart = (offset / WINDOW_SIZE) * WINDOW_SIZE;
+                long length = Math.min(WINDOW_SIZE, channel.size() - windowStart);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            }
+            return window.get((int) (offset - windowStart)) & 0xFF;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            window = null;
+            file.close();
+        }
+    }
+}
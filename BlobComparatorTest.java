@@ -0,0 +1,72 @@
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for BlobComparator: the file comparison follows the rules of the String comparison
+ * (trimmed ends, any line ending, optional ASCII case folding).
+ */
+public class BlobComparatorTest
+{
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("blob-comparator-test").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void surroundingWhitespaceAndLineEndingsDoNotMatter() throws IOException
+    {
+        assertTrue(equal("1\n2\n3\n", "  1\r\n2\r\n3", false));
+        assertTrue(equal("", " \n\t", false));
+        assertTrue(equal("été\n", "été", false));
+    }
+
+    @Test
+    public void differentContentDoesNotMatch() throws IOException
+    {
+        assertTrue(!equal("1\n2\n3", "1\n2\n4", false));
+        assertTrue(!equal("1\n2", "1\n2\n3", false));
+        assertTrue(!equal("1 2", "1  2", false)); // Only the ends are trimmed
+        assertTrue(!equal("", "x", false));
+    }
+
+    @Test
+    public void caseIsIgnoredOnlyWhenAsked() throws IOException
+    {
+        assertTrue(equal("TRUE\n", "true", true));
+        assertTrue(!equal("TRUE\n", "true", false));
+    }
+
+    @Test
+    public void largeFilesAreComparedByContent() throws IOException
+    {
+        String large = ResultsFileTest.repeat("0123456789\n", 200000);
+        assertTrue(equal(large, large.replace("\n", "\r\n"), false));
+        assertTrue(!equal(large, large.substring(0, large.length() - 3) + "X\n", false));
+    }
+
+    private boolean equal(String actual, String expected, boolean ignoreCase) throws IOException
+    {
+        File actualFile = File.createTempFile("actual", ".txt", folder);
+        File expectedFile = File.createTempFile("expected", ".txt", folder);
+        Files.write(actualFile.toPath(), actual.getBytes(StandardCharsets.UTF_8));
+        Files.write(expectedFile.toPath(), expected.getBytes(StandardCharsets.UTF_8));
+        return BlobComparator.contentEquals(actualFile, expectedFile, ignoreCase);
+    }
+}
@@ -0,0 +1,641 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares any number of result sets (rounds of resubmission, sections, years) by student and
+ * test case. The sets are loaded in parallel and each is reduced to a list of (student, test
+ * case, status, credit) entries sorted by student and test case; the lists are then merged in
+ * one pass (k-way merge on a priority queue), so every student and test case is visited once
+ * whatever the number of sets.
+ *
+ * The result is a Comparison: per-round totals, per-student rates and score changes, per-test
+ * case pass counts, and every test a student newly passed (improvement) or no longer passes
+ * (regression) from one round to the next. The UI and the command line render the same model.
+ */
+public class ComparisonEngine
+{
+    /**
+     * Whether a student's test case got better or worse between two rounds.
+     */
+    public enum ChangeKind
+    {
+        IMPROVEMENT,
+        REGRESSION
+    }
+
+    /**
+     * One result set being compared.
+     */
+    public static class Round
+    {
+        private final String label;
+        private final String suiteTitle;
+        private final int totalTestCases;
+        private int students;
+        private int passed;
+        private int graded;
+        private double credit;
+
+        Round(String label, String suiteTitle, int totalTestCases)
+        {
+            this.label = label;
+            this.suiteTitle = suiteTitle;
+            this.totalTestCases = totalTestCases;
+        }
+
+        public String getLabel() { return label; }
+        public String getSuiteTitle() { return suiteTitle; }
+        public int getTotalTestCases() { return totalTestCases; }
+        public int getStudentCount() { return students; }
+        public int getPassedCount() { return passed; }
+        public int getGradedCount() { return graded; }
+        public double getCredit() { return credit; }
+
+        /**
+         * Credit as a percentage of the graded results (0 if there are none).
+         */
+        public double getScore()
+        {
+            return graded > 0 ? credit * 100 / graded : 0;
+        }
+    }
+
+    /**
+     * One student across the rounds. Rounds are numbered from 0 in the order they were given.
+     */
+    public static class StudentRow
+    {
+        private final String studentName;
+        private final boolean[] present;
+        private final int[] passed;
+        private final int[] graded;
+        private final int[] compileErrors;
+        private final double[] credit;
+
+        StudentRow(String studentName, int rounds)
+        {
+            this.studentName = studentName;
+            present = new boolean[rounds];
+            passed = new int[rounds];
+            graded = new int[rounds];
+            compileErrors = new int[rounds];
+            credit = new double[rounds];
+        }
+
+        public String getStudentName() { return studentName; }
+        public int getPassedCount(int round) { return passed[round]; }
+        public int getGradedCount(int round) { return graded[round]; }
+        public double getCredit(int round) { return credit[round]; }
+
+        /**
+         * True if the student has graded results in the round (not just a skipped folder).
+         */
+        public boolean hasSubmission(int round)
+        {
+            return present[round] && graded[round] > 0;
+        }
+
+        /**
+         * The success rate as the results screens show it: "3/5", "3/5 (3.87 with partial
+         * credit)", "COMPILE ERROR" or "No submission". total is the round's number of test cases.
+         */
+        public String getRateText(int round, int total)
+        {
+            if (!hasSubmission(round))
+            {
+                return "No submission";
+            }
+            if (compileErrors[round] == graded[round])
+            {
+                return "COMPILE ERROR";
+            }
+            if (credit[round] > passed[round])
+            {
+                return passed[round] + "/" + total + String.format(Locale.ROOT, " (%.2f with partial credit)", credit[round]);
+            }
+            return passed[round] + "/" + total;
+        }
+
+        /**
+         * Change in credit from the first to the last round the student submitted in, or NaN
+         * if they submitted in fewer than two rounds.
+         */
+        public double getCreditDelta()
+        {
+            int first = -1;
+            int last = -1;
+            for (int round = 0; round < present.length; round++)
+            {
+                if (hasSubmission(round))
+                {
+                    first = first < 0 ? round : first;
+                    last = round;
+                }
+            }
+            return first >= 0 && last > first ? credit[last] - credit[first] : Double.NaN;
+        }
+    }
+
+    /**
+     * One test case across the rounds.
+     */
+    public static class TestCaseRow
+    {
+        private final String testCaseTitle;
+        private final int[] passed;
+        private final int[] graded;
+        private int improvements;
+        private int regressions;
+
+        TestCaseRow(String testCaseTitle, int rounds)
+        {
+            this.testCaseTitle = testCaseTitle;
+            passed = new int[rounds];
+            graded = new int[rounds];
+        }
+
+        public String getTestCaseTitle() { return testCaseTitle; }
+        public int getPassedCount(int round) { return passed[round]; }
+        public int getGradedCount(int round) { return graded[round]; }
+        public int getImprovementCount() { return improvements; }
+        public int getRegressionCount() { return regressions; }
+    }
+
+    /**
+     * A test case a student newly passed, or no longer passes, between two rounds. The earlier
+     * round is the most recent one before toRound in which the student had this test case.
+     */
+    public static class Change
+    {
+        private final String studentName;
+        private final String testCaseTitle;
+        private final int fromRound;
+        private final int toRound;
+        private final String fromStatus;
+        private final String toStatus;
+        private final ChangeKind kind;
+
+        Change(String studentName, String testCaseTitle, int fromRound, int toRound, String fromStatus, String toStatus, ChangeKind kind)
+        {
+            this.studentName = studentName;
+            this.testCaseTitle = testCaseTitle;
+            this.fromRound = fromRound;
+            this.toRound = toRound;
+            this.fromStatus = fromStatus;
+            this.toStatus = toStatus;
+            this.kind = kind;
+        }
+
+        public String getStudentName() { return studentName; }
+        public String getTestCaseTitle() { return testCaseTitle; }
+        public int getFromRound() { return fromRound; }
+        public int getToRound() { return toRound; }
+        public String getFromStatus() { return fromStatus; }
+        public String getToStatus() { return toStatus; }
+        public ChangeKind getKind() { return kind; }
+    }
+
+    /**
+     * Everything the comparison found. Students and test cases are sorted by name.
+     */
+    public static class Comparison
+    {
+        private final List<Round> rounds;
+        private final List<StudentRow> students = new ArrayList<>();
+        private final List<TestCaseRow> testCases = new ArrayList<>();
+        private final List<Change> changes = new ArrayList<>();
+
+        Comparison(List<Round> rounds)
+        {
+            this.rounds = rounds;
+        }
+
+        public List<Round> getRounds() { return Collections.unmodifiableList(rounds); }
+        public List<StudentRow> getStudents() { return Collections.unmodifiableList(students); }
+        public List<TestCaseRow> getTestCases() { return Collections.unmodifiableList(testCases); }
+
+        /**
+         * Returns every improvement and regression, by student and then test case.
+         */
+        public List<Change> getChanges() { return Collections.unmodifiableList(changes); }
+
+        public int getChangeCount(ChangeKind kind)
+        {
+            int count = 0;
+            for (Change change : changes)
+            {
+                if (change.getKind() == kind)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Loads a result set; Coordinator::loadTestExecutionResults fits.
+     */
+    public interface Loader
+    {
+        TestExecutionResults load(File file) throws Exception;
+    }
+
+    // One result of a round, reduced to what the comparison needs
+    private static class Entry
+    {
+        final String studentName;
+        final String testCaseTitle;
+        final ResultStatus status;
+        final String statusText;
+        final double credit;
+
+        Entry(TestResult result)
+        {
+            studentName = result.getStudentName();
+            testCaseTitle = result.getTestCaseTitle();
+            status = result.getResultStatus();
+            statusText = result.getStatus();
+            credit = result.getCredit();
+        }
+    }
+
+    private static final Comparator<Entry> BY_STUDENT_AND_TEST = Comparator
+            .comparing((Entry entry) -> entry.studentName)
+            .thenComparing(entry -> entry.testCaseTitle);
+
+    // A round's sorted entries and how far the merge has got through them
+    private static class Cursor
+    {
+        final int round;
+        final Entry[] entries;
+        int position;
+
+        Cursor(int round, Entry[] entries)
+        {
+            this.round = round;
+            this.entries = entries;
+        }
+
+        Entry current() { return entries[position]; }
+    }
+
+    // A loaded round: its totals and sorted entries
+    private static class LoadedRound
+    {
+        final Round round;
+        final Entry[] entries;
+
+        LoadedRound(Round round, Entry[] entries)
+        {
+            this.round = round;
+            this.entries = entries;
+        }
+    }
+
+    private ComparisonEngine()
+    {
+    }
+
+    /**
+     * Loads the files in parallel (one thread per file, up to the number of processors) and
+     * compares them, in the order given. Rounds are labelled with the file names.
+     */
+    public static Comparison compare(List<File> files, Loader loader) throws IOException
+    {
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "comparison-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            List<Future<LoadedRound>> loads = new ArrayList<>();
+            for (File file : files)
+            {
+                loads.add(executor.submit((Callable<LoadedRound>) () -> {
+                    TestExecutionResults results = loader.load(file);
+                    Round round = new Round(file.getName(), results.getTestSuiteTitle(), countTestCases(results.getResults()));
+                    return new LoadedRound(round, sortedEntries(results.getResults()));
+                }));
+            }
+
+            List<Round> rounds = new ArrayList<>();
+            List<Entry[]> entries = new ArrayList<>();
+            for (int i = 0; i < loads.size(); i++)
+            {
+                try
+                {
+                    LoadedRound loaded = loads.get(i).get();
+                    rounds.add(loaded.round);
+                    entries.add(loaded.entries);
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IOException(files.get(i).getName() + ": " + cause.getMessage(), cause);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Loading results was interrupted", e);
+                }
+            }
+            return merge(rounds, entries);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compares result sets that are already loaded, labelled by labels.
+     */
+    public static Comparison compare(List<String> labels, List<TestExecutionResults> resultSets)
+    {
+        List<Round> rounds = new ArrayList<>();
+        List<Entry[]> entries = new ArrayList<>();
+        for (int i = 0; i < resultSets.size(); i++)
+        {
+            TestExecutionResults results = resultSets.get(i);
+            rounds.add(new Round(labels.get(i), results.getTestSuiteTitle(), countTestCases(results.getResults())));
+            entries.add(sortedEntries(results.getResults()));
+        }
+        return merge(rounds, entries);
+    }
+
+    // Distinct test cases of a round; unlike getTotalTestCases, the "N/A" title of skipped folders does not count
+    private static int countTestCases(List<TestResult> results)
+    {
+        java.util.Set<String> titles = new java.util.HashSet<>();
+        for (TestResult result : results)
+        {
+            if (result.getResultStatus() != ResultStatus.SKIPPED)
+            {
+                titles.add(result.getTestCaseTitle());
+            }
+        }
+        return titles.size();
+    }
+
+    private static Entry[] sortedEntries(List<TestResult> results)
+    {
+        Entry[] entries = new Entry[results.size()];
+        for (int i = 0; i < entries.length; i++)
+        {
+            entries[i] = new Entry(results.get(i));
+        }
+        Arrays.sort(entries, BY_STUDENT_AND_TEST); // Stable: of two results for the same key, the later one wins below
+        return entries;
+    }
+
+    // k-way merge of the sorted rounds: each (student, test case) is visited once with its entry from every round
+    private static Comparison merge(List<Round> rounds, List<Entry[]> entries)
+    {
+        int roundCount = rounds.size();
+        Comparison comparison = new Comparison(rounds);
+        Map<String, TestCaseRow> testCases = new TreeMap<>();
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, roundCount),
+                (a, b) -> BY_STUDENT_AND_TEST.compare(a.current(), b.current()));
+        for (int round = 0; round < roundCount; round++)
+        {
+            if (entries.get(round).length > 0)
+            {
+                queue.add(new Cursor(round, entries.get(round)));
+            }
+        }
+
+        Entry[] row = new Entry[roundCount];
+        StudentRow student = null;
+        while (!queue.isEmpty())
+        {
+            // Gather this key's entry from every round that has it
+            Arrays.fill(row, null);
+            Entry key = queue.peek().current();
+            while (!queue.isEmpty() && BY_STUDENT_AND_TEST.compare(queue.peek().current(), key) == 0)
+            {
+                Cursor cursor = queue.poll();
+                row[cursor.round] = cursor.current();
+                if (++cursor.position < cursor.entries.length)
+                {
+                    queue.add(cursor);
+                }
+            }
+
+            if (student == null || !student.studentName.equals(key.studentName))
+            {
+                student = new StudentRow(key.studentName, roundCount);
+                comparison.students.add(student);
+            }
+            addRow(comparison, student, testCases, row);
+        }
+
+        comparison.testCases.addAll(testCases.values());
+        return comparison;
+    }
+
+    private static void addRow(Comparison comparison, StudentRow student, Map<String, TestCaseRow> testCases, Entry[] row)
+    {
+        Entry previous = null;
+        int previousRound = -1;
+        for (int round = 0; round < row.length; round++)
+        {
+            Entry entry = row[round];
+            if (entry == null)
+            {
+                continue;
+            }
+            Round totals = comparison.rounds.get(round);
+            student.present[round] = true;
+            if (entry.status == ResultStatus.SKIPPED)
+            {
+                continue; // A folder without a main method: no test case to count
+            }
+
+            if (student.graded[round] == 0)
+            {
+                totals.students++;
+            }
+            student.graded[round]++;
+            student.credit[round] += entry.credit;
+            totals.graded++;
+            totals.credit += entry.credit;
+            boolean passed = entry.status == ResultStatus.PASSED;
+            if (passed)
+            {
+                student.passed[round]++;
+                totals.passed++;
+            }
+            else if (entry.status == ResultStatus.COMPILE_ERROR)
+            {
+                student.compileErrors[round]++;
+            }
+
+            TestCaseRow testCase = testCases.computeIfAbsent(entry.testCaseTitle, title -> new TestCaseRow(title, row.length));
+            testCase.graded[round]++;
+            if (passed)
+            {
+                testCase.passed[round]++;
+            }
+
+            if (previous != null && (previous.status == ResultStatus.PASSED) != passed)
+            {
+                ChangeKind kind = passed ? ChangeKind.IMPROVEMENT : ChangeKind.REGRESSION;
+                comparison.changes.add(new Change(entry.studentName, entry.testCaseTitle, previousRound, round,
+                        previous.statusText, entry.statusText, kind));
+                if (passed)
+                {
+                    testCase.improvements++;
+                }
+                else
+                {
+                    testCase.regressions++;
+                }
+            }
+            previous = entry;
+            previousRound = round;
+        }
+    }
+
+    /**
+     * Formats the rounds and every student's rate per round as a table, with the change in
+     * credit from their first to their last submission.
+     */
+    public static String formatRates(Comparison comparison)
+    {
+        List<Round> rounds = comparison.getRounds();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < rounds.size(); i++)
+        {
+            Round round = rounds.get(i);
+            text.append(String.format(Locale.ROOT, "Round %d: %s (%s) - %d student(s), %d/%d passed, average score %.1f%%%n",
+                    i + 1, round.getLabel(), round.getSuiteTitle(), round.getStudentCount(),
+                    round.getPassedCount(), round.getGradedCount(), round.getScore()));
+        }
+        text.append('\n');
+
+        text.append(String.format("%-30s", "Student"));
+        for (int i = 0; i < rounds.size(); i++)
+        {
+            text.append(String.format(" %-36s", "Round " + (i + 1)));
+        }
+        text.append(" Change\n");
+        for (StudentRow student : comparison.getStudents())
+        {
+            StringBuilder line = new StringBuilder(String.format("%-30s", student.getStudentName()));
+            for (int i = 0; i < rounds.size(); i++)
+            {
+                line.append(String.format(" %-36s", student.getRateText(i, rounds.get(i).getTotalTestCases())));
+            }
+            double delta = student.getCreditDelta();
+            line.append(Double.isNaN(delta) ? "" : String.format(Locale.ROOT, " %+.2f", delta));
+            text.append(line.toString().replaceAll("\\s+$", "")).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Formats the per-test case pass counts and the list of improvements and regressions.
+     */
+    public static String formatChanges(Comparison comparison)
+    {
+        List<Round> rounds = comparison.getRounds();
+        StringBuilder text = new StringBuilder();
+        text.append(comparison.getChangeCount(ChangeKind.IMPROVEMENT)).append(" improvement(s), ")
+                .append(comparison.getChangeCount(ChangeKind.REGRESSION)).append(" regression(s)\n\n");
+
+        text.append(String.format("%-30s", "Test Case"));
+        for (int i = 0; i < rounds.size(); i++)
+        {
+            text.append(String.format(" %-12s", "Round " + (i + 1)));
+        }
+        text.append(" Improved Regressed\n");
+        for (TestCaseRow testCase : comparison.getTestCases())
+        {
+            text.append(String.format("%-30s", testCase.getTestCaseTitle()));
+            for (int i = 0; i < rounds.size(); i++)
+            {
+                text.append(String.format(" %-12s", testCase.getPassedCount(i) + "/" + testCase.getGradedCount(i)));
+            }
+            text.append(String.format(" %-8d %d%n", testCase.getImprovementCount(), testCase.getRegressionCount()));
+        }
+        text.append('\n');
+
+        for (Change change : comparison.getChanges())
+        {
+            text.append(change.getKind() == ChangeKind.IMPROVEMENT ? "+ " : "- ")
+                    .append(change.getStudentName()).append(" | ").append(change.getTestCaseTitle())
+                    .append(" | round ").append(change.getFromRound() + 1).append(' ').append(change.getFromStatus())
+                    .append(" -> round ").append(change.getToRound() + 1).append(' ').append(change.getToStatus()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Loads a results file without a Coordinator: a binary results file (outputs left on disk),
+     * a journal (outputs skipped) or a .ser file from earlier versions.
+     */
+    public static TestExecutionResults loadFile(File file) throws IOException, ClassNotFoundException
+    {
+        if (ResultsFile.isResultsFile(file))
+        {
+            return ResultsStore.open(file).getResults();
+        }
+        if (file.getName().endsWith(ResultsJournal.EXTENSION))
+        {
+            return ResultsJournal.readWithoutOutputs(file);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new java.io.BufferedInputStream(new FileInputStream(file))))
+        {
+            return (TestExecutionResults) in.readObject();
+        }
+    }
+
+    /**
+     * Compares result files from the command line, in the order given
+     * (java ComparisonEngine round1.tres round2.tres ...).
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: java ComparisonEngine <results file> <results file> [...]");
+            System.exit(2);
+        }
+        List<File> files = new ArrayList<>();
+        for (String path : args)
+        {
+            files.add(new File(path));
+        }
+        try
+        {
+            Comparison comparison = compare(files, ComparisonEngine::loadFile);
+            System.out.print(formatRates(comparison));
+            System.out.println();
+            System.out.print(formatChanges(comparison));
+        }
+        catch (IOException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ComparisonEngine: the k-way merge over rounds in which some students are missing,
+ * the changes found between rounds, and the rate text.
+ */
+public class ComparisonEngineTest
+{
+    private File folder;
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("comparison-engine-test").toFile();
+        defaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown()
+    {
+        Locale.setDefault(defaultLocale);
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void studentsMissingFromSomeRoundsAreMergedByName()
+    {
+        ComparisonEngine.Comparison comparison = compareSampleRounds();
+
+        List<String> names = new ArrayList<>();
+        for (ComparisonEngine.StudentRow student : comparison.getStudents())
+        {
+            names.add(student.getStudentName());
+        }
+        assertEquals(Arrays.asList("alice", "bob", "carol", "dave"), names); // Sorted, each once
+
+        ComparisonEngine.StudentRow alice = comparison.getStudents().get(0);
+        assertEquals(1, alice.getPassedCount(0));
+        assertEquals(2, alice.getPassedCount(1));
+        assertEquals(1, alice.getPassedCount(2));
+
+        ComparisonEngine.StudentRow bob = comparison.getStudents().get(1);
+        assertTrue(bob.hasSubmission(0));
+        assertFalse(bob.hasSubmission(1));
+        assertTrue(bob.hasSubmission(2));
+        assertEquals("No submission", bob.getRateText(1, 2));
+        assertEquals(-1.0, bob.getCreditDelta(), 1e-9);
+
+        ComparisonEngine.StudentRow carol = comparison.getStudents().get(2);
+        assertFalse(carol.hasSubmission(0));
+        assertTrue(carol.hasSubmission(1));
+        assertTrue(Double.isNaN(carol.getCreditDelta()));
+
+        ComparisonEngine.StudentRow dave = comparison.getStudents().get(3);
+        assertFalse(dave.hasSubmission(2)); // Only a skipped folder
+        assertEquals("No submission", dave.getRateText(2, 2));
+    }
+
+    @Test
+    public void roundTotalsAndTestCaseCountsIgnoreMissingStudents()
+    {
+        ComparisonEngine.Comparison comparison = compareSampleRounds();
+
+        List<ComparisonEngine.Round> rounds = comparison.getRounds();
+        assertEquals(3, rounds.size());
+        assertEquals("second", rounds.get(1).getLabel());
+        for (ComparisonEngine.Round round : rounds)
+        {
+            assertEquals(2, round.getStudentCount());
+            assertEquals(4, round.getGradedCount());
+            assertEquals(2, round.getTotalTestCases()); // The skipped folder's "N/A" is not a test case
+        }
+        assertEquals(3, rounds.get(0).getPassedCount());
+        assertEquals(2, rounds.get(1).getPassedCount());
+
+        List<ComparisonEngine.TestCaseRow> testCases = comparison.getTestCases();
+        assertEquals(2, testCases.size());
+        ComparisonEngine.TestCaseRow t1 = testCases.get(0);
+        assertEquals("T1", t1.getTestCaseTitle());
+        assertEquals(2, t1.getGradedCount(1)); // Alice and carol; bob is missing
+        assertEquals(1, t1.getPassedCount(1));
+        assertEquals(1, t1.getImprovementCount());
+        assertEquals(1, t1.getRegressionCount());
+    }
+
+    @Test
+    public void changesCompareWithTheLastRoundTheStudentHadTheTestIn()
+    {
+        List<ComparisonEngine.Change> changes = compareSampleRounds().getChanges();
+        assertEquals(3, changes.size());
+
+        assertChange(changes.get(0), "alice", "T1", 0, 1, ComparisonEngine.ChangeKind.IMPROVEMENT);
+        assertChange(changes.get(1), "alice", "T2", 1, 2, ComparisonEngine.ChangeKind.REGRESSION);
+        // Bob skipped the second round, so his third is compared with his first
+        assertChange(changes.get(2), "bob", "T1", 0, 2, ComparisonEngine.ChangeKind.REGRESSION);
+        assertEquals("PASSED", changes.get(2).getFromStatus());
+        assertEquals("FAILED", changes.get(2).getToStatus());
+    }
+
+    @Test
+    public void laterResultForTheSameStudentAndTestWins()
+    {
+        TestExecutionResults round = results(
+                new TestResult("alice", "T1", "FAILED", "", ""),
+                new TestResult("alice", "T1", "PASSED", "", ""));
+        ComparisonEngine.Comparison comparison = ComparisonEngine.compare(Arrays.asList("only"), Arrays.asList(round));
+
+        assertEquals(1, comparison.getStudents().size());
+        assertEquals(1, comparison.getStudents().get(0).getPassedCount(0));
+        assertEquals(1, comparison.getStudents().get(0).getGradedCount(0));
+    }
+
+    @Test
+    public void rateTextUsesADecimalPointInEveryLocale()
+    {
+        Locale.setDefault(Locale.GERMANY);
+        ComparisonEngine.StudentRow carol = compareSampleRounds().getStudents().get(2);
+        assertEquals("0/2 (0.50 with partial credit)", carol.getRateText(1, 2));
+    }
+
+    @Test
+    public void savedRoundsAreLoadedAndMergedInTheOrderGiven() throws IOException
+    {
+        List<TestExecutionResults> rounds = sampleRounds();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < rounds.size(); i++)
+        {
+            File file = new File(folder, "round" + (i + 1) + ResultsFile.EXTENSION);
+            ResultsFile.write(rounds.get(i), file);
+            files.add(file);
+        }
+
+        ComparisonEngine.Comparison comparison = ComparisonEngine.compare(files, file -> ResultsStore.open(file).getResults());
+        assertEquals("round1" + ResultsFile.EXTENSION, comparison.getRounds().get(0).getLabel());
+        assertEquals(4, comparison.getStudents().size());
+        assertEquals(3, comparison.getChanges().size());
+        assertEquals(1, comparison.getChangeCount(ComparisonEngine.ChangeKind.IMPROVEMENT));
+        assertEquals(2, comparison.getChangeCount(ComparisonEngine.ChangeKind.REGRESSION));
+    }
+
+    private static void assertChange(ComparisonEngine.Change change, String student, String testCase,
+                                     int fromRound, int toRound, ComparisonEngine.ChangeKind kind)
+    {
+        assertEquals(student, change.getStudentName());
+        assertEquals(testCase, change.getTestCaseTitle());
+        assertEquals(fromRound, change.getFromRound());
+        assertEquals(toRound, change.getToRound());
+        assertEquals(kind, change.getKind());
+    }
+
+    private static ComparisonEngine.Comparison compareSampleRounds()
+    {
+        return ComparisonEngine.compare(Arrays.asList("first", "second", "third"), sampleRounds());
+    }
+
+    // Three rounds: bob misses the second, carol is only in the second, dave only has a skipped folder in the third.
+    // Results are not in name order, as the merge must sort them
+    private static List<TestExecutionResults> sampleRounds()
+    {
+        return Arrays.asList(
+                results(new TestResult("bob", "T1", "PASSED", "", ""),
+                        new TestResult("alice", "T1", "FAILED", "", "", 0.0),
+                        new TestResult("alice", "T2", "PASSED", "", ""),
+                        new TestResult("bob", "T2", "PASSED", "", "")),
+                results(new TestResult("carol", "T1", "FAILED", "", "", 0.5),
+                        new TestResult("alice", "T1", "PASSED", "", ""),
+                        new TestResult("alice", "T2", "PASSED", "", ""),
+                        new TestResult("carol", "T2", "FAILED", "", "", 0.0)),
+                results(new TestResult("alice", "T2", "FAILED", "", "", 0.0),
+                        new TestResult("dave", "N/A", "SKIPPED - NO MAIN METHOD", "", ""),
+                        new TestResult("bob", "T2", "PASSED", "", ""),
+                        new TestResult("bob", "T1", "FAILED", "", "", 0.0),
+                        new TestResult("alice", "T1", "PASSED", "", "")));
+    }
+
+    private static TestExecutionResults results(TestResult... results)
+    {
+        return new TestExecutionResults("Suite", "/submissions", "src", Arrays.asList(results));
+    }
+}
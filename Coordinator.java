@@ -1,12 +1,20 @@
 // Coordinator class manages test cases, test suites, and student programs
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class Coordinator
 {
@@ -14,8 +22,20 @@ public class Coordinator
     private String saveFolder; // Path where test cases and suites are saved
     private ListOfTestSuites listOfTestSuites; // Holds all loaded/created test suites
     private ListOfTestCases listOfTestCases; // Global pool of available test cases
+    private ListOfTestCaseGenerators listOfGenerators; // Parameterized test cases (.generator files)
     private ListOfPrograms listOfPrograms; // List of student programs to test
-    private TestSuite currentTestSuite; // The test suite currently selected
+    private volatile TestSuite currentTestSuite; // The test suite currently selected
+    private TestDefinitionWatcher testDefinitionWatcher; // Hot-reloads test-cases/ and test-suites/
+    private volatile Runnable testDefinitionChangeListener; // UI callback after a hot reload
+    private volatile ReferenceOracle referenceOracle; // Reference solution for expected outputs, null if none
+    private final RuntimeErrorIndex runtimeErrorIndex = new RuntimeErrorIndex(); // Runtime errors of the last run, filled as results arrive
+    private final ResultsIndex resultsIndex = new ResultsIndex(); // Results of the last run by student and test case, filled as results arrive
+    private volatile OutputSearchIndex outputSearchIndex = new OutputSearchIndex(); // Outputs of the last run, filled as results arrive
+    private volatile ResultsJournal resultsJournal; // On-disk journal of the run in progress, null if none
+    private final OutputPool outputPool = new OutputPool(); // One copy of each distinct output and name across runs
+
+    // Generated instances whose reference outputs are computed together (in parallel) before they are graded
+    private static final int REFERENCE_BATCH = 64;
 
     /**
      * Constructor initializes lists and sets no current test suite.
@@ -25,8 +45,24 @@ public class Coordinator
     {
         this.listOfTestSuites = new ListOfTestSuites();
         this.listOfTestCases = new ListOfTestCases();
+        this.listOfGenerators = new ListOfTestCaseGenerators();
         this.listOfPrograms = new ListOfPrograms();
         this.currentTestSuite = null;
+        this.testDefinitionWatcher = new TestDefinitionWatcher(listOfTestCases, listOfGenerators, listOfTestSuites,
+                new TestDefinitionWatcher.Listener()
+                {
+                    @Override
+                    public void testCasesChanged(Set<String> changedFilenames)
+                    {
+                        onTestDefinitionsChanged(changedFilenames);
+                    }
+
+                    @Override
+                    public void testSuitesChanged(Set<String> changedSuiteFilenames)
+                    {
+                        onTestDefinitionsChanged(new java.util.HashSet<>());
+                    }
+                });
     }
 
     /**
@@ -58,12 +94,95 @@ public class Coordinator
     /**
      * Sets the save folder path and loads existing test cases and suites.
      * Sets save folder and immediately attempts to preload all saved test data.
+     * Blocks until loading has finished; the UI uses setSaveFolderAsync instead.
      */
     public void setSaveFolder(String saveFolder)
     {
+        setSaveFolderAsync(saveFolder).join();
+    }
+
+    /**
+     * Sets the save folder path and loads test cases and suites in the background.
+     * Only the title and type of each test case are read (in parallel); input and
+     * expected output are loaded on demand when a test case is executed or edited.
+     * The returned future completes once everything is available in the lists.
+     * Test definitions of the previous save folder are dropped first, and its watch stopped.
+     */
+    public CompletableFuture<Void> setSaveFolderAsync(String saveFolder)
+    {
+        testDefinitionWatcher.stop(); // No late reload of the old folder may land in the new lists
+        listOfTestCases.clear();
+        listOfGenerators.clear();
+        listOfTestSuites.clear();
+        currentTestSuite = null;
         this.saveFolder = saveFolder;
-        loadTestCasesFromFolder(); // Load .testcase files
-        loadTestSuitesFromFolder(); // Load .suite files
+        return CompletableFuture.runAsync(() -> {
+            loadTestBankFromFolder(); // Load the packed test bank index, if present
+            loadTestCasesFromFolder(); // Load .testcase files (metadata only)
+            loadTestSuitesFromFolder(); // Load .suite files
+            startTestDefinitionWatch(); // Pick up later edits made directly on disk
+        });
+    }
+
+    /**
+     * Sets a callback that runs (on a background thread) whenever test cases or
+     * suites were reloaded from disk, so the UI can refresh its lists.
+     */
+    public void setTestDefinitionChangeListener(Runnable listener)
+    {
+        this.testDefinitionChangeListener = listener;
+    }
+
+    // Starts watching the test-cases and test-suites folders of the save folder
+    private void startTestDefinitionWatch()
+    {
+        File saveFolderFile = new File(saveFolder);
+        try
+        {
+            testDefinitionWatcher.start(findFolderCaseInsensitive(saveFolderFile, "test-cases"),
+                    findFolderCaseInsensitive(saveFolderFile, "test-suites"));
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not watch test folders for changes: " + e.getMessage());
+        }
+    }
+
+    // Called after test cases or suites were reloaded from disk
+    // Re-points the current suite at its reloaded copy and reruns only affected tests in watch mode
+    private void onTestDefinitionsChanged(Set<String> changedTestCaseFilenames)
+    {
+        TestSuite current = currentTestSuite;
+        if (current != null)
+        {
+            for (TestSuite suite : listOfTestSuites.getSuites())
+            {
+                if (suite != current && suite.getFilename().equals(current.getFilename()))
+                {
+                    currentTestSuite = suite;
+                    break;
+                }
+            }
+        }
+
+        SubmissionWatcher watcher = submissionWatcher;
+        if (watcher != null && currentTestSuite != null)
+        {
+            try
+            {
+                watcher.updateTestCases(resolveSuiteTestCases(currentTestSuite), changedTestCaseFilenames);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Watch mode kept its previous test cases: " + e.getMessage());
+            }
+        }
+
+        Runnable listener = testDefinitionChangeListener;
+        if (listener != null)
+        {
+            listener.run();
+        }
     }
 
     /**
@@ -172,16 +291,58 @@ public class Coordinator
         listOfTestCases.addTestCase(testCase);
     }
 
+    /**
+     * Returns the pool of test case generators.
+     */
+    public ListOfTestCaseGenerators getListOfGenerators()
+    {
+        return listOfGenerators;
+    }
+
+    /**
+     * Saves a generator to file and adds it to the pool (replacing one with the same filename).
+     */
+    public void createAndSaveGenerator(TestCaseGenerator generator) throws IOException
+    {
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            throw new IOException("Save folder not set");
+        }
+        generator.saveToFile(saveFolder);
+        listOfGenerators.addGenerator(generator);
+    }
+
+    /**
+     * Returns a generator by its filename, or null if not found.
+     */
+    public TestCaseGenerator getGeneratorByFilename(String filename)
+    {
+        return listOfGenerators.getGeneratorByFilename(filename);
+    }
+
     /**
      * Returns a test case by its filename, or null if not found.
-     * Uses stream filtering to find a test case matching its stored filename.
+     * Uses the filename index of ListOfTestCases instead of scanning every test case.
      */
     public TestCase getTestCaseByFilename(String filename)
     {
-        return listOfTestCases.getTestCases().stream()
-                .filter(tc -> tc.getFilename().equals(filename))
-                .findFirst()
-                .orElse(null);
+        return listOfTestCases.getTestCaseByFilename(filename);
+    }
+
+    /**
+     * Applies edited values to an existing test case, keeps the lookup indexes
+     * consistent (the title decides the filename) and saves it to disk.
+     */
+    public void updateTestCase(TestCase testCase, TestCase edited) throws IOException
+    {
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            throw new IOException("Save folder not set");
+        }
+        String previousFilename = testCase.getFilename();
+        listOfTestCases.updateTestCase(testCase, edited.getTitle(), edited.getInputData(),
+                edited.getExpectedOutput(), edited.getType());
+        testCase.saveRenamedToFile(saveFolder, previousFilename); // A new title moves the files along
     }
 
     // Helper method to find a folder by name case-insensitively
@@ -207,9 +368,231 @@ public class Coordinator
         return null;
     }
 
+    /**
+     * Packs all current test cases into a single test bank file in the save folder.
+     * Returns the bank file that was written.
+     */
+    public File packTestBank() throws IOException
+    {
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            throw new IOException("Save folder not set");
+        }
+        File bankFile = new File(saveFolder, TestBank.DEFAULT_FILENAME);
+        TestBank.write(listOfTestCases.getTestCases(), bankFile);
+        return bankFile;
+    }
+
+    /**
+     * Writes every test case in the save folder's test bank out as a .testcase file.
+     * Returns the number of test cases exported.
+     */
+    public int unpackTestBank() throws IOException
+    {
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            throw new IOException("Save folder not set");
+        }
+        File bankFile = new File(saveFolder, TestBank.DEFAULT_FILENAME);
+        if (!bankFile.exists())
+        {
+            throw new IOException("No test bank found in " + saveFolder);
+        }
+        return TestBank.unpackToFolder(bankFile, saveFolder);
+    }
+
+    /**
+     * Marks a submission folder as the reference solution. Its outputs become the expected
+     * outputs of generators without an expected template, and can fill in or verify the
+     * expected outputs of the current suite. Outputs are cached in saveFolder/reference-cache.
+     */
+    public void setReferenceSolution(String referenceFolder, String codePath) throws IOException
+    {
+        Program reference = listOfPrograms.createProgramForFolder(new File(referenceFolder), codePath);
+        if (reference == null)
+        {
+            throw new IOException("No Java file with a main method found in " + referenceFolder);
+        }
+        File cacheFolder = (saveFolder != null && !saveFolder.isEmpty())
+                ? new File(saveFolder, "reference-cache")
+                : new File(System.getProperty("java.io.tmpdir"), "grader-reference-cache");
+        ReferenceOracle oracle = new ReferenceOracle(reference, cacheFolder, Runtime.getRuntime().availableProcessors());
+        clearReferenceSolution();
+        referenceOracle = oracle;
+    }
+
+    /**
+     * Stops using the reference solution.
+     */
+    public void clearReferenceSolution()
+    {
+        if (referenceOracle != null)
+        {
+            referenceOracle.shutdown();
+            referenceOracle = null;
+        }
+    }
+
+    /**
+     * Returns the name of the reference solution folder, or null if none is set.
+     */
+    public String getReferenceSolutionName()
+    {
+        ReferenceOracle oracle = referenceOracle;
+        return oracle != null ? oracle.getReferenceName() : null;
+    }
+
+    /**
+     * Runs the reference solution over the current suite's test cases (in parallel) and
+     * saves its output as their expected output. Only empty expected outputs are filled
+     * unless overwrite is true; expected outputs kept in external files are left alone.
+     * Test cases that come from the test bank are saved back into it; the others are saved
+     * as .testcase files. Returns the number of test cases updated.
+     */
+    public int generateExpectedOutputs(boolean overwrite) throws IOException
+    {
+        ReferenceOracle oracle = requireReferenceOracle();
+        List<TestCase> targets = new ArrayList<>();
+        for (TestCase testCase : suiteStaticTestCases())
+        {
+            String expected = testCase.getExpectedOutput();
+            if (testCase.getExpectedFile() == null && (overwrite || expected == null || expected.trim().isEmpty()))
+            {
+                targets.add(testCase);
+            }
+        }
+        oracle.prefetch(targets);
+
+        // Bank entries are written back through the bank (found before any of them is edited)
+        File bankFile = new File(saveFolder, TestBank.DEFAULT_FILENAME);
+        List<TestCase> packed = new ArrayList<>();
+        for (TestCase testCase : listOfTestCases.getTestCases())
+        {
+            if (TestBank.isPackedIn(testCase, bankFile))
+            {
+                packed.add(testCase);
+            }
+        }
+        Set<TestCase> inBank = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        inBank.addAll(packed);
+
+        int updated = 0;
+        boolean bankChanged = false;
+        for (TestCase testCase : targets)
+        {
+            String output = oracle.getExpectedOutput(testCase); // Cached by prefetch
+            if (!output.equals(testCase.getExpectedOutput()))
+            {
+                if (inBank.contains(testCase))
+                {
+                    listOfTestCases.updateTestCase(testCase, testCase.getTitle(), testCase.getInputData(), output, testCase.getType());
+                    bankChanged = true;
+                }
+                else
+                {
+                    updateTestCase(testCase, new TestCase(testCase.getTitle(), testCase.getInputData(), output, testCase.getType()));
+                }
+                updated++;
+            }
+        }
+        if (bankChanged)
+        {
+            TestBank.update(bankFile, packed);
+        }
+        return updated;
+    }
+
+    /**
+     * Runs the reference solution over the current suite's test cases (in parallel) and
+     * returns the ones whose expected output disagrees with it.
+     */
+    public List<ReferenceOracle.Mismatch> verifyExpectedOutputs() throws IOException
+    {
+        return requireReferenceOracle().verify(suiteStaticTestCases());
+    }
+
+    /**
+     * Fuzzes one submission against the reference solution: random inputs are drawn from the
+     * given generator's parameters and the smallest input where the outputs differ is reported.
+     */
+    public DifferentialFuzzer.FuzzReport fuzzAgainstReference(String submissionFolder, String codePath,
+                                                             String generatorFilename, long executions) throws IOException
+    {
+        ReferenceOracle oracle = referenceOracle;
+        if (oracle == null)
+        {
+            throw new IOException("No reference solution selected");
+        }
+        TestCaseGenerator generator = getGeneratorByFilename(generatorFilename);
+        if (generator == null)
+        {
+            throw new IOException("Generator not found: " + generatorFilename);
+        }
+        Program submission = listOfPrograms.createProgramForFolder(new File(submissionFolder), codePath);
+        if (submission == null)
+        {
+            throw new IOException("No Java file with a main method found in " + submissionFolder);
+        }
+        DifferentialFuzzer fuzzer = new DifferentialFuzzer(submission, oracle.getReferenceProgram(), generator.getType());
+        return fuzzer.fuzz(generator, System.nanoTime(), executions);
+    }
+
+    // Returns the reference oracle, or throws if no reference solution or suite is set
+    private ReferenceOracle requireReferenceOracle() throws IOException
+    {
+        ReferenceOracle oracle = referenceOracle;
+        if (oracle == null)
+        {
+            throw new IOException("No reference solution selected");
+        }
+        if (currentTestSuite == null)
+        {
+            throw new IOException("No test suite selected");
+        }
+        return oracle;
+    }
+
+    // The saved (non-generated) test cases referenced by the current suite
+    private List<TestCase> suiteStaticTestCases()
+    {
+        List<TestCase> testCases = new ArrayList<>();
+        for (String filename : currentTestSuite.getTestCaseFilenames())
+        {
+            TestCase tc = getTestCaseByFilename(filename);
+            if (tc != null)
+            {
+                testCases.add(tc);
+            }
+        }
+        return testCases;
+    }
+
+    // Loads the metadata of a packed test bank in the save folder, if there is one
+    // Loose .testcase files are loaded afterwards and replace bank entries with the same filename
+    private void loadTestBankFromFolder()
+    {
+        File bankFile = new File(saveFolder, TestBank.DEFAULT_FILENAME);
+        if (!bankFile.isFile())
+        {
+            return;
+        }
+        try
+        {
+            for (TestCase testCase : TestBank.load(bankFile))
+            {
+                listOfTestCases.addTestCase(testCase);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error loading test bank: " + bankFile.getName() + " - " + e.getMessage());
+        }
+    }
+
     /**
      * Loads all .testcase files from the test-cases folder.
-     * Scans saved test-case folder and loads all .testcase files into memory.
+     * Scans saved test-case folder and reads the title and type of every file in parallel;
+     * bodies stay on disk until needed (see TestCase.loadMetadataFromFile).
      */
     private void loadTestCasesFromFolder()
     {
@@ -228,16 +611,41 @@ public class Coordinator
         File[] files = testCasesFolder.listFiles((dir, name) -> name.endsWith(".testcase"));
         if (files != null)
         {
-            for (File file : files)
+            // Parallel stream keeps the file order, so the list order matches the folder listing
+            List<TestCase> loaded = Arrays.stream(files)
+                    .parallel()
+                    .map(file -> {
+                        try
+                        {
+                            return TestCase.loadMetadataFromFile(file);
+                        }
+                        catch (IOException e)
+                        {
+                            System.err.println("Error loading test case: " + file.getName() + " - " + e.getMessage());
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            for (TestCase testCase : loaded)
+            {
+                listOfTestCases.addTestCase(testCase);
+            }
+        }
+
+        File[] generatorFiles = testCasesFolder.listFiles((dir, name) -> name.endsWith(".generator"));
+        if (generatorFiles != null)
+        {
+            for (File file : generatorFiles)
             {
                 try
                 {
-                    TestCase testCase = TestCase.loadFromFile(file);
-                    listOfTestCases.addTestCase(testCase);
+                    listOfGenerators.addGenerator(TestCaseGenerator.loadFromFile(file));
                 }
                 catch (IOException e)
                 {
-                    System.err.println("Error loading test case: " + file.getName() + " - " + e.getMessage());
+                    System.err.println("Error loading generator: " + file.getName() + " - " + e.getMessage());
                 }
             }
         }
@@ -290,6 +698,10 @@ public class Coordinator
         {
             filenames.add(tc.getFilename());
         }
+        for (TestCaseGenerator generator : listOfGenerators.getGenerators())
+        {
+            filenames.add(generator.getFilename());
+        }
         return filenames;
     }
 
@@ -297,6 +709,14 @@ public class Coordinator
     // Loads programs from root folder, coordinates execution
     // Returns a list of TestResult objects containing execution results
     public List<TestResult> executeTestSuite(String codePath) throws IOException
+    {
+        return executeTestSuite(codePath, false);
+    }
+
+    // Same as executeTestSuite(codePath), journaling each result as it is produced (see ResultsJournal)
+    // With resume set, results already in the suite's journal are reused instead of run again;
+    // otherwise the journal is started over
+    public List<TestResult> executeTestSuite(String codePath, boolean resume) throws IOException
     {
         if (currentTestSuite == null)
         {
@@ -324,33 +744,43 @@ public class Coordinator
             throw new IOException("No student programs found in root folder. Please check that the root folder contains student submission subfolders, each with a Java file containing a main method.");
         }
         
-        // Get all test cases in the current suite
-        List<TestCase> testCases = new ArrayList<>();
-        for (String filename : currentTestSuite.getTestCaseFilenames())
-        {
-            TestCase tc = getTestCaseByFilename(filename);
-            if (tc != null)
-            {
-                testCases.add(tc);
-            }
-        }
-        
-        // Check if any test cases were found
-        if (testCases.isEmpty())
-        {
-            throw new IOException("No test cases found in the selected test suite. Please add test cases to the suite first.");
-        }
+        // Get all test cases in the current suite (generated instances are produced lazily)
+        Iterable<TestCase> testCases = resolveSuiteTestCases(currentTestSuite);
+        runtimeErrorIndex.clear();
+        resultsIndex.clear();
+        outputSearchIndex = new OutputSearchIndex(); // New object: a saved run may still hold the old one
+        String effectiveCodePath = codePath != null ? codePath : "";
+        Map<String, TestResult> completed = openResultsJournal(effectiveCodePath, resume);
         
         // For each program, test with each test case
-        for (Program program : listOfPrograms.getPrograms())
+        try
         {
-            for (TestCase testCase : testCases)
+            for (Program program : listOfPrograms.getPrograms())
             {
-                // Delegate execution to Program class
-                TestResult result = program.executeTestCase(testCase);
-                results.add(result);
+                Map<String, Integer> titleCounts = new HashMap<>(); // Test cases may share a title
+                for (TestCase testCase : testCases)
+                {
+                    // A journaled result is reused if the test still expects the same output
+                    int occurrence = titleCounts.merge(testCase.getTitle(), 1, Integer::sum) - 1;
+                    TestResult result = completed.remove(ResultsJournal.key(program.getName(), testCase.getTitle(), occurrence));
+                    if (result != null && sameExpectedOutput(result, testCase))
+                    {
+                        indexResult(result);
+                    }
+                    else
+                    {
+                        // Delegate execution to Program class
+                        result = program.executeTestCase(testCase);
+                        recordResult(result, occurrence);
+                    }
+                    results.add(result);
+                }
             }
         }
+        finally
+        {
+            closeResultsJournal();
+        }
         
         // Add entries for skipped folders (no main method found)
         List<String> skippedFolders = listOfPrograms.getSkippedFolders();
@@ -366,18 +796,370 @@ public class Coordinator
                 ""
             );
             results.add(skippedResult);
+            resultsIndex.add(skippedResult);
         }
         
         // Store results for UI retrieval (create a copy to prevent modification)
         lastExecutionResults = new ArrayList<>(results);
-        lastExecutionCodePath = codePath != null ? codePath : "";
+        lastExecutionCodePath = effectiveCodePath;
         lastExecutionRootFolder = rootFolder;
         
         return results;
     }
 
+    // True if a journaled result was graded against the expected output the test case has now
+    private static boolean sameExpectedOutput(TestResult result, TestCase testCase)
+    {
+        try
+        {
+            File expectedFile = testCase.getExpectedFile();
+            String expected = expectedFile != null
+                    ? new String(Files.readAllBytes(expectedFile.toPath()), StandardCharsets.UTF_8)
+                    : testCase.getExpectedOutput();
+            return Objects.equals(result.getExpectedOutput(), expected);
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            return false; // Unreadable test case: run it, which records the error
+        }
+    }
+
+    /**
+     * Returns the journal file of the current suite (saveFolder/results-journal/<suite>.journal),
+     * or null if no save folder or suite is set.
+     */
+    public File getResultsJournalFile()
+    {
+        TestSuite suite = currentTestSuite;
+        if (saveFolder == null || saveFolder.isEmpty() || suite == null)
+        {
+            return null;
+        }
+        String name = suite.getFilename().replaceAll("\\.suite$", "") + ResultsJournal.EXTENSION;
+        return new File(new File(saveFolder, "results-journal"), name);
+    }
+
+    /**
+     * Returns true if the current suite has a journal a run can resume from.
+     */
+    public boolean hasResultsJournal()
+    {
+        File journalFile = getResultsJournalFile();
+        return journalFile != null && journalFile.isFile();
+    }
+
+    /**
+     * Rebuilds the results of a run from its journal, without running anything.
+     */
+    public TestExecutionResults loadResultsJournal(File file) throws IOException
+    {
+        TestExecutionResults results = ResultsJournal.read(file);
+        for (TestResult result : results.getResults())
+        {
+            result.spillLargeOutput();
+            result.shareStrings(outputPool);
+        }
+        return results;
+    }
+
+    // Opens the suite's journal for a run; returns the results it already holds when resuming
+    // (keyed by student and test case title). Without a save folder the run is not journaled
+    private Map<String, TestResult> openResultsJournal(String codePath, boolean resume) throws IOException
+    {
+        closeResultsJournal();
+        Map<String, TestResult> completed = new HashMap<>();
+        File journalFile = getResultsJournalFile();
+        if (journalFile == null)
+        {
+            return completed;
+        }
+
+        if (resume && journalFile.isFile())
+        {
+            ResultsJournal journal = ResultsJournal.resume(journalFile);
+            TestExecutionResults previous = journal.getRecoveredResults();
+            if (!previous.getRootFolderPath().equals(rootFolder) || !previous.getCodePath().equals(codePath))
+            {
+                journal.close();
+                throw new IOException("The journal of this suite was written for another run ("
+                        + previous.getRootFolderPath() + ", code path \"" + previous.getCodePath() + "\"). "
+                        + "Run without resuming to start a new journal.");
+            }
+            completed.putAll(journal.getRecoveredResultsByKey());
+            resultsJournal = journal;
+        }
+        else
+        {
+            resultsJournal = ResultsJournal.create(journalFile, currentTestSuite.getTitle(), rootFolder, codePath);
+        }
+        return completed;
+    }
+
+    private void closeResultsJournal()
+    {
+        ResultsJournal journal = resultsJournal;
+        resultsJournal = null;
+        if (journal != null)
+        {
+            try
+            {
+                journal.close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error closing results journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // Helper method to look up the test cases referenced by a suite
+    // Generators contribute their instances, which are created on the fly while iterating
+    // Generators without an expected template take their expected output from the reference solution
+    // Throws if none of the referenced test cases exist
+    private Iterable<TestCase> resolveSuiteTestCases(TestSuite suite) throws IOException
+    {
+        ReferenceOracle oracle = referenceOracle;
+        List<Iterable<TestCase>> parts = new ArrayList<>();
+        for (String filename : suite.getTestCaseFilenames())
+        {
+            TestCase tc = getTestCaseByFilename(filename);
+            TestCaseGenerator generator = getGeneratorByFilename(filename);
+            if (tc != null)
+            {
+                parts.add(java.util.Collections.singletonList(tc));
+            }
+            else if (generator != null && oracle != null
+                    && (generator.getExpectedTemplate() == null || generator.getExpectedTemplate().trim().isEmpty()))
+            {
+                parts.add(withReferenceOutputs(generator.instances(), oracle));
+            }
+            else if (generator != null)
+            {
+                parts.add(generator.instances());
+            }
+        }
+
+        Iterable<TestCase> testCases = () -> parts.stream()
+                .flatMap(part -> java.util.stream.StreamSupport.stream(part.spliterator(), false))
+                .iterator();
+        
+        // Check if any test cases were found
+        if (!testCases.iterator().hasNext())
+        {
+            throw new IOException("No test cases found in the selected test suite. Please add test cases to the suite first.");
+        }
+        return testCases;
+    }
+
+    // Fills in each test case's expected output from the reference solution as it is iterated
+    // Instances are drawn REFERENCE_BATCH at a time and each batch runs in parallel, so a large
+    // generator is never materialized up front
+    private Iterable<TestCase> withReferenceOutputs(Iterable<TestCase> testCases, ReferenceOracle oracle)
+    {
+        return () -> new java.util.Iterator<TestCase>()
+        {
+            private final java.util.Iterator<TestCase> source = testCases.iterator();
+            private final java.util.ArrayDeque<TestCase> batch = new java.util.ArrayDeque<>();
+
+            @Override
+            public boolean hasNext()
+            {
+                if (batch.isEmpty())
+                {
+                    fillBatch();
+                }
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public TestCase next()
+            {
+                if (!hasNext())
+                {
+                    throw new java.util.NoSuchElementException();
+                }
+                return batch.removeFirst();
+            }
+
+            private void fillBatch()
+            {
+                List<TestCase> next = new ArrayList<>();
+                while (next.size() < REFERENCE_BATCH && source.hasNext())
+                {
+                    next.add(source.next());
+                }
+                try
+                {
+                    oracle.prefetch(next); // Run the reference once per input, in parallel
+                }
+                catch (IOException e)
+                {
+                    // Reported below for the instance that failed
+                }
+                for (TestCase testCase : next)
+                {
+                    batch.add(withReferenceOutput(testCase, oracle));
+                }
+            }
+        };
+    }
+
+    // Sets a generated instance's expected output to the reference output. If the reference cannot
+    // produce it, the instance is replaced by one whose body fails to load, so Program records an
+    // error for it instead of comparing against an empty expected output.
+    private static TestCase withReferenceOutput(TestCase testCase, ReferenceOracle oracle)
+    {
+        try
+        {
+            testCase.setExpectedOutput(oracle.getExpectedOutput(testCase));
+            return testCase;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Reference output unavailable: " + e.getMessage());
+            TestCase failed = TestCase.withBodyLoader(testCase.getTitle(), testCase.getType(), null, () -> {
+                throw new IOException("Reference output unavailable: " + e.getMessage(), e);
+            });
+            failed.setDefinitionFilename(testCase.getDefinitionFilename());
+            return failed;
+        }
+    }
+
+    /**
+     * Starts watch mode: grades every submission in the root folder once, then keeps
+     * watching it and regrades only submissions that are added or modified.
+     * Returns the live results object, which is updated in place as students are graded.
+     */
+    public TestExecutionResults startWatchMode(String codePath, SubmissionWatcher.Listener listener) throws IOException
+    {
+        if (currentTestSuite == null)
+        {
+            throw new IOException("No test suite selected");
+        }
+        if (rootFolder == null || rootFolder.isEmpty())
+        {
+            throw new IOException("Root folder not set");
+        }
+        File rootFolderFile = new File(rootFolder);
+        if (!rootFolderFile.exists() || !rootFolderFile.isDirectory())
+        {
+            throw new IOException("Root folder does not exist or is not a directory: " + rootFolder);
+        }
+
+        stopWatchMode();
+        Iterable<TestCase> testCases = resolveSuiteTestCases(currentTestSuite);
+
+        String effectiveCodePath = codePath != null ? codePath : "";
+        TestExecutionResults liveResults = new TestExecutionResults(
+                currentTestSuite.getTitle(), rootFolder, effectiveCodePath, new ArrayList<>());
+        lastExecutionResults = new ArrayList<>();
+        lastExecutionCodePath = effectiveCodePath;
+        lastExecutionRootFolder = rootFolder;
+        runtimeErrorIndex.clear();
+        resultsIndex.clear();
+        OutputSearchIndex searchIndex = new OutputSearchIndex();
+        outputSearchIndex = searchIndex;
+        openResultsJournal(effectiveCodePath, false); // Watch mode regrades everything, so it always starts over
+
+        // Keep lastExecutionResults in step with the live results so the results/comparison screens work
+        submissionWatcher = new SubmissionWatcher(rootFolderFile, effectiveCodePath, testCases, liveResults,
+                (studentName, results) -> {
+                    lastExecutionResults = liveResults.getResults();
+                    runtimeErrorIndex.removeStudent(studentName); // A regrade replaces the student's results
+                    searchIndex.removeStudent(studentName);
+                    for (TestResult replaced : resultsIndex.removeStudent(studentName))
+                    {
+                        replaced.deleteSpilledOutput(); // Otherwise every regrade would leave its temp files behind
+                    }
+                    Map<String, Integer> titleCounts = new HashMap<>();
+                    for (TestResult result : results)
+                    {
+                        recordResult(result, titleCounts.merge(result.getTestCaseTitle(), 1, Integer::sum) - 1);
+                    }
+                    if (listener != null)
+                    {
+                        listener.submissionGraded(studentName, results);
+                    }
+                });
+        submissionWatcher.start();
+        return liveResults;
+    }
+
+    // Called for every result as soon as it is produced, so indexes over the run are built while it
+    // executes and the result is on disk before the next one starts. occurrence counts the earlier
+    // test cases with the same title, which tells them apart in the journal
+    private void recordResult(TestResult result, int occurrence)
+    {
+        ResultsJournal journal = resultsJournal;
+        if (journal != null)
+        {
+            try
+            {
+                journal.append(result, occurrence);
+            }
+            catch (IOException e)
+            {
+                // The run goes on without a journal rather than failing
+                System.err.println("Error writing results journal, journaling stopped: " + e.getMessage());
+                closeResultsJournal();
+            }
+        }
+        indexResult(result);
+    }
+
+    // The indexes read the output while it is still in memory; only then is a very large one
+    // moved to a temporary file, and only then are its strings shared (huge outputs are not pooled)
+    private void indexResult(TestResult result)
+    {
+        runtimeErrorIndex.add(result);
+        outputSearchIndex.add(result);
+        result.spillLargeOutput();
+        result.shareStrings(outputPool);
+        resultsIndex.add(result);
+    }
+
+    /**
+     * Returns the full-text index over the outputs of the last run (or the current watch mode session).
+     */
+    public OutputSearchIndex getOutputSearchIndex()
+    {
+        return outputSearchIndex;
+    }
+
+    /**
+     * Returns the index of runtime errors of the last run (or the current watch mode session).
+     */
+    public RuntimeErrorIndex getRuntimeErrorIndex()
+    {
+        return runtimeErrorIndex;
+    }
+
+    /**
+     * Stops watch mode if it is running. Results gathered so far stay available.
+     */
+    public void stopWatchMode()
+    {
+        if (submissionWatcher != null)
+        {
+            submissionWatcher.stop();
+            submissionWatcher = null;
+        }
+        closeResultsJournal();
+    }
+
+    /**
+     * Returns true while watch mode is grading the root folder.
+     */
+    public boolean isWatchModeRunning()
+    {
+        return submissionWatcher != null && submissionWatcher.isRunning();
+    }
+
+    // Active watch mode session (null when not watching)
+    private volatile SubmissionWatcher submissionWatcher;
+
     // Store last execution results for UI retrieval
-    private List<TestResult> lastExecutionResults = new ArrayList<>();
+    private volatile List<TestResult> lastExecutionResults = new ArrayList<>();
     private String lastExecutionCodePath = "";
     private String lastExecutionRootFolder = "";
     
@@ -396,18 +1178,18 @@ public class Coordinator
         return lastExecutionRootFolder;
     }
     
-    // Get a specific test result by student name and test case title
+    // Get a specific test result by student name and test case title (the first test case with that title)
     public TestResult getTestResult(String studentName, String testCaseTitle)
     {
-        for (TestResult result : lastExecutionResults)
-        {
-            if (result.getStudentName().equals(studentName) && 
-                result.getTestCaseTitle().equals(testCaseTitle))
-            {
-                return result;
-            }
-        }
-        return null;
+        return resultsIndex.get(studentName, testCaseTitle);
+    }
+
+    /**
+     * Returns the results of the last run (or the current watch mode session) by student and test case.
+     */
+    public ResultsIndex getResultsIndex()
+    {
+        return resultsIndex;
     }
 
     /**
@@ -420,26 +1202,60 @@ public class Coordinator
     }
     
     /**
-     * Saves test execution results to a file using object serialization.
+     * Saves test execution results to a binary results file (see ResultsFile).
      * Allows results to be stored and reloaded later for comparison.
      */
     public void saveTestExecutionResults(TestExecutionResults results, File file) throws IOException
     {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file)))
-        {
-            oos.writeObject(results);
-        }
+        // Save the search index built during the run with the results (built from the results otherwise)
+        results.useSearchIndex(outputSearchIndex);
+        ResultsFile.write(results, file);
     }
     
     /**
-     * Loads test execution results from a file using object deserialization.
+     * Loads test execution results from a binary results file, or from a .ser file
+     * saved with object serialization by earlier versions.
      * Restores previously saved test results for viewing or comparison.
+     * A binary file is memory-mapped: outputs are read when a result's output is viewed (see ResultsStore).
      */
     public TestExecutionResults loadTestExecutionResults(File file) throws IOException, ClassNotFoundException
     {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file)))
+        if (ResultsFile.isResultsFile(file))
+        {
+            return ResultsStore.open(file).getResults();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new java.io.BufferedInputStream(new FileInputStream(file))))
+        {
+            TestExecutionResults results = (TestExecutionResults) ois.readObject();
+            for (TestResult result : results.getResults())
+            {
+                result.spillLargeOutput();
+                result.shareStrings(outputPool); // Equal outputs were saved as separate copies
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Compares any number of saved result sets (e.g. rounds of resubmission), loaded in
+     * parallel, in the order given. See ComparisonEngine.
+     */
+    public ComparisonEngine.Comparison compareResults(List<File> files) throws IOException
+    {
+        return ComparisonEngine.compare(files, this::loadTestExecutionResults);
+    }
+
+    /**
+     * Converts results saved with object serialization (.ser) to binary results files
+     * next to them. Returns the converted files.
+     */
+    public List<File> convertSerializedResults(List<File> serFiles) throws IOException
+    {
+        List<File> converted = new ArrayList<>();
+        for (File serFile : serFiles)
         {
-            return (TestExecutionResults) ois.readObject();
+            converted.add(ResultsFile.convertSerializedFile(serFile));
         }
+        return converted;
     }
 }
@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for Coordinator: loading a save folder lazily, and switching to another one.
+ */
+public class CoordinatorTest
+{
+    private File first;
+    private File second;
+    private Coordinator coordinator;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        first = Files.createTempDirectory("coordinator-test").toFile();
+        second = Files.createTempDirectory("coordinator-test").toFile();
+        coordinator = new Coordinator();
+    }
+
+    @After
+    public void tearDown()
+    {
+        coordinator.setSaveFolder(new File(first, "none").getPath()); // Stops watching both folders
+        ResultsFileTest.deleteRecursively(first);
+        ResultsFileTest.deleteRecursively(second);
+    }
+
+    @Test
+    public void saveFolderIsLoadedWithoutTheBodies() throws IOException
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(first.getPath());
+        TestSuite suite = new TestSuite("Week 1");
+        suite.addTestCaseFilename("Sum.testcase");
+        suite.saveToFile(first.getPath());
+
+        coordinator.setSaveFolder(first.getPath());
+        TestCase loaded = coordinator.getListOfTestCases().getTestCaseByFilename("Sum.testcase");
+        assertNotNull(loaded);
+        assertTrue(!loaded.isBodyLoaded());
+        assertEquals("3", loaded.getExpectedOutput());
+        assertNotNull(coordinator.getListOfTestSuites().findSuiteByTitle("Week 1"));
+    }
+
+    @Test
+    public void switchingFoldersDropsThePreviousDefinitions() throws IOException
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(first.getPath());
+        new TestSuite("Week 1").saveToFile(first.getPath());
+        new TestCaseGenerator("Add", "Int", "${a}", "${a}", "a=1..3").saveToFile(first.getPath());
+        new TestCase("Product", "2 3", "6", "Int").saveToFile(second.getPath());
+
+        coordinator.setSaveFolder(first.getPath());
+        coordinator.loadTestSuite();
+        assertNotNull(coordinator.getCurrentTestSuite());
+        assertEquals(1, coordinator.getListOfGenerators().getGenerators().size());
+
+        coordinator.setSaveFolder(second.getPath());
+        assertNull(coordinator.getListOfTestCases().getTestCaseByFilename("Sum.testcase"));
+        assertNull(coordinator.getListOfTestCases().getTestCaseByTitle("Sum"));
+        assertNotNull(coordinator.getListOfTestCases().getTestCaseByFilename("Product.testcase"));
+        assertTrue(coordinator.getAllTestSuites().isEmpty());
+        assertNull(coordinator.getListOfTestSuites().findSuiteByTitle("Week 1"));
+        assertTrue(coordinator.getListOfGenerators().getGenerators().isEmpty());
+        assertNull(coordinator.getCurrentTestSuite());
+    }
+
+    @Test
+    public void previousFolderIsNoLongerWatched() throws Exception
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(first.getPath());
+        new File(second, "test-cases").mkdirs();
+        coordinator.setSaveFolder(first.getPath());
+        coordinator.setSaveFolder(second.getPath());
+
+        new TestCase("Late", "", "", "String").saveToFile(first.getPath());
+        Thread.sleep(1500); // Past the watcher's debounce period
+        assertNull(coordinator.getListOfTestCases().getTestCaseByTitle("Late"));
+        assertTrue(coordinator.getListOfTestCases().getTestCases().isEmpty());
+    }
+}
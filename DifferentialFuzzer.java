@@ -0,0 +1,632 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differential fuzzing: draws random inputs from a generator's parameter spec, runs a student's
+ * program and the reference solution on each, and reports the smallest input where they disagree.
+ *
+ * Starting a JVM per input would cap this at a few runs per second, so each worker thread keeps one
+ * FuzzHarness JVM per program alive and sends it inputs in batches. Disagreements are shrunk by
+ * trying smaller variants of the input (fewer tokens, smaller numbers, shorter words) in batches
+ * until no smaller variant still disagrees.
+ */
+public class DifferentialFuzzer
+{
+    // Inputs sent to a harness in one round trip
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    // Longest a single run may take before it counts as a timeout
+    private static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+    // Upper bound on shrinking rounds (each round is one batch of candidates)
+    private static final int MAX_SHRINK_ROUNDS = 200;
+
+    // Tokens of an input: runs of characters that are not whitespace or commas
+    private static final Pattern TOKEN = Pattern.compile("[^\\s,]+");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    private final Program student;
+    private final Program reference;
+    private final String type; // Test case type, decides how outputs are compared
+    private final int threads;
+    private final int batchSize;
+    private final long timeoutMillis;
+
+    /**
+     * Result of a fuzzing session.
+     */
+    public static class FuzzReport
+    {
+        private final long executions; // Inputs run on both programs
+        private final long rejected; // Inputs the reference itself failed on (not valid inputs)
+        private final long elapsedMillis;
+        private final String originalInput; // First disagreeing input found, null if none
+        private final String smallestInput; // originalInput after shrinking
+        private final String studentOutput; // Outputs for smallestInput
+        private final String referenceOutput;
+
+        FuzzReport(long executions, long rejected, long elapsedMillis, String originalInput,
+                   String smallestInput, String studentOutput, String referenceOutput)
+        {
+            this.executions = executions;
+            this.rejected = rejected;
+            this.elapsedMillis = elapsedMillis;
+            this.originalInput = originalInput;
+            this.smallestInput = smallestInput;
+            this.studentOutput = studentOutput;
+            this.referenceOutput = referenceOutput;
+        }
+
+        public long getExecutions() { return executions; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public String getOriginalInput() { return originalInput; }
+        public String getSmallestInput() { return smallestInput; }
+        public String getStudentOutput() { return studentOutput; }
+        public String getReferenceOutput() { return referenceOutput; }
+
+        public boolean foundDisagreement()
+        {
+            return smallestInput != null;
+        }
+
+        public double getExecutionsPerSecond()
+        {
+            return elapsedMillis > 0 ? executions * 1000.0 / elapsedMillis : executions;
+        }
+
+        @Override
+        public String toString()
+        {
+            String summary = String.format("%d executions in %.1f s (%.0f/s), %d inputs rejected by the reference",
+                    executions, elapsedMillis / 1000.0, getExecutionsPerSecond(), rejected);
+            if (!foundDisagreement())
+            {
+                return summary + "\nNo disagreement found.";
+            }
+            return summary
+                    + "\nSmallest disagreeing input: " + smallestInput
+                    + "\nStudent output:   " + studentOutput
+                    + "\nReference output: " + referenceOutput
+                    + "\n(first found with input: " + originalInput + ")";
+        }
+    }
+
+    /**
+     * Constructor: fuzzes student against reference using the default batch size and timeout,
+     * with one worker per processor.
+     */
+    public DifferentialFuzzer(Program student, Program reference, String type)
+    {
+        this(student, reference, type, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor: threads workers (each with two harness JVMs), batchSize inputs per round trip.
+     */
+    public DifferentialFuzzer(Program student, Program reference, String type, int threads, int batchSize, long timeoutMillis)
+    {
+        this.student = student;
+        this.reference = reference;
+        this.type = type;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs up to executions random inputs drawn from spec (seeded, so a session can be repeated),
+     * stops at the first disagreement and shrinks it.
+     */
+    public FuzzReport fuzz(TestCaseGenerator spec, long seed, long executions) throws IOException
+    {
+        if (!student.ensureCompiled())
+        {
+            throw new IOException("Submission does not compile: " + student.getName());
+        }
+        if (!reference.ensureCompiled())
+        {
+            throw new IOException("Reference solution does not compile: " + reference.getName());
+        }
+
+        long start = System.currentTimeMillis();
+        long batches = (executions + batchSize - 1) / batchSize;
+        AtomicLong nextBatch = new AtomicLong();
+        AtomicLong executed = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicBoolean found = new AtomicBoolean(false);
+        List<String> disagreements = java.util.Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> running = new ArrayList<>();
+        for (int w = 0; w < threads; w++)
+        {
+            running.add(workers.submit(() -> {
+                try (HarnessPair pair = new HarnessPair())
+                {
+                    long batch;
+                    while (!found.get() && (batch = nextBatch.getAndIncrement()) < batches)
+                    {
+                        long size = Math.min(batchSize, executions - batch * batchSize);
+                        List<String> inputs = new ArrayList<>();
+                        for (TestCase instance : spec.randomInstances(seed * 1_000_003L + batch, size))
+                        {
+                            try
+                            {
+                                inputs.add(instance.getInputData());
+                            }
+                            catch (UncheckedIOException e)
+                            {
+                                rejected.incrementAndGet(); // These values cannot fill the template (e.g. a division by zero)
+                            }
+                        }
+
+                        List<Execution> studentRuns = pair.student.run(inputs);
+                        List<Execution> referenceRuns = pair.reference.run(inputs);
+                        executed.addAndGet(inputs.size());
+                        for (int i = 0; i < inputs.size(); i++)
+                        {
+                            if (!referenceRuns.get(i).succeeded())
+                            {
+                                rejected.incrementAndGet();
+                            }
+                            else if (disagree(studentRuns.get(i), referenceRuns.get(i)))
+                            {
+                                disagreements.add(inputs.get(i));
+                                found.set(true);
+                            }
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        try
+        {
+            waitFor(running);
+        }
+        finally
+        {
+            workers.shutdownNow();
+        }
+
+        if (disagreements.isEmpty())
+        {
+            return new FuzzReport(executed.get(), rejected.get(), System.currentTimeMillis() - start,
+                    null, null, null, null);
+        }
+
+        // Start shrinking from the smallest disagreement of the batches that found one
+        String original = disagreements.get(0);
+        for (String input : disagreements)
+        {
+            if (isSmaller(input, original))
+            {
+                original = input;
+            }
+        }
+        try (HarnessPair pair = new HarnessPair())
+        {
+            String smallest = shrink(pair, original, executed);
+            Execution studentRun = pair.student.run(java.util.Collections.singletonList(smallest)).get(0);
+            Execution referenceRun = pair.reference.run(java.util.Collections.singletonList(smallest)).get(0);
+            return new FuzzReport(executed.get(), rejected.get(), System.currentTimeMillis() - start,
+                    original, smallest, studentRun.describe(), referenceRun.describe());
+        }
+    }
+
+    // Repeatedly replaces the input with its smallest variant that still disagrees
+    private String shrink(HarnessPair pair, String input, AtomicLong executed) throws IOException
+    {
+        String current = input;
+        for (int round = 0; round < MAX_SHRINK_ROUNDS; round++)
+        {
+            List<String> candidates = shrinkCandidates(current);
+            if (candidates.isEmpty())
+            {
+                break;
+            }
+            List<Execution> studentRuns = pair.student.run(candidates);
+            List<Execution> referenceRuns = pair.reference.run(candidates);
+            executed.addAndGet(candidates.size());
+
+            String best = null;
+            for (int i = 0; i < candidates.size(); i++)
+            {
+                if (referenceRuns.get(i).succeeded() && disagree(studentRuns.get(i), referenceRuns.get(i))
+                        && (best == null || isSmaller(candidates.get(i), best)))
+                {
+                    best = candidates.get(i);
+                }
+            }
+            if (best == null)
+            {
+                break; // Local minimum: no smaller variant disagrees
+            }
+            current = best;
+        }
+        return current;
+    }
+
+    // Smaller variants of an input: chunks and single tokens removed, numbers moved toward 0, words shortened
+    private List<String> shrinkCandidates(String input)
+    {
+        List<int[]> tokens = new ArrayList<>(); // {start, end} of each token
+        Matcher matcher = TOKEN.matcher(input);
+        while (matcher.find())
+        {
+            tokens.add(new int[] { matcher.start(), matcher.end() });
+        }
+
+        java.util.LinkedHashSet<String> candidates = new java.util.LinkedHashSet<>();
+        // Remove chunks of tokens, large chunks first (as in delta debugging)
+        for (int chunk = tokens.size() / 2; chunk >= 1; chunk /= 2)
+        {
+            for (int from = 0; from + chunk <= tokens.size(); from += chunk)
+            {
+                candidates.add(removeTokens(input, tokens, from, from + chunk));
+            }
+        }
+        // Simplify single tokens
+        for (int[] token : tokens)
+        {
+            String text = input.substring(token[0], token[1]);
+            String prefix = input.substring(0, token[0]);
+            String suffix = input.substring(token[1]);
+            for (String simpler : simplerTokens(text))
+            {
+                candidates.add(prefix + simpler + suffix);
+            }
+        }
+        candidates.remove(input);
+
+        List<String> smaller = new ArrayList<>();
+        for (String candidate : candidates)
+        {
+            if (isSmaller(candidate, input))
+            {
+                smaller.add(candidate);
+            }
+        }
+        return smaller;
+    }
+
+    // Removes tokens [from, to) together with the separator that follows them (or precedes the last one)
+    private static String removeTokens(String input, List<int[]> tokens, int from, int to)
+    {
+        int start = tokens.get(from)[0];
+        int end = to < tokens.size() ? tokens.get(to)[0] : input.length();
+        if (to == tokens.size() && from > 0)
+        {
+            start = tokens.get(from - 1)[1]; // Drop the separator before a trailing chunk
+        }
+        return input.substring(0, start) + input.substring(end);
+    }
+
+    private static List<String> simplerTokens(String token)
+    {
+        List<String> simpler = new ArrayList<>();
+        if (NUMBER.matcher(token).matches())
+        {
+            try
+            {
+                if (token.contains("."))
+                {
+                    double value = Double.parseDouble(token);
+                    simpler.add("0.0");
+                    simpler.add(Long.toString((long) value));
+                    simpler.add(Double.toString(Math.abs(value) / 2));
+                }
+                else
+                {
+                    long value = Long.parseLong(token);
+                    simpler.add("0");
+                    simpler.add(Long.toString(Math.abs(value)));
+                    simpler.add(Long.toString(value / 2));
+                    simpler.add(Long.toString(value - Long.signum(value)));
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                // Out of range for long; only shorten it like a word
+            }
+        }
+        if (token.length() > 1)
+        {
+            simpler.add(token.substring(0, token.length() / 2));
+            simpler.add(token.substring(0, token.length() - 1));
+        }
+        return simpler;
+    }
+
+    // Order used by shrinking: shorter input first, then smaller numbers
+    private static boolean isSmaller(String a, String b)
+    {
+        if (a.length() != b.length())
+        {
+            return a.length() < b.length();
+        }
+        return magnitude(a) < magnitude(b);
+    }
+
+    private static double magnitude(String input)
+    {
+        double total = 0;
+        Matcher matcher = NUMBER.matcher(input);
+        while (matcher.find())
+        {
+            total += Math.abs(Double.parseDouble(matcher.group()));
+        }
+        return total;
+    }
+
+    // The reference succeeded; the student disagrees if it failed or printed something else
+    private boolean disagree(Execution studentRun, Execution referenceRun)
+    {
+        return !studentRun.succeeded() || !Program.compareOutputs(studentRun.output, referenceRun.output, type);
+    }
+
+    private static void waitFor(List<Future<Void>> running) throws IOException
+    {
+        IOException failure = null;
+        for (Future<Void> future : running)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(String.valueOf(e.getCause()));
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Fuzzing interrupted");
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    // Outcome of running one input
+    private static class Execution
+    {
+        final int status; // FuzzHarness.STATUS_*
+        final int exitCode;
+        final String output;
+
+        Execution(int status, int exitCode, String output)
+        {
+            this.status = status;
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        boolean succeeded()
+        {
+            return status == FuzzHarness.STATUS_OK;
+        }
+
+        // Output as shown in the report, with the failure kind if it did not succeed
+        String describe()
+        {
+            switch (status)
+            {
+                case FuzzHarness.STATUS_TIMEOUT: return "TIMEOUT " + output;
+                case FuzzHarness.STATUS_EXCEPTION: return "RUNTIME ERROR " + output;
+                case FuzzHarness.STATUS_EXIT: return "EXIT " + exitCode + " " + output;
+                default: return output;
+            }
+        }
+    }
+
+    // The two harnesses a worker talks to
+    private class HarnessPair implements AutoCloseable
+    {
+        final Harness student = new Harness(DifferentialFuzzer.this.student);
+        final Harness reference = new Harness(DifferentialFuzzer.this.reference);
+
+        @Override
+        public void close()
+        {
+            student.close();
+            reference.close();
+        }
+    }
+
+    /**
+     * One long-lived FuzzHarness JVM running one program. Restarted after a timeout; an input that
+     * ends the JVM some other way is rerun in its own process. If the harness reports that it cannot
+     * trap System.exit on this JVM, every input is run in its own process from then on.
+     */
+    private class Harness implements AutoCloseable
+    {
+        private final Program program;
+        private Process process;
+        private DataOutputStream requests;
+        private DataInputStream responses;
+        private boolean processPerInput; // Set once the harness cannot be used on this JVM
+
+        Harness(Program program)
+        {
+            this.program = program;
+        }
+
+        List<Execution> run(List<String> inputs) throws IOException
+        {
+            List<Execution> executions = new ArrayList<>();
+            while (executions.size() < inputs.size())
+            {
+                ensureStarted();
+                if (processPerInput)
+                {
+                    executions.add(runInOwnProcess(inputs.get(executions.size())));
+                    continue;
+                }
+                List<String> remaining = inputs.subList(executions.size(), inputs.size());
+                int answered = sendBatch(remaining, executions);
+                if (answered < remaining.size())
+                {
+                    close(); // Harness ended mid-batch
+                    if (answered == 0 || executions.get(executions.size() - 1).status != FuzzHarness.STATUS_TIMEOUT)
+                    {
+                        executions.add(runInOwnProcess(remaining.get(answered)));
+                    }
+                }
+            }
+            return executions;
+        }
+
+        // Sends inputs and collects answers until all are in or the harness ends; returns how many were answered
+        private int sendBatch(List<String> inputs, List<Execution> executions) throws IOException
+        {
+            int answered = 0;
+            try
+            {
+                requests.writeInt(inputs.size());
+                for (String input : inputs)
+                {
+                    byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                    requests.writeInt(bytes.length);
+                    requests.write(bytes);
+                }
+                requests.flush();
+
+                for (; answered < inputs.size(); answered++)
+                {
+                    int status = responses.readInt();
+                    int exitCode = responses.readInt();
+                    byte[] output = new byte[responses.readInt()];
+                    responses.readFully(output);
+                    executions.add(new Execution(status, exitCode, new String(output, StandardCharsets.UTF_8).trim()));
+                }
+            }
+            catch (EOFException e)
+            {
+                // Harness ended; the caller decides what to do with the rest
+            }
+            catch (IOException e)
+            {
+                if (process == null || process.isAlive())
+                {
+                    throw e;
+                }
+                // Broken pipe from a harness that ended while we were still writing
+            }
+            return answered;
+        }
+
+        // Exact fallback: runs one input the normal way, in a fresh JVM
+        private Execution runInOwnProcess(String input)
+        {
+            Program.RunResult result = program.runWithInput(new TestCase("fuzz", input, "", type));
+            int status = result.succeeded() ? FuzzHarness.STATUS_OK : FuzzHarness.STATUS_EXIT;
+            int exitCode = result.getExitCode() != null ? result.getExitCode() : -1;
+            return new Execution(status, exitCode, result.getOutput().trim());
+        }
+
+        // Starts the harness unless it is running or cannot be used; reads its startup answer
+        private void ensureStarted() throws IOException
+        {
+            if (process != null || processPerInput)
+            {
+                return;
+            }
+            List<String> cmd = new ArrayList<>();
+            cmd.add("java");
+            cmd.add("-cp");
+            cmd.add(harnessClassPath());
+            cmd.add("FuzzHarness");
+            cmd.add(program.getSourceFile().getAbsoluteFile().getParent());
+            cmd.add(program.getMainClassName());
+            cmd.add(Long.toString(timeoutMillis));
+
+            process = new ProcessBuilder(cmd).start();
+            requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            drain(process.getErrorStream()); // JVM warnings only; program output goes through the protocol
+
+            boolean exitTrapped;
+            try
+            {
+                exitTrapped = responses.readInt() == 1;
+            }
+            catch (EOFException e)
+            {
+                exitTrapped = false; // The harness did not even start
+            }
+            if (!exitTrapped)
+            {
+                System.err.println("Fuzz harness unavailable on this JVM (System.exit cannot be trapped); "
+                        + "running each input in its own process");
+                processPerInput = true;
+                close();
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (process != null)
+            {
+                process.destroyForcibly();
+                process = null;
+            }
+        }
+    }
+
+    // Folder (or jar) the grader's own classes were loaded from, which contains FuzzHarness
+    private static String harnessClassPath() throws IOException
+    {
+        try
+        {
+            return new File(FuzzHarness.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        }
+        catch (java.net.URISyntaxException | NullPointerException e)
+        {
+            throw new IOException("Cannot locate the fuzz harness classes: " + e.getMessage());
+        }
+    }
+
+    // Reads and discards a stream on a daemon thread so the process never blocks on it
+    private static void drain(InputStream stream)
+    {
+        Thread drainer = new Thread(() -> {
+            byte[] buffer = new byte[4096];
+            try
+            {
+                while (stream.read(buffer) >= 0)
+                {
+                    // Discard
+                }
+            }
+            catch (IOException ignored) { }
+        }, "fuzz-harness-stderr");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+}
@@ -0,0 +1,139 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for DifferentialFuzzer and FuzzHarness: real student and reference programs are run
+ * on random inputs, disagreements (wrong output, exit, exception, timeout) are found and shrunk,
+ * and inputs the reference itself fails on are only counted.
+ */
+public class DifferentialFuzzerTest
+{
+    private static final String READ_A_B = "java.util.Scanner in = new java.util.Scanner(System.in);\n"
+            + "long a = in.nextLong(), b = in.nextLong();\n";
+
+    private File folder;
+    private Program reference;
+    private TestCaseGenerator spec;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("fuzzer-test").toFile();
+        reference = ProgramTest.writeProgram(new File(folder, "reference"), "Main", READ_A_B + "System.out.println(a + b);\n");
+        spec = new TestCaseGenerator("Add", "Int", "${a} ${b}", "${a+b}", "a=0..100; b=0..100");
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void agreeingProgramsRunEveryInput() throws IOException
+    {
+        Program student = student("System.out.println(b + a);\n");
+        DifferentialFuzzer.FuzzReport report = new DifferentialFuzzer(student, reference, "Int", 2, 16, 2000).fuzz(spec, 1, 100);
+
+        assertTrue(!report.foundDisagreement());
+        assertEquals(100, report.getExecutions());
+        assertEquals(0, report.getRejected());
+    }
+
+    @Test
+    public void disagreementIsShrunkToTheSmallestInput() throws IOException
+    {
+        Program student = student("System.out.println(a >= 10 ? a + b + 1 : a + b);\n");
+        DifferentialFuzzer.FuzzReport report = fuzzer(student).fuzz(spec, 1, 500);
+
+        assertTrue(report.foundDisagreement());
+        assertEquals("10 0", report.getSmallestInput());
+        assertEquals("11", report.getStudentOutput());
+        assertEquals("10", report.getReferenceOutput());
+    }
+
+    @Test
+    public void exitAndExceptionsAreDisagreements() throws IOException
+    {
+        DifferentialFuzzer.FuzzReport exit = fuzzer(student("if (a == 7) System.exit(3);\nSystem.out.println(a + b);\n"))
+                .fuzz(spec, 2, 2000);
+        assertEquals("7 0", exit.getSmallestInput());
+        assertTrue(exit.getStudentOutput(), exit.getStudentOutput().startsWith("EXIT 3"));
+
+        DifferentialFuzzer.FuzzReport thrown = fuzzer(student("if (a == 7) throw new IllegalStateException();\nSystem.out.println(a + b);\n"))
+                .fuzz(spec, 2, 2000);
+        assertEquals("7 0", thrown.getSmallestInput());
+        assertTrue(thrown.getStudentOutput(), thrown.getStudentOutput().startsWith("RUNTIME ERROR"));
+    }
+
+    @Test
+    public void timeoutIsADisagreementAndTheHarnessRecovers() throws IOException
+    {
+        Program student = student("while (a == 7) { }\nSystem.out.println(a + b);\n");
+        DifferentialFuzzer.FuzzReport report = new DifferentialFuzzer(student, reference, "Int", 1, 8, 300)
+                .fuzz(spec, 3, 2000);
+
+        assertEquals("7 0", report.getSmallestInput());
+        assertTrue(report.getStudentOutput(), report.getStudentOutput().startsWith("TIMEOUT"));
+    }
+
+    @Test
+    public void staticStateDoesNotLeakBetweenInputs() throws IOException
+    {
+        File submission = new File(folder, "student");
+        submission.mkdirs();
+        File source = new File(submission, "Main.java");
+        Files.write(source.toPath(), ("public class Main\n{\n    static int runs;\n\n"
+                + "    public static void main(String[] args)\n    {\n" + READ_A_B
+                + "runs++;\nSystem.out.println(runs == 1 ? a + b : -1);\n    }\n}\n").getBytes(StandardCharsets.UTF_8));
+        Program student = new Program("student", source);
+        DifferentialFuzzer.FuzzReport report = fuzzer(student).fuzz(spec, 4, 200);
+        assertTrue(report.toString(), !report.foundDisagreement());
+    }
+
+    @Test
+    public void inputsTheReferenceFailsOnAreRejected() throws IOException
+    {
+        reference = ProgramTest.writeProgram(new File(folder, "reference"), "Main",
+                READ_A_B + "if (a % 2 == 1) System.exit(1);\nSystem.out.println(a + b);\n");
+        Program student = student("System.out.println(a % 2 == 1 ? -1 : a + b);\n");
+        DifferentialFuzzer.FuzzReport report = fuzzer(student).fuzz(spec, 5, 200);
+
+        assertTrue(!report.foundDisagreement());
+        assertTrue(report.getRejected() > 0 && report.getRejected() < 200);
+    }
+
+    @Test
+    public void submissionThatDoesNotCompileIsAnError()
+    {
+        try
+        {
+            fuzzer(student("nope\n")).fuzz(spec, 1, 10);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().startsWith("Submission does not compile"));
+        }
+    }
+
+    private DifferentialFuzzer fuzzer(Program student)
+    {
+        return new DifferentialFuzzer(student, reference, "Int", 2, 32, 2000);
+    }
+
+    private Program student(String afterReading) throws IOException
+    {
+        return ProgramTest.writeProgram(new File(folder, "student"), "Main", READ_A_B + afterReading);
+    }
+}
@@ -0,0 +1,123 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lines of an output kept in a file (a spilled or captured output). Opening it scans the file
+ * once and records where each line starts; a line is read from disk only when it is asked for,
+ * so a viewer can page through hundreds of megabytes while holding just the visible lines.
+ */
+public class FileLineSource implements LineSource, Closeable
+{
+    // Longest part of a single line that is read (longer lines are cut off for display)
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private final File file;
+    private final RandomAccessFile access;
+    private final FileChannel channel;
+    private long[] lineStarts = new long[1024]; // Byte offset of the first byte of each line
+    private int lineCount;
+    private final long length;
+
+    /**
+     * Constructor: indexes the line starts of the file.
+     */
+    public FileLineSource(File file) throws IOException
+    {
+        this.file = file;
+        this.length = file.length();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16))
+        {
+            long offset = 0;
+            boolean atLineStart = true;
+            int previous = -1;
+            int b;
+            while ((b = in.read()) >= 0)
+            {
+                if (atLineStart && !(previous == '\r' && b == '\n'))
+                {
+                    addLineStart(offset);
+                    atLineStart = false;
+                }
+                if (b == '\n' || b == '\r')
+                {
+                    atLineStart = true;
+                }
+                previous = b;
+                offset++;
+            }
+        }
+        this.access = new RandomAccessFile(file, "r");
+        this.channel = access.getChannel();
+    }
+
+    private void addLineStart(long offset)
+    {
+        if (lineCount == lineStarts.length)
+        {
+            lineStarts = java.util.Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    /**
+     * Returns the file the lines are read from.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    @Override
+    public int getLineCount()
+    {
+        return lineCount;
+    }
+
+    @Override
+    public String getLine(int index)
+    {
+        long start = lineStarts[index];
+        long end = index + 1 < lineCount ? lineStarts[index + 1] : length;
+        boolean cut = end - start > MAX_LINE_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - start, MAX_LINE_BYTES));
+        try
+        {
+            // Positional reads do not move a shared file pointer, so this is safe from any thread
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, start + buffer.position()) < 0)
+                {
+                    break;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reading output file: " + file.getName() + " - " + e.getMessage());
+            return "";
+        }
+
+        int size = buffer.position();
+        byte[] bytes = buffer.array();
+        while (!cut && size > 0 && (bytes[size - 1] == '\n' || bytes[size - 1] == '\r'))
+        {
+            size--;
+        }
+        String line = new String(bytes, 0, size, StandardCharsets.UTF_8);
+        return cut ? line + " ... [line cut at " + MAX_LINE_BYTES + " bytes]" : line;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        access.close();
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a folder (and every folder below it) for changes using a WatchService.
+ * Changes are reported by the name of the top-level entry they happened under
+ * (e.g. the student folder "Alice" when "Alice/src/Main.java" is modified),
+ * and only once that entry has been quiet for the debounce period, so a student
+ * uploading ten files produces a single notification.
+ */
+public class FolderWatcher
+{
+    /**
+     * Receives the names of top-level entries that changed and have settled.
+     * Called on the watcher's background thread.
+     */
+    public interface ChangeListener
+    {
+        void onChanges(Set<String> changedNames);
+    }
+
+    private final Path folder; // Folder being watched
+    private final long debounceMillis; // Quiet period required before a change is reported
+    private final ChangeListener listener; // Receives settled changes
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>(); // Registered directories
+    private final Map<String, Long> pendingChanges = new HashMap<>(); // Entry name -> time of last event
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running = false;
+
+    /**
+     * Constructor: prepares a watcher for the given folder.
+     * Nothing is watched until start() is called.
+     */
+    public FolderWatcher(File folder, long debounceMillis, ChangeListener listener)
+    {
+        this.folder = folder.toPath().toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Registers the folder tree and starts the background watch thread.
+     */
+    public synchronized void start() throws IOException
+    {
+        if (running)
+        {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        registerTree(folder);
+
+        running = true;
+        watchThread = new Thread(this::watchLoop, "FolderWatcher-" + folder.getFileName());
+        watchThread.setDaemon(true); // Never keep the application alive on its own
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching and releases the WatchService. Pending changes are discarded.
+     */
+    public synchronized void stop()
+    {
+        running = false;
+        if (watchService != null)
+        {
+            try
+            {
+                watchService.close(); // Wakes the watch thread up
+            }
+            catch (IOException ignored) { }
+        }
+        if (watchThread != null)
+        {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+        watchedDirs.clear();
+        pendingChanges.clear();
+    }
+
+    /**
+     * Returns true while the watcher is active.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    // Main loop of the watch thread
+    // Collects events into pendingChanges and flushes entries that have settled
+    private void watchLoop()
+    {
+        while (running)
+        {
+            try
+            {
+                // Wake up regularly even without events so settled changes get flushed
+                WatchKey key = watchService.poll(Math.max(50, debounceMillis / 4), TimeUnit.MILLISECONDS);
+                if (key != null)
+                {
+                    handleKey(key);
+                }
+                flushSettledChanges();
+            }
+            catch (ClosedWatchServiceException e)
+            {
+                break; // stop() was called
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (RuntimeException e)
+            {
+                // A misbehaving listener must not kill the watcher
+                System.err.println("Error while watching " + folder + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Records every event of a key as a pending change of its top-level entry
+    // Newly created directories are registered so changes inside them are seen too
+    private void handleKey(WatchKey key)
+    {
+        Path dir;
+        synchronized (this)
+        {
+            dir = watchedDirs.get(key);
+        }
+        if (dir == null)
+        {
+            key.cancel();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                // Events were lost, so treat every top-level entry as changed
+                File[] entries = folder.toFile().listFiles();
+                if (entries != null)
+                {
+                    for (File entry : entries)
+                    {
+                        pendingChanges.put(entry.getName(), now);
+                    }
+                }
+                continue;
+            }
+
+            Path changed = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed))
+            {
+                try
+                {
+                    registerTree(changed);
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Could not watch new folder: " + changed + " - " + e.getMessage());
+                }
+            }
+
+            Path relative = folder.relativize(changed);
+            if (relative.getNameCount() > 0)
+            {
+                pendingChanges.put(relative.getName(0).toString(), now);
+            }
+        }
+
+        if (!key.reset())
+        {
+            // Directory is no longer accessible (e.g. deleted)
+            synchronized (this)
+            {
+                watchedDirs.remove(key);
+            }
+        }
+    }
+
+    // Reports all pending entries whose last event is older than the debounce period
+    private void flushSettledChanges()
+    {
+        if (pendingChanges.isEmpty())
+        {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Set<String> settled = new LinkedHashSet<>();
+        Iterator<Map.Entry<String, Long>> it = pendingChanges.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() >= debounceMillis)
+            {
+                settled.add(entry.getKey());
+                it.remove();
+            }
+        }
+
+        if (!settled.isEmpty())
+        {
+            listener.onChanges(settled);
+        }
+    }
+
+    // Registers a directory and all of its subdirectories with the WatchService
+    private void registerTree(Path start) throws IOException
+    {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                synchronized (FolderWatcher.this)
+                {
+                    watchedDirs.put(key, dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for FolderWatcher: changes are reported by top-level entry, once they have settled.
+ */
+public class FolderWatcherTest
+{
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private File folder;
+    private FolderWatcher watcher;
+    private final BlockingQueue<Set<String>> reports = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("folder-watcher-test").toFile();
+        watcher = new FolderWatcher(folder, DEBOUNCE_MILLIS, reports::add);
+        watcher.start();
+    }
+
+    @After
+    public void tearDown()
+    {
+        watcher.stop();
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void changesBelowAnEntryAreReportedOnceByItsName() throws Exception
+    {
+        File src = new File(folder, "alice/src");
+        assertTrue(src.mkdirs());
+        Files.write(new File(src, "Main.java").toPath(), "class Main {}".getBytes("UTF-8"));
+        Files.write(new File(src, "Helper.java").toPath(), "class Helper {}".getBytes("UTF-8"));
+
+        assertEquals(Collections.singleton("alice"), reports.poll(10, TimeUnit.SECONDS));
+        assertNull(reports.poll(3 * DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)); // One upload, one report
+    }
+
+    @Test
+    public void changesInsideAnExistingSubfolderAreSeen() throws Exception
+    {
+        watcher.stop();
+        File src = new File(folder, "bob/src");
+        assertTrue(src.mkdirs());
+        watcher = new FolderWatcher(folder, DEBOUNCE_MILLIS, reports::add);
+        watcher.start(); // Registers the tree that is already there
+
+        Files.write(new File(src, "Main.java").toPath(), "class Main {}".getBytes("UTF-8"));
+        assertEquals(Collections.singleton("bob"), reports.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void nothingIsReportedAfterStop() throws Exception
+    {
+        watcher.stop();
+        assertTrue(!watcher.isRunning());
+
+        Files.write(new File(folder, "late.txt").toPath(), "x".getBytes("UTF-8"));
+        assertNull(reports.poll(3 * DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+    }
+}
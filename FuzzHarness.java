@@ -0,0 +1,218 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.Permission;
+
+/**
+ * Runs one program many times inside a single JVM, so fuzzing does not pay JVM startup per input.
+ * Started by DifferentialFuzzer as: java -cp <grader classes> FuzzHarness <class folder> <main class> <timeout ms>
+ *
+ * Protocol on stdin/stdout (big-endian):
+ *   startup : 1 if System.exit can be trapped, else 0 (the harness then exits at once)
+ *   request : number of inputs, then per input its UTF-8 length and bytes
+ *   response: per input -> status, exit code, UTF-8 length and bytes of what it printed to stdout
+ *             (stderr is dropped, as in a graded run)
+ * A JVM without a security manager (JDK 18 and later refuse to install one) cannot keep a
+ * program's System.exit from ending the harness, so the fuzzer then runs each input in its own
+ * process instead. Each input gets a fresh class loader, so static fields never leak from one
+ * run to the next.
+ * After a timeout the harness answers for that input and exits (the stuck thread cannot be stopped);
+ * the fuzzer starts a new harness for the rest of the batch.
+ */
+public class FuzzHarness
+{
+    // Response status codes
+    static final int STATUS_OK = 0; // main returned normally (exit code 0)
+    static final int STATUS_EXIT = 1; // main called System.exit (exit code sent)
+    static final int STATUS_EXCEPTION = 2; // main threw (exit code 1, like the java launcher)
+    static final int STATUS_TIMEOUT = 3; // main ran longer than the timeout
+
+    // Thrown instead of exiting the JVM when the program calls System.exit
+    private static class ExitTrappedException extends SecurityException
+    {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ExitTrappedException(int status)
+        {
+            super("System.exit(" + status + ")");
+            this.status = status;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        URL classFolder = new File(args[0]).toURI().toURL();
+        String mainClass = args[1];
+        long timeoutMillis = Long.parseLong(args[2]);
+
+        DataInputStream requests = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        DataOutputStream responses = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        boolean exitTrapped = trapExit();
+        responses.writeInt(exitTrapped ? 1 : 0);
+        responses.flush();
+        if (!exitTrapped)
+        {
+            return; // The fuzzer falls back to a process per input
+        }
+
+        while (true)
+        {
+            int count;
+            try
+            {
+                count = requests.readInt();
+            }
+            catch (EOFException e)
+            {
+                return; // Fuzzer is done
+            }
+
+            // Read the whole batch before answering, so neither side blocks on a full pipe
+            byte[][] inputs = new byte[count][];
+            for (int i = 0; i < count; i++)
+            {
+                inputs[i] = new byte[requests.readInt()];
+                requests.readFully(inputs[i]);
+            }
+
+            for (byte[] input : inputs)
+            {
+                Outcome outcome = runOnce(classFolder, mainClass, input, timeoutMillis);
+                responses.writeInt(outcome.status);
+                responses.writeInt(outcome.exitCode);
+                responses.writeInt(outcome.output.length);
+                responses.write(outcome.output);
+                if (outcome.status == STATUS_TIMEOUT)
+                {
+                    responses.flush();
+                    Runtime.getRuntime().halt(0);
+                }
+            }
+            responses.flush();
+        }
+    }
+
+    private static class Outcome
+    {
+        int status = STATUS_OK;
+        int exitCode = 0;
+        byte[] output;
+    }
+
+    // Runs main once with the given stdin, capturing what it prints to stdout
+    private static Outcome runOnce(URL classFolder, String mainClass, byte[] input, long timeoutMillis) throws Exception
+    {
+        Outcome outcome = new Outcome();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream(captured, true, "UTF-8");
+        PrintStream errors = new PrintStream(new ByteArrayOutputStream(), true, "UTF-8");
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        // Parent null: the program only sees the JDK, never the grader's own classes
+        URLClassLoader loader = new URLClassLoader(new URL[] { classFolder }, null);
+        Thread runner = new Thread(() -> {
+            try
+            {
+                Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+                main.invoke(null, (Object) new String[0]);
+            }
+            catch (InvocationTargetException e)
+            {
+                Throwable cause = e.getCause();
+                if (cause instanceof ExitTrappedException)
+                {
+                    outcome.status = ((ExitTrappedException) cause).status == 0 ? STATUS_OK : STATUS_EXIT;
+                    outcome.exitCode = ((ExitTrappedException) cause).status;
+                }
+                else
+                {
+                    outcome.status = STATUS_EXCEPTION;
+                    outcome.exitCode = 1;
+                    System.err.println("Exception in thread \"main\" " + cause);
+                }
+            }
+            catch (ReflectiveOperationException | LinkageError e)
+            {
+                outcome.status = STATUS_EXCEPTION;
+                outcome.exitCode = 1;
+                System.err.println("Error: " + e);
+            }
+        }, "fuzz-main");
+        runner.setDaemon(true);
+
+        System.setIn(new ByteArrayInputStream(input));
+        System.setOut(capture);
+        System.setErr(errors); // stderr is not part of the output, same as a graded run
+        try
+        {
+            runner.start();
+            runner.join(timeoutMillis);
+            if (runner.isAlive())
+            {
+                outcome.status = STATUS_TIMEOUT;
+                outcome.exitCode = -1;
+            }
+        }
+        finally
+        {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            loader.close();
+        }
+        capture.flush();
+        outcome.output = captured.toByteArray();
+        return outcome;
+    }
+
+    // Turns System.exit into an exception; returns false if the JVM no longer allows a security
+    // manager (setSecurityManager throws UnsupportedOperationException from JDK 18 on)
+    @SuppressWarnings("removal")
+    private static boolean trapExit()
+    {
+        try
+        {
+            System.setSecurityManager(new SecurityManager()
+            {
+                @Override
+                public void checkExit(int status)
+                {
+                    if (Thread.currentThread().getName().equals("fuzz-main"))
+                    {
+                        throw new ExitTrappedException(status);
+                    }
+                }
+
+                @Override
+                public void checkPermission(Permission permission)
+                {
+                    // Allow everything else
+                }
+            });
+            return true;
+        }
+        catch (UnsupportedOperationException | SecurityException e)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,551 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line- and character-level diff between an expected and an actual output.
+ *
+ * Uses Myers' O(ND) algorithm in its linear-space form: instead of keeping the whole
+ * edit graph, each step searches from both ends at once for a middle point of the
+ * shortest edit script and recurses on the two halves. Memory stays proportional to
+ * the input size, so outputs with tens of thousands of lines are fine. Lines are mapped
+ * to integer ids first, so the inner loop compares ints rather than strings.
+ *
+ * Pathological inputs (huge and completely different) are bounded by a deadline:
+ * past it, the remaining region is reported as deleted + inserted instead of minimal.
+ */
+public class LineDiff
+{
+    // Time budget for one diff before falling back to a coarser (still correct) result
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    // Longer lines are not diffed character by character
+    private static final int MAX_CHAR_DIFF_LENGTH = 20000;
+
+    /**
+     * Kind of an edit or a display row. CHANGE is only used for rows that pair a deleted
+     * expected line with an inserted actual line.
+     */
+    public enum Kind { EQUAL, DELETE, INSERT, CHANGE }
+
+    /**
+     * A run of lines (or characters) with the same kind.
+     * Ranges are half-open: [expectedStart, expectedEnd) and [actualStart, actualEnd).
+     */
+    public static class Edit
+    {
+        private final Kind kind;
+        private final int expectedStart;
+        private final int expectedEnd;
+        private final int actualStart;
+        private final int actualEnd;
+
+        Edit(Kind kind, int expectedStart, int expectedEnd, int actualStart, int actualEnd)
+        {
+            this.kind = kind;
+            this.expectedStart = expectedStart;
+            this.expectedEnd = expectedEnd;
+            this.actualStart = actualStart;
+            this.actualEnd = actualEnd;
+        }
+
+        public Kind getKind() { return kind; }
+        public int getExpectedStart() { return expectedStart; }
+        public int getExpectedEnd() { return expectedEnd; }
+        public int getActualStart() { return actualStart; }
+        public int getActualEnd() { return actualEnd; }
+    }
+
+    /**
+     * A piece of text inside a line, for character-level highlighting.
+     */
+    public static class Segment
+    {
+        private final Kind kind;
+        private final String text;
+
+        Segment(Kind kind, String text)
+        {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getText() { return text; }
+    }
+
+    /**
+     * One display row of a diff: an unchanged line, a deleted expected line, an inserted
+     * actual line, or a changed line (expected and actual text side by side).
+     * Line numbers are 1-based, 0 when the row has no line on that side.
+     */
+    public static class Row
+    {
+        private final Kind kind;
+        private final int expectedLine;
+        private final int actualLine;
+        private final String expectedText;
+        private final String actualText;
+        private final List<Segment> expectedSegments; // Character diff of a CHANGE row, null otherwise
+        private final List<Segment> actualSegments;
+
+        Row(Kind kind, int expectedLine, int actualLine, String expectedText, String actualText)
+        {
+            this(kind, expectedLine, actualLine, expectedText, actualText, null);
+        }
+
+        Row(Kind kind, int expectedLine, int actualLine, String expectedText, String actualText, List<Segment> segments)
+        {
+            this.kind = kind;
+            this.expectedLine = expectedLine;
+            this.actualLine = actualLine;
+            this.expectedText = expectedText;
+            this.actualText = actualText;
+            if (segments == null)
+            {
+                this.expectedSegments = null;
+                this.actualSegments = null;
+                return;
+            }
+            List<Segment> expected = new ArrayList<>();
+            List<Segment> actual = new ArrayList<>();
+            for (Segment segment : segments)
+            {
+                if (segment.getKind() != Kind.INSERT)
+                {
+                    expected.add(segment);
+                }
+                if (segment.getKind() != Kind.DELETE)
+                {
+                    actual.add(segment);
+                }
+            }
+            this.expectedSegments = expected;
+            this.actualSegments = actual;
+        }
+
+        public Kind getKind() { return kind; }
+        public int getExpectedLine() { return expectedLine; }
+        public int getActualLine() { return actualLine; }
+        public String getExpectedText() { return expectedText; }
+        public String getActualText() { return actualText; }
+
+        /**
+         * For a CHANGE row: the expected line split into EQUAL and DELETE segments.
+         */
+        public List<Segment> getExpectedSegments()
+        {
+            return expectedSegments;
+        }
+
+        /**
+         * For a CHANGE row: the actual line split into EQUAL and INSERT segments.
+         */
+        public List<Segment> getActualSegments()
+        {
+            return actualSegments;
+        }
+    }
+
+    /**
+     * Diffs two outputs line by line. Line endings are normalized first.
+     */
+    public static List<Edit> diffLines(String expected, String actual)
+    {
+        return diffLines(splitLines(expected), splitLines(actual));
+    }
+
+    /**
+     * Diffs two lists of lines.
+     */
+    public static List<Edit> diffLines(List<String> expected, List<String> actual)
+    {
+        return diffLines(expected, actual, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    // Same with a given time budget (a negative one gives the fallback at once)
+    static List<Edit> diffLines(List<String> expected, List<String> actual, long timeoutMillis)
+    {
+        // Map every distinct line to an int so the search compares ints
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = new int[expected.size()];
+        int[] b = new int[actual.size()];
+        for (int i = 0; i < a.length; i++)
+        {
+            a[i] = ids.computeIfAbsent(expected.get(i), line -> ids.size());
+        }
+        int expectedIds = ids.size(); // Ids below this occur in the expected output
+        boolean shared = false;
+        for (int i = 0; i < b.length; i++)
+        {
+            b[i] = ids.computeIfAbsent(actual.get(i), line -> ids.size());
+            shared |= b[i] < expectedIds;
+        }
+        if (!shared)
+        {
+            // No line in common (e.g. a crash message instead of output): skip the search, which would be worst case
+            List<Edit> replaced = new ArrayList<>();
+            if (a.length > 0)
+            {
+                replaced.add(new Edit(Kind.DELETE, 0, a.length, 0, 0));
+            }
+            if (b.length > 0)
+            {
+                replaced.add(new Edit(Kind.INSERT, a.length, a.length, 0, b.length));
+            }
+            return replaced;
+        }
+        return new LineDiff(a, b, timeoutMillis).run();
+    }
+
+    /**
+     * Diffs two lines character by character.
+     */
+    public static List<Segment> diffChars(String expected, String actual)
+    {
+        return diffChars(expected, actual, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    // Same with a given time budget; with none left, the lines are reported as replaced whole
+    static List<Segment> diffChars(String expected, String actual, long timeoutMillis)
+    {
+        List<Segment> segments = new ArrayList<>();
+        if (expected.length() > MAX_CHAR_DIFF_LENGTH || actual.length() > MAX_CHAR_DIFF_LENGTH || timeoutMillis <= 0)
+        {
+            segments.add(new Segment(Kind.DELETE, expected));
+            segments.add(new Segment(Kind.INSERT, actual));
+            return segments;
+        }
+
+        int[] a = new int[expected.length()];
+        int[] b = new int[actual.length()];
+        for (int i = 0; i < a.length; i++)
+        {
+            a[i] = expected.charAt(i);
+        }
+        for (int i = 0; i < b.length; i++)
+        {
+            b[i] = actual.charAt(i);
+        }
+        for (Edit edit : new LineDiff(a, b, timeoutMillis).run())
+        {
+            String text = edit.getKind() == Kind.INSERT
+                    ? actual.substring(edit.getActualStart(), edit.getActualEnd())
+                    : expected.substring(edit.getExpectedStart(), edit.getExpectedEnd());
+            segments.add(new Segment(edit.getKind(), text));
+        }
+        return segments;
+    }
+
+    /**
+     * Turns a line diff into display rows. A run of deleted lines directly followed by
+     * inserted lines is paired up into CHANGE rows (the rest stay DELETE or INSERT).
+     *
+     * The character diffs of the CHANGE rows are computed here, so call this off the FX thread;
+     * together they share one deadline, past which the remaining rows are highlighted as a whole.
+     */
+    public static List<Row> toRows(List<String> expected, List<String> actual, List<Edit> edits)
+    {
+        List<Row> rows = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + DEFAULT_TIMEOUT_MILLIS;
+        for (int e = 0; e < edits.size(); e++)
+        {
+            Edit edit = edits.get(e);
+            if (edit.getKind() == Kind.EQUAL)
+            {
+                for (int i = edit.getExpectedStart(), j = edit.getActualStart(); i < edit.getExpectedEnd(); i++, j++)
+                {
+                    rows.add(new Row(Kind.EQUAL, i + 1, j + 1, expected.get(i), actual.get(j)));
+                }
+            }
+            else if (edit.getKind() == Kind.DELETE && e + 1 < edits.size() && edits.get(e + 1).getKind() == Kind.INSERT)
+            {
+                Edit insert = edits.get(++e);
+                int deleted = edit.getExpectedEnd() - edit.getExpectedStart();
+                int inserted = insert.getActualEnd() - insert.getActualStart();
+                for (int k = 0; k < Math.max(deleted, inserted); k++)
+                {
+                    int i = edit.getExpectedStart() + k;
+                    int j = insert.getActualStart() + k;
+                    if (k < deleted && k < inserted)
+                    {
+                        List<Segment> segments = diffChars(expected.get(i), actual.get(j), deadline - System.currentTimeMillis());
+                        rows.add(new Row(Kind.CHANGE, i + 1, j + 1, expected.get(i), actual.get(j), segments));
+                    }
+                    else if (k < deleted)
+                    {
+                        rows.add(new Row(Kind.DELETE, i + 1, 0, expected.get(i), null));
+                    }
+                    else
+                    {
+                        rows.add(new Row(Kind.INSERT, 0, j + 1, null, actual.get(j)));
+                    }
+                }
+            }
+            else if (edit.getKind() == Kind.DELETE)
+            {
+                for (int i = edit.getExpectedStart(); i < edit.getExpectedEnd(); i++)
+                {
+                    rows.add(new Row(Kind.DELETE, i + 1, 0, expected.get(i), null));
+                }
+            }
+            else
+            {
+                for (int j = edit.getActualStart(); j < edit.getActualEnd(); j++)
+                {
+                    rows.add(new Row(Kind.INSERT, 0, j + 1, null, actual.get(j)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Splits an output into lines, treating \r\n, \r and \n alike.
+     */
+    public static List<String> splitLines(String text)
+    {
+        List<String> lines = new ArrayList<>();
+        if (text == null || text.isEmpty())
+        {
+            return lines;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r')
+            {
+                lines.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n')
+                {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if (start < text.length())
+        {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    private final int[] a;
+    private final int[] b;
+    private final long deadline;
+    private final List<Edit> edits = new ArrayList<>();
+
+    private LineDiff(int[] a, int[] b, long timeoutMillis)
+    {
+        this.a = a;
+        this.b = b;
+        this.deadline = System.currentTimeMillis() + timeoutMillis;
+    }
+
+    private List<Edit> run()
+    {
+        diff(0, a.length, 0, b.length);
+        return canonical(edits);
+    }
+
+    // Rewrites every stretch of changes between two equal runs as one DELETE followed by one INSERT
+    // (the recursion can interleave them), so changed lines can be paired up for display
+    private static List<Edit> canonical(List<Edit> edits)
+    {
+        List<Edit> result = new ArrayList<>();
+        int i = 0;
+        while (i < edits.size())
+        {
+            Edit edit = edits.get(i);
+            if (edit.kind == Kind.EQUAL)
+            {
+                result.add(edit);
+                i++;
+                continue;
+            }
+            int expectedStart = edit.expectedStart, actualStart = edit.actualStart;
+            int expectedEnd = expectedStart, actualEnd = actualStart;
+            while (i < edits.size() && edits.get(i).kind != Kind.EQUAL)
+            {
+                expectedEnd = edits.get(i).expectedEnd;
+                actualEnd = edits.get(i).actualEnd;
+                i++;
+            }
+            if (expectedEnd > expectedStart)
+            {
+                result.add(new Edit(Kind.DELETE, expectedStart, expectedEnd, actualStart, actualStart));
+            }
+            if (actualEnd > actualStart)
+            {
+                result.add(new Edit(Kind.INSERT, expectedEnd, expectedEnd, actualStart, actualEnd));
+            }
+        }
+        return result;
+    }
+
+    // Diffs a[aLo, aHi) against b[bLo, bHi), appending edits in order
+    private void diff(int aLo, int aHi, int bLo, int bHi)
+    {
+        // Common prefix and suffix need no search
+        int prefix = 0;
+        while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix])
+        {
+            prefix++;
+        }
+        add(Kind.EQUAL, aLo, aLo + prefix, bLo, bLo + prefix);
+        aLo += prefix;
+        bLo += prefix;
+
+        int suffix = 0;
+        while (aHi - suffix > aLo && bHi - suffix > bLo && a[aHi - suffix - 1] == b[bHi - suffix - 1])
+        {
+            suffix++;
+        }
+        aHi -= suffix;
+        bHi -= suffix;
+
+        if (aLo == aHi)
+        {
+            add(Kind.INSERT, aLo, aLo, bLo, bHi);
+        }
+        else if (bLo == bHi)
+        {
+            add(Kind.DELETE, aLo, aHi, bLo, bLo);
+        }
+        else
+        {
+            bisect(aLo, aHi, bLo, bHi);
+        }
+
+        add(Kind.EQUAL, aHi, aHi + suffix, bHi, bHi + suffix);
+    }
+
+    // Finds a point on the middle of the shortest edit path by searching forward and
+    // backward at the same time, then diffs the two halves around it
+    private void bisect(int aLo, int aHi, int bLo, int bHi)
+    {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] forward = new int[length];
+        int[] backward = new int[length];
+        java.util.Arrays.fill(forward, -1);
+        java.util.Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        int delta = n - m;
+        boolean oddDelta = (delta & 1) != 0; // Paths meet while extending forward if delta is odd
+        int kStartForward = 0, kEndForward = 0, kStartBackward = 0, kEndBackward = 0;
+
+        for (int d = 0; d < maxD; d++)
+        {
+            if (System.currentTimeMillis() > deadline || Thread.currentThread().isInterrupted())
+            {
+                break; // Out of time (or cancelled): fall through to the coarse result
+            }
+
+            for (int k = -d + kStartForward; k <= d - kEndForward; k += 2)
+            {
+                int index = offset + k;
+                int x = (k == -d || (k != d && forward[index - 1] < forward[index + 1]))
+                        ? forward[index + 1]
+                        : forward[index - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y])
+                {
+                    x++;
+                    y++;
+                }
+                forward[index] = x;
+                if (x > n)
+                {
+                    kEndForward += 2; // Ran off the right edge
+                }
+                else if (y > m)
+                {
+                    kStartForward += 2; // Ran off the bottom edge
+                }
+                else if (oddDelta)
+                {
+                    int backwardIndex = offset + delta - k;
+                    if (backwardIndex >= 0 && backwardIndex < length && backward[backwardIndex] != -1
+                            && x >= n - backward[backwardIndex])
+                    {
+                        split(aLo, aHi, bLo, bHi, x, y);
+                        return;
+                    }
+                }
+            }
+
+            for (int k = -d + kStartBackward; k <= d - kEndBackward; k += 2)
+            {
+                int index = offset + k;
+                int x = (k == -d || (k != d && backward[index - 1] < backward[index + 1]))
+                        ? backward[index + 1]
+                        : backward[index - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aHi - x - 1] == b[bHi - y - 1])
+                {
+                    x++;
+                    y++;
+                }
+                backward[index] = x;
+                if (x > n)
+                {
+                    kEndBackward += 2;
+                }
+                else if (y > m)
+                {
+                    kStartBackward += 2;
+                }
+                else if (!oddDelta)
+                {
+                    int forwardIndex = offset + delta - k;
+                    if (forwardIndex >= 0 && forwardIndex < length && forward[forwardIndex] != -1)
+                    {
+                        int forwardX = forward[forwardIndex];
+                        int forwardY = forwardX - (forwardIndex - offset);
+                        if (forwardX >= n - x)
+                        {
+                            split(aLo, aHi, bLo, bHi, forwardX, forwardY);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        // No middle point found in time: report the region as replaced
+        add(Kind.DELETE, aLo, aHi, bLo, bLo);
+        add(Kind.INSERT, aHi, aHi, bLo, bHi);
+    }
+
+    // Diffs the two halves on either side of (x, y), relative to the region's start
+    private void split(int aLo, int aHi, int bLo, int bHi, int x, int y)
+    {
+        diff(aLo, aLo + x, bLo, bLo + y);
+        diff(aLo + x, aHi, bLo + y, bHi);
+    }
+
+    // Appends an edit, merging it into the previous one when they are of the same kind
+    private void add(Kind kind, int expectedStart, int expectedEnd, int actualStart, int actualEnd)
+    {
+        if (expectedStart == expectedEnd && actualStart == actualEnd)
+        {
+            return;
+        }
+        if (!edits.isEmpty())
+        {
+            Edit last = edits.get(edits.size() - 1);
+            if (last.kind == kind && last.expectedEnd == expectedStart && last.actualEnd == actualStart)
+            {
+                edits.set(edits.size() - 1, new Edit(kind, last.expectedStart, expectedEnd, last.actualStart, actualEnd));
+                return;
+            }
+        }
+        edits.add(new Edit(kind, expectedStart, expectedEnd, actualStart, actualEnd));
+    }
+}
@@ -0,0 +1,215 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for LineDiff: line and character diffs, display rows, and the deadline and
+ * long-line fallbacks.
+ */
+public class LineDiffTest
+{
+    @Test
+    public void splitLinesTreatsAllLineEndingsAlike()
+    {
+        assertEquals(Arrays.asList("a", "b", "c", "", "d"), LineDiff.splitLines("a\r\nb\rc\n\nd"));
+        assertEquals(Arrays.asList("a"), LineDiff.splitLines("a\n"));
+        assertTrue(LineDiff.splitLines("").isEmpty());
+        assertTrue(LineDiff.splitLines(null).isEmpty());
+    }
+
+    @Test
+    public void identicalOutputsGiveOneEqualRun()
+    {
+        List<LineDiff.Edit> edits = LineDiff.diffLines("1\n2\n3", "1\r\n2\r\n3\r\n");
+        assertEquals(1, edits.size());
+        assertEquals(LineDiff.Kind.EQUAL, edits.get(0).getKind());
+        assertEquals(3, edits.get(0).getExpectedEnd());
+    }
+
+    @Test
+    public void diffIsMinimalAndReproducesTheActualOutput()
+    {
+        List<String> expected = Arrays.asList("a", "b", "c", "d", "e", "f");
+        List<String> actual = Arrays.asList("a", "c", "d", "x", "e", "f", "g");
+        List<LineDiff.Edit> edits = LineDiff.diffLines(expected, actual);
+        assertEquals(actual, apply(expected, actual, edits));
+        assertEquals(3, changedLines(edits)); // b deleted, x and g inserted
+    }
+
+    @Test
+    public void outputsWithNoLineInCommonAreReplacedWhole()
+    {
+        List<LineDiff.Edit> edits = LineDiff.diffLines("1\n2\n3", "Exception in thread \"main\"");
+        assertEquals(2, edits.size());
+        assertEquals(LineDiff.Kind.DELETE, edits.get(0).getKind());
+        assertEquals(LineDiff.Kind.INSERT, edits.get(1).getKind());
+        assertEquals(1, edits.get(1).getActualEnd());
+    }
+
+    @Test
+    public void pastTheDeadlineTheMiddleIsReplacedButTheDiffStaysCorrect()
+    {
+        List<String> expected = Arrays.asList("start", "x", "same", "y", "end");
+        List<String> actual = Arrays.asList("start", "p", "same", "q", "end");
+
+        List<LineDiff.Edit> minimal = LineDiff.diffLines(expected, actual);
+        assertEquals(4, changedLines(minimal)); // "same" is matched
+
+        List<LineDiff.Edit> fallback = LineDiff.diffLines(expected, actual, -1); // Deadline already passed
+        assertEquals(actual, apply(expected, actual, fallback));
+        assertEquals(6, changedLines(fallback)); // Common prefix and suffix still found, the rest replaced
+        assertEquals(LineDiff.Kind.EQUAL, fallback.get(0).getKind());
+        assertEquals(LineDiff.Kind.EQUAL, fallback.get(fallback.size() - 1).getKind());
+    }
+
+    @Test
+    public void largeDiffFinishesWithinTheDeadline()
+    {
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < 20000; i++)
+        {
+            expected.add("line " + i);
+            actual.add(i % 7 == 0 ? "changed " + i : "line " + i);
+        }
+        long start = System.currentTimeMillis();
+        List<LineDiff.Edit> edits = LineDiff.diffLines(expected, actual);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(actual, apply(expected, actual, edits));
+    }
+
+    @Test
+    public void changedLinesArePairedIntoChangeRowsWithSegments()
+    {
+        List<String> expected = Arrays.asList("sum = 10", "done");
+        List<String> actual = Arrays.asList("sum = 12", "extra", "done");
+        List<LineDiff.Row> rows = LineDiff.toRows(expected, actual, LineDiff.diffLines(expected, actual));
+
+        assertEquals(3, rows.size());
+        LineDiff.Row change = rows.get(0);
+        assertEquals(LineDiff.Kind.CHANGE, change.getKind());
+        assertEquals(1, change.getExpectedLine());
+        assertEquals(1, change.getActualLine());
+        assertEquals("sum = 10", join(change.getExpectedSegments()));
+        assertEquals("sum = 12", join(change.getActualSegments()));
+        assertEquals(LineDiff.Kind.EQUAL, change.getExpectedSegments().get(0).getKind());
+        assertEquals("sum = 1", change.getExpectedSegments().get(0).getText());
+
+        LineDiff.Row insert = rows.get(1);
+        assertEquals(LineDiff.Kind.INSERT, insert.getKind());
+        assertEquals(0, insert.getExpectedLine());
+        assertEquals(2, insert.getActualLine());
+        assertNull(insert.getActualSegments());
+
+        assertEquals(LineDiff.Kind.EQUAL, rows.get(2).getKind());
+        assertEquals(2, rows.get(2).getExpectedLine());
+        assertEquals(3, rows.get(2).getActualLine());
+    }
+
+    @Test
+    public void charDiffSplitsALineIntoSegments()
+    {
+        List<LineDiff.Segment> segments = LineDiff.diffChars("kitten", "sitting");
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        for (LineDiff.Segment segment : segments)
+        {
+            if (segment.getKind() != LineDiff.Kind.INSERT)
+            {
+                expected.append(segment.getText());
+            }
+            if (segment.getKind() != LineDiff.Kind.DELETE)
+            {
+                actual.append(segment.getText());
+            }
+        }
+        assertEquals("kitten", expected.toString());
+        assertEquals("sitting", actual.toString());
+    }
+
+    @Test
+    public void veryLongLinesAreNotDiffedCharacterByCharacter()
+    {
+        char[] chars = new char[30000];
+        Arrays.fill(chars, 'a');
+        String expected = new String(chars);
+        String actual = expected + "b";
+        List<LineDiff.Segment> segments = LineDiff.diffChars(expected, actual);
+        assertEquals(2, segments.size());
+        assertEquals(LineDiff.Kind.DELETE, segments.get(0).getKind());
+        assertEquals(expected, segments.get(0).getText());
+        assertEquals(LineDiff.Kind.INSERT, segments.get(1).getKind());
+        assertEquals(actual, segments.get(1).getText());
+    }
+
+    @Test
+    public void charDiffWithoutTimeLeftReplacesTheLine()
+    {
+        List<LineDiff.Segment> segments = LineDiff.diffChars("abc", "abd", 0);
+        assertEquals(2, segments.size());
+        assertEquals("abc", segments.get(0).getText());
+        assertEquals("abd", segments.get(1).getText());
+    }
+
+    // Rebuilds the actual lines from the expected ones and the edits, checking that EQUAL runs match
+    private static List<String> apply(List<String> expected, List<String> actual, List<LineDiff.Edit> edits)
+    {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        for (LineDiff.Edit edit : edits)
+        {
+            assertEquals(i, edit.getExpectedStart());
+            assertEquals(j, edit.getActualStart());
+            if (edit.getKind() == LineDiff.Kind.EQUAL)
+            {
+                for (int k = 0; k < edit.getExpectedEnd() - edit.getExpectedStart(); k++)
+                {
+                    assertEquals(expected.get(i + k), actual.get(j + k));
+                    result.add(expected.get(i + k));
+                }
+            }
+            else if (edit.getKind() == LineDiff.Kind.INSERT)
+            {
+                result.addAll(actual.subList(edit.getActualStart(), edit.getActualEnd()));
+            }
+            i = edit.getExpectedEnd();
+            j = edit.getActualEnd();
+        }
+        assertEquals(expected.size(), i);
+        return result;
+    }
+
+    private static int changedLines(List<LineDiff.Edit> edits)
+    {
+        int changed = 0;
+        for (LineDiff.Edit edit : edits)
+        {
+            if (edit.getKind() == LineDiff.Kind.DELETE)
+            {
+                changed += edit.getExpectedEnd() - edit.getExpectedStart();
+            }
+            else if (edit.getKind() == LineDiff.Kind.INSERT)
+            {
+                changed += edit.getActualEnd() - edit.getActualStart();
+            }
+        }
+        return changed;
+    }
+
+    private static String join(List<LineDiff.Segment> segments)
+    {
+        StringBuilder text = new StringBuilder();
+        for (LineDiff.Segment segment : segments)
+        {
+            text.append(segment.getText());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Random access to the lines of an output without holding it as one big list of Strings.
+ * Viewers ask only for the lines they are about to show. Implementations: TextLineSource
+ * (an output kept in memory) and FileLineSource (an output kept in a file).
+ */
+public interface LineSource
+{
+    /**
+     * Number of lines.
+     */
+    int getLineCount();
+
+    /**
+     * Returns line index (0-based) without its line terminator.
+     */
+    String getLine(int index);
+
+    /**
+     * Returns the index of the next line containing query, searching from fromLine
+     * (inclusive) forward or backward and wrapping around once. Returns -1 if no line matches.
+     */
+    default int find(String query, int fromLine, boolean forward, boolean ignoreCase)
+    {
+        int count = getLineCount();
+        if (count == 0 || query.isEmpty())
+        {
+            return -1;
+        }
+        String needle = ignoreCase ? query.toLowerCase() : query;
+        int start = Math.floorMod(fromLine, count);
+        for (int step = 0; step < count; step++)
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                return -1; // Search was cancelled
+            }
+            int index = forward ? (start + step) % count : Math.floorMod(start - step, count);
+            String line = getLine(index);
+            if ((ignoreCase ? line.toLowerCase() : line).contains(needle))
+            {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first line where the two sources differ (trailing spaces ignored),
+     * or -1 if they are equal line by line.
+     */
+    static int firstMismatch(LineSource expected, LineSource actual)
+    {
+        int common = Math.min(expected.getLineCount(), actual.getLineCount());
+        for (int i = 0; i < common; i++)
+        {
+            if (!stripTrailing(expected.getLine(i)).equals(stripTrailing(actual.getLine(i))))
+            {
+                return i;
+            }
+        }
+        return expected.getLineCount() == actual.getLineCount() ? -1 : common;
+    }
+
+    /**
+     * Returns all lines as a list (for outputs small enough to diff).
+     */
+    static List<String> readAll(LineSource lines)
+    {
+        List<String> all = new ArrayList<>(lines.getLineCount());
+        for (int i = 0; i < lines.getLineCount(); i++)
+        {
+            all.add(lines.getLine(i));
+        }
+        return all;
+    }
+
+    // String.stripTrailing is Java 11+
+    static String stripTrailing(String line)
+    {
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1)))
+        {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+}
@@ -0,0 +1,110 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the line sources behind the output viewer: TextLineSource and FileLineSource must
+ * split the same text into the same lines, and searching and mismatch finding work on either.
+ */
+public class LineSourceTest
+{
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("line-source-test").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void everyLineTerminatorEndsALine() throws IOException
+    {
+        assertLines("a\nb\r\nc\rd", "a", "b", "c", "d");
+        assertLines("a\n\nb\n", "a", "", "b"); // A blank line inside counts, the final terminator does not
+        assertLines("\r\n\r\n", "", "");
+        assertLines("no terminator", "no terminator");
+        assertLines("");
+    }
+
+    @Test
+    public void textIsReadAsUtf8() throws IOException
+    {
+        assertLines("naïve\n☃ snow\n", "naïve", "☃ snow");
+    }
+
+    @Test
+    public void veryLongLineInAFileIsCut() throws IOException
+    {
+        String longLine = ResultsFileTest.repeat("x", 100 * 1024);
+        try (FileLineSource lines = new FileLineSource(write(longLine + "\nshort\n")))
+        {
+            assertEquals(2, lines.getLineCount());
+            assertTrue(lines.getLine(0).endsWith("[line cut at 65536 bytes]"));
+            assertEquals("short", lines.getLine(1));
+        }
+        assertEquals(longLine, new TextLineSource(longLine).getLine(0)); // In memory it is already held whole
+    }
+
+    @Test
+    public void findWrapsAroundInEitherDirection()
+    {
+        LineSource lines = new TextLineSource("alpha\nBeta\ngamma\nbeta");
+        assertEquals(3, lines.find("beta", 2, true, false));
+        assertEquals(3, lines.find("beta", 0, false, false)); // Backward from the first line wraps to the last
+        assertEquals(1, lines.find("beta", 0, true, true));
+        assertEquals(1, lines.find("beta", 2, false, true));
+        assertEquals(-1, lines.find("delta", 0, true, true));
+        assertEquals(-1, lines.find("", 0, true, true));
+        assertEquals(-1, new TextLineSource("").find("a", 0, true, false));
+    }
+
+    @Test
+    public void firstMismatchIgnoresTrailingSpaces() throws IOException
+    {
+        LineSource expected = new TextLineSource("1\n2\n3\n");
+        assertEquals(-1, LineSource.firstMismatch(expected, new TextLineSource("1  \n2\r\n3")));
+        assertEquals(1, LineSource.firstMismatch(expected, new TextLineSource("1\n20\n3\n")));
+        assertEquals(2, LineSource.firstMismatch(expected, new TextLineSource("1\n2\n")));
+        try (FileLineSource fromFile = new FileLineSource(write("1\n2\n3\n4\n")))
+        {
+            assertEquals(3, LineSource.firstMismatch(expected, fromFile));
+        }
+    }
+
+    // Both sources must give exactly these lines for text
+    private void assertLines(String text, String... expected) throws IOException
+    {
+        assertEquals(Arrays.asList(expected), LineSource.readAll(new TextLineSource(text)));
+        try (FileLineSource lines = new FileLineSource(write(text)))
+        {
+            assertEquals(Arrays.asList(expected), LineSource.readAll(lines));
+        }
+        if (expected.length == 0)
+        {
+            assertEquals(Collections.emptyList(), LineSource.readAll(new TextLineSource(null)));
+        }
+    }
+
+    private File write(String text) throws IOException
+    {
+        File file = File.createTempFile("lines", ".txt", folder);
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
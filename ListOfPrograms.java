@@ -70,48 +70,57 @@ public class ListOfPrograms
         {
             for (File folder : root.listFiles(File::isDirectory))
             {
-                File searchFolder = folder;
-                
-                // If code path is specified, look in that subfolder
-                if (codePath != null && !codePath.trim().isEmpty())
-                {
-                    searchFolder = new File(folder, codePath.trim());
-                }
-                
-                // Find Java files in the search folder
-                if (searchFolder.exists() && searchFolder.isDirectory())
+                Program program = createProgramForFolder(folder, codePath);
+                if (program != null)
                 {
-                    File[] javaFiles = searchFolder.listFiles(f -> f.getName().endsWith(".java"));
-
-                    if (javaFiles != null && javaFiles.length > 0)
-                    {
-                        // Search for the Java file containing public static void main
-                        File entryPointFile = findEntryPointFile(javaFiles);
-                        if (entryPointFile != null)
-                        {
-                            programs.add(new Program(folder.getName(), entryPointFile));
-                        }
-                        else
-                        {
-                            // No main method found - add to skipped folders list
-                            skippedFolders.add(folder.getName());
-                        }
-                    }
-                    else
-                    {
-                        // No Java files found in folder
-                        skippedFolders.add(folder.getName());
-                    }
+                    programs.add(program);
                 }
                 else
                 {
-                    // Search folder doesn't exist or isn't a directory
+                    // No Java files or no main method found - add to skipped folders list
                     skippedFolders.add(folder.getName());
                 }
             }
         }
     }
 
+    /**
+     * Builds the Program for a single submission folder without touching the stored lists.
+     * Returns null if the code folder is missing, has no Java files, or has no main method.
+     * Used by the full load above and by watch mode when just one submission changed.
+     */
+    public Program createProgramForFolder(File folder, String codePath)
+    {
+        File searchFolder = folder;
+
+        // If code path is specified, look in that subfolder
+        if (codePath != null && !codePath.trim().isEmpty())
+        {
+            searchFolder = new File(folder, codePath.trim());
+        }
+
+        // Search folder doesn't exist or isn't a directory
+        if (!searchFolder.exists() || !searchFolder.isDirectory())
+        {
+            return null;
+        }
+
+        // Find Java files in the search folder
+        File[] javaFiles = searchFolder.listFiles(f -> f.getName().endsWith(".java"));
+        if (javaFiles == null || javaFiles.length == 0)
+        {
+            return null;
+        }
+
+        // Search for the Java file containing public static void main
+        File entryPointFile = findEntryPointFile(javaFiles);
+        if (entryPointFile == null)
+        {
+            return null;
+        }
+        return new Program(folder.getName(), entryPointFile);
+    }
+
     // Helper method to find the Java file containing public static void main
     // Searches through all Java files and returns the first one with a main method
     // Returns null if no main method is found
@@ -0,0 +1,59 @@
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ListOfTestCaseGenerators
+{
+    private Map<String, TestCaseGenerator> byFilename; // Stores all generators by filename, in the order they were added
+
+    /**
+     * Constructor: Initializes the internal map to hold TestCaseGenerator objects.
+     */
+    public ListOfTestCaseGenerators()
+    {
+        this.byFilename = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a generator, replacing one saved under the same filename.
+     * Returns the generator that was replaced, or null.
+     */
+    public synchronized TestCaseGenerator addGenerator(TestCaseGenerator generator)
+    {
+        return byFilename.put(generator.getFilename(), generator);
+    }
+
+    /**
+     * Removes the generator saved under the given filename, returning it (or null).
+     */
+    public synchronized TestCaseGenerator removeGeneratorByFilename(String filename)
+    {
+        return byFilename.remove(filename);
+    }
+
+    /**
+     * Looks up a generator by its filename, or null if not found.
+     */
+    public synchronized TestCaseGenerator getGeneratorByFilename(String filename)
+    {
+        return byFilename.get(filename);
+    }
+
+    /**
+     * Returns a snapshot of all generators for UI population or processing.
+     */
+    public synchronized List<TestCaseGenerator> getGenerators()
+    {
+        return new ArrayList<>(byFilename.values());
+    }
+
+    /**
+     * Removes every generator, e.g. before the generators of another folder are loaded.
+     */
+    public synchronized void clear()
+    {
+        byFilename.clear();
+    }
+}
@@ -1,10 +1,15 @@
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ListOfTestCases
 {
-    private List<TestCase> testCases; // Stores all TestCase objects
+    private List<TestCase> testCases; // Stores all TestCase objects, in the order they were added
+    private Map<String, TestCase> byFilename; // Index: filename -> test case (filename is unique on disk)
+    private Map<String, TestCase> byTitle; // Index: title -> test case
+    private Map<String, List<TestCase>> byType; // Index: type -> test cases of that type
 
     /**
      * Constructor: Initializes internal list to keep track of all created or loaded test cases.
@@ -12,49 +17,159 @@ public class ListOfTestCases
     public ListOfTestCases()
     {
         testCases = new ArrayList<>();
+        byFilename = new HashMap<>();
+        byTitle = new HashMap<>();
+        byType = new HashMap<>();
     }
 
     /**
      * Adds a test case to the list for use in building suites or running tests.
+     * A test case saved under the same filename is replaced, since both would be the same file on disk.
      */
-    public void addTestCase(TestCase testCase)
+    public synchronized void addTestCase(TestCase testCase)
     {
-        testCases.add(testCase);
+        replaceTestCase(testCase);
     }
 
     /**
      * Removes a specific test case from the list if no longer needed.
      */
-    public void removeTestCase(TestCase testCase)
+    public synchronized void removeTestCase(TestCase testCase)
     {
-        testCases.remove(testCase);
+        if (testCases.remove(testCase))
+        {
+            unindex(testCase);
+        }
     }
 
     /**
-     * Returns full list of stored test cases for UI population or processing.
+     * Returns a snapshot of the stored test cases for UI population or processing.
+     * A copy is returned because the folder watcher may update the list in the background.
      */
-    public List<TestCase> getTestCases()
+    public synchronized List<TestCase> getTestCases()
     {
-        return testCases;
+        return new ArrayList<>(testCases);
+    }
+
+    /**
+     * Replaces the test case stored under the same filename, or adds it if there is none.
+     * Returns the test case that was replaced, or null. Used when a file changes on disk.
+     */
+    public synchronized TestCase replaceTestCase(TestCase testCase)
+    {
+        TestCase previous = byFilename.get(testCase.getFilename());
+        if (previous == testCase)
+        {
+            return null; // Already stored
+        }
+        if (previous != null)
+        {
+            unindex(previous);
+            testCases.set(testCases.indexOf(previous), testCase);
+        }
+        else
+        {
+            testCases.add(testCase);
+        }
+        index(testCase);
+        return previous;
+    }
+
+    /**
+     * Removes the test case stored under the given filename.
+     * Returns the removed test case, or null if there was none.
+     */
+    public synchronized TestCase removeTestCaseByFilename(String filename)
+    {
+        TestCase testCase = byFilename.get(filename);
+        if (testCase != null)
+        {
+            testCases.remove(testCase);
+            unindex(testCase);
+        }
+        return testCase;
+    }
+
+    /**
+     * Changes the fields of a stored test case and keeps the indexes consistent.
+     * Editing must go through here (not the TestCase setters) because the title decides the filename.
+     */
+    public synchronized void updateTestCase(TestCase testCase, String title, String inputData,
+                                            String expectedOutput, String type)
+    {
+        boolean stored = byFilename.get(testCase.getFilename()) == testCase;
+        if (stored)
+        {
+            unindex(testCase);
+            testCases.remove(testCase);
+        }
+
+        testCase.setTitle(title);
+        testCase.setInputData(inputData);
+        testCase.setExpectedOutput(expectedOutput);
+        testCase.setType(type);
+
+        replaceTestCase(testCase);
+    }
+
+    /**
+     * Looks up a test case by the filename it is saved under, or null if not found.
+     */
+    public synchronized TestCase getTestCaseByFilename(String filename)
+    {
+        return byFilename.get(filename);
     }
 
     /**
      * Searches for a test case by its title, returning the first matching one.
-     * Uses a stream for clean, readable filtering.
      */
-    public TestCase getTestCaseByTitle(String title)
+    public synchronized TestCase getTestCaseByTitle(String title)
     {
-        return testCases.stream()
-                .filter(tc -> tc.getTitle().equals(title))
-                .findFirst()
-                .orElse(null);
+        return byTitle.get(title);
+    }
+
+    /**
+     * Returns all test cases of the given type (e.g. "Int"), or an empty list.
+     */
+    public synchronized List<TestCase> getTestCasesByType(String type)
+    {
+        List<TestCase> ofType = byType.get(type);
+        return ofType != null ? new ArrayList<>(ofType) : new ArrayList<>();
     }
 
     /**
      * Clears all stored test cases—useful when loading a new dataset from disk.
      */
-    public void clear()
+    public synchronized void clear()
     {
         testCases.clear();
+        byFilename.clear();
+        byTitle.clear();
+        byType.clear();
+    }
+
+    // Adds a test case to every index
+    private void index(TestCase testCase)
+    {
+        byFilename.put(testCase.getFilename(), testCase);
+        byTitle.put(testCase.getTitle(), testCase);
+        byType.computeIfAbsent(testCase.getType(), t -> new ArrayList<>()).add(testCase);
+    }
+
+    // Removes a test case from every index
+    private void unindex(TestCase testCase)
+    {
+        byFilename.remove(testCase.getFilename(), testCase);
+        byTitle.remove(testCase.getTitle(), testCase);
+
+        List<TestCase> ofType = byType.get(testCase.getType());
+        if (ofType != null)
+        {
+            ofType.remove(testCase);
+            if (ofType.isEmpty())
+            {
+                byType.remove(testCase.getType());
+            }
+        }
     }
 }
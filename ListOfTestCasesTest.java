@@ -0,0 +1,90 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for ListOfTestCases: the filename, title and type indexes stay in step with the list
+ * through adds, replacements, renames and removals.
+ */
+public class ListOfTestCasesTest
+{
+    @Test
+    public void testCasesAreFoundByFilenameTitleAndType()
+    {
+        ListOfTestCases list = new ListOfTestCases();
+        TestCase sum = new TestCase("Sum", "1 2", "3", "Int");
+        TestCase greeting = new TestCase("Greeting", "Bob", "Hi Bob", "String");
+        TestCase product = new TestCase("Product", "2 3", "6", "Int");
+        list.addTestCase(sum);
+        list.addTestCase(greeting);
+        list.addTestCase(product);
+
+        assertSame(sum, list.getTestCaseByFilename("Sum.testcase"));
+        assertSame(greeting, list.getTestCaseByTitle("Greeting"));
+        assertEquals(Arrays.asList(sum, product), list.getTestCasesByType("Int"));
+        assertTrue(list.getTestCasesByType("Double").isEmpty());
+        assertEquals(Arrays.asList(sum, greeting, product), list.getTestCases());
+    }
+
+    @Test
+    public void sameFilenameReplacesInPlace()
+    {
+        ListOfTestCases list = new ListOfTestCases();
+        TestCase first = new TestCase("Sum", "1 2", "3", "Int");
+        TestCase other = new TestCase("Other", "", "", "String");
+        list.addTestCase(first);
+        list.addTestCase(other);
+
+        TestCase reloaded = new TestCase("Sum", "1 2", "3", "Double");
+        assertSame(first, list.replaceTestCase(reloaded));
+        assertEquals(Arrays.asList(reloaded, other), list.getTestCases());
+        assertTrue(list.getTestCasesByType("Int").isEmpty());
+        assertEquals(Arrays.asList(reloaded), list.getTestCasesByType("Double"));
+        assertNull(list.replaceTestCase(reloaded)); // Already stored
+    }
+
+    @Test
+    public void updateMovesTheTestCaseToItsNewKeys()
+    {
+        ListOfTestCases list = new ListOfTestCases();
+        TestCase testCase = new TestCase("Sum", "1 2", "3", "Int");
+        list.addTestCase(testCase);
+
+        list.updateTestCase(testCase, "Addition", "1 2", "3.0", "Double");
+        assertNull(list.getTestCaseByTitle("Sum"));
+        assertNull(list.getTestCaseByFilename("Sum.testcase"));
+        assertTrue(list.getTestCasesByType("Int").isEmpty());
+        assertSame(testCase, list.getTestCaseByTitle("Addition"));
+        assertSame(testCase, list.getTestCaseByFilename("Addition.testcase"));
+        assertEquals(Arrays.asList(testCase), list.getTestCasesByType("Double"));
+        assertEquals(1, list.getTestCases().size());
+    }
+
+    @Test
+    public void removalAndClearEmptyEveryIndex()
+    {
+        ListOfTestCases list = new ListOfTestCases();
+        TestCase sum = new TestCase("Sum", "1 2", "3", "Int");
+        TestCase product = new TestCase("Product", "2 3", "6", "Int");
+        list.addTestCase(sum);
+        list.addTestCase(product);
+
+        assertSame(sum, list.removeTestCaseByFilename("Sum.testcase"));
+        assertNull(list.removeTestCaseByFilename("Sum.testcase"));
+        assertNull(list.getTestCaseByTitle("Sum"));
+        assertEquals(Arrays.asList(product), list.getTestCasesByType("Int"));
+
+        list.removeTestCase(product);
+        assertTrue(list.getTestCasesByType("Int").isEmpty());
+
+        list.addTestCase(sum);
+        list.clear();
+        assertTrue(list.getTestCases().isEmpty());
+        assertNull(list.getTestCaseByFilename("Sum.testcase"));
+    }
+}
@@ -1,10 +1,14 @@
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ListOfTestSuites
 {
-    private List<TestSuite> suites; // Stores all loaded test suites
+    private List<TestSuite> suites; // Stores all loaded test suites, in the order they were added
+    private Map<String, TestSuite> byTitle; // Index: title -> suite
+    private Map<String, TestSuite> byFilename; // Index: .suite filename -> suite
 
     /**
      * Constructor: Initializes the internal list to hold TestSuite objects.
@@ -13,26 +17,30 @@ public class ListOfTestSuites
     public ListOfTestSuites()
     {
         this.suites = new ArrayList<>();
+        this.byTitle = new HashMap<>();
+        this.byFilename = new HashMap<>();
     }
 
     /**
-     * Returns the list of all test suites.
+     * Returns a snapshot of all test suites.
      * Useful for iterating over suites or populating UI components.
+     * A copy is returned because the folder watcher may update the list in the background.
      */
-    public List<TestSuite> getSuites()
+    public synchronized List<TestSuite> getSuites()
     {
-        return suites;
+        return new ArrayList<>(suites);
     }
 
     /**
      * Adds a test suite to the collection if it is not null and not already present.
      * Prevents duplicate entries and ensures safe addition.
      */
-    public void addSuite(TestSuite suite)
+    public synchronized void addSuite(TestSuite suite)
     {
-        if (suite != null && !suites.contains(suite))
+        if (suite != null && byFilename.get(suite.getFilename()) != suite)
         {
             suites.add(suite);
+            index(suite);
         }
     }
 
@@ -40,24 +48,126 @@ public class ListOfTestSuites
      * Removes a specific test suite from the collection.
      * Useful for deleting outdated or incorrect test suites.
      */
-    public void removeSuite(TestSuite suite)
+    public synchronized void removeSuite(TestSuite suite)
     {
-        suites.remove(suite);
+        if (suites.remove(suite))
+        {
+            unindex(suite);
+        }
     }
 
     /**
      * Finds a test suite by its title.
-     * Returns the first suite that matches the title, or null if none found.
+     * Returns the matching suite, or null if none found.
+     */
+    public synchronized TestSuite findSuiteByTitle(String title)
+    {
+        return byTitle.get(title);
+    }
+
+    /**
+     * Returns every suite that includes the given test case filename.
+     * Each check is a set lookup in the suite, so this stays cheap for large suites.
      */
-    public TestSuite findSuiteByTitle(String title)
+    public synchronized List<TestSuite> findSuitesContaining(String testCaseFilename)
     {
+        List<TestSuite> containing = new ArrayList<>();
         for (TestSuite suite : suites)
         {
-            if (suite.getTitle().equals(title))
+            if (suite.containsTestCaseFilename(testCaseFilename))
+            {
+                containing.add(suite);
+            }
+        }
+        return containing;
+    }
+
+    /**
+     * Replaces the suite saved under the same filename, or adds it if there is none.
+     * Returns the suite that was replaced, or null. Used when a .suite file changes on disk.
+     */
+    public synchronized TestSuite replaceSuite(TestSuite suite)
+    {
+        TestSuite previous = byFilename.get(suite.getFilename());
+        if (previous == suite)
+        {
+            return null;
+        }
+        if (previous != null)
+        {
+            unindex(previous);
+            suites.set(suites.indexOf(previous), suite);
+        }
+        else
+        {
+            suites.add(suite);
+        }
+        index(suite);
+        return previous;
+    }
+
+    /**
+     * Removes the suite saved under the given filename.
+     * Returns the removed suite, or null if there was none.
+     */
+    public synchronized TestSuite removeSuiteByFilename(String filename)
+    {
+        TestSuite suite = byFilename.get(filename);
+        if (suite != null)
+        {
+            suites.remove(suite);
+            unindex(suite);
+        }
+        return suite;
+    }
+
+    /**
+     * Changes the title of a suite (and with it the filename) and keeps the indexes consistent.
+     * Renaming must go through here (not TestSuite.setTitle) so lookups find the suite under its new title.
+     */
+    public synchronized void renameSuite(TestSuite suite, String title)
+    {
+        boolean stored = suites.contains(suite);
+        if (stored)
+        {
+            unindex(suite);
+        }
+        suite.setTitle(title);
+        if (stored)
+        {
+            index(suite);
+        }
+    }
+
+    /**
+     * Removes every suite, e.g. before the suites of another folder are loaded.
+     */
+    public synchronized void clear()
+    {
+        suites.clear();
+        byTitle.clear();
+        byFilename.clear();
+    }
+
+    // Adds a suite to both indexes
+    private void index(TestSuite suite)
+    {
+        byTitle.putIfAbsent(suite.getTitle(), suite);
+        byFilename.putIfAbsent(suite.getFilename(), suite);
+    }
+
+    // Removes a suite from both indexes, letting another suite with the same key take its place
+    private void unindex(TestSuite suite)
+    {
+        byTitle.remove(suite.getTitle(), suite);
+        byFilename.remove(suite.getFilename(), suite);
+        for (TestSuite other : suites)
+        {
+            if (other != suite)
             {
-                return suite;
+                byTitle.putIfAbsent(other.getTitle(), other);
+                byFilename.putIfAbsent(other.getFilename(), other);
             }
         }
-        return null;
     }
 }
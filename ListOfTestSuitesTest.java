@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for ListOfTestSuites and the suite membership set: lookups by title and filename,
+ * renames through the list, and suites sharing a title.
+ */
+public class ListOfTestSuitesTest
+{
+    @Test
+    public void suitesAreFoundByTitleAndFilename()
+    {
+        ListOfTestSuites list = new ListOfTestSuites();
+        TestSuite week1 = suite("Week 1", "Sum.testcase", "Product.testcase");
+        TestSuite week2 = suite("Week 2", "Sum.testcase");
+        list.addSuite(week1);
+        list.addSuite(week2);
+        list.addSuite(week1); // Already stored
+
+        assertSame(week1, list.findSuiteByTitle("Week 1"));
+        assertSame(week2, list.removeSuiteByFilename("Week_2.suite"));
+        assertEquals(Arrays.asList(week1), list.getSuites());
+    }
+
+    @Test
+    public void suitesContainingATestCaseAreFound()
+    {
+        ListOfTestSuites list = new ListOfTestSuites();
+        TestSuite week1 = suite("Week 1", "Sum.testcase", "Product.testcase");
+        TestSuite week2 = suite("Week 2", "Sum.testcase");
+        list.addSuite(week1);
+        list.addSuite(week2);
+
+        assertEquals(Arrays.asList(week1, week2), list.findSuitesContaining("Sum.testcase"));
+        assertEquals(Arrays.asList(week1), list.findSuitesContaining("Product.testcase"));
+        assertTrue(list.findSuitesContaining("Missing.testcase").isEmpty());
+    }
+
+    @Test
+    public void renameMovesTheSuiteToItsNewKeys()
+    {
+        ListOfTestSuites list = new ListOfTestSuites();
+        TestSuite suite = suite("Week 1", "Sum.testcase");
+        list.addSuite(suite);
+
+        list.renameSuite(suite, "Midterm");
+        assertNull(list.findSuiteByTitle("Week 1"));
+        assertNull(list.removeSuiteByFilename("Week_1.suite"));
+        assertSame(suite, list.findSuiteByTitle("Midterm"));
+        assertSame(suite, list.removeSuiteByFilename("Midterm.suite"));
+    }
+
+    @Test
+    public void anotherSuiteWithTheTitleTakesOverWhenOneIsRemoved()
+    {
+        ListOfTestSuites list = new ListOfTestSuites();
+        TestSuite first = suite("Week 1");
+        TestSuite reloaded = suite("Week 1");
+        list.addSuite(first);
+        assertSame(first, list.replaceSuite(reloaded));
+        assertSame(reloaded, list.findSuiteByTitle("Week 1"));
+
+        TestSuite renamedLater = suite("Quiz");
+        list.addSuite(renamedLater);
+        list.renameSuite(renamedLater, "Week 1"); // Same title as a stored suite
+        list.removeSuite(reloaded);
+        assertSame(renamedLater, list.findSuiteByTitle("Week 1"));
+
+        list.clear();
+        assertTrue(list.getSuites().isEmpty());
+        assertNull(list.findSuiteByTitle("Week 1"));
+    }
+
+    @Test
+    public void membershipFollowsAddAndRemove()
+    {
+        TestSuite suite = suite("Week 1", " Sum.testcase ", "Sum.testcase", "");
+        assertEquals(Arrays.asList("Sum.testcase"), suite.getTestCaseFilenames());
+        assertTrue(suite.containsTestCaseFilename("Sum.testcase"));
+
+        suite.removeTestCaseFilename("Sum.testcase");
+        assertTrue(!suite.containsTestCaseFilename("Sum.testcase"));
+        assertTrue(suite.getTestCaseFilenames().isEmpty());
+    }
+
+    private static TestSuite suite(String title, String... testCaseFilenames)
+    {
+        TestSuite suite = new TestSuite(title);
+        for (String filename : testCaseFilenames)
+        {
+            suite.addTestCaseFilename(filename);
+        }
+        return suite;
+    }
+}
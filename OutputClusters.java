@@ -0,0 +1,213 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the failing results of each test case by what the student's program printed, so a
+ * reviewer looks at each distinct wrong output once instead of once per student.
+ *
+ * Outputs are grouped by a SHA-256 hash of their normalized content (line endings unified,
+ * trailing spaces and trailing blank lines dropped). The optional near-duplicate pass then
+ * merges a smaller group into a larger one when their outputs are at least
+ * NEAR_DUPLICATE_SIMILARITY similar (see OutputSimilarity).
+ */
+public class OutputClusters
+{
+    // Similarity above which two different outputs are treated as the same mistake
+    public static final double NEAR_DUPLICATE_SIMILARITY = 0.95;
+
+    /**
+     * One group of failing results of a test case with the same (or nearly the same) output.
+     */
+    public static class Cluster
+    {
+        private final String testCaseTitle;
+        private final String status;
+        private final List<TestResult> results = new ArrayList<>();
+        private final int lineCount; // Lines of the representative's output
+        private int nearDuplicates; // Results whose output is only similar to the representative's
+        private String displayText; // Set once clustering is done, so list cells never touch the outputs
+
+        private Cluster(String testCaseTitle, String status, int lineCount)
+        {
+            this.testCaseTitle = testCaseTitle;
+            this.status = status;
+            this.lineCount = lineCount;
+        }
+
+        public String getTestCaseTitle() { return testCaseTitle; }
+        public String getStatus() { return status; }
+        public int size() { return results.size(); }
+        public int getNearDuplicateCount() { return nearDuplicates; }
+        public int getLineCount() { return lineCount; }
+
+        /**
+         * Returns the first result of the group, whose output stands for the whole group.
+         */
+        public TestResult getRepresentative()
+        {
+            return results.get(0);
+        }
+
+        public List<TestResult> getResults()
+        {
+            return Collections.unmodifiableList(results);
+        }
+
+        public List<String> getStudentNames()
+        {
+            List<String> names = new ArrayList<>();
+            for (TestResult result : results)
+            {
+                names.add(result.getStudentName());
+            }
+            return names;
+        }
+
+        /**
+         * Returns a one-line summary, e.g. "Test1 | 12 students produced this output | FAILED | 7 lines".
+         * It is built once by cluster(), so painting a list cell reads no output.
+         */
+        public String toDisplayString()
+        {
+            return displayText;
+        }
+
+        private void finish()
+        {
+            String students = results.size() == 1 ? "1 student produced" : results.size() + " students produced";
+            String near = nearDuplicates > 0 ? " (" + nearDuplicates + " nearly identical)" : "";
+            displayText = testCaseTitle + " | " + students + " this output" + near + " | " + status + " | " + lineCount + " line(s)";
+        }
+    }
+
+    private OutputClusters()
+    {
+    }
+
+    /**
+     * Clusters the FAILED and RUNTIME ERROR results of each test case. Clusters are ordered by
+     * test case (in the order of the results), then largest first. Each output is read once
+     * (twice for a representative when near duplicates are merged); run this off the UI thread.
+     */
+    public static List<Cluster> cluster(List<TestResult> results, boolean mergeNearDuplicates)
+    {
+        // test case title -> (status + output hash -> cluster)
+        Map<String, Map<String, Cluster>> byTestCase = new LinkedHashMap<>();
+        for (TestResult result : results)
+        {
+            String status = result.getStatus();
+            if (result.getResultStatus() != ResultStatus.FAILED && result.getResultStatus() != ResultStatus.RUNTIME_ERROR)
+            {
+                continue;
+            }
+            Map<String, Cluster> clusters = byTestCase.computeIfAbsent(result.getTestCaseTitle(), title -> new LinkedHashMap<>());
+            LineSource lines = result.getActualOutputLines();
+            String key = status + ":" + hashNormalized(lines);
+            clusters.computeIfAbsent(key, k -> new Cluster(result.getTestCaseTitle(), status, lines.getLineCount())).results.add(result);
+        }
+
+        List<Cluster> ordered = new ArrayList<>();
+        for (Map<String, Cluster> clusters : byTestCase.values())
+        {
+            List<Cluster> group = new ArrayList<>(clusters.values());
+            group.sort((a, b) -> Integer.compare(b.size(), a.size()));
+            if (mergeNearDuplicates)
+            {
+                group = mergeNearDuplicates(group);
+            }
+            ordered.addAll(group);
+        }
+        for (Cluster cluster : ordered)
+        {
+            cluster.finish();
+        }
+        return ordered;
+    }
+
+    // Greedy pass, largest first: each group joins the first larger group it is nearly identical to
+    // Each leader's output is read once and kept only for this test case's pass
+    private static List<Cluster> mergeNearDuplicates(List<Cluster> group)
+    {
+        List<Cluster> leaders = new ArrayList<>();
+        List<String> leaderOutputs = new ArrayList<>();
+        for (Cluster cluster : group)
+        {
+            Cluster target = null;
+            String output = null;
+            for (int i = 0; i < leaders.size(); i++)
+            {
+                Cluster leader = leaders.get(i);
+                if (!leader.status.equals(cluster.status) || !similarLineCounts(leader.lineCount, cluster.lineCount))
+                {
+                    continue;
+                }
+                if (output == null)
+                {
+                    output = cluster.getRepresentative().getActualOutput();
+                }
+                if (OutputSimilarity.score(leaderOutputs.get(i), output) >= NEAR_DUPLICATE_SIMILARITY)
+                {
+                    target = leader;
+                    break;
+                }
+            }
+            if (target == null)
+            {
+                leaders.add(cluster);
+                leaderOutputs.add(output != null ? output : cluster.getRepresentative().getActualOutput());
+            }
+            else
+            {
+                target.results.addAll(cluster.results);
+                target.nearDuplicates += cluster.results.size();
+            }
+        }
+        leaders.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        return leaders;
+    }
+
+    // Cheap reject before scoring: outputs this different in line count never reach the threshold
+    private static boolean similarLineCounts(int linesA, int linesB)
+    {
+        int longest = Math.max(linesA, linesB);
+        return longest == 0 || (double) Math.abs(linesA - linesB) / longest <= 2 * (1 - NEAR_DUPLICATE_SIMILARITY);
+    }
+
+    // Hash of the output with line endings unified, trailing spaces and trailing blank lines dropped
+    static String hashNormalized(LineSource lines)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not available", e); // Required on every JVM
+        }
+
+        int count = lines.getLineCount();
+        while (count > 0 && LineSource.stripTrailing(lines.getLine(count - 1)).isEmpty())
+        {
+            count--;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            digest.update(LineSource.stripTrailing(lines.getLine(i)).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest())
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for OutputClusters: failing results are grouped per test case by their normalized
+ * output, and nearly identical outputs are merged only when asked to.
+ */
+public class OutputClustersTest
+{
+    @Test
+    public void outputsDifferingOnlyInLayoutShareACluster()
+    {
+        List<TestResult> results = Arrays.asList(
+                failed("alice", "Sum", "1\n2\n"),
+                failed("bob", "Sum", "1  \r\n2\r\n\r\n"),
+                failed("carol", "Sum", "1\n3\n"),
+                new TestResult("dave", "Sum", "PASSED", "3", "3"),
+                failed("erin", "Sum", "1\n2"));
+
+        List<OutputClusters.Cluster> clusters = OutputClusters.cluster(results, false);
+        assertEquals(2, clusters.size());
+        assertEquals(Arrays.asList("alice", "bob", "erin"), clusters.get(0).getStudentNames());
+        assertSame(results.get(0), clusters.get(0).getRepresentative());
+        assertEquals(2, clusters.get(0).getLineCount());
+        assertEquals("Sum | 3 students produced this output | FAILED | 2 line(s)", clusters.get(0).toDisplayString());
+        assertEquals(Arrays.asList("carol"), clusters.get(1).getStudentNames());
+    }
+
+    @Test
+    public void clustersAreKeptApartByTestCaseAndStatus()
+    {
+        List<TestResult> results = Arrays.asList(
+                failed("alice", "B", "x"),
+                failed("alice", "A", "x"),
+                new TestResult("bob", "A", "RUNTIME ERROR", "x", "y"),
+                new TestResult("carol", "A", "RUNTIME ERROR", "x", "y"),
+                new TestResult("dave", "A", "TIMEOUT", "x", "y"));
+
+        List<OutputClusters.Cluster> clusters = OutputClusters.cluster(results, false);
+        assertEquals(3, clusters.size());
+        assertEquals("B", clusters.get(0).getTestCaseTitle()); // Test cases in the order of the results
+        assertEquals("RUNTIME ERROR", clusters.get(1).getStatus()); // Then largest first
+        assertEquals(2, clusters.get(1).size());
+        assertEquals("FAILED", clusters.get(2).getStatus());
+    }
+
+    @Test
+    public void nearlyIdenticalOutputsAreMergedOnlyWhenAsked()
+    {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+        {
+            lines.add("line " + i);
+        }
+        String output = String.join("\n", lines);
+        lines.set(20, "line twenty");
+        String nearlyTheSame = String.join("\n", lines);
+
+        List<TestResult> results = Arrays.asList(
+                failed("alice", "Print", nearlyTheSame),
+                failed("bob", "Print", output),
+                failed("carol", "Print", output),
+                failed("dave", "Print", "something else entirely"));
+
+        assertEquals(3, OutputClusters.cluster(results, false).size());
+
+        List<OutputClusters.Cluster> merged = OutputClusters.cluster(results, true);
+        assertEquals(2, merged.size());
+        assertEquals(Arrays.asList("bob", "carol", "alice"), merged.get(0).getStudentNames());
+        assertEquals(1, merged.get(0).getNearDuplicateCount());
+        assertEquals("Print | 3 students produced this output (1 nearly identical) | FAILED | 40 line(s)",
+                merged.get(0).toDisplayString());
+        assertEquals(Arrays.asList("dave"), merged.get(1).getStudentNames());
+    }
+
+    private static TestResult failed(String student, String testCase, String output)
+    {
+        return new TestResult(student, testCase, "FAILED", output, "expected");
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.Map;
+
+/**
+ * Decides whether a program's output matches a test case's expected output.
+ * A comparator is chosen by the test case type ("Int", "Tokens:tolerance=0.01", ...; see OutputComparators).
+ *
+ * Comparison is split in two steps so the expected side is only prepared once:
+ * compile() parses and normalizes the expected output, and the returned Expectation
+ * is reused for the output of every student.
+ */
+public interface OutputComparator
+{
+    /**
+     * An expected output prepared for fast repeated matching.
+     */
+    interface Expectation
+    {
+        boolean matches(String actualOutput);
+    }
+
+    /**
+     * Creates a comparator for the options written after the ':' of the type
+     * (keys without a value, like "ignoreCase", map to "true").
+     */
+    interface Factory
+    {
+        OutputComparator create(Map<String, String> options);
+    }
+
+    /**
+     * Prepares an expected output (never null; empty if the test case has none).
+     */
+    Expectation compile(String expectedOutput);
+}
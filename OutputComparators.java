@@ -0,0 +1,478 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of output comparators, looked up by test case type.
+ *
+ * A type is a comparator name optionally followed by options:
+ *   Int
+ *   Double:tolerance=0.01
+ *   Tokens:ignoreCase,tolerance=1e-6
+ *
+ * Built-in comparators:
+ *   String          exact match (after trimming)
+ *   Boolean         case-insensitive match
+ *   Int, Double     numeric match (Double uses tolerance, default 0.0001)
+ *   Whitespace      runs of whitespace count as one space
+ *   Lines           line by line, trailing spaces and trailing blank lines ignored
+ *   Tokens          whitespace-separated tokens; numeric tokens match within tolerance (default 0)
+ *   UnorderedLines  same lines in any order
+ *   Regex           the expected output is a regular expression the whole output must match
+ *
+ * Options every comparator understands: ignoreCase, trimLines (strip trailing spaces on each line).
+ * Line endings are always normalized, so Windows and Unix output compare equal.
+ */
+public class OutputComparators
+{
+    // Registration order is kept so the UI lists the built-ins first
+    private static final Map<String, OutputComparator.Factory> FACTORIES =
+            java.util.Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, OutputComparator> BY_TYPE = new ConcurrentHashMap<>(); // Parsed types
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern LINE_BREAK = Pattern.compile("\n");
+
+    static
+    {
+        register("String", options -> new Exact(options, false));
+        register("Boolean", options -> new Exact(options, true));
+        register("Int", options -> new IntegerMatch());
+        register("Double", options -> new DoubleMatch(doubleOption(options, "tolerance", 0.0001)));
+        register("Whitespace", Collapsed::new);
+        register("Lines", Lines::new);
+        register("Tokens", Tokens::new);
+        register("UnorderedLines", UnorderedLines::new);
+        register("Regex", RegexMatch::new);
+    }
+
+    /**
+     * Adds (or replaces) a comparator under the given name.
+     */
+    public static void register(String name, OutputComparator.Factory factory)
+    {
+        FACTORIES.put(name, factory);
+        BY_TYPE.clear(); // Parsed types may refer to the old factory
+    }
+
+    /**
+     * Returns the names of all registered comparators (for the type choices in the UI).
+     */
+    public static List<String> getNames()
+    {
+        synchronized (FACTORIES)
+        {
+            return new ArrayList<>(FACTORIES.keySet());
+        }
+    }
+
+    /**
+     * Returns the comparator for a type. Null or empty means String.
+     * Throws IllegalArgumentException for an unknown name or a bad option value.
+     */
+    public static OutputComparator forType(String type)
+    {
+        String key = (type == null || type.trim().isEmpty()) ? "String" : type.trim();
+        OutputComparator comparator = BY_TYPE.get(key);
+        if (comparator == null)
+        {
+            comparator = parse(key);
+            BY_TYPE.put(key, comparator);
+        }
+        return comparator;
+    }
+
+    /**
+     * Prepares an expected output for the given type. An invalid type is reported
+     * and treated as String, so one mistyped test case does not stop a whole run.
+     */
+    public static OutputComparator.Expectation compile(String type, String expectedOutput)
+    {
+        OutputComparator comparator;
+        try
+        {
+            comparator = forType(type);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println("Invalid test case type '" + type + "': " + e.getMessage() + " - comparing as String");
+            comparator = forType("String");
+        }
+        return comparator.compile(expectedOutput != null ? expectedOutput : "");
+    }
+
+    // Splits "Name:key=value,flag" into the comparator name and its options
+    private static OutputComparator parse(String type)
+    {
+        int colon = type.indexOf(':');
+        String name = colon < 0 ? type : type.substring(0, colon).trim();
+        Map<String, String> options = new LinkedHashMap<>();
+        if (colon >= 0)
+        {
+            for (String option : type.substring(colon + 1).split(","))
+            {
+                option = option.trim();
+                if (option.isEmpty())
+                {
+                    continue;
+                }
+                int eq = option.indexOf('=');
+                if (eq < 0)
+                {
+                    options.put(option, "true");
+                }
+                else
+                {
+                    options.put(option.substring(0, eq).trim(), option.substring(eq + 1).trim());
+                }
+            }
+        }
+
+        OutputComparator.Factory factory = FACTORIES.get(name);
+        if (factory == null)
+        {
+            throw new IllegalArgumentException("unknown comparator '" + name + "'");
+        }
+        return factory.create(options);
+    }
+
+    private static double doubleOption(Map<String, String> options, String key, double defaultValue)
+    {
+        String value = options.get(key);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(key + " must be a number, got '" + value + "'");
+        }
+    }
+
+    /**
+     * Normalization shared by the text comparators, applied once to the expected output
+     * and once to each actual output: line endings, optional trailing spaces and case.
+     */
+    private static class Normalizer
+    {
+        private final boolean ignoreCase;
+        private final boolean trimLines;
+
+        Normalizer(Map<String, String> options)
+        {
+            this(options, false);
+        }
+
+        Normalizer(Map<String, String> options, boolean forceIgnoreCase)
+        {
+            this.ignoreCase = forceIgnoreCase || "true".equals(options.get("ignoreCase"));
+            this.trimLines = "true".equals(options.get("trimLines"));
+        }
+
+        String apply(String text)
+        {
+            String normalized = text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n").replace('\r', '\n') : text;
+            if (trimLines)
+            {
+                StringBuilder trimmed = new StringBuilder(normalized.length());
+                boolean first = true;
+                for (String line : LINE_BREAK.split(normalized, -1))
+                {
+                    if (!first)
+                    {
+                        trimmed.append('\n');
+                    }
+                    trimmed.append(stripTrailing(line));
+                    first = false;
+                }
+                normalized = trimmed.toString();
+            }
+            if (ignoreCase)
+            {
+                normalized = normalized.toLowerCase();
+            }
+            return normalized.trim();
+        }
+    }
+
+    // String.stripTrailing is Java 11+; the project targets Java 8
+    private static String stripTrailing(String line)
+    {
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1)))
+        {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    // String / Boolean: whole output after normalization
+    private static class Exact implements OutputComparator
+    {
+        private final Normalizer normalizer;
+
+        Exact(Map<String, String> options, boolean ignoreCase)
+        {
+            this.normalizer = new Normalizer(options, ignoreCase);
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            String expected = normalizer.apply(expectedOutput);
+            return actual -> actual != null && normalizer.apply(actual).equals(expected);
+        }
+    }
+
+    // Int: both sides must parse as an int
+    private static class IntegerMatch implements OutputComparator
+    {
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            final int expected;
+            try
+            {
+                expected = Integer.parseInt(expectedOutput.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                return actual -> false; // Nothing can match an expected value that is not a number
+            }
+            return actual -> {
+                try
+                {
+                    return actual != null && Integer.parseInt(actual.trim()) == expected;
+                }
+                catch (NumberFormatException e)
+                {
+                    return false;
+                }
+            };
+        }
+    }
+
+    // Double: both sides must parse as a number and differ by less than the tolerance
+    private static class DoubleMatch implements OutputComparator
+    {
+        private final double tolerance;
+
+        DoubleMatch(double tolerance)
+        {
+            this.tolerance = tolerance;
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            final double expected;
+            try
+            {
+                expected = Double.parseDouble(expectedOutput.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                return actual -> false;
+            }
+            return actual -> {
+                try
+                {
+                    return actual != null && Math.abs(Double.parseDouble(actual.trim()) - expected) < tolerance;
+                }
+                catch (NumberFormatException e)
+                {
+                    return false;
+                }
+            };
+        }
+    }
+
+    // Whitespace: every run of whitespace is treated as a single space
+    private static class Collapsed implements OutputComparator
+    {
+        private final Normalizer normalizer;
+
+        Collapsed(Map<String, String> options)
+        {
+            this.normalizer = new Normalizer(options);
+        }
+
+        private String collapse(String text)
+        {
+            return WHITESPACE.matcher(normalizer.apply(text)).replaceAll(" ");
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            String expected = collapse(expectedOutput);
+            return actual -> actual != null && collapse(actual).equals(expected);
+        }
+    }
+
+    // Lines: line by line, ignoring trailing spaces on each line and blank lines at the end
+    private static class Lines implements OutputComparator
+    {
+        private final Normalizer normalizer;
+
+        Lines(Map<String, String> options)
+        {
+            this.normalizer = new Normalizer(options);
+        }
+
+        List<String> lines(String text)
+        {
+            List<String> lines = new ArrayList<>();
+            for (String line : LINE_BREAK.split(normalizer.apply(text), -1))
+            {
+                lines.add(stripTrailing(line));
+            }
+            while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty())
+            {
+                lines.remove(lines.size() - 1);
+            }
+            return lines;
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            List<String> expected = lines(expectedOutput);
+            return actual -> actual != null && lines(actual).equals(expected);
+        }
+    }
+
+    // UnorderedLines: the same lines (with the same counts) in any order
+    private static class UnorderedLines extends Lines
+    {
+        UnorderedLines(Map<String, String> options)
+        {
+            super(options);
+        }
+
+        private List<String> sortedLines(String text)
+        {
+            List<String> lines = lines(text);
+            lines.removeIf(String::isEmpty);
+            java.util.Collections.sort(lines);
+            return lines;
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            List<String> expected = sortedLines(expectedOutput);
+            return actual -> actual != null && sortedLines(actual).equals(expected);
+        }
+    }
+
+    // Tokens: whitespace-separated tokens; numeric tokens compare as numbers within the tolerance
+    private static class Tokens implements OutputComparator
+    {
+        private final Normalizer normalizer;
+        private final double tolerance;
+
+        Tokens(Map<String, String> options)
+        {
+            this.normalizer = new Normalizer(options);
+            this.tolerance = doubleOption(options, "tolerance", 0);
+        }
+
+        private String[] tokens(String text)
+        {
+            String normalized = normalizer.apply(text);
+            return normalized.isEmpty() ? new String[0] : WHITESPACE.split(normalized);
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            // Parse the expected numbers once; NaN marks a token that is compared as text
+            String[] expected = tokens(expectedOutput);
+            double[] numbers = new double[expected.length];
+            for (int i = 0; i < expected.length; i++)
+            {
+                numbers[i] = parseNumber(expected[i]);
+            }
+            return actual -> {
+                if (actual == null)
+                {
+                    return false;
+                }
+                String[] tokens = tokens(actual);
+                if (tokens.length != expected.length)
+                {
+                    return false;
+                }
+                for (int i = 0; i < tokens.length; i++)
+                {
+                    if (tokens[i].equals(expected[i]))
+                    {
+                        continue;
+                    }
+                    double value = Double.isNaN(numbers[i]) ? Double.NaN : parseNumber(tokens[i]);
+                    if (Double.isNaN(value) || Math.abs(value - numbers[i]) > tolerance)
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        private static double parseNumber(String token)
+        {
+            char first = token.charAt(0);
+            if (!(Character.isDigit(first) || first == '-' || first == '+' || first == '.'))
+            {
+                return Double.NaN; // Cheap reject for words; avoids an exception per token
+            }
+            try
+            {
+                return Double.parseDouble(token);
+            }
+            catch (NumberFormatException e)
+            {
+                return Double.NaN;
+            }
+        }
+    }
+
+    // Regex: the trimmed output must fully match the expected output read as a pattern
+    private static class RegexMatch implements OutputComparator
+    {
+        private final Normalizer normalizer;
+        private final int flags;
+
+        RegexMatch(Map<String, String> options)
+        {
+            // Case is handled by the pattern flag, so the pattern itself is not lower-cased
+            Map<String, String> rest = new LinkedHashMap<>(options);
+            boolean ignoreCase = "true".equals(rest.remove("ignoreCase"));
+            this.normalizer = new Normalizer(rest);
+            this.flags = Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        }
+
+        @Override
+        public Expectation compile(String expectedOutput)
+        {
+            final Pattern pattern;
+            try
+            {
+                pattern = Pattern.compile(expectedOutput.trim(), flags);
+            }
+            catch (java.util.regex.PatternSyntaxException e)
+            {
+                System.err.println("Invalid expected-output pattern: " + e.getMessage());
+                return actual -> false;
+            }
+            return actual -> actual != null && pattern.matcher(normalizer.apply(actual)).matches();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for OutputComparators: the built-in comparators, their options, and how types are
+ * parsed, cached and registered.
+ */
+public class OutputComparatorsTest
+{
+    @Test
+    public void exactAndBooleanCompareTheTrimmedText()
+    {
+        assertMatches("String", "Hello", " Hello\n");
+        assertDiffers("String", "Hello", "hello");
+        assertMatches("String:ignoreCase", "Hello", "HELLO");
+        assertMatches("Boolean", "true", "TRUE");
+        assertMatches("String", "a\nb", "a\r\nb\r\n"); // Line endings are always normalized
+    }
+
+    @Test
+    public void numbersAreParsed()
+    {
+        assertMatches("Int", "42", " 42\n");
+        assertDiffers("Int", "42", "42.0");
+        assertDiffers("Int", "not a number", "not a number");
+        assertMatches("Double", "3.14159", "3.14160");
+        assertDiffers("Double", "3.14", "3.15");
+        assertMatches("Double:tolerance=0.1", "3.14", "3.2");
+    }
+
+    @Test
+    public void whitespaceAndLinesIgnoreLayoutDifferences()
+    {
+        assertMatches("Whitespace", "a b\nc", "a   b c  ");
+        assertDiffers("Whitespace", "a b", "ab");
+
+        assertMatches("Lines", "a\nb", "a  \nb\n\n\n");
+        assertDiffers("Lines", "a\nb", "a b");
+        assertDiffers("String", "a\nb", "a  \nb");
+        assertMatches("String:trimLines", "a\nb", "a  \nb");
+
+        assertMatches("UnorderedLines", "x\ny\ny", "y\nx\ny\n");
+        assertDiffers("UnorderedLines", "x\ny\ny", "y\nx\nx");
+    }
+
+    @Test
+    public void tokensCompareNumbersWithinTheTolerance()
+    {
+        assertMatches("Tokens", "sum 3 avg 1.5", "sum  3\navg 1.50");
+        assertDiffers("Tokens", "sum 3", "sum 3 extra");
+        assertDiffers("Tokens", "avg 1.5", "avg 1.51");
+        assertMatches("Tokens:tolerance=0.1", "avg 1.5", "avg 1.55");
+        assertMatches("Tokens:ignoreCase,tolerance=0.1", "Avg 1.5", "AVG 1.55");
+        assertDiffers("Tokens:tolerance=0.1", "avg 1.5", "avx 1.5");
+    }
+
+    @Test
+    public void regexMustMatchTheWholeOutput()
+    {
+        assertMatches("Regex", "Result: \\d+", "Result: 42\n");
+        assertDiffers("Regex", "Result: \\d+", "Result: 42 apples");
+        assertMatches("Regex:ignoreCase", "RESULT: \\d+", "result: 7");
+        assertMatches("Regex", "a.*b", "a\nline\nb"); // Dot matches line breaks
+        assertDiffers("Regex", "([", "(["); // An invalid pattern matches nothing
+    }
+
+    @Test
+    public void nullOutputNeverMatches()
+    {
+        for (String type : OutputComparators.getNames())
+        {
+            assertTrue(type, !OutputComparators.compile(type, "").matches(null));
+        }
+    }
+
+    @Test
+    public void typesAreParsedOnceAndUnknownOnesRejected()
+    {
+        assertSame(OutputComparators.forType("Double:tolerance=0.5"), OutputComparators.forType(" Double:tolerance=0.5 "));
+        assertSame(OutputComparators.forType("String"), OutputComparators.forType(null));
+
+        assertRejected("Nope", "unknown comparator 'Nope'");
+        assertRejected("Double:tolerance=abc", "tolerance must be a number");
+
+        // compile() reports the mistake and falls back to String, so one test case cannot stop a run
+        assertTrue(OutputComparators.compile("Nope", "abc").matches("abc"));
+        assertTrue(!OutputComparators.compile("Nope", "abc").matches("ABC"));
+    }
+
+    @Test
+    public void registeredComparatorIsUsedForItsType()
+    {
+        assertEquals(Arrays.asList("String", "Boolean", "Int", "Double", "Whitespace", "Lines", "Tokens",
+                "UnorderedLines", "Regex"), OutputComparators.getNames().subList(0, 9));
+
+        OutputComparators.register("Length", options -> expected -> actual -> actual != null
+                && actual.trim().length() == Integer.parseInt(options.getOrDefault("length", "0")));
+        assertMatches("Length:length=3", "", "abc");
+        assertDiffers("Length:length=3", "", "abcd");
+        assertTrue(OutputComparators.getNames().contains("Length"));
+    }
+
+    private static void assertMatches(String type, String expected, String actual)
+    {
+        assertTrue(type + ": '" + actual + "' should match '" + expected + "'",
+                OutputComparators.compile(type, expected).matches(actual));
+    }
+
+    private static void assertDiffers(String type, String expected, String actual)
+    {
+        assertTrue(type + ": '" + actual + "' should not match '" + expected + "'",
+                !OutputComparators.compile(type, expected).matches(actual));
+    }
+
+    private static void assertRejected(String type, String message)
+    {
+        try
+        {
+            OutputComparators.forType(type);
+            fail("Expected an IllegalArgumentException for " + type);
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps one copy of each distinct output text. Most students of a class print one of a few
+ * outputs, and every result of a test case carries the same expected output, so sharing equal
+ * Strings between results saves most of the memory a large run's outputs would take.
+ *
+ * Student names, test case titles and statuses repeat in the same way and are pooled too.
+ *
+ * Outputs are looked up by content (hash, then equals). The pool holds them weakly: an output
+ * no result refers to any more drops out on its own, so one pool can serve many runs.
+ */
+public class OutputPool
+{
+    private final Map<String, WeakReference<String>> outputs = new WeakHashMap<>();
+
+    /**
+     * Returns the pooled String equal to output, adding output if it is new. Null stays null.
+     */
+    public synchronized String share(String output)
+    {
+        if (output == null)
+        {
+            return null;
+        }
+        WeakReference<String> pooled = outputs.get(output);
+        String shared = pooled != null ? pooled.get() : null;
+        if (shared == null)
+        {
+            outputs.put(output, new WeakReference<>(output));
+            return output;
+        }
+        return shared;
+    }
+
+    /**
+     * Number of distinct outputs currently pooled.
+     */
+    public synchronized int size()
+    {
+        return outputs.size();
+    }
+}
@@ -0,0 +1,115 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for storing each distinct output once: OutputPool and TestResult.shareStrings in
+ * memory, and outputs numbered by content in results files.
+ */
+public class OutputPoolTest
+{
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("output-pool-test").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void equalOutputsShareOneString()
+    {
+        OutputPool pool = new OutputPool();
+        String first = new String("Sum is 3");
+        String second = new String("Sum is 3");
+        assertNotSame(first, second);
+
+        assertSame(first, pool.share(first));
+        assertSame(first, pool.share(second));
+        assertEquals("Sum is 4", pool.share("Sum is 4"));
+        assertNull(pool.share(null));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void outputsNoLongerUsedDropOut() throws InterruptedException
+    {
+        OutputPool pool = new OutputPool();
+        String kept = pool.share(new String("kept"));
+        for (int i = 0; i < 1000; i++)
+        {
+            pool.share("dropped " + i);
+        }
+        for (int attempt = 0; attempt < 50 && pool.size() > 1; attempt++)
+        {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(1, pool.size());
+        assertSame(kept, pool.share(new String("kept")));
+    }
+
+    @Test
+    public void sharedResultsReferToTheSameStrings()
+    {
+        OutputPool pool = new OutputPool();
+        TestResult alice = new TestResult(new String("alice"), new String("Sum"), new String("FAILED"),
+                new String("4"), new String("3"), null, new String(""));
+        TestResult bob = new TestResult(new String("bob"), new String("Sum"), new String("FAILED"),
+                new String("4"), new String("3"), null, new String(""));
+        alice.shareStrings(pool);
+        bob.shareStrings(pool);
+
+        assertSame(alice.getTestCaseTitle(), bob.getTestCaseTitle());
+        assertSame(alice.getStatus(), bob.getStatus());
+        assertSame(alice.getActualOutput(), bob.getActualOutput());
+        assertSame(alice.getExpectedOutput(), bob.getExpectedOutput());
+        assertEquals("alice", alice.getStudentName());
+    }
+
+    @Test
+    public void resultsFileStoresEachDistinctOutputOnce() throws IOException
+    {
+        File same = new File(folder, "same" + ResultsFile.EXTENSION);
+        File distinct = new File(folder, "distinct" + ResultsFile.EXTENSION);
+        ResultsFile.write(results(false), same);
+        ResultsFile.write(results(true), distinct);
+        assertTrue(same.length() * 3 < distinct.length());
+
+        TestExecutionResults stored = ResultsFile.read(same, true);
+        ResultsFileTest.assertSameResults(results(false), stored, true);
+        List<TestResult> read = stored.getResults();
+        assertSame(read.get(0).getActualOutput(), read.get(1).getActualOutput());
+        assertSame(read.get(0).getExpectedOutput(), read.get(2).getExpectedOutput());
+    }
+
+    // 500 results of one test case; every student printed the same long output unless distinct
+    private static TestExecutionResults results(boolean distinct)
+    {
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            String output = ResultsFileTest.repeat("line of output\n", 50) + (distinct ? "student " + i + "\n" : "");
+            results.add(new TestResult("student" + i, "Print", "FAILED", output, "expected output\n", 0.5, ""));
+        }
+        return new TestExecutionResults("Suite", "/submissions", "src", results);
+    }
+}
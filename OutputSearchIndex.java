@@ -0,0 +1,564 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index over the actual outputs of a run, for finding every result whose output
+ * contains a string (a leftover debug print, an exception name, ...).
+ *
+ * Identical outputs are indexed once: a document is one distinct output text together with
+ * the results that produced it, which keeps the index small when many students print the
+ * same thing. Two inverted indexes map to document ids:
+ *  - tokens (runs of letters, digits and '_', lower-cased) for whole-word queries
+ *  - trigrams (every 3 lower-cased characters) for substring queries: the documents holding
+ *    all trigrams of the query are the candidates, which are then checked against the text
+ * Posting lists are delta/varint-encoded byte arrays. Results are added one at a time while
+ * the run executes, and the index is saved with the results (see TestExecutionResults).
+ */
+public class OutputSearchIndex implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    // Outputs longer than this are not broken into trigrams; substring queries always scan them
+    private static final int MAX_TRIGRAM_CHARS = 1 << 20;
+
+    // Longer words are not token-indexed (substring queries still find them)
+    private static final int MAX_TOKEN_CHARS = 256;
+
+    // Candidate count below which substring queries stop intersecting and check the texts
+    private static final int FEW_CANDIDATES = 32;
+
+    // One distinct output text and the results that produced it
+    private static class Document implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TestResult> results = new ArrayList<>();
+
+        String getText()
+        {
+            return results.isEmpty() ? "" : results.get(0).getActualOutput();
+        }
+    }
+
+    // Increasing document ids stored as varint-encoded gaps
+    private static class Postings
+    {
+        private byte[] data = new byte[4];
+        private int length;
+        private int lastDoc = -1;
+        private int count;
+
+        void add(int doc)
+        {
+            if (doc == lastDoc)
+            {
+                return;
+            }
+            int gap = doc - lastDoc;
+            lastDoc = doc;
+            count++;
+            if (length + 5 > data.length)
+            {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((gap & ~0x7F) != 0)
+            {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+        }
+
+        int[] toArray()
+        {
+            int[] docs = new int[count];
+            int doc = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++)
+            {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do
+                {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                }
+                while ((b & 0x80) != 0);
+                doc += gap;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        void write(DataOutput out) throws IOException
+        {
+            out.writeInt(count);
+            out.writeInt(lastDoc);
+            out.writeInt(length);
+            out.write(data, 0, length);
+        }
+
+        static Postings read(DataInput in) throws IOException
+        {
+            Postings postings = new Postings();
+            postings.count = in.readInt();
+            postings.lastDoc = in.readInt();
+            postings.length = in.readInt();
+            postings.data = new byte[Math.max(postings.length, 4)];
+            in.readFully(postings.data, 0, postings.length);
+            return postings;
+        }
+    }
+
+    private final List<Document> documents = new ArrayList<>();
+    private final List<Integer> unindexedDocuments = new ArrayList<>(); // Too long for trigrams
+    private int resultCount;
+    // Saved by writeObject as flat key/bytes records (a million small objects serialize slowly)
+    private transient Map<String, Integer> documentByText = new HashMap<>(); // Output text -> document id
+    private transient Map<String, Postings> tokens = new HashMap<>();
+    private transient Map<Long, Postings> trigrams = new HashMap<>();
+
+    /**
+     * Adds one result's actual output to the index.
+     */
+    public synchronized void add(TestResult result)
+    {
+        // An output large enough to be spilled is indexed once for its words but never kept as a lookup key
+        boolean spilled = result.isActualOutputSpilled();
+        String output = result.getActualOutput(); // Read once: a spilled output is loaded from disk
+        String text = output != null ? output : "";
+        boolean keyed = !spilled && text.length() <= SpilledOutput.SPILL_CHARS;
+        Integer existing = keyed ? documentByText().get(text) : null;
+        if (existing != null)
+        {
+            documents.get(existing).results.add(result); // Same output seen before: nothing new to index
+            resultCount++;
+            return;
+        }
+
+        int id = documents.size();
+        boolean trigramIndexed = text.length() <= MAX_TRIGRAM_CHARS;
+        Document document = new Document();
+        document.results.add(result);
+        documents.add(document);
+        if (keyed)
+        {
+            documentByText.put(text, id);
+        }
+        resultCount++;
+
+        for (String token : tokenize(text))
+        {
+            tokens.computeIfAbsent(token, k -> new Postings()).add(id);
+        }
+        if (trigramIndexed)
+        {
+            for (long trigram : distinctTrigrams(text))
+            {
+                trigrams.computeIfAbsent(trigram, k -> new Postings()).add(id);
+            }
+        }
+        else
+        {
+            unindexedDocuments.add(id);
+        }
+    }
+
+    /**
+     * Drops every result of a student (before their submission is regraded). Their outputs stay
+     * indexed but no longer match any result.
+     */
+    public synchronized void removeStudent(String studentName)
+    {
+        for (Document document : documents)
+        {
+            int before = document.results.size();
+            document.results.removeIf(result -> result.getStudentName().equals(studentName));
+            resultCount -= before - document.results.size();
+        }
+    }
+
+    /**
+     * Number of results indexed.
+     */
+    public synchronized int size()
+    {
+        return resultCount;
+    }
+
+    /**
+     * Number of distinct outputs indexed.
+     */
+    public synchronized int getDistinctOutputCount()
+    {
+        return documents.size();
+    }
+
+    /**
+     * Returns true if this index holds exactly the given results (same objects).
+     */
+    public synchronized boolean covers(List<TestResult> results)
+    {
+        if (results.size() != resultCount)
+        {
+            return false;
+        }
+        Map<TestResult, Boolean> indexed = new IdentityHashMap<>();
+        for (Document document : documents)
+        {
+            for (TestResult result : document.results)
+            {
+                indexed.put(result, Boolean.TRUE);
+            }
+        }
+        for (TestResult result : results)
+        {
+            if (!indexed.containsKey(result))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the results whose output contains query, ignoring case.
+     */
+    public synchronized List<TestResult> findSubstring(String query)
+    {
+        if (query == null || query.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        int[] candidates;
+        if (query.length() < 3)
+        {
+            candidates = allDocuments(); // No trigram to narrow by: check every distinct output
+        }
+        else
+        {
+            // Rarest trigrams first; once few candidates are left, checking their text beats decoding more lists
+            List<Postings> lists = new ArrayList<>();
+            for (long trigram : distinctTrigrams(query))
+            {
+                Postings postings = trigrams.get(trigram);
+                lists.add(postings != null ? postings : new Postings());
+            }
+            lists.sort((a, b) -> Integer.compare(a.count, b.count));
+            candidates = null;
+            for (Postings postings : lists)
+            {
+                candidates = intersect(candidates, postings.toArray());
+                if (candidates.length <= FEW_CANDIDATES)
+                {
+                    break;
+                }
+            }
+            candidates = union(candidates, unindexedDocuments);
+        }
+
+        List<TestResult> matches = new ArrayList<>();
+        for (int id : candidates)
+        {
+            Document document = documents.get(id);
+            if (!document.results.isEmpty() && containsIgnoreCase(document.getText(), query))
+            {
+                matches.addAll(document.results);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the results whose output contains every word of query as a whole word, ignoring case.
+     */
+    public synchronized List<TestResult> findTokens(String query)
+    {
+        List<String> words = tokenize(query != null ? query : "");
+        if (words.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        int[] candidates = null;
+        for (String word : words)
+        {
+            Postings postings = tokens.get(word);
+            candidates = intersect(candidates, postings != null ? postings.toArray() : new int[0]);
+            if (candidates.length == 0)
+            {
+                break; // Every word must be present
+            }
+        }
+
+        List<TestResult> matches = new ArrayList<>();
+        for (int id : candidates)
+        {
+            matches.addAll(documents.get(id).results);
+        }
+        return matches;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        writePostings(out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        readPostings(in);
+    }
+
+    /**
+     * Writes the index to a results file, referring to results by their position (see ResultsFile).
+     */
+    public synchronized void writeTo(DataOutput out, Map<TestResult, Integer> resultIds) throws IOException
+    {
+        out.writeInt(documents.size());
+        for (Document document : documents)
+        {
+            out.writeInt(document.results.size());
+            for (TestResult result : document.results)
+            {
+                out.writeInt(resultIds.get(result));
+            }
+        }
+        out.writeInt(unindexedDocuments.size());
+        for (int id : unindexedDocuments)
+        {
+            out.writeInt(id);
+        }
+        writePostings(out);
+    }
+
+    /**
+     * Reads an index written by writeTo, attaching it to the results it was written with.
+     */
+    public static OutputSearchIndex readFrom(DataInput in, List<TestResult> results) throws IOException
+    {
+        OutputSearchIndex index = new OutputSearchIndex();
+        int documentCount = in.readInt();
+        for (int i = 0; i < documentCount; i++)
+        {
+            Document document = new Document();
+            int resultCount = in.readInt();
+            for (int j = 0; j < resultCount; j++)
+            {
+                document.results.add(results.get(in.readInt()));
+            }
+            index.documents.add(document);
+            index.resultCount += resultCount;
+        }
+        int unindexedCount = in.readInt();
+        for (int i = 0; i < unindexedCount; i++)
+        {
+            index.unindexedDocuments.add(in.readInt());
+        }
+        index.readPostings(in);
+        return index;
+    }
+
+    private void writePostings(DataOutput out) throws IOException
+    {
+        out.writeInt(tokens.size());
+        for (Map.Entry<String, Postings> entry : tokens.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            entry.getValue().write(out);
+        }
+        out.writeInt(trigrams.size());
+        for (Map.Entry<Long, Postings> entry : trigrams.entrySet())
+        {
+            out.writeLong(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    // The text lookup used to add more results is rebuilt when it is next needed
+    private void readPostings(DataInput in) throws IOException
+    {
+        int tokenCount = in.readInt();
+        tokens = new HashMap<>(tokenCount * 2);
+        for (int i = 0; i < tokenCount; i++)
+        {
+            tokens.put(in.readUTF(), Postings.read(in));
+        }
+        int trigramCount = in.readInt();
+        trigrams = new HashMap<>(trigramCount * 2);
+        for (int i = 0; i < trigramCount; i++)
+        {
+            trigrams.put(in.readLong(), Postings.read(in));
+        }
+        documentByText = null;
+    }
+
+    // Text -> document lookup, rebuilt on first add after loading (reading every output is
+    // left until then, since saved outputs may still be on disk; see ResultsStore)
+    private Map<String, Integer> documentByText()
+    {
+        if (documentByText == null)
+        {
+            documentByText = new HashMap<>();
+            for (int id = 0; id < documents.size(); id++)
+            {
+                List<TestResult> results = documents.get(id).results;
+                if (!results.isEmpty() && !results.get(0).isActualOutputSpilled())
+                {
+                    documentByText.put(documents.get(id).getText(), id);
+                }
+            }
+        }
+        return documentByText;
+    }
+
+    // Distinct lower-cased words (letters, digits, '_') of text
+    private static List<String> tokenize(String text)
+    {
+        List<String> words = new ArrayList<>();
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        int i = 0;
+        while (i < text.length())
+        {
+            while (i < text.length() && !isWordChar(text.charAt(i)))
+            {
+                i++;
+            }
+            int start = i;
+            while (i < text.length() && isWordChar(text.charAt(i)))
+            {
+                i++;
+            }
+            if (i > start && i - start <= MAX_TOKEN_CHARS)
+            {
+                String word = text.substring(start, i).toLowerCase();
+                if (seen.add(word))
+                {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    private static boolean isWordChar(char c)
+    {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // Distinct trigrams of the lower-cased text, each packed as three 16-bit chars
+    private static long[] distinctTrigrams(String text)
+    {
+        if (text.length() < 3)
+        {
+            return new long[0];
+        }
+        long[] packed = new long[text.length() - 2];
+        char a = Character.toLowerCase(text.charAt(0));
+        char b = Character.toLowerCase(text.charAt(1));
+        for (int i = 2; i < text.length(); i++)
+        {
+            char c = Character.toLowerCase(text.charAt(i));
+            packed[i - 2] = ((long) a << 32) | ((long) b << 16) | c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(packed);
+        int distinct = 0;
+        for (int i = 0; i < packed.length; i++)
+        {
+            if (i == 0 || packed[i] != packed[i - 1])
+            {
+                packed[distinct++] = packed[i];
+            }
+        }
+        return Arrays.copyOf(packed, distinct);
+    }
+
+    // Intersection of two sorted id lists (null stands for "everything")
+    private static int[] intersect(int[] a, int[] b)
+    {
+        if (a == null)
+        {
+            return b;
+        }
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length)
+        {
+            if (a[i] < b[j])
+            {
+                i++;
+            }
+            else if (a[i] > b[j])
+            {
+                j++;
+            }
+            else
+            {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Sorted union of a sorted id list with the (sorted) unindexed documents
+    private static int[] union(int[] a, List<Integer> extra)
+    {
+        if (extra.isEmpty())
+        {
+            return a;
+        }
+        java.util.TreeSet<Integer> ids = new java.util.TreeSet<>(extra);
+        for (int id : a)
+        {
+            ids.add(id);
+        }
+        int[] result = new int[ids.size()];
+        int i = 0;
+        for (int id : ids)
+        {
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    private int[] allDocuments()
+    {
+        int[] ids = new int[documents.size()];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    // Same as text.toLowerCase().contains(query.toLowerCase()) without copying the text
+    private static boolean containsIgnoreCase(String text, String query)
+    {
+        for (int i = 0; i + query.length() <= text.length(); i++)
+        {
+            if (text.regionMatches(true, i, query, 0, query.length()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
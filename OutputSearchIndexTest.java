@@ -0,0 +1,144 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for OutputSearchIndex: substring and whole-word queries, identical outputs indexed once,
+ * outputs too large for trigrams, regrading, and reading the index back from a results file.
+ */
+public class OutputSearchIndexTest
+{
+    @Test
+    public void substringQueriesIgnoreCase()
+    {
+        OutputSearchIndex index = index(
+                result("alice", "Sum is 3\nDEBUG: i=2"),
+                result("bob", "Sum is 3"),
+                result("carol", "debugging done"));
+
+        assertEquals(Arrays.asList("alice", "carol"), students(index.findSubstring("Debug")));
+        assertEquals(Arrays.asList("alice", "bob"), students(index.findSubstring("sum is")));
+        assertEquals(Arrays.asList("alice"), students(index.findSubstring("i="))); // Too short for a trigram
+        assertEquals(Arrays.asList(), students(index.findSubstring("missing")));
+        assertEquals(Arrays.asList(), students(index.findSubstring("")));
+    }
+
+    @Test
+    public void candidatesHoldingEveryTrigramAreStillChecked()
+    {
+        // "abcxbcd" has both trigrams of "abcd" but does not contain it
+        OutputSearchIndex index = index(result("alice", "abcxbcd"), result("bob", "xxabcdxx"));
+        assertEquals(Arrays.asList("bob"), students(index.findSubstring("ABCD")));
+    }
+
+    @Test
+    public void manyDistinctOutputsAreNarrowedByTheRarestTrigrams()
+    {
+        OutputSearchIndex index = new OutputSearchIndex();
+        for (int i = 0; i < 200; i++)
+        {
+            index.add(result("student" + i, "common prefix line\nvalue " + i));
+        }
+        assertEquals(200, index.getDistinctOutputCount());
+        assertEquals(Arrays.asList("student42"), students(index.findSubstring("value 42")));
+        assertEquals(Arrays.asList("student42", "student142"), students(index.findSubstring("42")));
+        assertEquals(200, index.findSubstring("common prefix").size());
+    }
+
+    @Test
+    public void tokenQueriesMatchWholeWords()
+    {
+        OutputSearchIndex index = index(
+                result("alice", "DEBUG: total=5"),
+                result("bob", "debugging total"),
+                result("carol", "total debug"));
+
+        assertEquals(Arrays.asList("alice", "carol"), students(index.findTokens("debug")));
+        assertEquals(Arrays.asList("alice", "carol"), students(index.findTokens("Total DEBUG")));
+        assertEquals(Arrays.asList("alice"), students(index.findTokens("total 5")));
+        assertEquals(Arrays.asList(), students(index.findTokens("  ")));
+    }
+
+    @Test
+    public void identicalOutputsAreIndexedOnce()
+    {
+        OutputSearchIndex index = index(result("alice", "42"), result("bob", "42"), result("carol", "43"));
+        assertEquals(3, index.size());
+        assertEquals(2, index.getDistinctOutputCount());
+
+        index.removeStudent("alice");
+        assertEquals(2, index.size());
+        assertEquals(Arrays.asList("bob"), students(index.findTokens("42")));
+    }
+
+    @Test
+    public void outputTooLargeForTrigramsIsScanned()
+    {
+        String large = ResultsFileTest.repeat("x", (1 << 20) + 10) + " needle";
+        OutputSearchIndex index = index(result("alice", large), result("bob", "no match here"));
+        assertEquals(Arrays.asList("alice"), students(index.findSubstring("NEEDLE")));
+        assertEquals(Arrays.asList("alice"), students(index.findTokens("needle"))); // Its words are still indexed
+    }
+
+    @Test
+    public void indexReadBackFromAResultsFileKeepsWorking() throws IOException
+    {
+        List<TestResult> results = Arrays.asList(result("alice", "Sum is 3"), result("bob", "Sum is 3"), result("carol", "oops"));
+        OutputSearchIndex index = new OutputSearchIndex();
+        Map<TestResult, Integer> ids = new HashMap<>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            index.add(results.get(i));
+            ids.put(results.get(i), i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes), ids);
+
+        OutputSearchIndex loaded = OutputSearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), results);
+        assertTrue(loaded.covers(results));
+        assertEquals(Arrays.asList("alice", "bob"), students(loaded.findSubstring("SUM")));
+        assertEquals(Arrays.asList("carol"), students(loaded.findTokens("oops")));
+
+        loaded.add(result("dave", "oops")); // Joins the existing document
+        assertEquals(2, loaded.getDistinctOutputCount());
+        assertEquals(Arrays.asList("carol", "dave"), students(loaded.findSubstring("oop")));
+        assertTrue(!loaded.covers(results));
+    }
+
+    private static OutputSearchIndex index(TestResult... results)
+    {
+        OutputSearchIndex index = new OutputSearchIndex();
+        for (TestResult result : results)
+        {
+            index.add(result);
+        }
+        return index;
+    }
+
+    private static TestResult result(String student, String output)
+    {
+        return new TestResult(student, "T1", "FAILED", output, "expected");
+    }
+
+    private static List<String> students(List<TestResult> results)
+    {
+        List<String> names = new ArrayList<>();
+        for (TestResult result : results)
+        {
+            names.add(result.getStudentName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores how close an actual output is to the expected one, from 0.0 (nothing in common)
+ * to 1.0 (same lines and tokens). Used as partial credit for failed results.
+ *
+ * The score averages a line-level and a token-level similarity, each 1 - distance / length,
+ * where distance is the edit distance between the two sequences. Distances are computed
+ * with Ukkonen's banded algorithm: only cells within k of the diagonal are filled and a row
+ * whose minimum exceeds k stops the search, with k doubled until the distance is found. Work
+ * is O(n * d), so near misses (the common case worth scoring) cost almost nothing. When the
+ * band would exceed a fixed budget the distance is estimated from the lines/tokens the two
+ * outputs share, so scoring every failed result of a large class stays bounded.
+ */
+public class OutputSimilarity
+{
+    // Most DP cells filled per level before falling back to the estimate (a few ms)
+    private static final long MAX_CELLS = 4_000_000L;
+
+    private OutputSimilarity()
+    {
+    }
+
+    /**
+     * Returns the similarity of actual to expected, between 0.0 and 1.0.
+     */
+    public static double score(String expected, String actual)
+    {
+        String expectedText = expected != null ? expected : "";
+        String actualText = actual != null ? actual : "";
+        if (expectedText.equals(actualText))
+        {
+            return 1.0;
+        }
+
+        // Whole lines both outputs start or end with need no edits: only count them, so a near miss
+        // in a huge output interns just the lines around the difference
+        int prefix = 0;
+        int limit = Math.min(expectedText.length(), actualText.length());
+        for (int i = 0; i < limit && expectedText.charAt(i) == actualText.charAt(i); i++)
+        {
+            if (expectedText.charAt(i) == '\n')
+            {
+                prefix = i + 1;
+            }
+        }
+        int suffix = 0;
+        for (int i = 1; i <= limit - prefix && expectedText.charAt(expectedText.length() - i) == actualText.charAt(actualText.length() - i); i++)
+        {
+            // The shared tail must start a line in both outputs
+            int before = i + 1;
+            if (before <= limit && expectedText.charAt(expectedText.length() - before) == '\n'
+                    && actualText.charAt(actualText.length() - before) == '\n')
+            {
+                suffix = i;
+            }
+        }
+        int suffixStart = expectedText.length() - suffix;
+        int sharedLines = countLines(expectedText, 0, prefix) + countLines(expectedText, suffixStart, expectedText.length());
+        int sharedTokens = countTokens(expectedText, 0, prefix) + countTokens(expectedText, suffixStart, expectedText.length());
+        String expectedMiddle = expectedText.substring(prefix, expectedText.length() - suffix);
+        String actualMiddle = actualText.substring(prefix, actualText.length() - suffix);
+
+        Map<String, Integer> ids = new HashMap<>();
+        int[] expectedLines = lineIds(expectedMiddle, ids);
+        int[] actualLines = lineIds(actualMiddle, ids);
+        ids.clear();
+        int[] expectedTokens = tokenIds(expectedMiddle, ids);
+        int[] actualTokens = tokenIds(actualMiddle, ids);
+
+        return (similarity(expectedLines, actualLines, sharedLines) + similarity(expectedTokens, actualTokens, sharedTokens)) / 2;
+    }
+
+    // Similarity of two id sequences that also share `shared` equal elements outside them
+    private static double similarity(int[] a, int[] b, int shared)
+    {
+        int longest = Math.max(a.length, b.length) + shared;
+        if (longest == 0)
+        {
+            return 1.0;
+        }
+        return 1.0 - (double) distance(a, b) / longest;
+    }
+
+    /**
+     * Edit distance (insert, delete, substitute) between two sequences of ids, estimated
+     * from the shared elements when the exact banded computation would be too expensive.
+     */
+    static int distance(int[] a, int[] b)
+    {
+        // Trim the common prefix and suffix: a single typo leaves almost nothing to compare
+        int start = 0;
+        int endA = a.length;
+        int endB = b.length;
+        while (start < endA && start < endB && a[start] == b[start])
+        {
+            start++;
+        }
+        while (endA > start && endB > start && a[endA - 1] == b[endB - 1])
+        {
+            endA--;
+            endB--;
+        }
+        int n = endA - start;
+        int m = endB - start;
+        if (n == 0 || m == 0)
+        {
+            return Math.max(n, m);
+        }
+
+        int longest = Math.max(n, m);
+        int k = Math.max(Math.abs(n - m), 1); // The length difference is a lower bound on the distance
+        while (true)
+        {
+            if ((long) Math.min(n, m) * (2L * k + 1) > MAX_CELLS)
+            {
+                return estimate(a, start, endA, b, start, endB);
+            }
+            int d = bandedDistance(a, start, n, b, start, m, k);
+            if (d <= k)
+            {
+                return d;
+            }
+            if (k >= longest)
+            {
+                return longest; // Cannot happen (distance <= longest), kept as a safe exit
+            }
+            k = (int) Math.min((long) k * 2, longest);
+        }
+    }
+
+    // Ukkonen's cutoff: fills only diagonals j - i in [-k, k]; returns k + 1 as soon as the distance must exceed k
+    private static int bandedDistance(int[] a, int offsetA, int n, int[] b, int offsetB, int m, int k)
+    {
+        int width = 2 * k + 1;
+        int over = k + 1;
+        int[] previous = new int[width];
+        int[] current = new int[width];
+
+        // Row 0: reaching column j costs j insertions. Slot s holds column j = i + s - k.
+        for (int s = 0; s < width; s++)
+        {
+            int j = s - k;
+            previous[s] = j >= 0 && j <= m ? j : over;
+        }
+
+        for (int i = 1; i <= n; i++)
+        {
+            int rowMin = over;
+            int ai = a[offsetA + i - 1];
+            for (int s = 0; s < width; s++)
+            {
+                int j = i + s - k;
+                int value;
+                if (j < 0 || j > m)
+                {
+                    value = over;
+                }
+                else if (j == 0)
+                {
+                    value = Math.min(i, over);
+                }
+                else
+                {
+                    value = previous[s] + (ai == b[offsetB + j - 1] ? 0 : 1); // From (i-1, j-1), same diagonal
+                    if (s + 1 < width)
+                    {
+                        value = Math.min(value, previous[s + 1] + 1); // Delete: from (i-1, j)
+                    }
+                    if (s > 0)
+                    {
+                        value = Math.min(value, current[s - 1] + 1); // Insert: from (i, j-1)
+                    }
+                    value = Math.min(value, over);
+                }
+                current[s] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > k)
+            {
+                return over; // Every path already costs more than k
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int s = m - n + k;
+        return s >= 0 && s < width ? previous[s] : over;
+    }
+
+    // Lower bound on the distance: every element one side has beyond the shared multiset must be edited
+    private static int estimate(int[] a, int startA, int endA, int[] b, int startB, int endB)
+    {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = startA; i < endA; i++)
+        {
+            counts.merge(a[i], 1, Integer::sum);
+        }
+        int shared = 0;
+        for (int j = startB; j < endB; j++)
+        {
+            Integer count = counts.get(b[j]);
+            if (count != null && count > 0)
+            {
+                counts.put(b[j], count - 1);
+                shared++;
+            }
+        }
+        return Math.max(endA - startA, endB - startB) - shared;
+    }
+
+    // Lines (trailing whitespace ignored) mapped to ids, so comparing two lines is one int compare
+    private static int[] lineIds(String text, Map<String, Integer> ids)
+    {
+        TextLineSource lines = new TextLineSource(text);
+        int[] result = new int[lines.getLineCount()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = intern(LineSource.stripTrailing(lines.getLine(i)), ids);
+        }
+        return result;
+    }
+
+    // Whitespace-separated tokens mapped to ids
+    private static int[] tokenIds(String text, Map<String, Integer> ids)
+    {
+        List<Integer> result = new ArrayList<>();
+        int i = 0;
+        while (i < text.length())
+        {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i)))
+            {
+                i++;
+            }
+            int start = i;
+            while (i < text.length() && !Character.isWhitespace(text.charAt(i)))
+            {
+                i++;
+            }
+            if (i > start)
+            {
+                result.add(intern(text.substring(start, i), ids));
+            }
+        }
+        int[] array = new int[result.size()];
+        for (int j = 0; j < array.length; j++)
+        {
+            array[j] = result.get(j);
+        }
+        return array;
+    }
+
+    // Lines in text[start, end), where the range holds whole lines
+    private static int countLines(String text, int start, int end)
+    {
+        int count = 0;
+        for (int i = start; i < end; i++)
+        {
+            char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= end || text.charAt(i + 1) != '\n')))
+            {
+                count++;
+            }
+        }
+        if (end > start && text.charAt(end - 1) != '\n' && text.charAt(end - 1) != '\r')
+        {
+            count++; // Last line without a terminator
+        }
+        return count;
+    }
+
+    // Tokens in text[start, end), where the range does not cut a token
+    private static int countTokens(String text, int start, int end)
+    {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = start; i < end; i++)
+        {
+            boolean whitespace = Character.isWhitespace(text.charAt(i));
+            if (!whitespace && !inToken)
+            {
+                count++;
+            }
+            inToken = !whitespace;
+        }
+        return count;
+    }
+
+    private static int intern(String value, Map<String, Integer> ids)
+    {
+        Integer id = ids.get(value);
+        if (id == null)
+        {
+            id = ids.size();
+            ids.put(value, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,82 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for OutputSimilarity: the partial credit score and the edit distance behind it.
+ */
+public class OutputSimilarityTest
+{
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void identicalOutputsScoreOne()
+    {
+        assertEquals(1.0, OutputSimilarity.score("1\n2\n3", "1\n2\n3"), DELTA);
+        assertEquals(1.0, OutputSimilarity.score(null, ""), DELTA);
+        assertEquals(1.0, OutputSimilarity.score("", null), DELTA);
+    }
+
+    @Test
+    public void outputsWithNothingInCommonScoreZero()
+    {
+        assertEquals(0.0, OutputSimilarity.score("alpha beta", "gamma delta"), DELTA);
+        assertEquals(0.0, OutputSimilarity.score("", "something"), DELTA);
+    }
+
+    @Test
+    public void oneWrongLineOfTenScoresHigh()
+    {
+        // One of ten lines and one of ten tokens differ: (0.9 + 0.9) / 2
+        assertEquals(0.9, OutputSimilarity.score(lines(10, -1), lines(10, 4)), DELTA);
+    }
+
+    @Test
+    public void closerOutputsScoreHigher()
+    {
+        String expected = lines(20, -1);
+        double oneWrong = OutputSimilarity.score(expected, lines(20, 3));
+        double missingHalf = OutputSimilarity.score(expected, lines(10, -1));
+        assertTrue(oneWrong > missingHalf);
+        assertTrue(missingHalf > 0.0);
+    }
+
+    @Test
+    public void scoreIsBetweenZeroAndOneForLargeDifferentOutputs()
+    {
+        // Large enough that the banded distance gives way to the estimate
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < 50000; i++)
+        {
+            expected.append(i).append('\n');
+            actual.append(i % 3 == 0 ? i : -i).append('\n');
+        }
+        long start = System.currentTimeMillis();
+        double score = OutputSimilarity.score(expected.toString(), actual.toString());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertTrue(score > 0.0 && score < 1.0);
+    }
+
+    @Test
+    public void distanceCountsInsertsDeletesAndSubstitutions()
+    {
+        assertEquals(0, OutputSimilarity.distance(new int[] { 1, 2, 3 }, new int[] { 1, 2, 3 }));
+        assertEquals(1, OutputSimilarity.distance(new int[] { 1, 2, 3 }, new int[] { 1, 3 }));
+        assertEquals(1, OutputSimilarity.distance(new int[] { 1, 2, 3 }, new int[] { 1, 9, 3 }));
+        assertEquals(2, OutputSimilarity.distance(new int[] { 1, 2, 3 }, new int[] { 2, 3, 4 }));
+        assertEquals(3, OutputSimilarity.distance(new int[0], new int[] { 1, 2, 3 }));
+    }
+
+    // Lines "line0" ... "line<count-1>", with line `wrong` (if any) replaced
+    private static String lines(int count, int wrong)
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            text.append(i == wrong ? "oops" : "line" + i).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,242 @@
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+
+/**
+ * Read-only viewer for outputs of any size. The list holds line numbers only (no copies of
+ * the text) and a cell reads its line from the LineSource when it scrolls into view, so only
+ * the visible window of lines is ever materialized. Supports searching and jumping to a line.
+ */
+public class OutputViewer extends VBox
+{
+    private static final String MONO = "-fx-font-family: 'monospaced'; -fx-text-fill: #E8E8F2;";
+
+    private final Label titleLabel;
+    private final Label statusLabel = new Label();
+    private final ListView<Integer> lineList = new ListView<>();
+    private final TextField searchField = new TextField();
+    private final CheckBox ignoreCaseBox = new CheckBox("Ignore case");
+    private LineSource source = new TextLineSource("");
+    private int highlightedLine = -1; // Line shown in red (e.g. the first mismatch), -1 for none
+    private Task<Integer> runningSearch;
+
+    /**
+     * Constructor: creates an empty viewer with the given heading.
+     */
+    public OutputViewer(String title)
+    {
+        super(5);
+        titleLabel = new Label(title);
+        titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
+        statusLabel.setStyle("-fx-text-fill: #B8B8CC;");
+        ignoreCaseBox.setStyle("-fx-text-fill: #E8E8F2;");
+        searchField.setPromptText("Search output");
+        searchField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+
+        lineList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6;");
+        lineList.setFixedCellSize(22); // Equal heights let the list jump anywhere without measuring rows
+        lineList.setCellFactory(list -> new LineCell());
+        VBox.setVgrow(lineList, Priority.ALWAYS);
+
+        Button nextButton = new Button("Next");
+        Button previousButton = new Button("Previous");
+        nextButton.setOnAction(e -> search(true));
+        previousButton.setOnAction(e -> search(false));
+        searchField.setOnAction(e -> search(true));
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        HBox searchBox = new HBox(5, searchField, previousButton, nextButton, ignoreCaseBox);
+
+        getChildren().addAll(titleLabel, lineList, searchBox, statusLabel);
+    }
+
+    /**
+     * Shows the lines of the given source.
+     */
+    public void setSource(LineSource source)
+    {
+        closeSource();
+        this.source = source;
+        this.highlightedLine = -1;
+        int count = source.getLineCount();
+        // A read-only list whose element i is just i: nothing is copied, however long the output
+        lineList.setItems(FXCollections.observableList(new AbstractList<Integer>()
+        {
+            @Override
+            public Integer get(int index)
+            {
+                return index;
+            }
+
+            @Override
+            public int size()
+            {
+                return count;
+            }
+        }));
+        statusLabel.setText(count + " line(s)");
+    }
+
+    /**
+     * Returns the source currently shown.
+     */
+    public LineSource getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Scrolls to a line (0-based), selects it and marks it in red.
+     */
+    public void highlightLine(int index)
+    {
+        highlightedLine = index;
+        jumpTo(index);
+        lineList.refresh();
+    }
+
+    /**
+     * Scrolls to a line (0-based) and selects it.
+     */
+    public void jumpTo(int index)
+    {
+        if (index < 0 || index >= source.getLineCount())
+        {
+            return;
+        }
+        lineList.scrollTo(Math.max(0, index - 3)); // Leave a little context above
+        lineList.getSelectionModel().select(index);
+    }
+
+    // Searches from the line after the selection on a background thread, so huge outputs do not freeze the UI
+    private void search(boolean forward)
+    {
+        String query = searchField.getText();
+        if (query == null || query.isEmpty())
+        {
+            return;
+        }
+        if (runningSearch != null)
+        {
+            runningSearch.cancel();
+        }
+
+        int selected = lineList.getSelectionModel().getSelectedIndex();
+        int from = selected < 0 ? 0 : (forward ? selected + 1 : selected - 1);
+        boolean ignoreCase = ignoreCaseBox.isSelected();
+        LineSource searched = source;
+        Task<Integer> task = new Task<Integer>()
+        {
+            @Override
+            protected Integer call()
+            {
+                return searched.find(query, from, forward, ignoreCase);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            int found = task.getValue();
+            if (found < 0)
+            {
+                statusLabel.setText("'" + query + "' not found");
+            }
+            else
+            {
+                statusLabel.setText("'" + query + "' found on line " + (found + 1) + " of " + searched.getLineCount());
+                jumpTo(found);
+            }
+        });
+        runningSearch = task;
+        statusLabel.setText("Searching ...");
+        Thread thread = new Thread(task, "output-search");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops a search that is still running (call when leaving the screen).
+     */
+    public void cancelSearch()
+    {
+        if (runningSearch != null)
+        {
+            runningSearch.cancel();
+        }
+    }
+
+    /**
+     * Stops any search and releases the source (a spilled output keeps its file open).
+     */
+    public void close()
+    {
+        cancelSearch();
+        closeSource();
+        source = new TextLineSource("");
+    }
+
+    private void closeSource()
+    {
+        if (source instanceof Closeable)
+        {
+            try
+            {
+                ((Closeable) source).close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error closing output: " + e.getMessage());
+            }
+        }
+    }
+
+    // Cell showing "line number  text", reading the text only when the cell becomes visible
+    private class LineCell extends ListCell<Integer>
+    {
+        @Override
+        protected void updateItem(Integer index, boolean empty)
+        {
+            super.updateItem(index, empty);
+            if (empty || index == null)
+            {
+                setText(null);
+                setStyle("");
+                return;
+            }
+            setText(String.format("%7d  %s", index + 1, source.getLine(index)));
+            setStyle(MONO + (index == highlightedLine ? " -fx-background-color: #4a2630;" : ""));
+        }
+    }
+
+    /**
+     * Runs a first-mismatch search between two viewers in the background and marks the
+     * line in both. Calls onDone (on the FX thread) with the line index, or -1 if equal.
+     */
+    public static void jumpToFirstMismatch(OutputViewer expected, OutputViewer actual, java.util.function.IntConsumer onDone)
+    {
+        LineSource expectedSource = expected.getSource();
+        LineSource actualSource = actual.getSource();
+        Thread thread = new Thread(() -> {
+            int mismatch = LineSource.firstMismatch(expectedSource, actualSource);
+            Platform.runLater(() -> {
+                if (mismatch >= 0)
+                {
+                    expected.highlightLine(mismatch);
+                    actual.highlightLine(mismatch);
+                }
+                onDone.accept(mismatch);
+            });
+        }, "output-mismatch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
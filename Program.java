@@ -2,8 +2,10 @@ import java.io.File;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,6 +18,9 @@ public class Program
     private File sourceFile; // The Java source file associated with this program
     private Boolean compilationStatus = null; // null = not tried, true = compiled successfully, false = compilation failed
     private Integer lastExitCode = null; // Exit code from last program execution
+
+    // Most stderr kept per run: enough for any stack trace, bounded for programs that spam stderr
+    private static final int MAX_ERROR_CHARS = 64 * 1024;
     private String className = null; // Cached class name extracted from source file
 
     /**
@@ -144,11 +149,72 @@ public class Program
         return className;
     }
     
+    /**
+     * Returns the name of the class holding main (as passed to the java command).
+     */
+    public String getMainClassName()
+    {
+        return extractClassName();
+    }
+
     //Executes the compiled Java class file with the provided input data.
-    //It pipes inputData to stdin and captures all output from stdout/stderr.
+    //It pipes inputData to stdin and captures the output from stdout (stderr is kept separately).
     // Run this compiled Java program with input data
     // Returns the program's output as a string
     public String run(String inputData)
+    {
+        RunResult result = run(inputData, null, null);
+        lastExitCode = result.getExitCode();
+        return result.getOutput();
+    }
+
+    /**
+     * Output and exit code of a single run. Returned by value, so the same Program can be
+     * run from several threads at once (the reference solution is run in parallel).
+     */
+    public static class RunResult
+    {
+        private final String output;
+        private final String errorOutput; // What the program wrote to stderr (stack traces)
+        private final Integer exitCode; // null if the program could not be started
+
+        RunResult(String output, Integer exitCode)
+        {
+            this(output, "", exitCode);
+        }
+
+        RunResult(String output, String errorOutput, Integer exitCode)
+        {
+            this.output = output;
+            this.errorOutput = errorOutput;
+            this.exitCode = exitCode;
+        }
+
+        public String getOutput() { return output; }
+        public String getErrorOutput() { return errorOutput; }
+        public Integer getExitCode() { return exitCode; }
+
+        // True if the program ran to completion with exit code 0
+        public boolean succeeded()
+        {
+            return exitCode != null && exitCode == 0;
+        }
+    }
+
+    /**
+     * Runs this compiled program on a test case's input (streamed from its input file if it has one).
+     * Safe to call from several threads at once.
+     */
+    public RunResult runWithInput(TestCase testCase)
+    {
+        return run(testCase.getInputData(), testCase.getInputFile(), null);
+    }
+
+    // Run this compiled Java program, optionally with external files instead of Strings
+    // inputFile: if not null, the OS streams this file straight into stdin (inputData is ignored)
+    // outputFile: if not null, all output is written to this file instead of being collected,
+    //             and only a short preview is returned
+    private RunResult run(String inputData, File inputFile, File outputFile)
     {
         try
         {
@@ -165,12 +231,31 @@ public class Program
             cmd.add(classNameToRun);
             
             ProcessBuilder pb = new ProcessBuilder(cmd);
-            pb.redirectErrorStream(true); // Merge stdout & stderr
+            if (inputFile != null)
+            {
+                pb.redirectInput(inputFile); // Never loaded into memory
+            }
+            if (outputFile != null)
+            {
+                pb.redirectOutput(outputFile);
+            }
             
             Process process = pb.start();
+
+            // stderr is kept apart from the output (it holds stack traces, not answers). It is read on
+            // its own thread from the start so a program filling the stderr pipe cannot block.
+            StringBuilder errors = new StringBuilder();
+            Thread errorReader = new Thread(() -> readErrors(process, errors), "stderr-reader");
+            errorReader.setDaemon(true);
+            errorReader.start();
             
             // Write input data to process stdin (UTF-8 encoded)
-            if (inputData != null && !inputData.isEmpty())
+            // (skipped when stdin is already connected to the input file)
+            if (inputFile != null)
+            {
+                // Nothing to write
+            }
+            else if (inputData != null && !inputData.isEmpty())
             {    // Use try-with-resources to ensure the OutputStreamWriter is closed.
                 try (OutputStreamWriter writer = new OutputStreamWriter(
                         process.getOutputStream(), StandardCharsets.UTF_8))
@@ -195,18 +280,22 @@ public class Program
             }
             
             // Read output from process
+            // (nothing to read when output is redirected to a file)
             StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream())))
+            if (outputFile == null)
             {
-                String line;
-                while ((line = reader.readLine()) != null)
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getInputStream())))
                 {
-                    if (output.length() > 0)
+                    String line;
+                    while ((line = reader.readLine()) != null)
                     {
-                        output.append("\n");
+                        if (output.length() > 0)
+                        {
+                            output.append("\n");
+                        }
+                        output.append(line);
                     }
-                    output.append(line);
                 }
             }
             
@@ -216,26 +305,90 @@ public class Program
             {
                 // Process timed out - destroy it
                 process.destroyForcibly();
-                lastExitCode = -1;
-                return "ERROR: Program execution timed out (exceeded 30 seconds)";
+                return new RunResult("ERROR: Program execution timed out (exceeded 30 seconds)", collectErrors(errorReader, errors), -1);
             }
             
+            // Exit code is used for runtime error detection
             int exitCode = process.exitValue();
+            String errorOutput = collectErrors(errorReader, errors);
             
-            // Store exit code for runtime error detection
-            lastExitCode = exitCode;
-            
-            return output.toString();
+            if (outputFile != null)
+            {
+                return new RunResult(previewOfFile(outputFile), errorOutput, exitCode);
+            }
+            return new RunResult(output.toString(), errorOutput, exitCode);
         }
         catch (InterruptedException e)
         {
             Thread.currentThread().interrupt();
             // Indicates the grading system thread was terminated while waiting for the program.
-            return "ERROR: Execution interrupted";
+            return new RunResult("ERROR: Execution interrupted", null);
         }
         catch (Exception e)
         {    // Catch-all for IO or process-related errors.
-            return "ERROR: " + e.getMessage();
+            return new RunResult("ERROR: " + e.getMessage(), null);
+        }
+    }
+
+    // Reads stderr until the process closes it, keeping at most MAX_ERROR_CHARS (the rest is drained and dropped).
+    // Reads fixed-size chunks rather than lines, so a program printing one endless line cannot exhaust the heap.
+    // Line endings become \n, and the text ends with a line break, as if read line by line.
+    private static void readErrors(Process process, StringBuilder errors)
+    {
+        try (Reader reader = new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))
+        {
+            char[] buffer = new char[8192];
+            boolean cut = false;
+            boolean afterCarriageReturn = false;
+            boolean lineOpen = false;
+            int n;
+            while ((n = reader.read(buffer)) != -1)
+            {
+                synchronized (errors)
+                {
+                    for (int i = 0; i < n && !cut; i++)
+                    {
+                        char c = buffer[i];
+                        if (c == '\n' && afterCarriageReturn)
+                        {
+                            afterCarriageReturn = false;
+                            continue;
+                        }
+                        afterCarriageReturn = c == '\r';
+                        if (errors.length() >= MAX_ERROR_CHARS)
+                        {
+                            errors.append(lineOpen ? "\n" : "").append("... [stderr cut at ").append(MAX_ERROR_CHARS).append(" characters]\n");
+                            cut = true;
+                        }
+                        else
+                        {
+                            errors.append(afterCarriageReturn ? '\n' : c);
+                            lineOpen = c != '\n' && c != '\r';
+                        }
+                    }
+                }
+            }
+            synchronized (errors)
+            {
+                if (lineOpen && !cut)
+                {
+                    errors.append('\n');
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // Stream closed when the process was destroyed; keep what was read
+        }
+    }
+
+    // Waits briefly for the stderr reader to finish and returns what it collected
+    private static String collectErrors(Thread errorReader, StringBuilder errors) throws InterruptedException
+    {
+        errorReader.join(1000);
+        synchronized (errors)
+        {
+            return errors.toString();
         }
     }
 
@@ -263,90 +416,159 @@ public class Program
         // Ensure program is compiled (only compiles once)
         boolean compiled = ensureCompiled();
         
-        String expectedOutput = testCase.getExpectedOutput();
+        String expectedOutput;
+        try
+        {
+            expectedOutput = testCase.getExpectedOutput();
+        }
+        catch (UncheckedIOException e)
+        {
+            // The test case body could not be read: report it instead of comparing against nothing
+            return new TestResult(name, testCase.getTitle(), ResultStatus.FAILED.getLabel(),
+                    "ERROR: " + e.getMessage(), "", null, "");
+        }
         String actualOutput = "";
-        String status;
+        String errorOutput = "";
+        ResultStatus status;
         
         if (!compiled)
         {
-            status = "COMPILE ERROR";
+            status = ResultStatus.COMPILE_ERROR;
+        }
+        else if (testCase.getExpectedFile() != null)
+        {
+            // Expected output lives in an external file: capture output to disk and compare the files
+            File expectedFile = testCase.getExpectedFile();
+            File capture = null;
+            try
+            {
+                capture = File.createTempFile("grader-output-", ".txt");
+                RunResult result = run(testCase.getInputData(), testCase.getInputFile(), capture);
+                lastExitCode = result.getExitCode();
+                actualOutput = result.getOutput();
+                errorOutput = result.getErrorOutput();
+                if (lastExitCode != null && lastExitCode != 0)
+                {
+                    status = ResultStatus.RUNTIME_ERROR;
+                }
+                else
+                {
+                    boolean passed = compareOutputFiles(capture, expectedFile, testCase.getType());
+                    status = passed ? ResultStatus.PASSED : ResultStatus.FAILED;
+                }
+            }
+            catch (IOException e)
+            {
+                actualOutput = "ERROR: " + e.getMessage();
+                status = ResultStatus.FAILED;
+            }
+            finally
+            {
+                if (capture != null)
+                {
+                    capture.delete();
+                }
+            }
         }
         else
         {
-            // Run the program with test case input
-            actualOutput = run(testCase.getInputData());
+            // Run the program with test case input (streamed from a file if the input is external)
+            RunResult result = run(testCase.getInputData(), testCase.getInputFile(), null);
+            lastExitCode = result.getExitCode();
+            actualOutput = result.getOutput();
+            errorOutput = result.getErrorOutput();
             
             // Check for runtime errors (non-zero exit code)
             if (lastExitCode != null && lastExitCode != 0)
             {
-                status = "RUNTIME ERROR";
+                status = ResultStatus.RUNTIME_ERROR;
             }
             else
             {
-                // Compare outputs
-                boolean passed = compareOutputs(actualOutput, expectedOutput, testCase.getType());
-                status = passed ? "PASSED" : "FAILED";
+                // Compare outputs (the expected side was prepared once for all students)
+                boolean passed = testCase.getExpectation().matches(actualOutput);
+                status = passed ? ResultStatus.PASSED : ResultStatus.FAILED;
             }
         }
         
-        return new TestResult(name, testCase.getTitle(), status, actualOutput, expectedOutput);
+        // The result points at an external expected-output file rather than holding its "@file:" reference
+        // (file-backed expected outputs are not loaded for partial credit either)
+        if (testCase.getExpectedFile() != null)
+        {
+            return TestResult.withExpectedFile(name, testCase.getTitle(), status.getLabel(), actualOutput,
+                    testCase.getExpectedFile(), errorOutput);
+        }
+
+        // Partial credit: how close a wrong answer came
+        Double similarity = null;
+        if (status == ResultStatus.FAILED)
+        {
+            similarity = OutputSimilarity.score(expectedOutput, actualOutput);
+        }
+        
+        return new TestResult(name, testCase.getTitle(), status.getLabel(), actualOutput, expectedOutput, similarity, errorOutput);
     }
 
-    //Compares the actual output string against the expected output based on the specified data type.
-    //The comparison logic is crucial for robust test case validation.
-    // Helper method to compare actual output with expected output
-    // Handles different types (Boolean, Int, Double, String) appropriately
-    private boolean compareOutputs(String actual, String expected, String type)
+    // Largest captured output that is turned into a String for the result/preview
+    private static final int PREVIEW_CHARS = 64 * 1024;
+
+    // Largest file (in bytes) read into memory for a comparator that needs the whole text
+    private static final long MAX_COMPARED_FILE_BYTES = 16L * 1024 * 1024;
+
+    // Compares captured output with an external expected-output file (also used by ReferenceOracle)
+    // Plain String/Boolean comparisons run over memory-mapped files; numeric types are tiny,
+    // and other comparators need the text, so those read both files (up to MAX_COMPARED_FILE_BYTES)
+    static boolean compareOutputFiles(File actualFile, File expectedFile, String type) throws IOException
     {
-        if (actual == null) actual = "";
-        if (expected == null) expected = "";
-        
-        // Trim whitespace for comparison
-        actual = actual.trim();
-        expected = expected.trim();
-        
-        if (type == null || type.isEmpty() || type.equals("String"))
+        if (type == null || type.isEmpty() || type.equals("String") || type.equals("Boolean"))
         {
-            // String comparison - exact match
-            return actual.equals(expected);
+            return BlobComparator.contentEquals(actualFile, expectedFile, "Boolean".equals(type));
         }
-        else if (type.equals("Boolean"))
+        boolean numeric = type.startsWith("Int") || type.startsWith("Double");
+        if (numeric && (actualFile.length() > PREVIEW_CHARS || expectedFile.length() > PREVIEW_CHARS))
         {
-            // Boolean comparison - case insensitive
-            return actual.equalsIgnoreCase(expected);
+            return false; // Far too long to be a single number
         }
-        else if (type.equals("Int"))
+        if (actualFile.length() > MAX_COMPARED_FILE_BYTES || expectedFile.length() > MAX_COMPARED_FILE_BYTES)
         {
-            // Integer comparison - parse and compare
-            try
-            {
-                int actualInt = Integer.parseInt(actual);
-                int expectedInt = Integer.parseInt(expected);
-                return actualInt == expectedInt;
-            }
-            catch (NumberFormatException e)
-            {
-                return false;
-            }
+            throw new IOException("Output too large for a " + type + " comparison (over "
+                    + MAX_COMPARED_FILE_BYTES / (1024 * 1024) + " MB); use type String for outputs this size");
         }
-        else if (type.equals("Double"))
+        String actual = new String(java.nio.file.Files.readAllBytes(actualFile.toPath()), StandardCharsets.UTF_8);
+        String expected = new String(java.nio.file.Files.readAllBytes(expectedFile.toPath()), StandardCharsets.UTF_8);
+        return compareOutputs(actual, expected, type);
+    }
+
+    // Returns the beginning of a captured output file, noting how much was left out
+    private String previewOfFile(File file) throws IOException
+    {
+        StringBuilder preview = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new java.io.FileInputStream(file), StandardCharsets.UTF_8)))
         {
-            // Double comparison - parse and compare with small epsilon
-            try
+            String line;
+            while ((line = reader.readLine()) != null && preview.length() < PREVIEW_CHARS)
             {
-                double actualDouble = Double.parseDouble(actual);
-                double expectedDouble = Double.parseDouble(expected);
-                double epsilon = 0.0001;
-                return Math.abs(actualDouble - expectedDouble) < epsilon;
+                if (preview.length() > 0)
+                {
+                    preview.append("\n");
+                }
+                preview.append(line);
             }
-            catch (NumberFormatException e)
+            if (line != null)
             {
-                return false;
+                preview.append("\n... [output truncated, ").append(file.length()).append(" bytes in total]");
             }
         }
-        
-        // Default to string comparison
-        return actual.equals(expected);
+        return preview.toString();
+    }
+
+    //Compares the actual output string against the expected output based on the specified data type.
+    //The comparison itself is done by the comparator registered for the type (see OutputComparators).
+    // Helper method for one-off comparisons; test execution uses the test case's precompiled expectation
+    static boolean compareOutputs(String actual, String expected, String type)
+    {
+        return OutputComparators.compile(type, expected).matches(actual != null ? actual : "");
     }
 
 }
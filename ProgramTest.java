@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for Program: running real submissions against inline and file-backed test cases.
+ */
+public class ProgramTest
+{
+    private File folder;
+    private Program program;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("program-test").toFile();
+        program = writeProgram(new File(folder, "alice"), "Main",
+                "java.util.Scanner in = new java.util.Scanner(System.in);\n"
+                + "long sum = 0;\n"
+                + "while (in.hasNextLong()) sum += in.nextLong();\n"
+                + "System.out.println(sum);\n");
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void inlineTestCaseIsGraded()
+    {
+        TestResult passed = program.executeTestCase(new TestCase("Sum", "1 2", "3", "Int"));
+        assertEquals("PASSED", passed.getStatus());
+        assertNull(passed.getExpectedFile());
+
+        TestResult failed = program.executeTestCase(new TestCase("Sum", "1 2", "4", "Int"));
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals("4", failed.getExpectedOutput());
+    }
+
+    @Test
+    public void fileBackedTestCaseKeepsTheFileInItsResult() throws IOException
+    {
+        File input = write("big.in", ResultsFileTest.repeat("1\n", 100000));
+        File expected = write("big.expected", "100000\n");
+        TestCase testCase = new TestCase("Big", TestCase.FILE_REFERENCE_PREFIX + input.getAbsolutePath(),
+                TestCase.FILE_REFERENCE_PREFIX + expected.getAbsolutePath(), "String");
+
+        TestResult result = program.executeTestCase(testCase);
+        assertEquals("PASSED", result.getStatus());
+        assertEquals(expected.getAbsoluteFile(), result.getExpectedFile().getAbsoluteFile());
+        assertEquals("100000\n", result.getExpectedOutput()); // The content, not the "@file:" reference
+    }
+
+    @Test
+    public void missingExpectedFileFailsWithAnError() throws IOException
+    {
+        File missing = new File(folder, "missing.expected");
+        TestCase testCase = new TestCase("Missing", "1 2",
+                TestCase.FILE_REFERENCE_PREFIX + missing.getAbsolutePath(), "String");
+
+        TestResult result = program.executeTestCase(testCase);
+        assertEquals("FAILED", result.getStatus());
+        assertTrue(result.getActualOutput().startsWith("ERROR: "));
+        assertTrue(result.getExpectedOutput().startsWith("ERROR: Expected output not readable"));
+    }
+
+    @Test
+    public void outputFilesAreComparedWithTheTypeRules() throws IOException
+    {
+        File actual = write("actual.txt", "3.00001\n");
+        File expected = write("expected.txt", "3");
+        assertTrue(Program.compareOutputFiles(actual, expected, "Double"));
+        assertTrue(!Program.compareOutputFiles(actual, expected, "String"));
+        assertTrue(Program.compareOutputFiles(write("yes.txt", "TRUE"), write("true.txt", "true\n"), "Boolean"));
+    }
+
+    /**
+     * Writes a submission whose main method has the given body and returns it as a Program.
+     */
+    static Program writeProgram(File submission, String className, String mainBody) throws IOException
+    {
+        submission.mkdirs();
+        File source = new File(submission, className + ".java");
+        String text = "public class " + className + "\n{\n    public static void main(String[] args)\n    {\n"
+                + mainBody + "    }\n}\n";
+        Files.write(source.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return new Program(submission.getName(), source);
+    }
+
+    private File write(String name, String content) throws IOException
+    {
+        File file = new File(folder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
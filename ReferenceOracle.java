@@ -0,0 +1,327 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Uses a reference solution (an instructor's submission folder) as the source of truth
+ * for expected outputs. The reference is run in parallel over the inputs of a suite and
+ * every output is cached by a hash of the input, in memory and in a cache folder on disk,
+ * so an input is only ever run once per version of the reference solution.
+ */
+public class ReferenceOracle
+{
+    private final Program reference; // The compiled reference solution
+    private final File cacheFolder; // Holds <hash>.out files; survives restarts
+    private final String sourceHash; // Hash of the reference sources, part of every cache key
+    private final ExecutorService executor;
+    private final Map<String, String> cache = new ConcurrentHashMap<>(); // Input hash -> reference output
+
+    /**
+     * A test case whose stored expected output differs from what the reference solution prints.
+     */
+    public static class Mismatch
+    {
+        private final TestCase testCase;
+        private final String referenceOutput;
+
+        Mismatch(TestCase testCase, String referenceOutput)
+        {
+            this.testCase = testCase;
+            this.referenceOutput = referenceOutput;
+        }
+
+        public TestCase getTestCase() { return testCase; }
+        public String getReferenceOutput() { return referenceOutput; }
+    }
+
+    /**
+     * Constructor: compiles the reference solution and prepares the cache folder.
+     * threads is the number of reference runs allowed at the same time.
+     */
+    public ReferenceOracle(Program reference, File cacheFolder, int threads) throws IOException
+    {
+        if (!reference.ensureCompiled())
+        {
+            throw new IOException("Reference solution does not compile: " + reference.getName());
+        }
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs())
+        {
+            throw new IOException("Could not create reference cache folder: " + cacheFolder);
+        }
+        this.reference = reference;
+        this.cacheFolder = cacheFolder;
+        this.sourceHash = hashSources(reference.getSourceFile().getParentFile());
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "reference-oracle");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the name of the reference submission folder.
+     */
+    public String getReferenceName()
+    {
+        return reference.getName();
+    }
+
+    /**
+     * Returns the compiled reference solution (used for differential fuzzing).
+     */
+    public Program getReferenceProgram()
+    {
+        return reference;
+    }
+
+    /**
+     * Returns the reference solution's output for a test case's input,
+     * running the reference only if this input has not been seen before.
+     */
+    public String getExpectedOutput(TestCase testCase) throws IOException
+    {
+        String key = cacheKey(testCase);
+        String output = cache.get(key);
+        if (output != null)
+        {
+            return output;
+        }
+
+        File cached = new File(cacheFolder, key + ".out");
+        if (cached.exists())
+        {
+            output = new String(Files.readAllBytes(cached.toPath()), StandardCharsets.UTF_8);
+        }
+        else
+        {
+            Program.RunResult result = reference.runWithInput(testCase);
+            if (!result.succeeded())
+            {
+                throw new IOException("Reference solution failed on '" + testCase.getTitle() + "': " + result.getOutput());
+            }
+            output = result.getOutput();
+            // Write to a temp name first so a crash never leaves a half-written cache entry
+            File partial = new File(cacheFolder, key + ".tmp" + Thread.currentThread().getId());
+            Files.write(partial.toPath(), output.getBytes(StandardCharsets.UTF_8));
+            if (!partial.renameTo(cached))
+            {
+                partial.delete(); // Another thread cached the same input meanwhile
+            }
+        }
+        cache.put(key, output);
+        return output;
+    }
+
+    /**
+     * Computes the reference output of every test case in parallel, filling the cache.
+     * Throws the first failure after all runs have finished.
+     */
+    public void prefetch(Iterable<TestCase> testCases) throws IOException
+    {
+        List<Future<String>> runs = new ArrayList<>();
+        for (TestCase testCase : testCases)
+        {
+            runs.add(executor.submit(() -> getExpectedOutput(testCase)));
+        }
+        waitFor(runs);
+    }
+
+    /**
+     * Runs the reference over every test case (in parallel) and returns the ones whose
+     * stored expected output does not match, using the test case's own comparison rules.
+     * An expected output kept in an external file is compared with that file.
+     */
+    public List<Mismatch> verify(Iterable<TestCase> testCases) throws IOException
+    {
+        List<TestCase> checked = new ArrayList<>();
+        List<Future<String>> runs = new ArrayList<>();
+        for (TestCase testCase : testCases)
+        {
+            checked.add(testCase);
+            runs.add(executor.submit(() -> getExpectedOutput(testCase)));
+        }
+        List<String> outputs = waitFor(runs);
+
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (int i = 0; i < checked.size(); i++)
+        {
+            TestCase testCase = checked.get(i);
+            boolean matches = testCase.getExpectedFile() != null
+                    ? matchesExpectedFile(testCase, outputs.get(i))
+                    : testCase.getExpectation().matches(outputs.get(i));
+            if (!matches)
+            {
+                mismatches.add(new Mismatch(testCase, outputs.get(i)));
+            }
+        }
+        return mismatches;
+    }
+
+    // Compares the reference output with an expected output kept in an external file, the same
+    // way Program grades against that file (its "@file:" reference is not the expected text)
+    private boolean matchesExpectedFile(TestCase testCase, String output) throws IOException
+    {
+        File cached = new File(cacheFolder, cacheKey(testCase) + ".out"); // The output as getExpectedOutput saved it
+        File compared = cached;
+        if (!cached.exists())
+        {
+            compared = File.createTempFile("grader-reference-", ".txt");
+            Files.write(compared.toPath(), output.getBytes(StandardCharsets.UTF_8));
+        }
+        try
+        {
+            return Program.compareOutputFiles(compared, testCase.getExpectedFile(), testCase.getType());
+        }
+        catch (IOException e)
+        {
+            throw new IOException("Cannot compare '" + testCase.getTitle() + "' with its expected output file: " + e.getMessage(), e);
+        }
+        finally
+        {
+            if (compared != cached)
+            {
+                compared.delete();
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads. The disk cache is kept for the next session.
+     */
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    // Waits for every run and returns their outputs in order
+    private List<String> waitFor(List<Future<String>> runs) throws IOException
+    {
+        List<String> outputs = new ArrayList<>();
+        IOException failure = null;
+        for (Future<String> run : runs)
+        {
+            try
+            {
+                outputs.add(run.get());
+            }
+            catch (ExecutionException e)
+            {
+                outputs.add(null);
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(e.getCause().getMessage());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running the reference solution");
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+        return outputs;
+    }
+
+    // Cache key: hash of the reference sources plus the input (the input file's bytes for external inputs)
+    private String cacheKey(TestCase testCase) throws IOException
+    {
+        try
+        {
+            return cacheKeyOf(testCase);
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause(); // The test case body could not be read
+        }
+    }
+
+    private String cacheKeyOf(TestCase testCase) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        digest.update(sourceHash.getBytes(StandardCharsets.UTF_8));
+        File inputFile = testCase.getInputFile();
+        if (inputFile != null)
+        {
+            digest.update((byte) 1);
+            updateFromFile(digest, inputFile);
+        }
+        else
+        {
+            digest.update((byte) 0);
+            String input = testCase.getInputData();
+            digest.update((input != null ? input : "").getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest());
+    }
+
+    // Hash of every .java file next to the reference entry point, so edits to the reference invalidate the cache
+    private static String hashSources(File folder) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        File[] sources = folder.listFiles((dir, name) -> name.endsWith(".java"));
+        if (sources != null)
+        {
+            java.util.Arrays.sort(sources);
+            for (File source : sources)
+            {
+                digest.update(source.getName().getBytes(StandardCharsets.UTF_8));
+                updateFromFile(digest, source);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void updateFromFile(MessageDigest digest, File file) throws IOException
+    {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file))
+        {
+            int n;
+            while ((n = in.read(buffer)) > 0)
+            {
+                digest.update(buffer, 0, n);
+            }
+        }
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not available", e); // Required on every JVM
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,176 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ReferenceOracle: expected outputs from a real reference solution, cached in memory
+ * and on disk, and verification of stored expected outputs (inline and file-backed).
+ */
+public class ReferenceOracleTest
+{
+    private File folder;
+    private File runLog; // The reference appends a line here on every run
+    private File cacheFolder;
+    private ReferenceOracle oracle;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("reference-oracle-test").toFile();
+        runLog = new File(folder, "runs.log");
+        cacheFolder = new File(folder, "cache");
+        oracle = new ReferenceOracle(writeReference("sum"), cacheFolder, 4);
+    }
+
+    @After
+    public void tearDown()
+    {
+        oracle.shutdown();
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void eachInputIsRunOnceAndCachedOnDisk() throws IOException
+    {
+        TestCase testCase = new TestCase("Sum", "1 2", "", "Int");
+        assertEquals("3", oracle.getExpectedOutput(testCase).trim());
+        assertEquals("3", oracle.getExpectedOutput(new TestCase("Same input", "1 2", "", "Int")).trim());
+        assertEquals(1, runs());
+
+        ReferenceOracle restarted = new ReferenceOracle(writeReference("sum"), cacheFolder, 1);
+        try
+        {
+            assertEquals("3", restarted.getExpectedOutput(testCase).trim());
+            assertEquals(1, runs()); // Served from the cache folder
+        }
+        finally
+        {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void editedReferenceIsRunAgain() throws IOException
+    {
+        TestCase testCase = new TestCase("Sum", "1 2", "", "Int");
+        oracle.getExpectedOutput(testCase);
+
+        ReferenceOracle edited = new ReferenceOracle(writeReference("sum * 10"), cacheFolder, 1);
+        try
+        {
+            assertEquals("30", edited.getExpectedOutput(testCase).trim());
+            assertEquals(2, runs());
+        }
+        finally
+        {
+            edited.shutdown();
+        }
+    }
+
+    @Test
+    public void prefetchedOutputsAreNotRunAgain() throws IOException
+    {
+        List<TestCase> testCases = Arrays.asList(new TestCase("A", "1", "", "Int"), new TestCase("B", "2", "", "Int"),
+                new TestCase("C", "3", "", "Int"));
+        oracle.prefetch(testCases);
+        assertEquals(3, runs());
+
+        assertEquals("3", oracle.getExpectedOutput(testCases.get(2)).trim());
+        assertEquals(3, runs());
+    }
+
+    @Test
+    public void verifyReportsStoredOutputsTheReferenceDisagreesWith() throws IOException
+    {
+        TestCase right = new TestCase("Right", "1 2", "3.0", "Double"); // Equal under the Double rules
+        TestCase wrong = new TestCase("Wrong", "2 2", "5", "Int");
+        List<ReferenceOracle.Mismatch> mismatches = oracle.verify(Arrays.asList(right, wrong));
+
+        assertEquals(1, mismatches.size());
+        assertSame(wrong, mismatches.get(0).getTestCase());
+        assertEquals("4", mismatches.get(0).getReferenceOutput().trim());
+    }
+
+    @Test
+    public void verifyComparesWithTheContentOfAnExpectedFile() throws IOException
+    {
+        File matching = write("matching.expected", "3\n");
+        File different = write("different.expected", "4\n");
+        TestCase good = new TestCase("Good", "1 2", TestCase.FILE_REFERENCE_PREFIX + matching.getAbsolutePath(), "String");
+        TestCase bad = new TestCase("Bad", "1 2", TestCase.FILE_REFERENCE_PREFIX + different.getAbsolutePath(), "String");
+
+        List<ReferenceOracle.Mismatch> mismatches = oracle.verify(Arrays.asList(good, bad));
+        assertEquals(1, mismatches.size());
+        assertSame(bad, mismatches.get(0).getTestCase());
+    }
+
+    @Test
+    public void failingReferenceRunIsAnError() throws IOException
+    {
+        try
+        {
+            oracle.verify(Arrays.asList(new TestCase("Crash", "crash", "", "Int")));
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("'Crash'"));
+        }
+    }
+
+    @Test
+    public void referenceThatDoesNotCompileIsRejected() throws IOException
+    {
+        File broken = new File(folder, "broken");
+        broken.mkdirs();
+        File source = new File(broken, "Main.java");
+        Files.write(source.toPath(), "public class Main { public static void main(String[] a) { nope } }".getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            new ReferenceOracle(new Program("broken", source), cacheFolder, 1);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("does not compile"));
+        }
+    }
+
+    // A reference printing the given expression of the sum of its input, logging every run
+    private Program writeReference(String printed) throws IOException
+    {
+        String log = runLog.getAbsolutePath().replace("\\", "\\\\");
+        return ProgramTest.writeProgram(new File(folder, "reference"), "Main",
+                "try { java.nio.file.Files.write(java.nio.file.Paths.get(\"" + log + "\"), \"run\\n\".getBytes(),\n"
+                + "        java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND); }\n"
+                + "catch (java.io.IOException e) { throw new java.io.UncheckedIOException(e); }\n"
+                + "java.util.Scanner in = new java.util.Scanner(System.in);\n"
+                + "long sum = 0;\n"
+                + "while (in.hasNext()) sum += Long.parseLong(in.next());\n"
+                + "System.out.println(" + printed + ");\n");
+    }
+
+    private int runs() throws IOException
+    {
+        return runLog.exists() ? Files.readAllLines(runLog.toPath()).size() : 0;
+    }
+
+    private File write(String name, String content) throws IOException
+    {
+        File file = new File(folder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,853 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes reports of a run in several formats at once. The results are read in a single pass:
+ * each result is handed to every requested format in turn and the counts are gathered on the
+ * way, so every output is read once and reports can be written straight from a ResultsStore
+ * or a journal (ResultsJournal.readWithoutOutputs) of any size.
+ *
+ * Results are streamed student by student, in the order they come: a run, a results file and a
+ * journal list each student's results together. When they do not (a journal puts a regraded
+ * result at its end, and watch mode grades students side by side), a first pass over the student
+ * names works out an order that groups them, as positions in the list; no result is copied.
+ *
+ * Formats:
+ *   TEXT      - the "Student | Test Case | Status" listing with a summary (Save Results As)
+ *   CSV       - a gradebook: one row per student with their counts, credit and score
+ *   JSON      - every result, then the summary and per-test case counts
+ *   JUNIT_XML - one testsuite per student, one testcase per test case, for CI dashboards
+ *   HTML      - a folder with index.html (summary, per-test case table) and pages of results
+ */
+public class ReportEngine
+{
+    // Results per page of the HTML report
+    public static final int HTML_PAGE_SIZE = 500;
+
+    // Longest stderr copied into a JUnit error element
+    private static final int MAX_DETAIL_CHARS = 4000;
+
+    /**
+     * A report format and the suffix its file (or folder, for HTML) gets after the base name.
+     */
+    public enum Format
+    {
+        TEXT(".txt"),
+        CSV(".csv"),
+        JSON(".json"),
+        JUNIT_XML("_junit.xml"),
+        HTML("_html");
+
+        private final String suffix;
+
+        Format(String suffix)
+        {
+            this.suffix = suffix;
+        }
+
+        public String getSuffix() { return suffix; }
+    }
+
+    /**
+     * Counts of a group of results (a student, or the whole run) by status, and their credit.
+     */
+    public static class Counts
+    {
+        private final int[] counts = new int[ResultStatus.values().length];
+        private double credit;
+        private int total;
+
+        void add(TestResult result)
+        {
+            counts[result.getResultStatus().ordinal()]++;
+            credit += result.getCredit();
+            total++;
+        }
+
+        public int getCount(ResultStatus status) { return counts[status.ordinal()]; }
+        public double getCredit() { return credit; }
+        public int getTotal() { return total; }
+
+        /**
+         * Number of results that count as test cases (all but SKIPPED entries).
+         */
+        public int getGradedCount()
+        {
+            return total - getCount(ResultStatus.SKIPPED);
+        }
+
+        /**
+         * Credit as a percentage of the graded results (0 if there are none).
+         */
+        public double getScore()
+        {
+            int graded = getGradedCount();
+            return graded > 0 ? credit * 100 / graded : 0;
+        }
+    }
+
+    /**
+     * Everything gathered over a run: overall counts, student count and counts per test case.
+     */
+    public static class Totals extends Counts
+    {
+        private final Map<String, Counts> byTestCase = new LinkedHashMap<>();
+        private int studentCount;
+
+        public int getStudentCount() { return studentCount; }
+
+        /**
+         * Returns the counts of each test case, in the order the test cases were first seen.
+         * SKIPPED entries (which have no test case) are left out.
+         */
+        public Map<String, Counts> getTestCaseCounts() { return byTestCase; }
+    }
+
+    // One output format. Gets every result in order, a call after each student's last result, and the totals at the end
+    private interface ReportWriter extends Closeable
+    {
+        void result(TestResult result) throws IOException;
+
+        void studentDone(String studentName, Counts counts) throws IOException;
+
+        void end(Totals totals) throws IOException;
+    }
+
+    private ReportEngine()
+    {
+    }
+
+    /**
+     * Returns where each format goes for reports named baseName in folder
+     * (e.g. folder/baseName.csv, folder/baseName_html/).
+     */
+    public static Map<Format, File> targets(File folder, String baseName, Set<Format> formats)
+    {
+        Map<Format, File> targets = new EnumMap<>(Format.class);
+        for (Format format : formats)
+        {
+            targets.put(format, new File(folder, baseName + format.getSuffix()));
+        }
+        return targets;
+    }
+
+    /**
+     * Writes the reports of results in every format in targets (an HTML target is a folder),
+     * reading the results once. Returns the totals of the run.
+     */
+    public static Totals write(String suiteTitle, List<TestResult> results, Map<Format, File> targets) throws IOException
+    {
+        Date generated = new Date();
+        List<ReportWriter> writers = new ArrayList<>();
+        try
+        {
+            for (Map.Entry<Format, File> target : targets.entrySet())
+            {
+                writers.add(open(target.getKey(), target.getValue(), suiteTitle, generated));
+            }
+
+            int[] order = groupingOrder(results); // Null if the results are grouped already
+
+            Totals totals = new Totals();
+            String student = null;
+            Counts studentCounts = null;
+            for (int i = 0; i < results.size(); i++)
+            {
+                TestResult result = results.get(order != null ? order[i] : i);
+                if (studentCounts == null || !result.getStudentName().equals(student))
+                {
+                    if (studentCounts != null)
+                    {
+                        studentDone(writers, student, studentCounts);
+                    }
+                    student = result.getStudentName();
+                    studentCounts = new Counts();
+                    totals.studentCount++;
+                }
+                studentCounts.add(result);
+                totals.add(result);
+                if (result.getResultStatus() != ResultStatus.SKIPPED)
+                {
+                    totals.byTestCase.computeIfAbsent(result.getTestCaseTitle(), k -> new Counts()).add(result);
+                }
+                for (ReportWriter writer : writers)
+                {
+                    writer.result(result);
+                }
+            }
+            if (studentCounts != null)
+            {
+                studentDone(writers, student, studentCounts);
+            }
+            for (ReportWriter writer : writers)
+            {
+                writer.end(totals);
+            }
+            return totals;
+        }
+        finally
+        {
+            IOException closeError = null;
+            for (ReportWriter writer : writers)
+            {
+                try
+                {
+                    writer.close();
+                }
+                catch (IOException e)
+                {
+                    closeError = closeError != null ? closeError : e;
+                }
+            }
+            if (closeError != null)
+            {
+                throw closeError;
+            }
+        }
+    }
+
+    private static void studentDone(List<ReportWriter> writers, String studentName, Counts counts) throws IOException
+    {
+        for (ReportWriter writer : writers)
+        {
+            writer.studentDone(studentName, counts);
+        }
+    }
+
+    // Returns the positions of results grouped by student (students in order of first appearance,
+    // each student's results in their own order), or null if each student's results are together
+    static int[] groupingOrder(List<TestResult> results)
+    {
+        Map<String, Integer> studentIds = new HashMap<>();
+        int[] ids = new int[results.size()];
+        boolean grouped = true;
+        for (int i = 0; i < ids.length; i++)
+        {
+            String name = results.get(i).getStudentName();
+            Integer id = studentIds.get(name);
+            if (id == null)
+            {
+                id = studentIds.size();
+                studentIds.put(name, id);
+            }
+            else if (id != ids[i - 1])
+            {
+                grouped = false; // Seen before, but not just now
+            }
+            ids[i] = id;
+        }
+        if (grouped)
+        {
+            return null;
+        }
+
+        // Counting sort by student id, stable so each student keeps their results' order
+        int[] starts = new int[studentIds.size() + 1];
+        for (int id : ids)
+        {
+            starts[id + 1]++;
+        }
+        for (int id = 0; id < studentIds.size(); id++)
+        {
+            starts[id + 1] += starts[id];
+        }
+        int[] order = new int[ids.length];
+        for (int i = 0; i < ids.length; i++)
+        {
+            order[starts[ids[i]]++] = i;
+        }
+        return order;
+    }
+
+    private static ReportWriter open(Format format, File target, String suiteTitle, Date generated) throws IOException
+    {
+        switch (format)
+        {
+            case TEXT:
+                return new TextReport(target, suiteTitle, generated);
+            case CSV:
+                return new CsvReport(target);
+            case JSON:
+                return new JsonReport(target, suiteTitle, generated);
+            case JUNIT_XML:
+                return new JUnitReport(target, suiteTitle, generated);
+            case HTML:
+                return new HtmlReport(target, suiteTitle, generated);
+            default:
+                throw new IOException("Unknown report format " + format);
+        }
+    }
+
+    private static PrintWriter createWriter(File file) throws IOException
+    {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    private static String isoDate(Date date)
+    {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.ROOT);
+        return format.format(date);
+    }
+
+    private static String percent(double value)
+    {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String repeat(char c, int count)
+    {
+        char[] chars = new char[count];
+        java.util.Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    // Status as the results screen shows it, with the similarity of a scored failure
+    private static String statusText(TestResult result)
+    {
+        if (result.getResultStatus() == ResultStatus.FAILED && result.getSimilarity() != null)
+        {
+            return result.getStatus() + " (" + (int) Math.floor(result.getSimilarity() * 100) + "% similar)";
+        }
+        return result.getStatus();
+    }
+
+    // Fails the report if a PrintWriter swallowed a write error
+    private static void checkError(PrintWriter writer, File file) throws IOException
+    {
+        if (writer.checkError())
+        {
+            throw new IOException("Error writing report " + file.getPath());
+        }
+    }
+
+    // --- Text ---
+
+    private static class TextReport implements ReportWriter
+    {
+        private final File file;
+        private final PrintWriter writer;
+        private String currentStudent;
+
+        TextReport(File file, String suiteTitle, Date generated) throws IOException
+        {
+            this.file = file;
+            writer = createWriter(file);
+            writer.println("Test Results for: " + suiteTitle);
+            writer.println("Generated: " + generated);
+            writer.println(repeat('=', 80));
+            writer.println();
+        }
+
+        @Override
+        public void result(TestResult result)
+        {
+            String studentName = result.getStudentName();
+            if (currentStudent != null && !currentStudent.equals(studentName))
+            {
+                writer.println(repeat('-', 80));
+            }
+            if (result.getResultStatus() == ResultStatus.SKIPPED)
+            {
+                writer.println(studentName + " | " + result.getStatus());
+            }
+            else
+            {
+                writer.println(studentName + " | " + result.getTestCaseTitle() + " | " + result.getStatus());
+            }
+            currentStudent = studentName;
+        }
+
+        @Override
+        public void studentDone(String studentName, Counts counts)
+        {
+        }
+
+        @Override
+        public void end(Totals totals) throws IOException
+        {
+            writer.println();
+            writer.println(repeat('=', 80));
+            writer.println("Summary:");
+            writer.println("Total Results: " + totals.getTotal());
+            writer.println("Passed: " + totals.getCount(ResultStatus.PASSED));
+            writer.println("Failed: " + totals.getCount(ResultStatus.FAILED));
+            writer.println("Compile Errors: " + totals.getCount(ResultStatus.COMPILE_ERROR));
+            writer.println("Runtime Errors: " + totals.getCount(ResultStatus.RUNTIME_ERROR));
+            writer.println("Skipped: " + totals.getCount(ResultStatus.SKIPPED));
+            checkError(writer, file);
+        }
+
+        @Override
+        public void close()
+        {
+            writer.close();
+        }
+    }
+
+    // --- CSV gradebook ---
+
+    private static class CsvReport implements ReportWriter
+    {
+        private final File file;
+        private final PrintWriter writer;
+
+        CsvReport(File file) throws IOException
+        {
+            this.file = file;
+            writer = createWriter(file);
+            writer.println("Student,Test Cases,Passed,Failed,Compile Errors,Runtime Errors,Skipped,Credit,Score (%)");
+        }
+
+        @Override
+        public void result(TestResult result)
+        {
+        }
+
+        @Override
+        public void studentDone(String studentName, Counts counts)
+        {
+            writer.println(csv(studentName) + "," + counts.getGradedCount()
+                    + "," + counts.getCount(ResultStatus.PASSED)
+                    + "," + counts.getCount(ResultStatus.FAILED)
+                    + "," + counts.getCount(ResultStatus.COMPILE_ERROR)
+                    + "," + counts.getCount(ResultStatus.RUNTIME_ERROR)
+                    + "," + counts.getCount(ResultStatus.SKIPPED)
+                    + "," + String.format(Locale.ROOT, "%.3f", counts.getCredit())
+                    + "," + percent(counts.getScore()));
+        }
+
+        @Override
+        public void end(Totals totals) throws IOException
+        {
+            checkError(writer, file);
+        }
+
+        @Override
+        public void close()
+        {
+            writer.close();
+        }
+
+        private static String csv(String value)
+        {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    // --- JSON ---
+
+    private static class JsonReport implements ReportWriter
+    {
+        private final File file;
+        private final PrintWriter writer;
+        private boolean first = true;
+
+        JsonReport(File file, String suiteTitle, Date generated) throws IOException
+        {
+            this.file = file;
+            writer = createWriter(file);
+            writer.println("{");
+            writer.println("  \"suite\": " + json(suiteTitle) + ",");
+            writer.println("  \"generated\": " + json(isoDate(generated)) + ",");
+            writer.print("  \"results\": [");
+        }
+
+        @Override
+        public void result(TestResult result)
+        {
+            writer.println(first ? "" : ",");
+            first = false;
+            writer.print("    {\"student\": " + json(result.getStudentName())
+                    + ", \"testCase\": " + json(result.getTestCaseTitle())
+                    + ", \"status\": " + json(result.getStatus())
+                    + ", \"similarity\": " + (result.getSimilarity() != null ? result.getSimilarity().toString() : "null")
+                    + ", \"credit\": " + result.getCredit() + "}");
+        }
+
+        @Override
+        public void studentDone(String studentName, Counts counts)
+        {
+        }
+
+        @Override
+        public void end(Totals totals) throws IOException
+        {
+            writer.println(first ? "]," : "\n  ],");
+            writer.println("  \"summary\": " + counts(totals) + ",");
+            writer.println("  \"students\": " + totals.getStudentCount() + ",");
+            writer.print("  \"testCases\": [");
+            boolean firstTest = true;
+            for (Map.Entry<String, Counts> testCase : totals.getTestCaseCounts().entrySet())
+            {
+                writer.println(firstTest ? "" : ",");
+                firstTest = false;
+                writer.print("    {\"title\": " + json(testCase.getKey()) + ", \"counts\": " + counts(testCase.getValue()) + "}");
+            }
+            writer.println(firstTest ? "]" : "\n  ]");
+            writer.println("}");
+            checkError(writer, file);
+        }
+
+        @Override
+        public void close()
+        {
+            writer.close();
+        }
+
+        private static String counts(Counts counts)
+        {
+            StringBuilder text = new StringBuilder("{\"total\": " + counts.getTotal());
+            for (ResultStatus status : ResultStatus.values())
+            {
+                text.append(", ").append(json(status.name().toLowerCase(Locale.ROOT))).append(": ").append(counts.getCount(status));
+            }
+            return text.append(", \"credit\": ").append(String.format(Locale.ROOT, "%.3f", counts.getCredit()))
+                    .append(", \"score\": ").append(percent(counts.getScore())).append('}').toString();
+        }
+
+        private static String json(String value)
+        {
+            if (value == null)
+            {
+                return "null";
+            }
+            StringBuilder text = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(i);
+                switch (c)
+                {
+                    case '"': text.append("\\\""); break;
+                    case '\\': text.append("\\\\"); break;
+                    case '\n': text.append("\\n"); break;
+                    case '\r': text.append("\\r"); break;
+                    case '\t': text.append("\\t"); break;
+                    default:
+                        if (c < 0x20)
+                        {
+                            text.append(String.format("\\u%04x", (int) c));
+                        }
+                        else
+                        {
+                            text.append(c);
+                        }
+                }
+            }
+            return text.append('"').toString();
+        }
+    }
+
+    // --- JUnit XML ---
+
+    private static class JUnitReport implements ReportWriter
+    {
+        private final File file;
+        private final PrintWriter writer;
+        private final String timestamp;
+        private final StringBuilder studentCases = new StringBuilder(); // The current student's testcase elements
+
+        JUnitReport(File file, String suiteTitle, Date generated) throws IOException
+        {
+            this.file = file;
+            this.timestamp = isoDate(generated);
+            writer = createWriter(file);
+            writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            writer.println("<testsuites name=\"" + xml(suiteTitle) + "\">");
+        }
+
+        @Override
+        public void result(TestResult result)
+        {
+            String className = "student." + result.getStudentName();
+            ResultStatus status = result.getResultStatus();
+            String name = status == ResultStatus.SKIPPED ? "(submission)" : result.getTestCaseTitle();
+            studentCases.append("    <testcase name=\"").append(xml(name)).append("\" classname=\"").append(xml(className)).append('"');
+            switch (status)
+            {
+                case PASSED:
+                    studentCases.append("/>\n");
+                    return;
+                case FAILED:
+                    String message = result.getSimilarity() != null
+                            ? "Output differs (" + (int) Math.floor(result.getSimilarity() * 100) + "% similar)"
+                            : "Output differs";
+                    studentCases.append(">\n      <failure message=\"").append(xml(message)).append("\"/>\n");
+                    break;
+                case SKIPPED:
+                    studentCases.append(">\n      <skipped message=\"").append(xml(result.getStatus())).append("\"/>\n");
+                    break;
+                default:
+                    String detail = status == ResultStatus.RUNTIME_ERROR ? result.getErrorOutput() : "";
+                    if (detail.length() > MAX_DETAIL_CHARS)
+                    {
+                        detail = detail.substring(0, MAX_DETAIL_CHARS) + "\n[...]";
+                    }
+                    studentCases.append(">\n      <error message=\"").append(xml(result.getStatus())).append('"');
+                    studentCases.append(detail.isEmpty() ? "/>\n" : ">" + xml(detail) + "</error>\n");
+                    break;
+            }
+            studentCases.append("    </testcase>\n");
+        }
+
+        @Override
+        public void studentDone(String studentName, Counts counts)
+        {
+            writer.println("  <testsuite name=\"" + xml(studentName) + "\" tests=\"" + counts.getTotal()
+                    + "\" failures=\"" + counts.getCount(ResultStatus.FAILED)
+                    + "\" errors=\"" + (counts.getCount(ResultStatus.COMPILE_ERROR) + counts.getCount(ResultStatus.RUNTIME_ERROR) + counts.getCount(ResultStatus.OTHER))
+                    + "\" skipped=\"" + counts.getCount(ResultStatus.SKIPPED)
+                    + "\" timestamp=\"" + timestamp + "\">");
+            writer.print(studentCases);
+            writer.println("  </testsuite>");
+            studentCases.setLength(0);
+        }
+
+        @Override
+        public void end(Totals totals) throws IOException
+        {
+            writer.println("</testsuites>");
+            checkError(writer, file);
+        }
+
+        @Override
+        public void close()
+        {
+            writer.close();
+        }
+    }
+
+    // Escapes text for XML and HTML, dropping characters XML 1.0 does not allow
+    private static String xml(String value)
+    {
+        if (value == null)
+        {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '<': text.append("&lt;"); break;
+                case '>': text.append("&gt;"); break;
+                case '&': text.append("&amp;"); break;
+                case '"': text.append("&quot;"); break;
+                default:
+                    if (c >= 0x20 || c == '\n' || c == '\r' || c == '\t')
+                    {
+                        text.append(c);
+                    }
+            }
+        }
+        return text.toString();
+    }
+
+    // --- HTML ---
+
+    private static class HtmlReport implements ReportWriter
+    {
+        private static final String STYLE = "<style>body{font-family:sans-serif;margin:2em;background:#1e1e2f;color:#e8e8f2}"
+                + "a{color:#8fb4ff}table{border-collapse:collapse}td,th{border:1px solid #3a3a5a;padding:3px 8px;text-align:left}"
+                + ".PASSED{color:#6fd08c}.FAILED{color:#f0a050}.COMPILE_ERROR,.RUNTIME_ERROR,.OTHER{color:#f07080}.SKIPPED{color:#9090a0}</style>";
+
+        private final File folder;
+        private final String suiteTitle;
+        private final Date generated;
+        private PrintWriter page;
+        private int pageNumber;
+        private int rowsOnPage;
+
+        HtmlReport(File folder, String suiteTitle, Date generated) throws IOException
+        {
+            if (!folder.isDirectory() && !folder.mkdirs())
+            {
+                throw new IOException("Could not create report folder " + folder.getPath());
+            }
+            this.folder = folder;
+            this.suiteTitle = suiteTitle;
+            this.generated = generated;
+        }
+
+        private static String pageName(int number)
+        {
+            return "page-" + number + ".html";
+        }
+
+        @Override
+        public void result(TestResult result) throws IOException
+        {
+            if (page != null && rowsOnPage == HTML_PAGE_SIZE)
+            {
+                finishPage(true);
+            }
+            if (page == null)
+            {
+                pageNumber++;
+                rowsOnPage = 0;
+                page = createWriter(new File(folder, pageName(pageNumber)));
+                page.println("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>" + xml(suiteTitle) + " - page " + pageNumber + "</title>" + STYLE + "</head><body>");
+                page.println("<h1>" + xml(suiteTitle) + " - page " + pageNumber + "</h1>");
+                page.println("<p><a href=\"index.html\">Summary</a></p>");
+                page.println("<table><tr><th>Student</th><th>Test Case</th><th>Status</th></tr>");
+            }
+            ResultStatus status = result.getResultStatus();
+            page.println("<tr><td>" + xml(result.getStudentName()) + "</td><td>"
+                    + (status == ResultStatus.SKIPPED ? "" : xml(result.getTestCaseTitle()))
+                    + "</td><td class=\"" + status.name() + "\">" + xml(statusText(result))
+                    + "</td></tr>");
+            rowsOnPage++;
+        }
+
+        // Ends the current page, linking to the next one if there is one
+        private void finishPage(boolean hasNext) throws IOException
+        {
+            page.println("</table><p>");
+            if (pageNumber > 1)
+            {
+                page.println("<a href=\"" + pageName(pageNumber - 1) + "\">&laquo; Previous</a>");
+            }
+            if (hasNext)
+            {
+                page.println("<a href=\"" + pageName(pageNumber + 1) + "\">Next &raquo;</a>");
+            }
+            page.println("</p></body></html>");
+            PrintWriter finished = page;
+            page = null;
+            finished.close();
+            checkError(finished, new File(folder, pageName(pageNumber)));
+        }
+
+        @Override
+        public void studentDone(String studentName, Counts counts)
+        {
+        }
+
+        @Override
+        public void end(Totals totals) throws IOException
+        {
+            if (page != null)
+            {
+                finishPage(false);
+            }
+
+            File indexFile = new File(folder, "index.html");
+            try (PrintWriter index = createWriter(indexFile))
+            {
+                index.println("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>" + xml(suiteTitle) + "</title>" + STYLE + "</head><body>");
+                index.println("<h1>Test Results for: " + xml(suiteTitle) + "</h1>");
+                index.println("<p>Generated: " + xml(generated.toString()) + "</p>");
+                index.println("<h2>Summary</h2><table>");
+                index.println("<tr><th>Students</th><td>" + totals.getStudentCount() + "</td></tr>");
+                index.println("<tr><th>Total Results</th><td>" + totals.getTotal() + "</td></tr>");
+                for (ResultStatus status : ResultStatus.values())
+                {
+                    index.println("<tr><th class=\"" + status.name() + "\">" + xml(status.getLabel()) + "</th><td>" + totals.getCount(status) + "</td></tr>");
+                }
+                index.println("<tr><th>Average Score</th><td>" + percent(totals.getScore()) + "%</td></tr></table>");
+
+                index.println("<h2>Test Cases</h2><table><tr><th>Test Case</th><th>Passed</th><th>Graded</th><th>Average Score</th></tr>");
+                for (Map.Entry<String, Counts> testCase : totals.getTestCaseCounts().entrySet())
+                {
+                    Counts counts = testCase.getValue();
+                    index.println("<tr><td>" + xml(testCase.getKey()) + "</td><td>" + counts.getCount(ResultStatus.PASSED)
+                            + "</td><td>" + counts.getGradedCount() + "</td><td>" + percent(counts.getScore()) + "%</td></tr>");
+                }
+                index.println("</table>");
+
+                index.println("<h2>Results</h2><p>");
+                for (int number = 1; number <= pageNumber; number++)
+                {
+                    index.println("<a href=\"" + pageName(number) + "\">Page " + number + "</a>");
+                }
+                index.println("</p></body></html>");
+                checkError(index, indexFile);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (page != null)
+            {
+                page.close();
+            }
+        }
+    }
+
+    /**
+     * Writes reports from a saved run without loading its outputs
+     * (java ReportEngine results.tres|run.journal output-folder [txt csv json xml html]).
+     * With no formats listed, every format is written.
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: java ReportEngine <results" + ResultsFile.EXTENSION + " | run" + ResultsJournal.EXTENSION
+                    + "> <output folder> [txt csv json xml html]");
+            System.exit(2);
+        }
+
+        Set<Format> formats = java.util.EnumSet.noneOf(Format.class);
+        for (int i = 2; i < args.length; i++)
+        {
+            switch (args[i].toLowerCase(Locale.ROOT))
+            {
+                case "txt": case "text": formats.add(Format.TEXT); break;
+                case "csv": formats.add(Format.CSV); break;
+                case "json": formats.add(Format.JSON); break;
+                case "xml": case "junit": formats.add(Format.JUNIT_XML); break;
+                case "html": formats.add(Format.HTML); break;
+                default:
+                    System.err.println("Unknown report format: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (formats.isEmpty())
+        {
+            formats = java.util.EnumSet.allOf(Format.class);
+        }
+
+        File input = new File(args[0]);
+        File folder = new File(args[1]);
+        try
+        {
+            TestExecutionResults results = input.getName().endsWith(ResultsJournal.EXTENSION)
+                    ? ResultsJournal.readWithoutOutputs(input)
+                    : ResultsStore.open(input).getResults();
+            if (!folder.isDirectory() && !folder.mkdirs())
+            {
+                throw new IOException("Could not create output folder " + folder.getPath());
+            }
+            String baseName = input.getName().replaceAll("\\.[^.]*$", "");
+            Totals totals = write(results.getTestSuiteTitle(), results.getResults(), targets(folder, baseName, formats));
+            System.out.println(totals.getTotal() + " result(s) of " + totals.getStudentCount() + " student(s) written to " + folder.getPath());
+        }
+        catch (IOException e)
+        {
+            System.err.println(input.getPath() + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
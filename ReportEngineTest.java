@@ -0,0 +1,173 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ReportEngine: totals, grouping by student, and the content of each format.
+ */
+public class ReportEngineTest
+{
+    private File folder;
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("report-engine-test").toFile();
+        defaultLocale = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown()
+    {
+        Locale.setDefault(defaultLocale);
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void totalsCountEveryStatusAndTestCase() throws IOException
+    {
+        ReportEngine.Totals totals = ReportEngine.write("Suite", interleavedResults(),
+                ReportEngine.targets(folder, "report", EnumSet.of(ReportEngine.Format.TEXT)));
+
+        assertEquals(6, totals.getTotal());
+        assertEquals(3, totals.getStudentCount());
+        assertEquals(2, totals.getCount(ResultStatus.PASSED));
+        assertEquals(2, totals.getCount(ResultStatus.FAILED));
+        assertEquals(1, totals.getCount(ResultStatus.RUNTIME_ERROR));
+        assertEquals(1, totals.getCount(ResultStatus.SKIPPED));
+        assertEquals(5, totals.getGradedCount());
+        assertEquals(2.5, totals.getCredit(), 1e-9);
+        assertEquals(50.0, totals.getScore(), 1e-9);
+
+        Map<String, ReportEngine.Counts> byTestCase = totals.getTestCaseCounts();
+        assertEquals(Arrays.asList("T1", "T2", "T3"), new ArrayList<>(byTestCase.keySet())); // No "N/A" for the skipped folder
+        assertEquals(2, byTestCase.get("T1").getTotal());
+        assertEquals(1, byTestCase.get("T1").getCount(ResultStatus.PASSED));
+    }
+
+    @Test
+    public void textReportGroupsResultsByStudent() throws IOException
+    {
+        Map<ReportEngine.Format, File> targets = ReportEngine.targets(folder, "report", EnumSet.of(ReportEngine.Format.TEXT));
+        ReportEngine.write("Suite", interleavedResults(), targets);
+
+        List<String> lines = read(targets.get(ReportEngine.Format.TEXT));
+        assertEquals("Test Results for: Suite", lines.get(0));
+        int alice1 = lines.indexOf("alice | T1 | PASSED");
+        int alice2 = lines.indexOf("alice | T2 | FAILED");
+        int bob1 = lines.indexOf("bob | T1 | FAILED");
+        assertTrue(alice1 >= 0 && alice2 == alice1 + 1); // Alice's results together although bob's came in between
+        assertTrue(bob1 > alice2);
+        assertTrue(lines.contains("carol | SKIPPED - NO MAIN METHOD"));
+        assertTrue(lines.contains("Total Results: 6"));
+        assertTrue(lines.contains("Skipped: 1"));
+    }
+
+    @Test
+    public void groupedResultsAreStreamedInTheirOwnOrder()
+    {
+        List<TestResult> grouped = Arrays.asList(
+                new TestResult("alice", "T1", "PASSED", "", ""),
+                new TestResult("alice", "T2", "PASSED", "", ""),
+                new TestResult("bob", "T1", "PASSED", "", ""));
+        assertNull(ReportEngine.groupingOrder(grouped));
+        assertNull(ReportEngine.groupingOrder(new ArrayList<TestResult>()));
+
+        // alice, bob, alice, carol, bob, bob
+        assertArrayEquals(new int[] { 0, 2, 1, 4, 5, 3 }, ReportEngine.groupingOrder(interleavedResults()));
+    }
+
+    @Test
+    public void csvHasOneRowPerStudentWhateverTheLocale() throws IOException
+    {
+        Locale.setDefault(Locale.GERMANY); // Decimal comma by default
+        Map<ReportEngine.Format, File> targets = ReportEngine.targets(folder, "grades", EnumSet.of(ReportEngine.Format.CSV));
+        List<TestResult> results = interleavedResults();
+        results.add(new TestResult("dave, jr.", "T1", "PASSED", "1", "1"));
+        ReportEngine.write("Suite", results, targets);
+
+        List<String> lines = read(targets.get(ReportEngine.Format.CSV));
+        assertEquals(Arrays.asList(
+                "Student,Test Cases,Passed,Failed,Compile Errors,Runtime Errors,Skipped,Credit,Score (%)",
+                "alice,2,1,1,0,0,0,1.500,75.0",
+                "bob,3,1,1,0,1,0,1.000,33.3",
+                "carol,0,0,0,0,0,1,0.000,0.0",
+                "\"dave, jr.\",1,1,0,0,0,0,1.000,100.0"), lines);
+    }
+
+    @Test
+    public void everyFormatIsWrittenInOnePass() throws IOException
+    {
+        Map<ReportEngine.Format, File> targets = ReportEngine.targets(folder, "run", EnumSet.allOf(ReportEngine.Format.class));
+        ReportEngine.write("Suite <1>", interleavedResults(), targets);
+
+        String json = String.join("\n", read(targets.get(ReportEngine.Format.JSON)));
+        assertTrue(json.contains("\"suite\": \"Suite <1>\""));
+        assertTrue(json.contains("\"students\": 3"));
+
+        String xml = String.join("\n", read(targets.get(ReportEngine.Format.JUNIT_XML)));
+        assertTrue(xml.contains("<testsuites name=\"Suite &lt;1&gt;\">"));
+        assertTrue(xml.contains("<testsuite name=\"bob\" tests=\"3\" failures=\"1\" errors=\"1\" skipped=\"0\""));
+        assertTrue(xml.contains("<failure message=\"Output differs (50% similar)\"/>"));
+        assertTrue(xml.contains("java.lang.IllegalStateException"));
+        assertTrue(xml.contains("<skipped message=\"SKIPPED - NO MAIN METHOD\"/>"));
+
+        File html = targets.get(ReportEngine.Format.HTML);
+        assertTrue(new File(html, "index.html").isFile());
+        assertTrue(new File(html, "page-1.html").isFile());
+        assertTrue(!new File(html, "page-2.html").exists());
+    }
+
+    @Test
+    public void htmlReportIsSplitIntoPages() throws IOException
+    {
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < ReportEngine.HTML_PAGE_SIZE * 2 + 1; i++)
+        {
+            results.add(new TestResult("student" + (i / 10), "T" + (i % 10), "PASSED", "", ""));
+        }
+        Map<ReportEngine.Format, File> targets = ReportEngine.targets(folder, "run", EnumSet.of(ReportEngine.Format.HTML));
+        ReportEngine.write("Suite", results, targets);
+
+        File html = targets.get(ReportEngine.Format.HTML);
+        assertTrue(new File(html, "page-3.html").isFile());
+        assertTrue(!new File(html, "page-4.html").exists());
+        String index = String.join("\n", read(new File(html, "index.html")));
+        assertTrue(index.contains("page-3.html"));
+    }
+
+    // Results as a journal or watch mode may hand them over, with students interleaved
+    private static List<TestResult> interleavedResults()
+    {
+        return new ArrayList<>(Arrays.asList(
+                new TestResult("alice", "T1", "PASSED", "1\n", "1\n"),
+                new TestResult("bob", "T1", "FAILED", "2\n", "1\n", 0.0),
+                new TestResult("alice", "T2", "FAILED", "x\ny\n", "x\nz\n", 0.5),
+                new TestResult("carol", "N/A", "SKIPPED - NO MAIN METHOD", "", ""),
+                new TestResult("bob", "T2", "RUNTIME ERROR", "", "x\nz\n", null,
+                        "Exception in thread \"main\" java.lang.IllegalStateException\n"),
+                new TestResult("bob", "T3", "PASSED", "ok\n", "ok\n")));
+    }
+
+    private static List<String> read(File file) throws IOException
+    {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Outcome of one test case for one student. TestResult keeps the status text it was created
+ * with (saved files and reports show it), and this enum is what code compares against, so a
+ * status check is an identity comparison instead of a string comparison.
+ */
+public enum ResultStatus
+{
+    PASSED("PASSED"),
+    FAILED("FAILED"),
+    COMPILE_ERROR("COMPILE ERROR"),
+    RUNTIME_ERROR("RUNTIME ERROR"),
+    SKIPPED("SKIPPED"), // The text says why, e.g. "SKIPPED - NO MAIN METHOD"
+    OTHER("OTHER");     // Any status text not known here
+
+    private final String label;
+
+    ResultStatus(String label)
+    {
+        this.label = label;
+    }
+
+    /**
+     * Returns the status text results are created and saved with, e.g. "COMPILE ERROR".
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Returns the status a status text stands for; every "SKIPPED ..." text is SKIPPED.
+     */
+    public static ResultStatus of(String status)
+    {
+        if (status == null)
+        {
+            return OTHER;
+        }
+        switch (status)
+        {
+            case "PASSED": return PASSED;
+            case "FAILED": return FAILED;
+            case "COMPILE ERROR": return COMPILE_ERROR;
+            case "RUNTIME ERROR": return RUNTIME_ERROR;
+            default: return status.startsWith("SKIPPED") ? SKIPPED : OTHER;
+        }
+    }
+}
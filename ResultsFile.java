@@ -0,0 +1,752 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary results file (.tres): the saved form of a TestExecutionResults.
+ *
+ * Layout (all numbers big-endian, "varint" = unsigned 7-bit groups):
+ *   header  : "TRES" magic, version, length of each section (summary, outputs, search index)
+ *   summary : suite title, root folder, code path, string dictionary, test cases (title id and
+ *             expected output number), then per result -> student and title as dictionary
+ *             ids, status byte, flags, similarity, output numbers
+ *   outputs : output count, then blocks of about BLOCK_BYTES -> number of outputs, raw length,
+ *             stored length, encoding byte, bytes; a block holds length-prefixed UTF-8 outputs
+ *             and is deflate-compressed when that makes it smaller
+ *   index   : the OutputSearchIndex built during the run (empty if there is none)
+ *
+ * Names, titles and statuses repeat for every result, so the summary stores each once in the
+ * dictionary and refers to it by number. Outputs are stored by content: each distinct output is
+ * written once however many students printed it, and a result refers to its test case's
+ * expected output instead of carrying its own (version 1 files, which gave every result an
+ * expected output number, are still read). Outputs are numbered test case by test case, so a
+ * block holds the outputs of the same test from many students, which are mostly alike and
+ * compress far better together than one by one. The summary comes first and is
+ * small, so the success-rate comparison can load it without reading any output.
+ */
+public class ResultsFile
+{
+    // Default extension of results files
+    public static final String EXTENSION = ".tres";
+
+    private static final int MAGIC = 0x54524553; // "TRES"
+    private static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 * 3;
+
+    // Status bytes; any other status text is stored in the dictionary after STATUS_OTHER
+    private static final String[] STATUSES = { "PASSED", "FAILED", "COMPILE ERROR", "RUNTIME ERROR" };
+    private static final int STATUS_OTHER = 255;
+
+    private static final int FLAG_SIMILARITY = 1;
+    private static final int FLAG_ERROR_OUTPUT = 2;
+    private static final int FLAG_OWN_EXPECTED = 4; // Expected output differs from the test case's
+
+    private static final int ENCODING_RAW = 0;
+    private static final int ENCODING_DEFLATE = 1;
+    private static final int BLOCK_BYTES = 256 * 1024; // Raw size at which an output block is closed
+
+    /**
+     * Writes results to a file (replacing it if it exists), including their search index.
+     */
+    public static void write(TestExecutionResults executionResults, File file) throws IOException
+    {
+        List<TestResult> results = executionResults.getResults();
+        File folder = file.getAbsoluteFile().getParentFile();
+        // Written next to the target and moved over it at the end: the file being replaced may be
+        // the one these results are still reading their outputs from (see ResultsStore.release)
+        File temp = new File(folder, file.getName() + ".tmp");
+        File spool = new File(folder, file.getName() + ".outputs.tmp");
+        try
+        {
+            // Number the outputs test case by test case (expected, then actual, then stderr), so
+            // similar outputs end up next to each other in the compressed blocks. Each output is
+            // read once; the blocks go to a spool file and only a hash of each output is kept
+            int[] expectedNumbers = new int[results.size()];
+            int[] actualNumbers = new int[results.size()];
+            int[] errorNumbers = new int[results.size()];
+            Map<String, List<Integer>> byTestCase = new LinkedHashMap<>();
+            for (int i = 0; i < results.size(); i++)
+            {
+                byTestCase.computeIfAbsent(results.get(i).getTestCaseTitle(), title -> new ArrayList<>()).add(i);
+            }
+            int outputCount;
+            try (OutputSpool outputs = new OutputSpool(spool))
+            {
+                for (List<Integer> testResults : byTestCase.values())
+                {
+                    for (int i : testResults)
+                    {
+                        expectedNumbers[i] = outputs.number(results.get(i).getExpectedOutput());
+                    }
+                    for (int i : testResults)
+                    {
+                        actualNumbers[i] = outputs.number(results.get(i).getActualOutput());
+                    }
+                    for (int i : testResults)
+                    {
+                        String error = results.get(i).getErrorOutput();
+                        errorNumbers[i] = error.isEmpty() ? 0 : outputs.number(error);
+                    }
+                }
+                outputs.finish();
+                outputCount = outputs.count;
+            }
+
+            // Summary in memory (it is small), in run order
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> dictionaryOrder = new ArrayList<>();
+            Map<Integer, Integer> testCaseExpected = new LinkedHashMap<>(); // Title id -> expected output number
+            ByteArrayOutputStream resultBytes = new ByteArrayOutputStream();
+            DataOutputStream resultOut = new DataOutputStream(resultBytes);
+            writeVarint(resultOut, results.size());
+            for (int i = 0; i < results.size(); i++)
+            {
+                TestResult result = results.get(i);
+                int titleId = stringId(result.getTestCaseTitle(), dictionary, dictionaryOrder);
+                int expectedNumber = expectedNumbers[i];
+                testCaseExpected.putIfAbsent(titleId, expectedNumber);
+                boolean ownExpected = testCaseExpected.get(titleId) != expectedNumber;
+                writeVarint(resultOut, stringId(result.getStudentName(), dictionary, dictionaryOrder));
+                writeVarint(resultOut, titleId);
+                int status = statusByte(result.getStatus());
+                resultOut.writeByte(status);
+                if (status == STATUS_OTHER)
+                {
+                    writeVarint(resultOut, stringId(result.getStatus(), dictionary, dictionaryOrder));
+                }
+
+                boolean hasError = errorNumbers[i] != 0;
+                int flags = (result.getSimilarity() != null ? FLAG_SIMILARITY : 0) | (hasError ? FLAG_ERROR_OUTPUT : 0)
+                        | (ownExpected ? FLAG_OWN_EXPECTED : 0);
+                resultOut.writeByte(flags);
+                if (result.getSimilarity() != null)
+                {
+                    resultOut.writeDouble(result.getSimilarity());
+                }
+                writeVarint(resultOut, actualNumbers[i]);
+                if (ownExpected)
+                {
+                    writeVarint(resultOut, expectedNumber);
+                }
+                if (hasError)
+                {
+                    writeVarint(resultOut, errorNumbers[i]);
+                }
+            }
+            resultOut.flush();
+
+            ByteArrayOutputStream summaryBytes = new ByteArrayOutputStream();
+            DataOutputStream summaryOut = new DataOutputStream(summaryBytes);
+            writeString(summaryOut, executionResults.getTestSuiteTitle());
+            writeString(summaryOut, executionResults.getRootFolderPath());
+            writeString(summaryOut, executionResults.getCodePath());
+            writeVarint(summaryOut, dictionaryOrder.size());
+            for (String value : dictionaryOrder)
+            {
+                writeString(summaryOut, value);
+            }
+            writeVarint(summaryOut, testCaseExpected.size());
+            for (Map.Entry<Integer, Integer> testCase : testCaseExpected.entrySet())
+            {
+                writeVarint(summaryOut, testCase.getKey());
+                writeVarint(summaryOut, testCase.getValue());
+            }
+            resultBytes.writeTo(summaryOut);
+            summaryOut.flush();
+
+            long outputsLength;
+            long indexLength;
+            try (FileOutputStream fileOut = new FileOutputStream(temp))
+            {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(summaryBytes.size());
+                out.writeLong(0); // Output and index lengths are filled in below
+                out.writeLong(0);
+                summaryBytes.writeTo(out);
+
+                writeVarint(out, outputCount);
+                Files.copy(spool.toPath(), out);
+                out.flush();
+                long outputsEnd = fileOut.getChannel().position();
+                outputsLength = outputsEnd - HEADER_SIZE - summaryBytes.size();
+
+                OutputSearchIndex index = executionResults.getSearchIndex();
+                Map<TestResult, Integer> resultIds = new IdentityHashMap<>();
+                for (int i = 0; i < results.size(); i++)
+                {
+                    resultIds.put(results.get(i), i);
+                }
+                index.writeTo(out, resultIds);
+                out.flush();
+                indexLength = fileOut.getChannel().position() - outputsEnd;
+            }
+
+            try (RandomAccessFile patch = new RandomAccessFile(temp, "rw"))
+            {
+                patch.seek(4 + 4 + 8);
+                patch.writeLong(outputsLength);
+                patch.writeLong(indexLength);
+            }
+            ResultsStore.releaseStoresOn(results, file); // Windows cannot replace a file that is still open
+            try
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            temp.delete(); // A failed save leaves no half-written file behind
+            throw e;
+        }
+        finally
+        {
+            spool.delete();
+        }
+    }
+
+    // Writes each distinct output once, in blocks, to a scratch file that becomes the outputs section.
+    // Outputs are told apart by a SHA-256 of their UTF-8 bytes, so no output is kept in memory
+    private static class OutputSpool implements Closeable
+    {
+        private final DataOutputStream out;
+        private final Map<ByteBuffer, Integer> numbers = new HashMap<>(); // Hash -> output number
+        private final MessageDigest digest;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final DataOutputStream blockOut = new DataOutputStream(block);
+        private int inBlock;
+        private int count; // Outputs written so far; output n is the n-th written
+        private String previous; // Last output numbered, to skip hashing a run of equal outputs
+        private int previousNumber;
+
+        OutputSpool(File file) throws IOException
+        {
+            try
+            {
+                digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IllegalStateException("SHA-256 not available", e); // Required on every JVM
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        // Returns the number of an output (0 for null), writing it if its content is new
+        int number(String output) throws IOException
+        {
+            if (output == null)
+            {
+                return 0;
+            }
+            if (output.equals(previous))
+            {
+                return previousNumber; // The results of a test case mostly share one expected output
+            }
+            byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(bytes));
+            Integer number = numbers.get(hash);
+            if (number == null)
+            {
+                writeVarint(blockOut, bytes.length);
+                blockOut.write(bytes);
+                inBlock++;
+                if (block.size() >= BLOCK_BYTES)
+                {
+                    writeBlock(out, block, inBlock, deflater);
+                    inBlock = 0;
+                }
+                count++;
+                number = count;
+                numbers.put(hash, number);
+            }
+            previous = output;
+            previousNumber = number;
+            return number;
+        }
+
+        // Writes the last, partly filled block
+        void finish() throws IOException
+        {
+            if (inBlock > 0)
+            {
+                writeBlock(out, block, inBlock, deflater);
+                inBlock = 0;
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a results file. With loadOutputs false only the summary is read: statuses,
+     * names and similarity scores are there but every output is empty.
+     */
+    public static TestExecutionResults read(File file, boolean loadOutputs) throws IOException
+    {
+        long[] lengths;
+        byte[] summaryBytes;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"))
+        {
+            lengths = readHeader(in, in.length(), file);
+            summaryBytes = new byte[(int) lengths[0]];
+            in.readFully(summaryBytes);
+        }
+        long summaryLength = lengths[0];
+        long indexLength = lengths[2];
+        Summary summary = readSummary(summaryBytes, (int) lengths[3]);
+        String suiteTitle = summary.suiteTitle;
+        String rootFolder = summary.rootFolder;
+        String codePath = summary.codePath;
+        String[] students = summary.students;
+        String[] titles = summary.titles;
+        String[] statuses = summary.statuses;
+        Double[] similarities = summary.similarities;
+        int[] actualNumbers = summary.actualNumbers;
+        int[] expectedNumbers = summary.expectedNumbers;
+        int[] errorNumbers = summary.errorNumbers;
+
+        String[] outputs = new String[0];
+        OutputSearchIndex index = null;
+        if (loadOutputs)
+        {
+            try (FileInputStream fileIn = new FileInputStream(file))
+            {
+                fileIn.getChannel().position(HEADER_SIZE + summaryLength);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 1 << 16));
+                outputs = new String[readVarint(in)];
+                Inflater inflater = new Inflater();
+                try
+                {
+                    int read = 0;
+                    while (read < outputs.length)
+                    {
+                        read = readBlock(in, outputs, read, inflater, file);
+                    }
+                }
+                finally
+                {
+                    inflater.end();
+                }
+
+                List<TestResult> results = buildResults(students, titles, statuses, similarities,
+                        actualNumbers, expectedNumbers, errorNumbers, outputs);
+                if (indexLength > 0)
+                {
+                    index = OutputSearchIndex.readFrom(in, results);
+                }
+                return withIndex(new TestExecutionResults(suiteTitle, rootFolder, codePath, results), index);
+            }
+        }
+
+        List<TestResult> results = buildResults(students, titles, statuses, similarities,
+                actualNumbers, expectedNumbers, errorNumbers, outputs);
+        return new TestExecutionResults(suiteTitle, rootFolder, codePath, results);
+    }
+
+    /**
+     * Reads and checks the header; returns the lengths of the summary, outputs and index sections,
+     * then the version.
+     */
+    static long[] readHeader(DataInput in, long fileLength, File file) throws IOException
+    {
+        if (fileLength < HEADER_SIZE || in.readInt() != MAGIC)
+        {
+            throw new IOException("Not a results file: " + file.getName());
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION)
+        {
+            throw new IOException("Unsupported results file version: " + version);
+        }
+        long summaryLength = in.readLong();
+        long outputsLength = in.readLong();
+        long indexLength = in.readLong();
+        if (summaryLength < 0 || summaryLength > Integer.MAX_VALUE || outputsLength < 0 || indexLength < 0
+                || HEADER_SIZE + summaryLength + outputsLength + indexLength > fileLength)
+        {
+            throw new IOException("Results file is truncated: " + file.getName());
+        }
+        return new long[] { summaryLength, outputsLength, indexLength, version };
+    }
+
+    // The summary section: metadata and, per result, everything but the outputs themselves
+    static class Summary
+    {
+        String suiteTitle;
+        String rootFolder;
+        String codePath;
+        String[] students;
+        String[] titles;
+        String[] statuses;
+        Double[] similarities;
+        int[] actualNumbers; // Output numbers: 0 = null, n = n-th output of the outputs section
+        int[] expectedNumbers;
+        int[] errorNumbers;
+    }
+
+    static Summary readSummary(byte[] bytes, int version) throws IOException
+    {
+        DataInputStream summaryIn = new DataInputStream(new ByteArrayInputStream(bytes));
+        Summary summary = new Summary();
+        summary.suiteTitle = readString(summaryIn);
+        summary.rootFolder = readString(summaryIn);
+        summary.codePath = readString(summaryIn);
+        String[] dictionary = new String[readVarint(summaryIn)];
+        for (int i = 0; i < dictionary.length; i++)
+        {
+            dictionary[i] = readString(summaryIn);
+        }
+        Map<Integer, Integer> testCaseExpected = new HashMap<>(); // Title id -> expected output number
+        if (version >= 2)
+        {
+            int testCases = readVarint(summaryIn);
+            for (int i = 0; i < testCases; i++)
+            {
+                testCaseExpected.put(readVarint(summaryIn), readVarint(summaryIn));
+            }
+        }
+        int count = readVarint(summaryIn);
+        summary.students = new String[count];
+        summary.titles = new String[count];
+        summary.statuses = new String[count];
+        summary.similarities = new Double[count];
+        summary.actualNumbers = new int[count];
+        summary.expectedNumbers = new int[count];
+        summary.errorNumbers = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            summary.students[i] = dictionary[readVarint(summaryIn)];
+            int titleId = readVarint(summaryIn);
+            summary.titles[i] = dictionary[titleId];
+            int status = summaryIn.readUnsignedByte();
+            summary.statuses[i] = status == STATUS_OTHER ? dictionary[readVarint(summaryIn)] : STATUSES[status];
+            int flags = summaryIn.readUnsignedByte();
+            summary.similarities[i] = (flags & FLAG_SIMILARITY) != 0 ? summaryIn.readDouble() : null;
+            summary.actualNumbers[i] = readVarint(summaryIn);
+            if (version < 2 || (flags & FLAG_OWN_EXPECTED) != 0)
+            {
+                summary.expectedNumbers[i] = readVarint(summaryIn);
+            }
+            else if (testCaseExpected.containsKey(titleId))
+            {
+                summary.expectedNumbers[i] = testCaseExpected.get(titleId);
+            }
+            else
+            {
+                throw new IOException("Corrupt results summary: no expected output for " + summary.titles[i]);
+            }
+            summary.errorNumbers[i] = (flags & FLAG_ERROR_OUTPUT) != 0 ? readVarint(summaryIn) : 0;
+        }
+        return summary;
+    }
+
+    /**
+     * Returns true if the file starts with the results file magic (false for old .ser files).
+     */
+    public static boolean isResultsFile(File file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+        {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Converts a results file saved with Java serialization (.ser) into a .tres file next to it.
+     * Returns the new file.
+     */
+    public static File convertSerializedFile(File serFile) throws IOException
+    {
+        TestExecutionResults executionResults;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(serFile))))
+        {
+            executionResults = (TestExecutionResults) in.readObject();
+        }
+        catch (ClassNotFoundException | ClassCastException e)
+        {
+            throw new IOException("Not a saved results file: " + serFile.getName());
+        }
+
+        String name = serFile.getName();
+        String baseName = name.endsWith(".ser") ? name.substring(0, name.length() - 4) : name;
+        File converted = new File(serFile.getAbsoluteFile().getParentFile(), baseName + EXTENSION);
+        write(executionResults, converted);
+        return converted;
+    }
+
+    /**
+     * Command line converter: java ResultsFile old1.ser [old2.ser ...]
+     */
+    public static void main(String[] args)
+    {
+        if (args.length == 0)
+        {
+            System.err.println("Usage: java ResultsFile <results.ser> [more.ser ...]");
+            System.exit(2);
+        }
+        int failures = 0;
+        for (String path : args)
+        {
+            File serFile = new File(path);
+            try
+            {
+                File converted = convertSerializedFile(serFile);
+                System.out.println(serFile.getName() + " (" + serFile.length() + " bytes) -> "
+                        + converted.getName() + " (" + converted.length() + " bytes)");
+            }
+            catch (IOException e)
+            {
+                System.err.println("Could not convert " + serFile.getName() + ": " + e.getMessage());
+                failures++;
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static TestExecutionResults withIndex(TestExecutionResults executionResults, OutputSearchIndex index)
+    {
+        if (index != null)
+        {
+            executionResults.useSearchIndex(index);
+        }
+        return executionResults;
+    }
+
+    // Output number 0 stands for null (and for every output when outputs were not loaded)
+    private static List<TestResult> buildResults(String[] students, String[] titles, String[] statuses, Double[] similarities,
+                                                 int[] actualNumbers, int[] expectedNumbers, int[] errorNumbers, String[] outputs)
+    {
+        List<TestResult> results = new ArrayList<>(students.length);
+        for (int i = 0; i < students.length; i++)
+        {
+            results.add(new TestResult(students[i], titles[i], statuses[i],
+                    output(actualNumbers[i], outputs), output(expectedNumbers[i], outputs),
+                    similarities[i], output(errorNumbers[i], outputs)));
+        }
+        return results;
+    }
+
+    private static String output(int number, String[] outputs)
+    {
+        if (number == 0)
+        {
+            return null;
+        }
+        return number <= outputs.length ? outputs[number - 1] : "";
+    }
+
+    private static int stringId(String value, Map<String, Integer> dictionary, List<String> order)
+    {
+        String key = value != null ? value : "";
+        Integer id = dictionary.get(key);
+        if (id == null)
+        {
+            id = order.size();
+            dictionary.put(key, id);
+            order.add(key);
+        }
+        return id;
+    }
+
+    private static int statusByte(String status)
+    {
+        for (int i = 0; i < STATUSES.length; i++)
+        {
+            if (STATUSES[i].equals(status))
+            {
+                return i;
+            }
+        }
+        return STATUS_OTHER;
+    }
+
+    // Writes one block of length-prefixed outputs, compressed if that makes it smaller, and empties it
+    private static void writeBlock(DataOutputStream out, ByteArrayOutputStream block, int count, Deflater deflater) throws IOException
+    {
+        byte[] raw = block.toByteArray();
+        block.reset();
+        byte[] stored = compress(raw, deflater);
+        int encoding = ENCODING_DEFLATE;
+        if (stored.length >= raw.length)
+        {
+            stored = raw;
+            encoding = ENCODING_RAW;
+        }
+        writeVarint(out, count);
+        writeVarint(out, raw.length);
+        writeVarint(out, stored.length);
+        out.writeByte(encoding);
+        out.write(stored);
+    }
+
+    // Reads one block into outputs starting at index first; returns the index after the block
+    private static int readBlock(DataInputStream in, String[] outputs, int first, Inflater inflater, File file) throws IOException
+    {
+        int count = readVarint(in);
+        int rawLength = readVarint(in);
+        byte[] stored = new byte[readVarint(in)];
+        int encoding = in.readUnsignedByte();
+        in.readFully(stored);
+        if (first + count > outputs.length)
+        {
+            throw new IOException("Corrupt output block in " + file.getName());
+        }
+
+        String[] block = decodeBlock(stored, encoding, rawLength, count, inflater, file);
+        System.arraycopy(block, 0, outputs, first, count);
+        return first + count;
+    }
+
+    /**
+     * Decodes the stored bytes of one output block into its outputs.
+     */
+    static String[] decodeBlock(byte[] stored, int encoding, int rawLength, int count, Inflater inflater, File file) throws IOException
+    {
+        byte[] raw;
+        if (encoding == ENCODING_RAW)
+        {
+            raw = stored;
+        }
+        else if (encoding == ENCODING_DEFLATE)
+        {
+            raw = inflate(stored, rawLength, inflater, file);
+        }
+        else
+        {
+            throw new IOException("Unknown output encoding " + encoding + " in " + file.getName());
+        }
+
+        DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(raw));
+        String[] outputs = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            outputs[i] = readString(blockIn);
+        }
+        return outputs;
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength, Inflater inflater, File file) throws IOException
+    {
+        inflater.reset();
+        inflater.setInput(stored);
+        byte[] raw = new byte[rawLength];
+        try
+        {
+            int read = 0;
+            while (read < rawLength && !inflater.finished())
+            {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength)
+            {
+                throw new IOException("Corrupt output block in " + file.getName());
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Corrupt output block in " + file.getName() + ": " + e.getMessage());
+        }
+        return raw;
+    }
+
+    private static byte[] compress(byte[] raw, Deflater deflater)
+    {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished())
+        {
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    // writeUTF is limited to 64 KB, so strings use a varint length prefix instead
+    static void writeString(DataOutput out, String value) throws IOException
+    {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException
+    {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarint(DataOutput out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInput in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in results file");
+    }
+}
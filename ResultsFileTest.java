@@ -0,0 +1,206 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Round trips of results through a results file: read back in full, read without outputs,
+ * opened as a ResultsStore, and converted from an old serialized (.ser) file.
+ */
+public class ResultsFileTest
+{
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("results-file-test").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        deleteRecursively(folder);
+    }
+
+    @Test
+    public void resultsSurviveWriteAndRead() throws IOException
+    {
+        TestExecutionResults original = sampleResults();
+        File file = new File(folder, "run" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+
+        assertTrue(ResultsFile.isResultsFile(file));
+        assertSameResults(original, ResultsFile.read(file, true), true);
+    }
+
+    @Test
+    public void readingWithoutOutputsKeepsTheSummary() throws IOException
+    {
+        TestExecutionResults original = sampleResults();
+        File file = new File(folder, "run" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+
+        assertSameResults(original, ResultsFile.read(file, false), false);
+    }
+
+    @Test
+    public void resultsSurviveWriteAndOpenAsStore() throws IOException
+    {
+        TestExecutionResults original = sampleResults();
+        File file = new File(folder, "run" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+
+        TestExecutionResults stored = ResultsStore.open(file).getResults();
+        assertSameResults(original, stored, true);
+        assertSameResults(original, stored, true); // Second pass is served from the block cache
+    }
+
+    @Test
+    public void manyOutputsSpanSeveralBlocks() throws IOException
+    {
+        // Distinct outputs well past one block, so the store has to find the right one
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < 3000; i++)
+        {
+            String actual = "student " + i + "\n" + repeat("output line " + i + "\n", 20);
+            results.add(new TestResult("student" + i, "Test " + (i % 3), i % 2 == 0 ? "PASSED" : "FAILED",
+                    actual, "expected " + (i % 3), i % 2 == 0 ? null : 0.25, i % 5 == 0 ? "stderr " + i : ""));
+        }
+        TestExecutionResults original = new TestExecutionResults("Suite", "/submissions", "src", results);
+        File file = new File(folder, "large" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+
+        assertSameResults(original, ResultsFile.read(file, true), true);
+        assertSameResults(original, ResultsStore.open(file).getResults(), true);
+    }
+
+    @Test
+    public void savingOverTheOpenFileKeepsTheStoreReadable() throws IOException
+    {
+        TestExecutionResults original = sampleResults();
+        File file = new File(folder, "run" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+        TestExecutionResults stored = ResultsStore.open(file).getResults();
+
+        ResultsFile.write(stored, file); // Save As onto the file the results are read from
+        assertSameResults(original, ResultsStore.open(file).getResults(), true);
+        assertSameResults(original, stored, true);
+    }
+
+    @Test
+    public void expectedOutputFileIsSavedByContent() throws IOException
+    {
+        File expectedFile = new File(folder, "big.expected");
+        Files.write(expectedFile.toPath(), "1\n2\n3\n".getBytes("UTF-8"));
+        TestResult fileBacked = TestResult.withExpectedFile("alice", "Big", "FAILED", "1\n2\n", expectedFile, "");
+        TestExecutionResults original = new TestExecutionResults("Suite", "/submissions", "src", Arrays.asList(fileBacked));
+        File file = new File(folder, "run" + ResultsFile.EXTENSION);
+        ResultsFile.write(original, file);
+        assertTrue(expectedFile.delete()); // The saved results must not depend on it
+
+        assertEquals("1\n2\n3\n", ResultsFile.read(file, true).getResults().get(0).getExpectedOutput());
+    }
+
+    @Test
+    public void serializedFileIsConverted() throws IOException
+    {
+        TestExecutionResults original = sampleResults();
+        File serFile = new File(folder, "old.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(serFile)))
+        {
+            out.writeObject(original);
+        }
+        assertTrue(!ResultsFile.isResultsFile(serFile));
+
+        File converted = ResultsFile.convertSerializedFile(serFile);
+        assertEquals("old" + ResultsFile.EXTENSION, converted.getName());
+        assertSameResults(original, ResultsFile.read(converted, true), true);
+    }
+
+    /**
+     * Results covering what the formats have to carry: multi-line outputs with every line
+     * ending, empty outputs, non-ASCII text, shared and own expected outputs, stderr, scores.
+     */
+    static TestExecutionResults sampleResults()
+    {
+        List<TestResult> results = Arrays.asList(
+                new TestResult("alice", "Addition", "PASSED", "3\n", "3\n", null, ""),
+                new TestResult("alice", "Lines", "FAILED", "one\r\ntwo\rthree\n\n", "one\ntwo\nthree\n", 0.5, ""),
+                new TestResult("alice", "Empty", "PASSED", "", "", null, ""),
+                new TestResult("bob", "Addition", "RUNTIME ERROR", "", "3\n", null,
+                        "Exception in thread \"main\" java.lang.ArithmeticException: / by zero\n\tat Main.main(Main.java:5)\n"),
+                new TestResult("bob", "Lines", "FAILED", "uno\nd\u00f3s\n", "one\ntwo\nthree\n", 0.0, ""),
+                new TestResult("bob", "Empty", "FAILED", "unexpected\n", "", 0.0, ""),
+                new TestResult("carol", "Addition", "COMPILE ERROR", "", "3\n"),
+                new TestResult("carol", "Lines", "FAILED", "one\ntwo\n", "one\ntwo\nTHREE\n", 0.75, "warning\n"),
+                new TestResult("dave", "N/A", "SKIPPED - NO MAIN METHOD", "", ""));
+        return new TestExecutionResults("Sample Suite", "/submissions", "src", results);
+    }
+
+    /**
+     * Checks that loaded results match the originals, outputs included unless withOutputs is false.
+     */
+    static void assertSameResults(TestExecutionResults expected, TestExecutionResults actual, boolean withOutputs)
+    {
+        assertEquals(expected.getTestSuiteTitle(), actual.getTestSuiteTitle());
+        assertEquals(expected.getRootFolderPath(), actual.getRootFolderPath());
+        assertEquals(expected.getCodePath(), actual.getCodePath());
+        List<TestResult> expectedResults = expected.getResults();
+        List<TestResult> actualResults = actual.getResults();
+        assertEquals(expectedResults.size(), actualResults.size());
+        for (int i = 0; i < expectedResults.size(); i++)
+        {
+            assertSameResult(expectedResults.get(i), actualResults.get(i), withOutputs);
+        }
+    }
+
+    static void assertSameResult(TestResult expected, TestResult actual, boolean withOutputs)
+    {
+        String what = expected.getStudentName() + " / " + expected.getTestCaseTitle();
+        assertEquals(what, expected.getStudentName(), actual.getStudentName());
+        assertEquals(what, expected.getTestCaseTitle(), actual.getTestCaseTitle());
+        assertEquals(what, expected.getStatus(), actual.getStatus());
+        assertEquals(what, expected.getSimilarity(), actual.getSimilarity());
+        if (withOutputs)
+        {
+            assertEquals(what, expected.getActualOutput(), actual.getActualOutput());
+            assertEquals(what, expected.getExpectedOutput(), actual.getExpectedOutput());
+            assertEquals(what, expected.getErrorOutput(), actual.getErrorOutput());
+        }
+    }
+
+    static String repeat(String text, int times)
+    {
+        StringBuilder repeated = new StringBuilder();
+        for (int i = 0; i < times; i++)
+        {
+            repeated.append(text);
+        }
+        return repeated.toString();
+    }
+
+    static void deleteRecursively(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the results of a run by student and test case. Like the other run indexes, results
+ * are added one at a time as they are produced (see Coordinator), so looking up the result
+ * behind a selected row or listing one student's or one test case's results never scans the
+ * whole run. Thread-safe: watch mode records from several grading threads.
+ *
+ * A suite may hold several test cases with the same title, so a test case is identified by its
+ * title and its occurrence: a student's results arrive in suite order, and their n-th result
+ * with a title belongs to the n-th test case with that title. Within a student or a test case,
+ * results keep the order they were added in.
+ */
+public class ResultsIndex
+{
+    private final Map<String, StudentResults> byStudent = new LinkedHashMap<>();
+    private final Map<TestCaseKey, Map<String, TestResult>> byTestCase = new LinkedHashMap<>(); // Test case -> student -> result
+    private int size;
+
+    // One student's results in the order added, and how many of them carry each title
+    private static class StudentResults
+    {
+        final List<TestResult> results = new ArrayList<>();
+        final Map<String, Integer> titleCounts = new HashMap<>();
+    }
+
+    // A test case: its title and which of the test cases with that title it is (0 for the first)
+    private static final class TestCaseKey
+    {
+        final String title;
+        final int occurrence;
+
+        TestCaseKey(String title, int occurrence)
+        {
+            this.title = title;
+            this.occurrence = occurrence;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof TestCaseKey))
+            {
+                return false;
+            }
+            TestCaseKey key = (TestCaseKey) other;
+            return occurrence == key.occurrence && title.equals(key.title);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return title.hashCode() * 31 + occurrence;
+        }
+    }
+
+    /**
+     * Builds an index over existing results (e.g. results loaded from a file).
+     */
+    public static ResultsIndex of(List<TestResult> results)
+    {
+        ResultsIndex index = new ResultsIndex();
+        for (TestResult result : results)
+        {
+            index.add(result);
+        }
+        return index;
+    }
+
+    /**
+     * Records a result as the student's result for the next test case with its title.
+     */
+    public synchronized void add(TestResult result)
+    {
+        String student = result.getStudentName();
+        String title = result.getTestCaseTitle();
+        StudentResults studentResults = byStudent.computeIfAbsent(student, k -> new StudentResults());
+        int occurrence = studentResults.titleCounts.merge(title, 1, Integer::sum) - 1;
+        studentResults.results.add(result);
+        byTestCase.computeIfAbsent(new TestCaseKey(title, occurrence), k -> new LinkedHashMap<>()).put(student, result);
+        size++;
+    }
+
+    /**
+     * Drops every result of a student (before their submission is regraded) and returns them.
+     */
+    public synchronized List<TestResult> removeStudent(String studentName)
+    {
+        StudentResults removed = byStudent.remove(studentName);
+        if (removed == null)
+        {
+            return Collections.emptyList();
+        }
+        Map<String, Integer> seen = new HashMap<>();
+        for (TestResult result : removed.results)
+        {
+            String title = result.getTestCaseTitle();
+            TestCaseKey key = new TestCaseKey(title, seen.merge(title, 1, Integer::sum) - 1);
+            Map<String, TestResult> students = byTestCase.get(key);
+            students.remove(studentName);
+            if (students.isEmpty())
+            {
+                byTestCase.remove(key);
+            }
+        }
+        size -= removed.results.size();
+        return new ArrayList<>(removed.results);
+    }
+
+    /**
+     * Removes everything (a new run is starting).
+     */
+    public synchronized void clear()
+    {
+        byStudent.clear();
+        byTestCase.clear();
+        size = 0;
+    }
+
+    /**
+     * Number of results recorded.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the result of a student for the first test case with a title, or null if there is none.
+     */
+    public synchronized TestResult get(String studentName, String testCaseTitle)
+    {
+        return get(studentName, testCaseTitle, 0);
+    }
+
+    /**
+     * Returns the result of a student for a test case (occurrence 0 is the first test case with
+     * the title, 1 the second, ...), or null if there is none.
+     */
+    public synchronized TestResult get(String studentName, String testCaseTitle, int occurrence)
+    {
+        Map<String, TestResult> results = byTestCase.get(new TestCaseKey(testCaseTitle, occurrence));
+        return results != null ? results.get(studentName) : null;
+    }
+
+    /**
+     * Returns a student's results (empty if the student has none).
+     */
+    public synchronized List<TestResult> getStudentResults(String studentName)
+    {
+        StudentResults results = byStudent.get(studentName);
+        return results != null ? Collections.unmodifiableList(new ArrayList<>(results.results)) : Collections.emptyList();
+    }
+
+    /**
+     * Returns every student's result for the first test case with a title (empty if there are none).
+     */
+    public synchronized List<TestResult> getTestCaseResults(String testCaseTitle)
+    {
+        return getTestCaseResults(testCaseTitle, 0);
+    }
+
+    /**
+     * Returns every student's result for a test case, identified as in get (empty if there are none).
+     */
+    public synchronized List<TestResult> getTestCaseResults(String testCaseTitle, int occurrence)
+    {
+        Map<String, TestResult> results = byTestCase.get(new TestCaseKey(testCaseTitle, occurrence));
+        return results != null ? Collections.unmodifiableList(new ArrayList<>(results.values())) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the students with results, in the order they were first recorded.
+     */
+    public synchronized List<String> getStudentNames()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(byStudent.keySet()));
+    }
+
+    /**
+     * Returns the title of every test case with results, in the order they were first recorded.
+     * A title shared by several test cases appears once for each of them.
+     */
+    public synchronized List<String> getTestCaseTitles()
+    {
+        List<String> titles = new ArrayList<>(byTestCase.size());
+        for (TestCaseKey key : byTestCase.keySet())
+        {
+            titles.add(key.title);
+        }
+        return Collections.unmodifiableList(titles);
+    }
+}
@@ -0,0 +1,97 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ResultsIndex: lookups by student and test case, test cases that share a title,
+ * and regrading a student.
+ */
+public class ResultsIndexTest
+{
+    private List<TestResult> results;
+    private ResultsIndex index;
+
+    @Before
+    public void setUp()
+    {
+        // The suite runs "Sum", "Echo" and a second "Sum"
+        results = Arrays.asList(
+                result("alice", "Sum", "PASSED"),
+                result("alice", "Echo", "FAILED"),
+                result("alice", "Sum", "FAILED"),
+                result("bob", "Sum", "FAILED"),
+                result("bob", "Echo", "PASSED"),
+                result("bob", "Sum", "PASSED"));
+        index = ResultsIndex.of(results);
+    }
+
+    @Test
+    public void resultsAreFoundByStudentAndTestCase()
+    {
+        assertEquals(6, index.size());
+        assertSame(results.get(1), index.get("alice", "Echo"));
+        assertSame(results.get(3), index.get("bob", "Sum"));
+        assertNull(index.get("alice", "Missing"));
+        assertNull(index.get("nobody", "Sum"));
+
+        assertEquals(Arrays.asList("alice", "bob"), index.getStudentNames());
+        assertEquals(results.subList(3, 6), index.getStudentResults("bob"));
+        assertTrue(index.getStudentResults("nobody").isEmpty());
+        assertEquals(Arrays.asList(results.get(1), results.get(4)), index.getTestCaseResults("Echo"));
+    }
+
+    @Test
+    public void testCasesWithTheSameTitleAreToldApart()
+    {
+        assertEquals(Arrays.asList("Sum", "Echo", "Sum"), index.getTestCaseTitles());
+        assertSame(results.get(0), index.get("alice", "Sum", 0));
+        assertSame(results.get(2), index.get("alice", "Sum", 1));
+        assertNull(index.get("alice", "Sum", 2));
+        assertEquals(Arrays.asList(results.get(2), results.get(5)), index.getTestCaseResults("Sum", 1));
+    }
+
+    @Test
+    public void regradedStudentIsReplaced()
+    {
+        assertEquals(results.subList(0, 3), index.removeStudent("alice"));
+        assertTrue(index.removeStudent("alice").isEmpty());
+        assertEquals(3, index.size());
+        assertNull(index.get("alice", "Sum"));
+        assertEquals(Arrays.asList(results.get(4)), index.getTestCaseResults("Echo"));
+
+        TestResult regraded = result("alice", "Sum", "PASSED");
+        index.add(regraded);
+        index.add(result("alice", "Echo", "PASSED"));
+        index.add(result("alice", "Sum", "PASSED"));
+        assertSame(regraded, index.get("alice", "Sum", 0));
+        assertEquals(Arrays.asList("bob", "alice"), index.getStudentNames());
+        assertEquals(6, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.getTestCaseTitles().isEmpty());
+    }
+
+    @Test
+    public void returnedListsAreSnapshots()
+    {
+        List<TestResult> bob = index.getStudentResults("bob");
+        List<TestResult> sums = index.getTestCaseResults("Sum");
+        index.removeStudent("bob");
+        assertEquals(3, bob.size());
+        assertEquals(2, sums.size());
+        assertEquals(1, index.getTestCaseResults("Sum").size());
+    }
+
+    private static TestResult result(String student, String testCase, String status)
+    {
+        return new TestResult(student, testCase, status, "out", "expected");
+    }
+}
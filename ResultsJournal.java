@@ -0,0 +1,437 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the results of a run, written as each result is produced so that a
+ * crash (or an accidental Restart) hours into a run loses at most the result being graded.
+ *
+ * Layout (big-endian, strings as in ResultsFile):
+ *   header : "TRJN" magic, version
+ *   record : payload length, CRC32 of the payload, payload
+ *   payload: RECORD_RUN    -> suite title, root folder, code path (first record)
+ *            RECORD_RESULT -> student, title, status, flags, similarity, occurrence, actual, expected, stderr
+ *
+ * Every record reaches the operating system as soon as it is appended; the file is forced to
+ * disk at most every SYNC_INTERVAL_MS, so a power cut loses at most that much. A record cut
+ * short by a crash fails its length or checksum and ends the journal there. An expected output
+ * equal to the previous one of the same test case is not written again, and actual outputs are
+ * cut to MAX_OUTPUT_CHARS. A result for the second (third, ...) test case with the same title
+ * carries its occurrence, so test cases that share a title are not taken for regrades of each other.
+ */
+public class ResultsJournal implements Closeable
+{
+    // Extension of journal files
+    public static final String EXTENSION = ".journal";
+
+    // Longest time appended records may go without being forced to disk
+    public static final long SYNC_INTERVAL_MS = 1000;
+
+    // Longest actual output journaled; a resumed or recovered result keeps the start of a longer one
+    public static final int MAX_OUTPUT_CHARS = 64 * 1024;
+
+    private static final int MAGIC = 0x54524A4E; // "TRJN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final int RECORD_RUN = 1;
+    private static final int RECORD_RESULT = 2;
+
+    private static final int FLAG_SIMILARITY = 1;
+    private static final int FLAG_ERROR_OUTPUT = 2;
+    private static final int FLAG_SAME_EXPECTED = 4; // Expected output as in the test case's previous record
+    private static final int FLAG_OCCURRENCE = 8; // Not the first test case with its title; journals without it hold 0
+
+    private final File file;
+    private final FileOutputStream out;
+    private final Map<String, String> lastExpected = new HashMap<>(); // Test case title -> last expected output written
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final TestExecutionResults recovered; // What the journal held when it was opened
+    private final Map<String, TestResult> recoveredByKey; // The same results by key(student, title, occurrence)
+    private long lastSync = System.currentTimeMillis();
+    private boolean unsynced;
+
+    private ResultsJournal(File file, FileOutputStream out, TestExecutionResults recovered, Map<String, TestResult> recoveredByKey)
+    {
+        this.file = file;
+        this.out = out;
+        this.recovered = recovered;
+        this.recoveredByKey = recoveredByKey;
+    }
+
+    /**
+     * Starts a new journal for a run, replacing any journal already in the file.
+     */
+    public static ResultsJournal create(File file, String suiteTitle, String rootFolder, String codePath) throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+        {
+            throw new IOException("Could not create journal folder " + parent.getPath());
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+        ResultsJournal journal = new ResultsJournal(file, out,
+                new TestExecutionResults(suiteTitle, rootFolder, codePath, new ArrayList<>()), new HashMap<>());
+        try
+        {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+
+            DataOutputStream record = journal.startRecord(RECORD_RUN);
+            ResultsFile.writeString(record, suiteTitle);
+            ResultsFile.writeString(record, rootFolder);
+            ResultsFile.writeString(record, codePath);
+            journal.finishRecord();
+            journal.sync();
+        }
+        catch (IOException e)
+        {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Reopens an existing journal to carry on appending to it. A record cut short by a crash is
+     * cut off first. The results already in the journal are available from getRecoveredResults().
+     */
+    public static ResultsJournal resume(File file) throws IOException
+    {
+        Contents contents = readContents(file, true);
+        try (RandomAccessFile truncate = new RandomAccessFile(file, "rw"))
+        {
+            truncate.setLength(contents.validLength);
+        }
+
+        ResultsJournal journal = new ResultsJournal(file, new FileOutputStream(file, true), contents.results, contents.byKey);
+        journal.lastExpected.putAll(contents.lastExpected);
+        return journal;
+    }
+
+    /**
+     * Builds the results of a run from its journal without re-executing anything. When a
+     * student and test case appear more than once (a regrade) the last result counts.
+     */
+    public static TestExecutionResults read(File file) throws IOException
+    {
+        return readContents(file, true).results;
+    }
+
+    /**
+     * Like read, but the outputs are skipped (they come back empty), so only names, statuses
+     * and scores are held however large the journal is. Enough for reports (see ReportEngine).
+     */
+    public static TestExecutionResults readWithoutOutputs(File file) throws IOException
+    {
+        return readContents(file, false).results;
+    }
+
+    /**
+     * Returns the file this journal is written to.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the results that were in the journal when it was opened (none for a new journal).
+     */
+    public TestExecutionResults getRecoveredResults()
+    {
+        return recovered;
+    }
+
+    /**
+     * Returns the recovered results by key(student, title, occurrence), to find a student's
+     * result for the n-th test case with a title.
+     */
+    public Map<String, TestResult> getRecoveredResultsByKey()
+    {
+        return Collections.unmodifiableMap(recoveredByKey);
+    }
+
+    /**
+     * Key of a student's result for the occurrence-th (from 0) test case with a title.
+     */
+    public static String key(String studentName, String testCaseTitle, int occurrence)
+    {
+        return studentName + '\u0000' + testCaseTitle + '\u0000' + occurrence;
+    }
+
+    /**
+     * Appends a result for the first test case with its title.
+     */
+    public void append(TestResult result) throws IOException
+    {
+        append(result, 0);
+    }
+
+    /**
+     * Appends a result for the occurrence-th (from 0) test case with its title.
+     * Thread-safe: watch mode grades several submissions at once.
+     */
+    public synchronized void append(TestResult result, int occurrence) throws IOException
+    {
+        String title = result.getTestCaseTitle();
+        String expected = result.getExpectedOutput();
+        boolean sameExpected = lastExpected.containsKey(title) && Objects.equals(lastExpected.get(title), expected);
+        boolean hasError = !result.getErrorOutput().isEmpty();
+        int flags = (result.getSimilarity() != null ? FLAG_SIMILARITY : 0)
+                | (hasError ? FLAG_ERROR_OUTPUT : 0)
+                | (sameExpected ? FLAG_SAME_EXPECTED : 0)
+                | (occurrence > 0 ? FLAG_OCCURRENCE : 0);
+
+        DataOutputStream record = startRecord(RECORD_RESULT);
+        ResultsFile.writeString(record, result.getStudentName());
+        ResultsFile.writeString(record, title);
+        ResultsFile.writeString(record, result.getStatus());
+        record.writeByte(flags);
+        if (result.getSimilarity() != null)
+        {
+            record.writeDouble(result.getSimilarity());
+        }
+        if (occurrence > 0)
+        {
+            ResultsFile.writeVarint(record, occurrence);
+        }
+        ResultsFile.writeString(record, journaledOutput(result));
+        if (!sameExpected)
+        {
+            ResultsFile.writeString(record, expected);
+            lastExpected.put(title, expected);
+        }
+        if (hasError)
+        {
+            ResultsFile.writeString(record, result.getErrorOutput());
+        }
+        finishRecord();
+
+        if (System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MS)
+        {
+            sync();
+        }
+    }
+
+    // The actual output as journaled: cut to MAX_OUTPUT_CHARS, and a spilled output is not read in full
+    private static String journaledOutput(TestResult result)
+    {
+        long length = result.getActualOutputLength();
+        if (length <= MAX_OUTPUT_CHARS)
+        {
+            return result.getActualOutput();
+        }
+        return result.getActualOutputPreview(MAX_OUTPUT_CHARS) + "\n... [output truncated, " + length + " characters in total]";
+    }
+
+    /**
+     * Forces everything appended so far to disk and closes the journal.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            if (unsynced)
+            {
+                sync();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private DataOutputStream startRecord(int type) throws IOException
+    {
+        payload.reset();
+        DataOutputStream record = new DataOutputStream(payload);
+        record.writeByte(type);
+        return record;
+    }
+
+    // Writes the record in one call, so a crash can only ever cut off the last record
+    private void finishRecord() throws IOException
+    {
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        byte[] record = new byte[8 + bytes.length];
+        writeInt(record, 0, bytes.length);
+        writeInt(record, 4, (int) crc.getValue());
+        System.arraycopy(bytes, 0, record, 8, bytes.length);
+        out.write(record);
+        unsynced = true;
+    }
+
+    private void sync() throws IOException
+    {
+        out.getChannel().force(false);
+        lastSync = System.currentTimeMillis();
+        unsynced = false;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value)
+    {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    // Everything read from a journal file
+    private static class Contents
+    {
+        TestExecutionResults results;
+        Map<String, TestResult> byKey; // Latest result by key(student, title, occurrence)
+        Map<String, String> lastExpected = new HashMap<>();
+        long validLength; // Bytes up to the end of the last intact record
+    }
+
+    private static Contents readContents(File file, boolean withOutputs) throws IOException
+    {
+        Contents contents = new Contents();
+        Map<String, TestResult> results = new LinkedHashMap<>(); // key(student, title, occurrence) -> latest result
+        int[] occurrence = new int[1];
+        String suiteTitle = null;
+        String rootFolder = "";
+        String codePath = "";
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)))
+        {
+            if (file.length() < HEADER_SIZE || in.readInt() != MAGIC)
+            {
+                throw new IOException(file.getName() + " is not a results journal");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported results journal version " + version + " in " + file.getName());
+            }
+            contents.validLength = HEADER_SIZE;
+
+            long remaining = file.length() - HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (remaining >= 8)
+            {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > remaining - 8)
+                {
+                    break; // Cut short by a crash
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                crc.reset();
+                crc.update(bytes, 0, length);
+                if ((int) crc.getValue() != checksum)
+                {
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+                int type = record.readUnsignedByte();
+                if (type == RECORD_RUN)
+                {
+                    suiteTitle = ResultsFile.readString(record);
+                    rootFolder = ResultsFile.readString(record);
+                    codePath = ResultsFile.readString(record);
+                }
+                else if (type == RECORD_RESULT)
+                {
+                    TestResult result = readResult(record, contents.lastExpected, withOutputs, occurrence);
+                    String key = key(result.getStudentName(), result.getTestCaseTitle(), occurrence[0]);
+                    results.remove(key); // A regrade moves the student's result to the end
+                    results.put(key, result);
+                }
+                remaining -= 8 + length;
+                contents.validLength += 8 + length;
+            }
+        }
+        catch (EOFException e)
+        {
+            // The records up to validLength are intact
+        }
+
+        if (suiteTitle == null)
+        {
+            throw new IOException(file.getName() + " has no intact run record");
+        }
+        contents.results = new TestExecutionResults(suiteTitle, rootFolder, codePath, new ArrayList<>(results.values()));
+        contents.byKey = results;
+        return contents;
+    }
+
+    // Reads a result record; its occurrence is stored in occurrence[0]
+    private static TestResult readResult(DataInputStream record, Map<String, String> lastExpected, boolean withOutputs,
+                                         int[] occurrence) throws IOException
+    {
+        String student = ResultsFile.readString(record);
+        String title = ResultsFile.readString(record);
+        String status = ResultsFile.readString(record);
+        int flags = record.readUnsignedByte();
+        Double similarity = (flags & FLAG_SIMILARITY) != 0 ? record.readDouble() : null;
+        occurrence[0] = (flags & FLAG_OCCURRENCE) != 0 ? ResultsFile.readVarint(record) : 0;
+        if (!withOutputs)
+        {
+            // The outputs are the last fields of the record, so there is nothing to skip over
+            return new TestResult(student, title, status, "", "", similarity, "");
+        }
+        String actual = ResultsFile.readString(record);
+        String expected;
+        if ((flags & FLAG_SAME_EXPECTED) != 0)
+        {
+            expected = lastExpected.get(title); // Shared, like the expected output of a live run
+        }
+        else
+        {
+            expected = ResultsFile.readString(record);
+            lastExpected.put(title, expected);
+        }
+        String errorOutput = (flags & FLAG_ERROR_OUTPUT) != 0 ? ResultsFile.readString(record) : "";
+        return new TestResult(student, title, status, actual, expected, similarity, errorOutput);
+    }
+
+    /**
+     * Lists the results held in journal files (java ResultsJournal run.journal ...), for
+     * checking what a crashed run had finished.
+     */
+    public static void main(String[] args)
+    {
+        for (String path : args)
+        {
+            try
+            {
+                TestExecutionResults results = read(new File(path));
+                List<TestResult> list = results.getResults();
+                System.out.println(path + ": " + results.getTestSuiteTitle() + ", " + list.size() + " result(s)");
+            }
+            catch (IOException e)
+            {
+                System.err.println(path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ResultsJournal: round trips, replay of regraded results, and recovery from a
+ * record cut short by a crash.
+ */
+public class ResultsJournalTest
+{
+    private File folder;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("results-journal-test").toFile();
+        file = new File(folder, "run" + ResultsJournal.EXTENSION);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void resultsSurviveAppendAndRead() throws IOException
+    {
+        TestExecutionResults original = ResultsFileTest.sampleResults();
+        journal(original.getResults());
+
+        ResultsFileTest.assertSameResults(original, ResultsJournal.read(file), true);
+        ResultsFileTest.assertSameResults(original, ResultsJournal.readWithoutOutputs(file), false);
+    }
+
+    @Test
+    public void journaledResultsSurviveAResultsFile() throws IOException
+    {
+        // Recover a run from its journal, then save it the usual way
+        TestExecutionResults original = ResultsFileTest.sampleResults();
+        journal(original.getResults());
+        File saved = new File(folder, "recovered" + ResultsFile.EXTENSION);
+        ResultsFile.write(ResultsJournal.read(file), saved);
+
+        ResultsFileTest.assertSameResults(original, ResultsStore.open(saved).getResults(), true);
+    }
+
+    @Test
+    public void regradedResultReplacesTheEarlierOneAndMovesToTheEnd() throws IOException
+    {
+        journal(Arrays.asList(
+                new TestResult("alice", "T1", "FAILED", "1\n", "2\n", 0.0, ""),
+                new TestResult("alice", "T2", "PASSED", "x\n", "x\n", null, ""),
+                new TestResult("bob", "T1", "PASSED", "2\n", "2\n", null, ""),
+                new TestResult("alice", "T1", "PASSED", "2\n", "2\n", null, "")));
+
+        List<TestResult> results = ResultsJournal.read(file).getResults();
+        assertEquals(3, results.size());
+        assertEquals("alice", results.get(0).getStudentName());
+        assertEquals("T2", results.get(0).getTestCaseTitle());
+        assertEquals("bob", results.get(1).getStudentName());
+        TestResult regraded = results.get(2);
+        assertEquals("alice", regraded.getStudentName());
+        assertEquals("T1", regraded.getTestCaseTitle());
+        assertEquals("PASSED", regraded.getStatus());
+        assertEquals("2\n", regraded.getActualOutput());
+    }
+
+    @Test
+    public void changedExpectedOutputIsReplayedPerResult() throws IOException
+    {
+        // The first two share the expected output (written once); the test is then edited and regraded
+        journal(Arrays.asList(
+                new TestResult("alice", "T1", "FAILED", "1\n", "old\n", 0.0, ""),
+                new TestResult("bob", "T1", "FAILED", "2\n", "old\n", 0.0, ""),
+                new TestResult("alice", "T1", "PASSED", "new\n", "new\n", null, ""),
+                new TestResult("carol", "T1", "FAILED", "3\n", "new\n", 0.0, "")));
+
+        List<TestResult> results = ResultsJournal.read(file).getResults();
+        assertEquals(3, results.size());
+        assertEquals("bob", results.get(0).getStudentName());
+        assertEquals("old\n", results.get(0).getExpectedOutput());
+        assertEquals("alice", results.get(1).getStudentName());
+        assertEquals("new\n", results.get(1).getExpectedOutput());
+        assertEquals("carol", results.get(2).getStudentName());
+        assertEquals("new\n", results.get(2).getExpectedOutput());
+    }
+
+    @Test
+    public void recordCutShortIsDroppedAndResumeAppendsAfterTheLastIntactOne() throws IOException
+    {
+        journal(Arrays.asList(
+                new TestResult("alice", "T1", "PASSED", "1\n", "1\n", null, ""),
+                new TestResult("bob", "T1", "FAILED", "2\n", "1\n", 0.0, "")));
+        try (RandomAccessFile cut = new RandomAccessFile(file, "rw"))
+        {
+            cut.setLength(cut.length() - 3); // A crash in the middle of the last record
+        }
+
+        List<TestResult> recovered = ResultsJournal.read(file).getResults();
+        assertEquals(1, recovered.size());
+        assertEquals("alice", recovered.get(0).getStudentName());
+
+        try (ResultsJournal journal = ResultsJournal.resume(file))
+        {
+            assertEquals(1, journal.getRecoveredResults().getResults().size());
+            journal.append(new TestResult("bob", "T1", "FAILED", "3\n", "1\n", 0.5, "oops\n"));
+        }
+        List<TestResult> resumed = ResultsJournal.read(file).getResults();
+        assertEquals(2, resumed.size());
+        assertEquals("bob", resumed.get(1).getStudentName());
+        assertEquals("3\n", resumed.get(1).getActualOutput());
+        assertEquals("1\n", resumed.get(1).getExpectedOutput()); // Shared with alice's record before the cut
+        assertEquals("oops\n", resumed.get(1).getErrorOutput());
+    }
+
+    @Test
+    public void longOutputIsCutWithANote() throws IOException
+    {
+        String output = ResultsFileTest.repeat("0123456789\n", 10000);
+        journal(Arrays.asList(new TestResult("alice", "T1", "FAILED", output, "1\n", 0.0, "")));
+
+        String journaled = ResultsJournal.read(file).getResults().get(0).getActualOutput();
+        assertTrue(journaled.startsWith(output.substring(0, ResultsJournal.MAX_OUTPUT_CHARS)));
+        assertTrue(journaled.endsWith("[output truncated, " + output.length() + " characters in total]"));
+    }
+
+    @Test
+    public void fileThatIsNotAJournalIsRejected() throws IOException
+    {
+        Files.write(file.toPath(), "not a journal at all".getBytes("UTF-8"));
+        try
+        {
+            ResultsJournal.read(file);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("not a results journal"));
+        }
+    }
+
+    private void journal(List<TestResult> results) throws IOException
+    {
+        try (ResultsJournal journal = ResultsJournal.create(file, "Sample Suite", "/submissions", "src"))
+        {
+            for (TestResult result : results)
+            {
+                journal.append(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+
+/**
+ * Random-access view of a results file (.tres, see ResultsFile). The file is memory-mapped;
+ * opening it reads only the header, the summary and the block headers of the output section,
+ * so the results (names, statuses, scores) are available at once however large the file is.
+ * Each result's outputs are decoded from their block when they are asked for, and decoded
+ * blocks are kept up to CACHE_BYTES (least recently used dropped first), so memory use follows
+ * what is viewed rather than the size of the file.
+ *
+ * ResultsFile saves by writing a new file and moving it into place. Elsewhere the mapping keeps
+ * reading the old file after that, but Windows refuses to replace or delete a file that is open
+ * or mapped. There the file is read with positional reads through an open channel instead, and
+ * before a save replaces it, release() copies the outputs into memory and closes the channel.
+ */
+public class ResultsStore implements TestResult.OutputLoader
+{
+    // Raw size of the decoded output blocks kept in memory. Outputs are stored test case by test
+    // case, so going through one student's results touches a block per test case
+    public static final long CACHE_BYTES = 32L * 1024 * 1024;
+
+    // Size of each mapped region; a file larger than one mapping is mapped in several
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    // Windows cannot replace or delete a file while it is mapped, so it is not mapped there
+    static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final File file;
+    private final long fileLength;
+    private MappedByteBuffer[] segments; // Null when the file is read through channel instead
+    private FileChannel channel; // Open while the file is read without a mapping
+    private String[] released; // Every output, once release() has let go of the file
+    private final int outputCount;
+    private final int[] blockFirstOutputs; // Index of the first output in each block
+    private final int[] blockCounts;
+    private final int[] blockRawLengths;
+    private final int[] blockStoredLengths;
+    private final int[] blockEncodings;
+    private final long[] blockOffsets; // File position of each block's stored bytes
+    private final long indexOffset;
+    private final long indexLength;
+    private final TestExecutionResults results;
+    private final Map<Integer, String[]> cache = new LinkedHashMap<>(16, 0.75f, true); // Block -> outputs, LRU order
+    private long cachedBytes;
+
+    private ResultsStore(File file, boolean mapped) throws IOException
+    {
+        this.file = file;
+        FileChannel opened = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        boolean keepOpen = false;
+        try
+        {
+            fileLength = opened.size();
+            if (mapped)
+            {
+                segments = new MappedByteBuffer[(int) ((fileLength + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+                for (int i = 0; i < segments.length; i++)
+                {
+                    long start = i * SEGMENT_BYTES;
+                    segments[i] = opened.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, fileLength - start));
+                }
+            }
+            else
+            {
+                channel = opened;
+            }
+
+            DataInputStream in = new DataInputStream(new MappedInput(0));
+            long[] lengths = ResultsFile.readHeader(in, fileLength, file);
+            byte[] summaryBytes = new byte[(int) lengths[0]];
+            in.readFully(summaryBytes);
+            ResultsFile.Summary summary = ResultsFile.readSummary(summaryBytes, (int) lengths[3]);
+
+            // Walk the block headers, skipping the stored bytes, to know where every output is
+            long outputsOffset = ResultsFile.HEADER_SIZE + lengths[0];
+            MappedInput blocks = new MappedInput(outputsOffset);
+            DataInputStream blocksIn = new DataInputStream(blocks);
+            outputCount = ResultsFile.readVarint(blocksIn);
+            List<int[]> headers = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            int first = 0;
+            while (first < outputCount)
+            {
+                int count = ResultsFile.readVarint(blocksIn);
+                int rawLength = ResultsFile.readVarint(blocksIn);
+                int storedLength = ResultsFile.readVarint(blocksIn);
+                int encoding = blocksIn.readUnsignedByte();
+                if (count <= 0 || blocks.position + storedLength > outputsOffset + lengths[1])
+                {
+                    throw new IOException("Corrupt output block in " + file.getName());
+                }
+                headers.add(new int[] { first, count, rawLength, storedLength, encoding });
+                offsets.add(blocks.position);
+                blocks.position += storedLength;
+                first += count;
+            }
+
+            int blockCount = headers.size();
+            blockFirstOutputs = new int[blockCount];
+            blockCounts = new int[blockCount];
+            blockRawLengths = new int[blockCount];
+            blockStoredLengths = new int[blockCount];
+            blockEncodings = new int[blockCount];
+            blockOffsets = new long[blockCount];
+            for (int i = 0; i < blockCount; i++)
+            {
+                int[] header = headers.get(i);
+                blockFirstOutputs[i] = header[0];
+                blockCounts[i] = header[1];
+                blockRawLengths[i] = header[2];
+                blockStoredLengths[i] = header[3];
+                blockEncodings[i] = header[4];
+                blockOffsets[i] = offsets.get(i);
+            }
+            indexOffset = outputsOffset + lengths[1];
+            indexLength = lengths[2];
+
+            List<TestResult> list = new ArrayList<>(summary.students.length);
+            for (int i = 0; i < summary.students.length; i++)
+            {
+                list.add(TestResult.withLazyOutputs(summary.students[i], summary.titles[i], summary.statuses[i],
+                        summary.similarities[i], this, summary.actualNumbers[i], summary.expectedNumbers[i], summary.errorNumbers[i]));
+            }
+            results = new TestExecutionResults(summary.suiteTitle, summary.rootFolder, summary.codePath, list);
+            if (indexLength > 0)
+            {
+                results.setSearchIndexLoader(this::readSearchIndex);
+            }
+            keepOpen = !mapped;
+        }
+        finally
+        {
+            if (!keepOpen)
+            {
+                opened.close(); // A mapping stays valid after its channel is closed
+            }
+        }
+    }
+
+    /**
+     * Opens a results file. Only the summary is read now; outputs are read when used.
+     */
+    public static ResultsStore open(File file) throws IOException
+    {
+        return new ResultsStore(file, MAP_FILES);
+    }
+
+    // Same, choosing between a mapping and positional reads (both are tested on any platform)
+    static ResultsStore open(File file, boolean mapped) throws IOException
+    {
+        return new ResultsStore(file, mapped);
+    }
+
+    /**
+     * Reads every output (and the search index) into memory and lets go of the file, so it can
+     * be replaced or deleted on Windows. The results keep working, served from memory. A mapped
+     * file cannot be unmapped on demand, so this only frees the file where it is not mapped.
+     */
+    public synchronized void release()
+    {
+        if (released != null)
+        {
+            return;
+        }
+        results.getSearchIndex();
+        String[] outputs = new String[outputCount];
+        for (int number = 1; number <= outputCount; number++)
+        {
+            outputs[number - 1] = loadOutput(number); // Block by block, each decoded once
+        }
+        released = outputs;
+        cache.clear();
+        cachedBytes = 0;
+        segments = null;
+        if (channel != null)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error closing " + file.getName() + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Releases (see release()) every store the given results read their outputs from that is
+     * open on file, before a save replaces it. Nothing to do where files are mapped.
+     */
+    static void releaseStoresOn(List<TestResult> results, File file)
+    {
+        if (MAP_FILES)
+        {
+            return;
+        }
+        File target = file.getAbsoluteFile();
+        Set<ResultsStore> stores = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TestResult result : results)
+        {
+            if (result.getOutputLoader() instanceof ResultsStore)
+            {
+                stores.add((ResultsStore) result.getOutputLoader());
+            }
+        }
+        for (ResultsStore store : stores)
+        {
+            if (store.file.getAbsoluteFile().equals(target))
+            {
+                store.release();
+            }
+        }
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the results in the file. Their outputs are read from the file when asked for.
+     */
+    public TestExecutionResults getResults()
+    {
+        return results;
+    }
+
+    /**
+     * Returns output number (1-based; 0 stands for null), decoding its block if it is not cached.
+     * If the block cannot be read the error is returned in its place, as for a SpilledOutput.
+     */
+    @Override
+    public synchronized String loadOutput(int number)
+    {
+        if (number == 0)
+        {
+            return null;
+        }
+        if (number > outputCount)
+        {
+            return "";
+        }
+        if (released != null)
+        {
+            return released[number - 1];
+        }
+
+        int block = findBlock(number - 1);
+        String[] outputs = cache.get(block);
+        if (outputs == null)
+        {
+            Inflater inflater = new Inflater();
+            try
+            {
+                byte[] stored = new byte[blockStoredLengths[block]];
+                read(blockOffsets[block], stored, 0, stored.length);
+                outputs = ResultsFile.decodeBlock(stored, blockEncodings[block], blockRawLengths[block],
+                        blockCounts[block], inflater, file);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error reading output from " + file.getName() + ": " + e.getMessage());
+                return "ERROR: Output not readable (" + e.getMessage() + ")";
+            }
+            finally
+            {
+                inflater.end();
+            }
+            cache.put(block, outputs);
+            cachedBytes += blockRawLengths[block];
+            trimCache(block);
+        }
+        return outputs[number - 1 - blockFirstOutputs[block]];
+    }
+
+    // Drops least recently used blocks (never the one just decoded) until the cache fits CACHE_BYTES
+    private void trimCache(int keep)
+    {
+        Iterator<Map.Entry<Integer, String[]>> eldest = cache.entrySet().iterator();
+        while (cachedBytes > CACHE_BYTES && eldest.hasNext())
+        {
+            int block = eldest.next().getKey();
+            if (block != keep)
+            {
+                cachedBytes -= blockRawLengths[block];
+                eldest.remove();
+            }
+        }
+    }
+
+    // Binary search for the block holding output index (0-based)
+    private int findBlock(int index)
+    {
+        int low = 0;
+        int high = blockFirstOutputs.length - 1;
+        while (low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+            if (blockFirstOutputs[middle] <= index)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // Reads the search index saved in the file, attached to this store's results
+    private OutputSearchIndex readSearchIndex()
+    {
+        try
+        {
+            return OutputSearchIndex.readFrom(new DataInputStream(new MappedInput(indexOffset)), results.getResults());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reading search index of " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Copies length bytes at position, across mapped regions if need be
+    private void read(long position, byte[] target, int offset, int length) throws IOException
+    {
+        if (segments == null)
+        {
+            readFromChannel(position, target, offset, length);
+            return;
+        }
+        while (length > 0)
+        {
+            MappedByteBuffer segment = segments[(int) (position / SEGMENT_BYTES)];
+            int start = (int) (position % SEGMENT_BYTES);
+            int n = Math.min(length, segment.limit() - start);
+            ByteBuffer view = segment.duplicate(); // Own position: other readers are not disturbed
+            view.position(start);
+            view.get(target, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // Positional reads leave the channel's own position alone, so this is safe from any thread
+    private void readFromChannel(long position, byte[] target, int offset, int length) throws IOException
+    {
+        FileChannel open = channel;
+        if (open == null)
+        {
+            throw new IOException(file.getName() + " has been released");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(target, offset, length);
+        while (buffer.hasRemaining())
+        {
+            if (open.read(buffer, position + buffer.position() - offset) < 0)
+            {
+                throw new IOException("Unexpected end of " + file.getName());
+            }
+        }
+    }
+
+    // Stream over the file (mapped or not) from a position
+    private class MappedInput extends InputStream
+    {
+        long position;
+
+        MappedInput(long position)
+        {
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (position >= fileLength)
+            {
+                return -1;
+            }
+            int value;
+            if (segments != null)
+            {
+                MappedByteBuffer segment = segments[(int) (position / SEGMENT_BYTES)];
+                value = segment.get((int) (position % SEGMENT_BYTES)) & 0xFF;
+            }
+            else
+            {
+                byte[] one = new byte[1];
+                readFromChannel(position, one, 0, 1);
+                value = one[0] & 0xFF;
+            }
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException
+        {
+            long available = fileLength - position;
+            if (available <= 0)
+            {
+                return length == 0 ? 0 : -1;
+            }
+            int n = (int) Math.min(length, available);
+            ResultsStore.this.read(position, target, offset, n);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for ResultsStore: outputs found block by block in any order, the mapped and the
+ * positional-read paths, release() before a save, and damaged files.
+ */
+public class ResultsStoreTest
+{
+    private File folder;
+    private File file;
+    private TestExecutionResults original;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("results-store-test").toFile();
+        file = new File(folder, "run" + ResultsFile.EXTENSION);
+
+        // Distinct outputs over several blocks
+        List<TestResult> results = new ArrayList<>();
+        for (int i = 0; i < 3000; i++)
+        {
+            String actual = "student " + i + "\n" + ResultsFileTest.repeat("output line " + i + "\n", 20);
+            results.add(new TestResult("student" + i, "Test " + (i % 3), i % 2 == 0 ? "PASSED" : "FAILED",
+                    actual, "expected " + (i % 3), null, i % 7 == 0 ? "stderr " + i : ""));
+        }
+        original = new TestExecutionResults("Suite", "/submissions", "src", results);
+        ResultsFile.write(original, file);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void outputsAreFoundInAnyOrderWithOrWithoutAMapping() throws IOException
+    {
+        for (boolean mapped : new boolean[] { true, false })
+        {
+            List<TestResult> stored = ResultsStore.open(file, mapped).getResults().getResults();
+            List<TestResult> expected = original.getResults();
+            assertEquals(expected.size(), stored.size());
+            for (int i = stored.size() - 1; i >= 0; i -= 7) // Backwards, jumping between blocks
+            {
+                ResultsFileTest.assertSameResult(expected.get(i), stored.get(i), true);
+            }
+            ResultsFileTest.assertSameResult(expected.get(0), stored.get(0), true);
+        }
+    }
+
+    @Test
+    public void releasedStoreServesOutputsFromMemory() throws IOException
+    {
+        ResultsStore store = ResultsStore.open(file, false);
+        TestExecutionResults stored = store.getResults();
+
+        store.release();
+        store.release(); // Second call does nothing
+        assertTrue(file.delete()); // Nothing holds the file any more
+        ResultsFileTest.assertSameResults(original, stored, true);
+        assertEquals(1, stored.getSearchIndex().findSubstring("student 2999\n").size());
+    }
+
+    @Test
+    public void savingOverAReleasedStoreKeepsItsResults() throws IOException
+    {
+        ResultsStore store = ResultsStore.open(file, false);
+        store.release();
+        ResultsFile.write(store.getResults(), file);
+
+        ResultsFileTest.assertSameResults(original, ResultsStore.open(file, false).getResults(), true);
+        ResultsFileTest.assertSameResults(original, store.getResults(), true);
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException
+    {
+        try (RandomAccessFile cut = new RandomAccessFile(file, "rw"))
+        {
+            cut.setLength(cut.length() / 2);
+        }
+        try
+        {
+            ResultsStore.open(file);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void damagedBlockGivesAnErrorInPlaceOfItsOutputs() throws IOException
+    {
+        long[] lengths;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+        {
+            lengths = ResultsFile.readHeader(in, file.length(), file);
+        }
+        long outputsStart = ResultsFile.HEADER_SIZE + lengths[0];
+        try (RandomAccessFile damage = new RandomAccessFile(file, "rw"))
+        {
+            // Overwrite a stretch in the middle of the outputs section
+            damage.seek(outputsStart + lengths[1] / 2);
+            damage.write(new byte[64]);
+        }
+
+        List<TestResult> stored = ResultsStore.open(file, false).getResults().getResults();
+        int unreadable = 0;
+        for (int i = 0; i < stored.size(); i += 10)
+        {
+            String actual = stored.get(i).getActualOutput();
+            if (actual.startsWith("ERROR: Output not readable"))
+            {
+                unreadable++;
+            }
+            else
+            {
+                assertEquals(original.getResults().get(i).getActualOutput(), actual); // Other blocks are unaffected
+            }
+        }
+        assertTrue(unreadable > 0 && unreadable < stored.size() / 10);
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the runtime errors of a run, grouped by StackTraceFingerprint. Results are added
+ * one at a time while the run is executing (the Coordinator records each result as it is
+ * produced), so a query never rescans stored outputs. Thread-safe: watch mode records from
+ * several grading threads.
+ *
+ * Example query: find("ArrayIndexOutOfBounds", "parse") lists every student whose program
+ * threw an ArrayIndexOutOfBoundsException with parse() among the top student frames.
+ */
+public class RuntimeErrorIndex
+{
+    /**
+     * One runtime error: who, which test case, and its fingerprint.
+     */
+    public static class Entry
+    {
+        private final TestResult result;
+        private final StackTraceFingerprint fingerprint;
+
+        Entry(TestResult result, StackTraceFingerprint fingerprint)
+        {
+            this.result = result;
+            this.fingerprint = fingerprint;
+        }
+
+        public TestResult getResult() { return result; }
+        public String getStudentName() { return result.getStudentName(); }
+        public String getTestCaseTitle() { return result.getTestCaseTitle(); }
+        public StackTraceFingerprint getFingerprint() { return fingerprint; }
+
+        public String toDisplayString()
+        {
+            return getStudentName() + " | " + getTestCaseTitle() + " | " + fingerprint.getKey();
+        }
+    }
+
+    private final Map<String, List<Entry>> byFingerprint = new LinkedHashMap<>(); // Fingerprint key -> errors
+    private final Map<String, Set<String>> byException = new HashMap<>(); // Lower-case simple type -> keys
+    private final Map<String, Set<String>> byMethod = new HashMap<>(); // Lower-case method or Class.method -> keys
+    private int size;
+
+    /**
+     * Records a result; anything other than a RUNTIME ERROR is ignored.
+     */
+    public synchronized void add(TestResult result)
+    {
+        if (result.getResultStatus() != ResultStatus.RUNTIME_ERROR)
+        {
+            return;
+        }
+        StackTraceFingerprint fingerprint = StackTraceFingerprint.of(result);
+        String key = fingerprint.getKey();
+        List<Entry> entries = byFingerprint.get(key);
+        if (entries == null)
+        {
+            // First time this crash is seen: index its type and methods once
+            entries = new ArrayList<>();
+            byFingerprint.put(key, entries);
+            byException.computeIfAbsent(fingerprint.getSimpleExceptionType().toLowerCase(), k -> new LinkedHashSet<>()).add(key);
+            for (String frame : fingerprint.getFrames())
+            {
+                String lower = frame.toLowerCase();
+                byMethod.computeIfAbsent(lower, k -> new LinkedHashSet<>()).add(key);
+                byMethod.computeIfAbsent(lower.substring(lower.lastIndexOf('.') + 1), k -> new LinkedHashSet<>()).add(key);
+            }
+        }
+        entries.add(new Entry(result, fingerprint));
+        size++;
+    }
+
+    /**
+     * Drops every error recorded for a student (before their submission is regraded).
+     */
+    public synchronized void removeStudent(String studentName)
+    {
+        for (List<Entry> entries : byFingerprint.values())
+        {
+            int before = entries.size();
+            entries.removeIf(entry -> entry.getStudentName().equals(studentName));
+            size -= before - entries.size();
+        }
+        // Empty groups stay in the maps; they simply match no entries
+    }
+
+    /**
+     * Removes everything (a new run is starting).
+     */
+    public synchronized void clear()
+    {
+        byFingerprint.clear();
+        byException.clear();
+        byMethod.clear();
+        size = 0;
+    }
+
+    /**
+     * Number of runtime errors recorded.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the errors whose exception type contains exceptionType (case-insensitive, with or
+     * without package, e.g. "ArrayIndexOutOfBounds") and whose top student frames include method
+     * ("parse", "parse()" or "Parser.parse"). A null or empty argument matches anything.
+     */
+    public synchronized List<Entry> find(String exceptionType, String method)
+    {
+        Set<String> keys = null;
+        if (exceptionType != null && !exceptionType.trim().isEmpty())
+        {
+            String wanted = exceptionType.trim().toLowerCase();
+            wanted = wanted.substring(wanted.lastIndexOf('.') + 1);
+            keys = new LinkedHashSet<>();
+            // Few distinct exception types per run, so a scan of the type names is cheap
+            for (Map.Entry<String, Set<String>> type : byException.entrySet())
+            {
+                if (type.getKey().contains(wanted))
+                {
+                    keys.addAll(type.getValue());
+                }
+            }
+        }
+        if (method != null && !method.trim().isEmpty())
+        {
+            String wanted = method.trim().toLowerCase();
+            if (wanted.endsWith("()"))
+            {
+                wanted = wanted.substring(0, wanted.length() - 2);
+            }
+            Set<String> methodKeys = byMethod.getOrDefault(wanted, Collections.<String>emptySet());
+            if (keys == null)
+            {
+                keys = new LinkedHashSet<>(methodKeys);
+            }
+            else
+            {
+                keys.retainAll(methodKeys);
+            }
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        for (String key : keys != null ? keys : byFingerprint.keySet())
+        {
+            matches.addAll(byFingerprint.get(key));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns each distinct fingerprint with the number of errors that have it, most common first.
+     */
+    public synchronized List<Map.Entry<String, Integer>> getFingerprintCounts()
+    {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, List<Entry>> group : byFingerprint.entrySet())
+        {
+            if (!group.getValue().isEmpty())
+            {
+                counts.add(new java.util.AbstractMap.SimpleEntry<>(group.getKey(), group.getValue().size()));
+            }
+        }
+        counts.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        return counts;
+    }
+}
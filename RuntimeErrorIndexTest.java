@@ -0,0 +1,98 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for RuntimeErrorIndex: queries by exception type and method, counts per fingerprint,
+ * and regrading a student.
+ */
+public class RuntimeErrorIndexTest
+{
+    private static final String PARSE_ERROR = "Exception in thread \"main\" java.lang.ArrayIndexOutOfBoundsException: 3\n"
+            + "\tat Parser.parse(Parser.java:12)\n"
+            + "\tat Main.main(Main.java:4)\n";
+    private static final String MAIN_ERROR = "Exception in thread \"main\" java.lang.ArrayIndexOutOfBoundsException: 0\n"
+            + "\tat Main.main(Main.java:7)\n";
+    private static final String NULL_ERROR = "Exception in thread \"main\" java.lang.NullPointerException\n"
+            + "\tat Parser.parse(Parser.java:30)\n"
+            + "\tat Main.main(Main.java:4)\n";
+
+    private RuntimeErrorIndex index;
+
+    @Before
+    public void setUp()
+    {
+        index = new RuntimeErrorIndex();
+        index.add(crash("alice", "T1", PARSE_ERROR));
+        index.add(crash("bob", "T1", PARSE_ERROR));
+        index.add(crash("carol", "T2", MAIN_ERROR));
+        index.add(crash("dave", "T1", NULL_ERROR));
+        index.add(new TestResult("erin", "T1", "FAILED", "1", "2", null, PARSE_ERROR)); // Not a runtime error
+    }
+
+    @Test
+    public void onlyRuntimeErrorsAreRecorded()
+    {
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList("alice", "bob", "carol", "dave"), students(index.find(null, "")));
+    }
+
+    @Test
+    public void queriesMatchTypeAndMethodLoosely()
+    {
+        assertEquals(Arrays.asList("alice", "bob", "carol"), students(index.find("ArrayIndexOutOfBounds", null)));
+        assertEquals(Arrays.asList("alice", "bob", "carol"), students(index.find("java.lang.arrayindexoutofboundsexception", null)));
+        assertEquals(Arrays.asList("alice", "bob", "dave"), students(index.find(null, "parse()")));
+        assertEquals(Arrays.asList("alice", "bob", "dave"), students(index.find(null, "Parser.parse")));
+        assertEquals(Arrays.asList("alice", "bob"), students(index.find("ArrayIndex", "parse")));
+        assertEquals(Arrays.asList(), students(index.find("NullPointer", "Main.helper")));
+    }
+
+    @Test
+    public void fingerprintsAreCountedMostCommonFirst()
+    {
+        List<Map.Entry<String, Integer>> counts = index.getFingerprintCounts();
+        assertEquals(3, counts.size());
+        assertEquals("java.lang.ArrayIndexOutOfBoundsException @ Parser.parse < Main.main", counts.get(0).getKey());
+        assertEquals(Integer.valueOf(2), counts.get(0).getValue());
+        assertEquals("alice | T1 | java.lang.ArrayIndexOutOfBoundsException @ Parser.parse < Main.main",
+                index.find(null, null).get(0).toDisplayString());
+    }
+
+    @Test
+    public void regradedStudentIsDropped()
+    {
+        index.removeStudent("carol");
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("alice", "bob"), students(index.find("ArrayIndexOutOfBounds", null)));
+        assertEquals(2, index.getFingerprintCounts().size()); // No empty groups listed
+
+        index.add(crash("carol", "T2", NULL_ERROR));
+        assertEquals(Arrays.asList("dave", "carol"), students(index.find("NullPointer", null)));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(Arrays.asList(), students(index.find(null, null)));
+    }
+
+    private static TestResult crash(String student, String testCase, String errorOutput)
+    {
+        return new TestResult(student, testCase, "RUNTIME ERROR", "", "1", null, errorOutput);
+    }
+
+    private static List<String> students(List<RuntimeErrorIndex.Entry> entries)
+    {
+        List<String> names = new ArrayList<>();
+        for (RuntimeErrorIndex.Entry entry : entries)
+        {
+            names.add(entry.getStudentName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * An output too large to keep on the heap for the whole session, written to a temporary file
+ * (UTF-8). A TestResult whose actual output is longer than SPILL_CHARS holds one of these
+ * instead of the String; the text is read back only when something asks for it, and the
+ * comparison screen pages through the file line by line without reading it all.
+ *
+ * The files are deleted when the result is replaced (see Coordinator) or, at the latest, when
+ * the program exits.
+ */
+public class SpilledOutput
+{
+    // Outputs longer than this (in characters) are spilled; anything shorter stays inline
+    public static final int SPILL_CHARS = 1 << 20;
+
+    private final File file;
+    private final long length; // In characters
+
+    private SpilledOutput(File file, long length)
+    {
+        this.file = file;
+        this.length = length;
+    }
+
+    /**
+     * Writes output to a new temporary file.
+     */
+    public static SpilledOutput spill(String output) throws IOException
+    {
+        File file = File.createTempFile("grader-spill-", ".txt");
+        file.deleteOnExit();
+        try
+        {
+            Files.write(file.toPath(), output.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            file.delete();
+            throw e;
+        }
+        return new SpilledOutput(file, output.length());
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Returns the length of the output in characters.
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Reads the whole output back. If the file cannot be read the error is returned in its place.
+     */
+    public String load()
+    {
+        try
+        {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reading spilled output " + file.getName() + ": " + e.getMessage());
+            return "ERROR: Output no longer available (" + e.getMessage() + ")";
+        }
+    }
+
+    /**
+     * Reads at most maxChars characters from the start of the output.
+     */
+    public String preview(int maxChars)
+    {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))
+        {
+            char[] buffer = new char[8192];
+            int n;
+            while (text.length() < maxChars && (n = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) > 0)
+            {
+                text.append(buffer, 0, n);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reading spilled output " + file.getName() + ": " + e.getMessage());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Deletes the file. Reading the output afterwards returns an error message.
+     */
+    public void delete()
+    {
+        if (!file.delete() && file.exists())
+        {
+            System.err.println("Could not delete spilled output " + file.getName());
+        }
+    }
+
+    /**
+     * Opens the output for paging through it line by line.
+     */
+    public LineSource openLines() throws IOException
+    {
+        return new FileLineSource(file);
+    }
+}
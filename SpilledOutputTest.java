@@ -0,0 +1,135 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for SpilledOutput and spilled results: written out, read back whole, as a preview or
+ * line by line, saved with the results, and deleted when the result is replaced.
+ */
+public class SpilledOutputTest
+{
+    private File folder;
+    private String large; // Just over the spill limit, with multi-byte characters
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("spilled-output-test").toFile();
+        large = "☃ first line\n" + ResultsFileTest.repeat("0123456789abcdef\n", SpilledOutput.SPILL_CHARS / 17 + 1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void spilledOutputIsReadBackInEveryWay() throws IOException
+    {
+        SpilledOutput spilled = SpilledOutput.spill(large);
+        try
+        {
+            assertTrue(spilled.getFile().isFile());
+            assertEquals(large.length(), spilled.getLength());
+            assertEquals(large, spilled.load());
+            assertEquals("☃ first", spilled.preview(7));
+
+            LineSource lines = spilled.openLines();
+            try
+            {
+                assertEquals("☃ first line", lines.getLine(0));
+                assertEquals(SpilledOutput.SPILL_CHARS / 17 + 2, lines.getLineCount());
+            }
+            finally
+            {
+                ((Closeable) lines).close();
+            }
+        }
+        finally
+        {
+            spilled.delete();
+        }
+        assertTrue(!spilled.getFile().exists());
+        assertTrue(spilled.load().startsWith("ERROR: Output no longer available"));
+    }
+
+    @Test
+    public void onlyOutputsOverTheLimitAreSpilled()
+    {
+        TestResult small = new TestResult("alice", "T1", "FAILED", "short", "expected");
+        small.spillLargeOutput();
+        assertTrue(!small.isActualOutputSpilled());
+
+        TestResult result = spilledResult();
+        try
+        {
+            assertTrue(result.isActualOutputSpilled());
+            assertEquals(large.length(), result.getActualOutputLength());
+            assertEquals("☃ first line", result.getActualOutputPreview(12));
+            assertEquals(large, result.getActualOutput());
+            assertTrue(result.openActualOutputLines() instanceof FileLineSource);
+        }
+        finally
+        {
+            result.deleteSpilledOutput();
+        }
+    }
+
+    @Test
+    public void deletedSpillReadsAsUnavailable()
+    {
+        TestResult result = spilledResult();
+        result.deleteSpilledOutput();
+        assertTrue(result.getActualOutput().startsWith("ERROR: Output no longer available"));
+        assertTrue(result.openActualOutputLines().getLine(0).startsWith("ERROR: Output no longer available"));
+    }
+
+    @Test
+    public void spilledOutputIsSavedByContent() throws Exception
+    {
+        TestResult result = spilledResult();
+        try
+        {
+            File file = new File(folder, "run" + ResultsFile.EXTENSION);
+            ResultsFile.write(new TestExecutionResults("Suite", "/submissions", "src", Arrays.asList(result)), file);
+            assertEquals(large, ResultsFile.read(file, true).getResults().get(0).getActualOutput());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+            {
+                out.writeObject(result);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+            {
+                TestResult copy = (TestResult) in.readObject();
+                assertEquals(large, copy.getActualOutput());
+                assertTrue(!copy.isActualOutputSpilled());
+            }
+        }
+        finally
+        {
+            result.deleteSpilledOutput();
+        }
+    }
+
+    private TestResult spilledResult()
+    {
+        TestResult result = new TestResult("alice", "T1", "FAILED", large, "expected");
+        result.spillLargeOutput();
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies a runtime error by what went wrong rather than by its exact text: the exception
+ * type plus the top few frames in student code (line numbers left out, since they differ from
+ * student to student). Two students whose programs crash the same way get the same key.
+ */
+public class StackTraceFingerprint
+{
+    // Student frames kept in a fingerprint
+    public static final int TOP_FRAMES = 3;
+
+    // Exception type for runs that ended badly without printing a stack trace
+    public static final String NO_STACK_TRACE = "(no stack trace)";
+    public static final String TIMEOUT = "(timeout)";
+
+    // Start of the actual output Program records for a run that was killed for taking too long
+    private static final String TIMEOUT_MESSAGE = "ERROR: Program execution timed out";
+
+    // "Exception in thread "main" java.lang.X: message", "Caused by: X: message" or a bare "X: message"
+    private static final Pattern HEADER = Pattern.compile(
+            "^(Exception in thread \"[^\"]*\" |Caused by: )?([\\w$]+(?:\\.[\\w$]+)*)(?::.*)?$");
+    // "at java.base/java.lang.Integer.parseInt(Integer.java:652)" -> class and method
+    private static final Pattern FRAME = Pattern.compile("^\\s*at\\s+(?:[\\w.$]+/)?([\\w.$<>]+)\\.([\\w$<>]+)\\(.*$");
+
+    private final String exceptionType;
+    private final List<String> frames; // "Class.method", innermost first
+
+    private StackTraceFingerprint(String exceptionType, List<String> frames)
+    {
+        this.exceptionType = exceptionType;
+        this.frames = Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * Builds the fingerprint of a RUNTIME ERROR result from its stderr.
+     */
+    public static StackTraceFingerprint of(TestResult result)
+    {
+        // Only the start is read: a spilled output is not loaded just to check its prefix
+        String actual = result.getActualOutputPreview(TIMEOUT_MESSAGE.length());
+        if (actual != null && actual.startsWith(TIMEOUT_MESSAGE))
+        {
+            return new StackTraceFingerprint(TIMEOUT, new ArrayList<>());
+        }
+        return parse(result.getErrorOutput());
+    }
+
+    /**
+     * Parses a stack trace. For chained exceptions the innermost cause is used, since it names
+     * the real failure; its frames come from the enclosing trace when the cause's own frames
+     * are elided ("... 3 more") or all inside the JDK.
+     */
+    public static StackTraceFingerprint parse(String errorOutput)
+    {
+        String type = null;
+        List<String> studentFrames = new ArrayList<>();
+        List<String> fallbackFrames = new ArrayList<>();
+        String[] lines = errorOutput != null ? errorOutput.split("\r?\n|\r") : new String[0];
+        for (int i = 0; i < lines.length; i++)
+        {
+            Matcher frame = FRAME.matcher(lines[i]);
+            if (frame.matches())
+            {
+                if (type != null && studentFrames.size() < TOP_FRAMES && isStudentClass(frame.group(1)))
+                {
+                    studentFrames.add(simpleClassName(frame.group(1)) + "." + frame.group(2));
+                }
+                continue;
+            }
+
+            Matcher header = HEADER.matcher(lines[i].trim());
+            // A bare "X: message" line only counts when a frame follows (e.printStackTrace output)
+            boolean followedByFrame = i + 1 < lines.length && FRAME.matcher(lines[i + 1]).matches();
+            if (header.matches() && (header.group(1) != null || followedByFrame) && looksLikeThrowable(header.group(2)))
+            {
+                if (!studentFrames.isEmpty())
+                {
+                    fallbackFrames = studentFrames;
+                }
+                type = header.group(2);
+                studentFrames = new ArrayList<>();
+            }
+        }
+
+        if (type == null)
+        {
+            return new StackTraceFingerprint(NO_STACK_TRACE, new ArrayList<>());
+        }
+        return new StackTraceFingerprint(type, studentFrames.isEmpty() ? fallbackFrames : studentFrames);
+    }
+
+    // Throwable class names end in Exception or Error (or are at least qualified names)
+    private static boolean looksLikeThrowable(String name)
+    {
+        return name.endsWith("Exception") || name.endsWith("Error") || name.endsWith("Throwable") || name.contains(".");
+    }
+
+    private static boolean isStudentClass(String className)
+    {
+        return !(className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.")
+                || className.startsWith("sun.") || className.startsWith("com.sun."));
+    }
+
+    private static String simpleClassName(String className)
+    {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Returns the exception type as printed, e.g. "java.lang.ArrayIndexOutOfBoundsException".
+     */
+    public String getExceptionType()
+    {
+        return exceptionType;
+    }
+
+    /**
+     * Returns the exception type without its package, e.g. "ArrayIndexOutOfBoundsException".
+     */
+    public String getSimpleExceptionType()
+    {
+        return exceptionType.substring(exceptionType.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Returns the top frames in student code as "Class.method", innermost first.
+     */
+    public List<String> getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Returns the key two identical crashes share, e.g.
+     * "java.lang.NumberFormatException @ Parser.parse < Main.main".
+     */
+    public String getKey()
+    {
+        return frames.isEmpty() ? exceptionType : exceptionType + " @ " + String.join(" < ", frames);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getKey();
+    }
+}
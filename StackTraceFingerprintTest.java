@@ -0,0 +1,90 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests for StackTraceFingerprint: stack traces as the JVM and e.printStackTrace() print them,
+ * chained causes, JDK frames, and runs that ended without a stack trace.
+ */
+public class StackTraceFingerprintTest
+{
+    @Test
+    public void uncaughtExceptionKeepsTheTopStudentFrames()
+    {
+        StackTraceFingerprint fingerprint = StackTraceFingerprint.parse(
+                "Exception in thread \"main\" java.lang.NumberFormatException: For input string: \"x\"\n"
+                + "\tat java.base/java.lang.NumberFormatException.forInputString(NumberFormatException.java:65)\n"
+                + "\tat java.base/java.lang.Integer.parseInt(Integer.java:652)\n"
+                + "\tat grades.Parser.parse(Parser.java:12)\n"
+                + "\tat grades.Parser.lambda$parseAll$0(Parser.java:20)\n"
+                + "\tat Main.readInput(Main.java:8)\n"
+                + "\tat Main.main(Main.java:3)\n");
+
+        assertEquals("java.lang.NumberFormatException", fingerprint.getExceptionType());
+        assertEquals("NumberFormatException", fingerprint.getSimpleExceptionType());
+        assertEquals(Arrays.asList("Parser.parse", "Parser.lambda$parseAll$0", "Main.readInput"), fingerprint.getFrames());
+        assertEquals("java.lang.NumberFormatException @ Parser.parse < Parser.lambda$parseAll$0 < Main.readInput",
+                fingerprint.getKey());
+    }
+
+    @Test
+    public void lineNumbersAndMessagesDoNotChangeTheKey()
+    {
+        String first = "Exception in thread \"main\" java.lang.ArrayIndexOutOfBoundsException: Index 5 out of bounds for length 5\n"
+                + "\tat Main.main(Main.java:10)\n";
+        String second = "Exception in thread \"main\" java.lang.ArrayIndexOutOfBoundsException: Index 3 out of bounds for length 3\r\n"
+                + "\tat Main.main(Main.java:42)\r\n";
+        assertEquals(StackTraceFingerprint.parse(first).getKey(), StackTraceFingerprint.parse(second).getKey());
+    }
+
+    @Test
+    public void innermostCauseNamesTheFailure()
+    {
+        StackTraceFingerprint fingerprint = StackTraceFingerprint.parse(
+                "Exception in thread \"main\" java.lang.RuntimeException: wrapped\n"
+                + "\tat Main.run(Main.java:20)\n"
+                + "\tat Main.main(Main.java:5)\n"
+                + "Caused by: java.io.FileNotFoundException: data.txt (No such file or directory)\n"
+                + "\tat java.base/java.io.FileInputStream.open0(Native Method)\n"
+                + "\tat java.base/java.io.FileInputStream.<init>(FileInputStream.java:157)\n"
+                + "\t... 2 more\n");
+
+        // The cause's own frames are all in the JDK, so the enclosing trace's student frames are used
+        assertEquals("java.io.FileNotFoundException", fingerprint.getExceptionType());
+        assertEquals(Arrays.asList("Main.run", "Main.main"), fingerprint.getFrames());
+    }
+
+    @Test
+    public void printedStackTraceAmongOutputIsFound()
+    {
+        StackTraceFingerprint fingerprint = StackTraceFingerprint.parse(
+                "Warning: something: odd\n"
+                + "java.lang.IllegalStateException: bad state\n"
+                + "\tat Account.withdraw(Account.java:30)\n");
+        assertEquals("java.lang.IllegalStateException @ Account.withdraw", fingerprint.getKey());
+    }
+
+    @Test
+    public void errorOutputWithoutAStackTrace()
+    {
+        assertEquals(StackTraceFingerprint.NO_STACK_TRACE, StackTraceFingerprint.parse("Error: could not open file").getKey());
+        assertEquals(StackTraceFingerprint.NO_STACK_TRACE, StackTraceFingerprint.parse(null).getKey());
+        assertEquals(Collections.emptyList(), StackTraceFingerprint.parse("").getFrames());
+
+        // A JVM error without frames still counts by its type
+        assertEquals("java.lang.OutOfMemoryError",
+                StackTraceFingerprint.parse("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space").getKey());
+    }
+
+    @Test
+    public void timedOutRunIsATimeoutNotAStackTrace()
+    {
+        TestResult timedOut = new TestResult("alice", "Loop", "RUNTIME ERROR",
+                "ERROR: Program execution timed out after 10 seconds", "1", null,
+                "Exception in thread \"main\" java.lang.IllegalStateException\n\tat Main.main(Main.java:1)\n");
+        assertEquals(StackTraceFingerprint.TIMEOUT, StackTraceFingerprint.of(timedOut).getKey());
+    }
+}
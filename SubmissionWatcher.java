@@ -0,0 +1,341 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Continuously grades the root folder while students upload their work.
+ * Every submission folder is graded once when watch mode starts; after that only
+ * folders whose Java sources actually changed are regraded, through the same
+ * Program.executeTestCase path as a normal run. Results go into one live
+ * TestExecutionResults object that is updated in place.
+ *
+ * Work for one student (grading, regrading, dropping) runs one piece at a time, in the order it
+ * was asked for, so an older grading can never publish after a newer one. Changes that arrive
+ * while a student is being graded queue a single new grading, which runs once the current one
+ * has published.
+ */
+public class SubmissionWatcher implements FolderWatcher.ChangeListener
+{
+    /**
+     * Notified (on a background thread) each time a submission has been graded.
+     */
+    public interface Listener
+    {
+        void submissionGraded(String studentName, List<TestResult> results);
+    }
+
+    // How long a student folder must be quiet before it is graded (uploads often arrive file by file)
+    private static final long DEBOUNCE_MILLIS = 1500;
+
+    private final File rootFolder; // Folder containing the student submission folders
+    private final String codePath; // Subfolder within each submission holding the code
+    private volatile Iterable<TestCase> testCases; // Test cases of the suite being graded (may include generated ones)
+    private final TestExecutionResults liveResults; // Continuously updated results of this session
+    private final Listener listener; // UI/Coordinator callback, may be null
+    private final ListOfPrograms programLoader = new ListOfPrograms(); // Used only to build single Programs
+    private final Map<String, String> gradedFingerprints = new ConcurrentHashMap<>(); // Student -> sources of the last published grading
+    private final Map<String, StudentWork> studentWork = new HashMap<>(); // Student -> work waiting or running; guarded by itself
+    private final Map<String, Program> gradedPrograms = new ConcurrentHashMap<>(); // Student -> compiled program
+    private final ExecutorService gradingPool; // Grades several students at once
+    private final FolderWatcher folderWatcher;
+
+    // Work queued for one student; a pool thread works through it while running is set
+    private static class StudentWork
+    {
+        final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        boolean running;
+        Runnable queuedGrading; // A grading of the folder waiting in pending, if any; more changes need no second one
+    }
+
+    /**
+     * Constructor: prepares watch mode for one suite. Call start() to begin.
+     */
+    public SubmissionWatcher(File rootFolder, String codePath, Iterable<TestCase> testCases,
+                             TestExecutionResults liveResults, Listener listener)
+    {
+        this.rootFolder = rootFolder;
+        this.codePath = codePath != null ? codePath : "";
+        this.testCases = testCases;
+        this.liveResults = liveResults;
+        this.listener = listener;
+        this.gradingPool = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread t = new Thread(r, "SubmissionGrader");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.folderWatcher = new FolderWatcher(rootFolder, DEBOUNCE_MILLIS, this);
+    }
+
+    /**
+     * Starts watching and queues a first grading of every submission already present.
+     */
+    public void start() throws IOException
+    {
+        folderWatcher.start();
+
+        File[] folders = rootFolder.listFiles(File::isDirectory);
+        if (folders != null)
+        {
+            for (File folder : folders)
+            {
+                queueGrading(folder);
+            }
+        }
+    }
+
+    /**
+     * Stops watching. Gradings already in progress are abandoned.
+     */
+    public void stop()
+    {
+        folderWatcher.stop();
+        gradingPool.shutdownNow();
+    }
+
+    /**
+     * Returns true while watch mode is active.
+     */
+    public boolean isRunning()
+    {
+        return folderWatcher.isRunning();
+    }
+
+    /**
+     * Returns the live results being filled by this watcher.
+     */
+    public TestExecutionResults getLiveResults()
+    {
+        return liveResults;
+    }
+
+    /**
+     * Switches to an updated list of test cases (e.g. after a .testcase or .suite file was edited)
+     * and reruns only what is affected: test cases whose definition file is in changedFilenames
+     * and test cases that are new to the suite. Results of removed test cases are dropped;
+     * everything else is kept as is.
+     */
+    public void updateTestCases(Iterable<TestCase> newTestCases, Set<String> changedFilenames)
+    {
+        Iterable<TestCase> cases = newTestCases;
+        testCases = cases;
+        for (String studentName : gradedPrograms.keySet())
+        {
+            queue(studentName, () -> regradeAffected(studentName, cases, changedFilenames), false);
+        }
+    }
+
+    // Called by the FolderWatcher once a set of top-level entries has settled
+    @Override
+    public void onChanges(Set<String> changedNames)
+    {
+        for (String name : changedNames)
+        {
+            File folder = new File(rootFolder, name);
+            if (folder.isDirectory())
+            {
+                queueGrading(folder);
+            }
+            else if (!folder.exists())
+            {
+                queue(name, () -> dropIfRemoved(folder), false);
+            }
+        }
+    }
+
+    // Queues a grading of a submission folder unless one is already waiting
+    // (the waiting one fingerprints the folder when it starts, so it sees these changes too)
+    private void queueGrading(File folder)
+    {
+        queue(folder.getName(), () -> gradeIfChanged(folder), true);
+    }
+
+    // Adds work for a student; it runs after everything queued for that student before it
+    private void queue(String studentName, Runnable task, boolean grading)
+    {
+        synchronized (studentWork)
+        {
+            StudentWork work = studentWork.computeIfAbsent(studentName, k -> new StudentWork());
+            if (grading)
+            {
+                if (work.queuedGrading != null)
+                {
+                    return;
+                }
+                work.queuedGrading = task;
+            }
+            work.pending.add(task);
+            if (work.running)
+            {
+                return;
+            }
+            work.running = true;
+        }
+        gradingPool.submit(() -> runQueued(studentName));
+    }
+
+    // Works through a student's queue on one pool thread
+    private void runQueued(String studentName)
+    {
+        while (true)
+        {
+            Runnable task;
+            synchronized (studentWork)
+            {
+                StudentWork work = studentWork.get(studentName);
+                task = work.pending.poll();
+                if (task == null || Thread.currentThread().isInterrupted())
+                {
+                    studentWork.remove(studentName);
+                    return;
+                }
+                if (task == work.queuedGrading)
+                {
+                    work.queuedGrading = null; // Changes from now on need another grading
+                }
+            }
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                System.err.println("Error grading " + studentName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Drops the results of a submission whose folder was removed
+    private void dropIfRemoved(File folder)
+    {
+        String studentName = folder.getName();
+        if (!folder.exists() && gradedFingerprints.remove(studentName) != null)
+        {
+            gradedPrograms.remove(studentName);
+            publish(studentName, new ArrayList<>());
+        }
+    }
+
+    // Grades a submission folder unless its Java sources are unchanged since the last published grading
+    // Compiling writes .class files into the folder, so this check also stops regrade loops
+    private void gradeIfChanged(File folder)
+    {
+        String studentName = folder.getName();
+        String fingerprint = fingerprintSources(folder);
+        if (fingerprint.equals(gradedFingerprints.get(studentName)))
+        {
+            return;
+        }
+
+        List<TestResult> results = new ArrayList<>();
+        Program program = programLoader.createProgramForFolder(folder, codePath);
+        if (program == null)
+        {
+            // Same entry a normal run records for a folder without a main method
+            gradedPrograms.remove(studentName);
+            results.add(new TestResult(studentName, "N/A", "SKIPPED - NO MAIN METHOD", "", ""));
+        }
+        else
+        {
+            gradedPrograms.put(studentName, program);
+            synchronized (program) // Program keeps per-run state, so one test at a time per program
+            {
+                for (TestCase testCase : testCases)
+                {
+                    if (Thread.currentThread().isInterrupted())
+                    {
+                        return; // Watch mode was stopped
+                    }
+                    results.add(program.executeTestCase(testCase));
+                }
+            }
+        }
+        publish(studentName, results);
+        gradedFingerprints.put(studentName, fingerprint); // Only now: an interrupted grading must not count as done
+    }
+
+    // Reruns only the changed or new test cases for one already graded student
+    private void regradeAffected(String studentName, Iterable<TestCase> cases, Set<String> changedFilenames)
+    {
+        Program program = gradedPrograms.get(studentName);
+        if (program == null)
+        {
+            return; // Removed, or regraded without a main method since this was queued
+        }
+        // Keyed by title and occurrence: the n-th result with a title belongs to the n-th test case with it
+        Map<String, TestResult> previous = new java.util.HashMap<>();
+        Map<String, Integer> titleCounts = new java.util.HashMap<>();
+        for (TestResult result : liveResults.getStudentResults(studentName))
+        {
+            previous.put(occurrenceKey(result.getTestCaseTitle(), titleCounts), result);
+        }
+
+        List<TestResult> results = new ArrayList<>();
+        titleCounts.clear();
+        synchronized (program)
+        {
+            for (TestCase testCase : cases)
+            {
+                if (Thread.currentThread().isInterrupted())
+                {
+                    return;
+                }
+                TestResult old = previous.get(occurrenceKey(testCase.getTitle(), titleCounts));
+                if (old != null && !changedFilenames.contains(testCase.getDefinitionFilename()))
+                {
+                    results.add(old); // Unaffected, keep the existing result
+                }
+                else
+                {
+                    results.add(program.executeTestCase(testCase));
+                }
+            }
+        }
+        publish(studentName, results);
+    }
+
+    // Returns title plus how many times it was seen before (counted in titleCounts)
+    private static String occurrenceKey(String title, Map<String, Integer> titleCounts)
+    {
+        return title + '\u0000' + (titleCounts.merge(title, 1, Integer::sum) - 1);
+    }
+
+    // Stores a student's new results and notifies the listener
+    private void publish(String studentName, List<TestResult> results)
+    {
+        liveResults.replaceStudentResults(studentName, results);
+        if (listener != null)
+        {
+            listener.submissionGraded(studentName, results);
+        }
+    }
+
+    // Builds a cheap fingerprint (name, size, modification time) of the Java sources in a submission
+    private String fingerprintSources(File folder)
+    {
+        File searchFolder = codePath.trim().isEmpty() ? folder : new File(folder, codePath.trim());
+        File[] javaFiles = searchFolder.listFiles(f -> f.getName().endsWith(".java"));
+        if (javaFiles == null)
+        {
+            return "";
+        }
+
+        java.util.Arrays.sort(javaFiles);
+        StringBuilder sb = new StringBuilder();
+        for (File javaFile : javaFiles)
+        {
+            sb.append(javaFile.getName()).append(':')
+              .append(javaFile.length()).append(':')
+              .append(javaFile.lastModified()).append(';');
+        }
+        return sb.toString();
+    }
+}
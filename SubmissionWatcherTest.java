@@ -0,0 +1,162 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for SubmissionWatcher: first grading on start, regrading of changed sources only,
+ * dropping removed submissions, and rerunning just the affected test cases after an edit.
+ * The submissions are real programs, compiled and run like in a normal run.
+ */
+public class SubmissionWatcherTest
+{
+    private File root;
+    private SubmissionWatcher watcher;
+    private TestExecutionResults live;
+    private final Map<String, BlockingQueue<List<TestResult>>> gradings = new ConcurrentHashMap<>(); // Student -> published results
+
+    @Before
+    public void setUp() throws IOException
+    {
+        root = Files.createTempDirectory("submission-watcher-test").toFile();
+        live = new TestExecutionResults("Suite", root.getAbsolutePath(), "", new ArrayList<TestResult>());
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (watcher != null)
+        {
+            watcher.stop();
+        }
+        ResultsFileTest.deleteRecursively(root);
+    }
+
+    @Test
+    public void existingSubmissionsAreGradedOnStart() throws Exception
+    {
+        writeProgram("alice", "3");
+        assertTrue(new File(root, "bob").mkdir()); // Nothing uploaded yet
+        start(Arrays.asList(new TestCase("Sum", "1 2", "3", "String")));
+
+        List<TestResult> alice = awaitGrading("alice");
+        assertEquals(1, alice.size());
+        assertEquals("PASSED", alice.get(0).getStatus());
+        List<TestResult> bob = awaitGrading("bob");
+        assertEquals("SKIPPED - NO MAIN METHOD", bob.get(0).getStatus());
+        assertEquals(alice, live.getStudentResults("alice"));
+    }
+
+    @Test
+    public void changedSourcesAreRegraded() throws Exception
+    {
+        writeProgram("alice", "3");
+        start(Arrays.asList(new TestCase("Sum", "1 2", "3", "String")));
+        assertEquals("PASSED", awaitGrading("alice").get(0).getStatus());
+
+        writeProgram("alice", "33"); // Different size, so the fingerprint changes whatever the clock
+        assertEquals("FAILED", awaitGrading("alice").get(0).getStatus());
+        assertEquals("FAILED", live.getStudentResults("alice").get(0).getStatus());
+    }
+
+    @Test
+    public void removedSubmissionLosesItsResults() throws Exception
+    {
+        writeProgram("alice", "3");
+        start(Arrays.asList(new TestCase("Sum", "1 2", "3", "String")));
+        awaitGrading("alice");
+
+        ResultsFileTest.deleteRecursively(new File(root, "alice"));
+        assertTrue(awaitGrading("alice").isEmpty());
+        assertTrue(live.getStudentResults("alice").isEmpty());
+    }
+
+    @Test
+    public void editedTestCasesRerunWhileOthersKeepTheirResults() throws Exception
+    {
+        writeProgram("alice", "3");
+        TestCase kept = new TestCase("Kept", "", "3", "String");
+        TestCase edited = new TestCase("Edited", "", "3", "String");
+        start(Arrays.asList(kept, edited));
+        List<TestResult> first = awaitGrading("alice");
+
+        TestCase changed = new TestCase("Edited", "", "4", "String");
+        TestCase added = new TestCase("Added", "", "3", "String");
+        watcher.updateTestCases(Arrays.asList(kept, changed, added),
+                new HashSet<>(Collections.singleton(changed.getFilename())));
+
+        List<TestResult> regraded = awaitGrading("alice");
+        assertEquals(3, regraded.size());
+        assertSame(first.get(0), regraded.get(0));
+        assertNotSame(first.get(1), regraded.get(1));
+        assertEquals("FAILED", regraded.get(1).getStatus());
+        assertEquals("Added", regraded.get(2).getTestCaseTitle());
+        assertEquals("PASSED", regraded.get(2).getStatus());
+    }
+
+    @Test
+    public void testCasesSharingATitleKeepTheirOwnResults() throws Exception
+    {
+        writeProgram("alice", "3");
+        TestCase passing = new TestCase("Same", "", "3", "String");
+        TestCase failing = new TestCase("Same", "", "4", "String");
+        start(Arrays.asList(passing, failing));
+        List<TestResult> first = awaitGrading("alice");
+
+        watcher.updateTestCases(Arrays.asList(passing, failing, new TestCase("Other", "", "3", "String")),
+                new HashSet<String>());
+        List<TestResult> regraded = awaitGrading("alice");
+        assertSame(first.get(0), regraded.get(0));
+        assertSame(first.get(1), regraded.get(1)); // Not the first result with that title again
+        assertEquals("FAILED", regraded.get(1).getStatus());
+    }
+
+    private void start(List<TestCase> testCases) throws IOException
+    {
+        watcher = new SubmissionWatcher(root, "", testCases, live,
+                (student, results) -> gradingsOf(student).add(results));
+        watcher.start();
+    }
+
+    // Waits for the next grading published for the student
+    private List<TestResult> awaitGrading(String student) throws InterruptedException
+    {
+        List<TestResult> results = gradingsOf(student).poll(60, TimeUnit.SECONDS);
+        assertNotNull("No grading published for " + student, results);
+        return results;
+    }
+
+    private BlockingQueue<List<TestResult>> gradingsOf(String student)
+    {
+        return gradings.computeIfAbsent(student, k -> new LinkedBlockingQueue<>());
+    }
+
+    // A submission printing the given text, whatever its input
+    private void writeProgram(String student, String output) throws IOException
+    {
+        File folder = new File(root, student);
+        folder.mkdirs();
+        String source = "public class Main\n{\n    public static void main(String[] args)\n    {\n"
+                + "        System.out.println(\"" + output + "\");\n    }\n}\n";
+        Files.write(new File(folder, "Main.java").toPath(), source.getBytes("UTF-8"));
+    }
+}
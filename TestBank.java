@@ -0,0 +1,388 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Packed test bank: many test cases in a single file instead of one .testcase file each.
+ *
+ * Layout (all numbers big-endian):
+ *   header : "TBNK" magic, version, number of test cases
+ *   index  : per test case -> title, type, body offset, compressed length, raw length
+ *   bodies : per test case -> deflate-compressed (input data, expected output)
+ *
+ * Opening a bank only reads the header index, so listing thousands of test cases costs
+ * one file open. Each body is compressed on its own and read with a positional read,
+ * which gives random access: a test case body is only inflated when it is executed or edited.
+ */
+public class TestBank
+{
+    // Default name of the bank inside a save folder
+    public static final String DEFAULT_FILENAME = "test-bank.tbank";
+
+    private static final int MAGIC = 0x54424E4B; // "TBNK"
+    private static final int VERSION = 1;
+
+    /**
+     * Writes the given test cases into a packed bank file (replacing it if it exists).
+     * Test cases loaded from that same bank are pointed at their bodies' new positions afterwards.
+     */
+    public static void write(List<TestCase> testCases, File bankFile) throws IOException
+    {
+        // Every body is read and compressed before the file is touched: when repacking in place,
+        // the bodies of lazily loaded test cases still live at their old offsets in this file.
+        // Offsets in the index are relative to the start of the body section
+        List<byte[]> bodies = new ArrayList<>();
+        List<Integer> rawLengths = new ArrayList<>();
+        try
+        {
+            for (TestCase testCase : testCases)
+            {
+                byte[] raw = encodeBody(testCase.getInputData(), testCase.getExpectedOutput());
+                rawLengths.add(raw.length);
+                bodies.add(compress(raw));
+            }
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause(); // An unreadable body must not be packed as empty
+        }
+
+        // Written next to the bank and moved over it, so a body read running meanwhile never sees a half-written file
+        File temp = new File(bankFile.getAbsoluteFile().getParentFile(), bankFile.getName() + ".tmp");
+        long indexSize = 12; // magic + version + count
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(testCases.size());
+
+            long offset = 0;
+            for (int i = 0; i < testCases.size(); i++)
+            {
+                TestCase testCase = testCases.get(i);
+                String type = testCase.getType() != null ? testCase.getType() : "";
+                out.writeUTF(testCase.getTitle());
+                out.writeUTF(type);
+                out.writeLong(offset);
+                out.writeInt(bodies.get(i).length);
+                out.writeInt(rawLengths.get(i));
+                offset += bodies.get(i).length;
+                indexSize += utfLength(testCase.getTitle()) + utfLength(type) + 16;
+            }
+
+            for (byte[] body : bodies)
+            {
+                out.write(body);
+            }
+        }
+        catch (IOException e)
+        {
+            temp.delete();
+            throw e;
+        }
+        try
+        {
+            Files.move(temp.toPath(), bankFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp.toPath(), bankFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // The old offsets are gone now; rebind the test cases that were reading from this bank
+        File target = normalized(bankFile);
+        long offset = 0;
+        for (int i = 0; i < testCases.size(); i++)
+        {
+            TestCase testCase = testCases.get(i);
+            if (isPackedIn(testCase, target))
+            {
+                testCase.rebindBody(new BankBody(target, indexSize + offset, bodies.get(i).length, rawLengths.get(i)));
+            }
+            offset += bodies.get(i).length;
+        }
+    }
+
+    /**
+     * Reads the index of a bank and returns its test cases with bodies left on disk.
+     * Bodies are inflated on first use through the same lazy path as .testcase files.
+     * "@file:" references resolve against the test-cases folder next to the bank (or the bank's folder).
+     */
+    public static List<TestCase> load(File bankFile) throws IOException
+    {
+        List<TestCase> testCases = new ArrayList<>();
+        File bankPath = normalized(bankFile);
+        File bankFolder = bankPath.getParentFile();
+        File testCasesFolder = new File(bankFolder, "test-cases");
+        File baseFolder = testCasesFolder.isDirectory() ? testCasesFolder : bankFolder;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(bankFile))))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException("Not a test bank file: " + bankFile.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported test bank version: " + version);
+            }
+
+            int count = in.readInt();
+            long[] offsets = new long[count];
+            int[] compressedLengths = new int[count];
+            int[] rawLengths = new int[count];
+            String[] titles = new String[count];
+            String[] types = new String[count];
+            long indexSize = 12; // magic + version + count
+            for (int i = 0; i < count; i++)
+            {
+                titles[i] = in.readUTF();
+                types[i] = in.readUTF();
+                offsets[i] = in.readLong();
+                compressedLengths[i] = in.readInt();
+                rawLengths[i] = in.readInt();
+                indexSize += utfLength(titles[i]) + utfLength(types[i]) + 16;
+            }
+
+            for (int i = 0; i < count; i++)
+            {
+                testCases.add(TestCase.withBodyLoader(titles[i], types[i], baseFolder,
+                        new BankBody(bankPath, indexSize + offsets[i], compressedLengths[i], rawLengths[i])));
+            }
+        }
+        return testCases;
+    }
+
+    /**
+     * Writes every test case of a bank back out as .testcase files under saveFolder/test-cases
+     * (export to the one-file-per-case layout). Returns the number of files written.
+     * Values a .testcase line cannot hold exactly are written byte for byte next to them
+     * (see TestCase.saveToFile).
+     */
+    public static int unpackToFolder(File bankFile, String saveFolder) throws IOException
+    {
+        List<TestCase> testCases = load(bankFile);
+        try
+        {
+            for (TestCase testCase : testCases)
+            {
+                testCase.saveToFile(saveFolder);
+            }
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause(); // An unreadable body must not be unpacked as empty
+        }
+        return testCases.size();
+    }
+
+    /**
+     * Rewrites a bank with the given test cases in place of its entries with the same filename;
+     * other entries keep their current body. Pass every in-memory test case still reading from
+     * the bank, so that all of them are pointed at the rewritten file.
+     */
+    public static void update(File bankFile, List<TestCase> current) throws IOException
+    {
+        Map<String, TestCase> byFilename = new HashMap<>();
+        for (TestCase testCase : current)
+        {
+            byFilename.put(testCase.getFilename(), testCase);
+        }
+        List<TestCase> testCases = new ArrayList<>();
+        for (TestCase entry : load(bankFile))
+        {
+            testCases.add(byFilename.getOrDefault(entry.getFilename(), entry));
+        }
+        write(testCases, bankFile);
+    }
+
+    /**
+     * Returns true if a test case's body is read from the given bank file (it was loaded from
+     * the bank and has not been edited since).
+     */
+    public static boolean isPackedIn(TestCase testCase, File bankFile)
+    {
+        TestCase.BodyLoader loader = testCase.getBodyLoader();
+        return loader instanceof BankBody && ((BankBody) loader).bankFile.equals(normalized(bankFile));
+    }
+
+    // Reads and inflates one body with a positional read (safe to call from several threads)
+    private static String[] readBody(File bankFile, long position, int compressedLength, int rawLength) throws IOException
+    {
+        byte[] compressed = new byte[compressedLength];
+        try (RandomAccessFile file = new RandomAccessFile(bankFile, "r"))
+        {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                {
+                    throw new IOException("Test bank is truncated: " + bankFile.getName());
+                }
+            }
+        }
+
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished())
+            {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength)
+            {
+                throw new IOException("Corrupt test case body in " + bankFile.getName());
+            }
+            return decodeBody(raw);
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Corrupt test case body in " + bankFile.getName() + ": " + e.getMessage());
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    // Where one test case's body sits in a bank file
+    private static class BankBody implements TestCase.BodyLoader
+    {
+        private final File bankFile; // Absolute and normalized, see normalized()
+        private final long position;
+        private final int compressedLength;
+        private final int rawLength;
+
+        BankBody(File bankFile, long position, int compressedLength, int rawLength)
+        {
+            this.bankFile = bankFile;
+            this.position = position;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+        }
+
+        @Override
+        public String[] load() throws IOException
+        {
+            return readBody(bankFile, position, compressedLength, rawLength);
+        }
+    }
+
+    // Absolute path without "." or ".." parts, so two names for the same bank compare equal
+    private static File normalized(File file)
+    {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    // Body encoding: length-prefixed UTF-8 input data, then length-prefixed UTF-8 expected output
+    private static byte[] encodeBody(String inputData, String expectedOutput) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeLongString(out, inputData);
+        writeLongString(out, expectedOutput);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String[] decodeBody(byte[] raw)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        String input = readLongString(buffer);
+        String expected = readLongString(buffer);
+        return new String[] { input, expected };
+    }
+
+    // writeUTF is limited to 64 KB, so bodies use an int length prefix instead
+    private static void writeLongString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readLongString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Compresses one body on its own so it can be read without touching the others
+    private static byte[] compress(byte[] raw)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try
+        {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished())
+            {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    // Number of bytes DataOutputStream.writeUTF uses for a string (2-byte length + modified UTF-8)
+    private static int utfLength(String value)
+    {
+        int length = 2;
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F)
+            {
+                length += 1;
+            }
+            else if (c > 0x07FF)
+            {
+                length += 3;
+            }
+            else
+            {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,187 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TestBank: round trips through the packed format, lazy bodies, repacking a bank
+ * in place while its test cases are still reading from it, and damaged files.
+ */
+public class TestBankTest
+{
+    private File folder;
+    private File bankFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("test-bank-test").toFile();
+        bankFile = new File(folder, TestBank.DEFAULT_FILENAME);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(folder);
+    }
+
+    @Test
+    public void testCasesSurviveWriteAndLoad() throws IOException
+    {
+        List<TestCase> original = sampleTestCases();
+        TestBank.write(original, bankFile);
+
+        List<TestCase> loaded = TestBank.load(bankFile);
+        assertEquals(original.size(), loaded.size());
+        for (int i = 0; i < original.size(); i++)
+        {
+            TestCase loadedCase = loaded.get(i);
+            assertTrue(!loadedCase.isBodyLoaded()); // Only the index was read
+            assertTrue(TestBank.isPackedIn(loadedCase, new File(folder, "./" + TestBank.DEFAULT_FILENAME)));
+            assertEquals(original.get(i).getTitle(), loadedCase.getTitle());
+            assertEquals(original.get(i).getType(), loadedCase.getType());
+            assertEquals(original.get(i).getInputData(), loadedCase.getInputData());
+            assertEquals(original.get(i).getExpectedOutput(), loadedCase.getExpectedOutput());
+        }
+    }
+
+    @Test
+    public void repackingInPlaceKeepsLoadedTestCasesReadable() throws IOException
+    {
+        TestBank.write(sampleTestCases(), bankFile);
+        List<TestCase> loaded = TestBank.load(bankFile);
+
+        // Edit the first one and rewrite the bank over the file the others are reading from
+        TestCase edited = loaded.get(0);
+        edited.setExpectedOutput("changed");
+        assertTrue(!TestBank.isPackedIn(edited, bankFile));
+        TestBank.update(bankFile, loaded);
+
+        assertEquals("changed", edited.getExpectedOutput());
+        for (int i = 1; i < loaded.size(); i++)
+        {
+            assertTrue(TestBank.isPackedIn(loaded.get(i), bankFile));
+            assertEquals(sampleTestCases().get(i).getExpectedOutput(), loaded.get(i).getExpectedOutput());
+        }
+        assertEquals("changed", TestBank.load(bankFile).get(0).getExpectedOutput());
+    }
+
+    @Test
+    public void updateReplacesOnlyEntriesWithTheSameFilename() throws IOException
+    {
+        TestBank.write(sampleTestCases(), bankFile);
+        TestCase replacement = new TestCase("Sum", "5 5", "10", "Int");
+        TestBank.update(bankFile, Arrays.asList(replacement));
+
+        List<TestCase> loaded = TestBank.load(bankFile);
+        assertEquals(sampleTestCases().size(), loaded.size());
+        assertEquals("10", loaded.get(0).getExpectedOutput());
+        assertEquals(sampleTestCases().get(1).getExpectedOutput(), loaded.get(1).getExpectedOutput());
+    }
+
+    @Test
+    public void unpackedBankBecomesTestCaseFiles() throws IOException
+    {
+        List<TestCase> original = sampleTestCases();
+        TestBank.write(original, bankFile);
+        File saveFolder = new File(folder, "unpacked");
+
+        assertEquals(original.size(), TestBank.unpackToFolder(bankFile, saveFolder.getPath()));
+        for (TestCase testCase : original)
+        {
+            TestCase unpacked = TestCase.loadFromFile(new File(saveFolder, "test-cases/" + testCase.getFilename()));
+            assertEquals(testCase.getInputData(), contentOf(unpacked.getInputData(), unpacked.getInputFile()));
+            assertEquals(testCase.getExpectedOutput(), contentOf(unpacked.getExpectedOutput(), unpacked.getExpectedFile()));
+        }
+        assertTrue(new File(saveFolder, "test-cases/Large.in").isFile()); // Too large for its line
+    }
+
+    @Test
+    public void testCasesReadFromTheBankCanBePackedIntoAnother() throws IOException
+    {
+        TestBank.write(sampleTestCases(), bankFile);
+        List<TestCase> loaded = TestBank.load(bankFile);
+        File copy = new File(folder, "copy.tbank");
+        TestBank.write(loaded, copy);
+
+        assertTrue(TestBank.isPackedIn(loaded.get(0), bankFile)); // Still reading from the first bank
+        assertEquals(sampleTestCases().get(2).getInputData(), TestBank.load(copy).get(2).getInputData());
+    }
+
+    @Test
+    public void fileThatIsNotABankIsRejected() throws IOException
+    {
+        Files.write(bankFile.toPath(), "not a bank at all".getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            TestBank.load(bankFile);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("Not a test bank file"));
+        }
+    }
+
+    @Test
+    public void truncatedBodyIsAnErrorWhenRead() throws IOException
+    {
+        TestBank.write(sampleTestCases(), bankFile);
+        List<TestCase> loaded = TestBank.load(bankFile);
+        try (RandomAccessFile cut = new RandomAccessFile(bankFile, "rw"))
+        {
+            cut.setLength(cut.length() - 5);
+        }
+
+        TestCase last = loaded.get(loaded.size() - 1);
+        try
+        {
+            last.getExpectedOutput();
+            fail("Expected an UncheckedIOException");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertTrue(e.getMessage().contains(TestBank.DEFAULT_FILENAME));
+        }
+        File copy = new File(folder, "copy.tbank");
+        try
+        {
+            TestBank.write(loaded, copy);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(!copy.exists()); // Not packed with an empty body
+        }
+    }
+
+    // A value as written, or the content of the file it refers to
+    private static String contentOf(String value, File file) throws IOException
+    {
+        return file != null ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8) : value;
+    }
+
+    // Test cases with empty, multi-line, non-ASCII and large bodies
+    private static List<TestCase> sampleTestCases()
+    {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("Sum", "1 2", "3", "Int"));
+        testCases.add(new TestCase("Lines", "a\nb\r\nc", "A\nB\nC\n", "Lines"));
+        testCases.add(new TestCase("Unicode", "naïve ☃", "", "String"));
+        testCases.add(new TestCase("Large", ResultsFileTest.repeat("12345 ", 50000), "ok", "String"));
+        return testCases;
+    }
+}
@@ -1,5 +1,8 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
 
 public class TestCase
 {
@@ -7,6 +10,35 @@ public class TestCase
     private String inputData; // Input data to provide to the program
     private String expectedOutput; // Expected output to compare against program output
     private String type; // Type/category of test case
+    private String filename; // Cached result of getFilename(), cleared when the title changes
+    private volatile BodyLoader bodyLoader; // Set while input/expected are not held in memory (lazy loading)
+    private File baseFolder; // Folder of the .testcase file; "@file:" references are relative to it
+    private String definitionFilename; // File this test case was generated from (null = its own .testcase file)
+    private volatile OutputComparator.Expectation expectation; // Compiled expected output of a body held in memory, reset on edits
+
+    // Prefix marking input/expected output that lives in an external file, e.g. "@file:inputs/big.in"
+    public static final String FILE_REFERENCE_PREFIX = "@file:";
+
+    // Prefix marking a value written on its line with escapes, e.g. "@text:1\n2\n" for two lines
+    public static final String ESCAPED_TEXT_PREFIX = "@text:";
+
+    // Values longer than this (in characters) are saved to a sidecar file instead of the .testcase line
+    public static final int SIDECAR_CHARS = 64 * 1024;
+
+    // Characters not allowed in filenames (compiled once instead of on every getFilename call)
+    private static final Pattern INVALID_FILENAME_CHARS = Pattern.compile("[^a-zA-Z0-9._-]");
+
+    // Shared, size-bounded cache for bodies of lazily loaded test cases
+    private static final TestCaseBodyCache BODY_CACHE = new TestCaseBodyCache();
+
+    /**
+     * Reads the body (input data and expected output) of a lazily loaded test case.
+     * Returns a two-element array: { inputData, expectedOutput }.
+     */
+    interface BodyLoader
+    {
+        String[] load() throws IOException;
+    }
 
     /**
      * Constructor: Initializes all fields of the test case.
@@ -21,17 +53,119 @@ public class TestCase
     }
 
     // Getter and setter methods for all fields
+    // The input and expected output getters throw UncheckedIOException if a lazily loaded body cannot be read
+    // The title decides the filename, so a stored test case is renamed through ListOfTestCases.updateTestCase
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    void setTitle(String title) { this.title = title; this.filename = null; }
+
+    public String getInputData() { return bodyLoader != null ? loadBody()[0] : inputData; }
+    public void setInputData(String inputData) { pinBody(); this.inputData = inputData; }
+
+    public String getExpectedOutput() { return bodyLoader != null ? loadBody()[1] : expectedOutput; }
+    public void setExpectedOutput(String expectedOutput) { pinBody(); this.expectedOutput = expectedOutput; this.expectation = null; }
+
+    /**
+     * Returns the external file the input data should be streamed from, or null if the
+     * input is given inline. The input line of the .testcase file then reads "@file:path",
+     * with path absolute or relative to the test-cases folder.
+     */
+    public File getInputFile() { return resolveFileReference(getInputData()); }
+
+    /**
+     * Returns the external file holding the expected output, or null if it is given inline.
+     */
+    public File getExpectedFile() { return resolveFileReference(getExpectedOutput()); }
+
+    // Turns an "@file:path" value into a File, or returns null for inline values
+    private File resolveFileReference(String value)
+    {
+        if (value == null || !value.startsWith(FILE_REFERENCE_PREFIX))
+        {
+            return null;
+        }
+        File file = new File(value.substring(FILE_REFERENCE_PREFIX.length()).trim());
+        if (!file.isAbsolute() && baseFolder != null)
+        {
+            file = new File(baseFolder, file.getPath());
+        }
+        return file;
+    }
+
+    /**
+     * Returns true if the input and expected output are currently kept in this object
+     * (false for a test case loaded with loadMetadataFromFile whose body lives on disk).
+     */
+    public boolean isBodyLoaded() { return bodyLoader == null; }
+
+    // Fetches the body of a lazily loaded test case through the shared cache
+    // An unreadable body is an error, never an empty input and expected output (which a program printing nothing would pass)
+    private String[] loadBody()
+    {
+        BodyLoader loader = bodyLoader;
+        if (loader == null)
+        {
+            return new String[] { inputData, expectedOutput };
+        }
+        try
+        {
+            return BODY_CACHE.get(this, loader);
+        }
+        catch (IOException e)
+        {
+            throw unreadableBody(e);
+        }
+    }
 
-    public String getInputData() { return inputData; }
-    public void setInputData(String inputData) { this.inputData = inputData; }
+    // Error for a lazily loaded body that cannot be read
+    private UncheckedIOException unreadableBody(IOException e)
+    {
+        return new UncheckedIOException("Cannot read test case " + getFilename() + ": " + e.getMessage(), e);
+    }
 
-    public String getExpectedOutput() { return expectedOutput; }
-    public void setExpectedOutput(String expectedOutput) { this.expectedOutput = expectedOutput; }
+    // Moves the body into this object before it is edited, so edits are never lost to cache eviction
+    private synchronized void pinBody()
+    {
+        if (bodyLoader != null)
+        {
+            String[] body = loadBody();
+            inputData = body[0];
+            expectedOutput = body[1];
+            bodyLoader = null;
+            BODY_CACHE.remove(this);
+        }
+    }
 
     public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public void setType(String type) { this.type = type; this.expectation = null; BODY_CACHE.remove(this); }
+
+    /**
+     * Returns the expected output prepared by the comparator for this test case's type.
+     * It is compiled on first use and then shared by every student's result. For a lazily
+     * loaded test case it is cached with the body and evicted along with it.
+     */
+    public OutputComparator.Expectation getExpectation()
+    {
+        BodyLoader loader = bodyLoader;
+        if (loader != null)
+        {
+            try
+            {
+                return BODY_CACHE.getExpectation(this, loader);
+            }
+            catch (IOException e)
+            {
+                throw unreadableBody(e);
+            }
+        }
+
+        OutputComparator.Expectation compiled = expectation;
+        if (compiled == null)
+        {
+            compiled = OutputComparators.compile(type, getExpectedOutput());
+            expectation = compiled;
+        }
+        return compiled;
+    }
 
     /**
      * Get the filename for this test case based on its title.
@@ -39,33 +173,228 @@ public class TestCase
      */
     public String getFilename()
     {
-        return sanitizeFilename(title) + ".testcase";
+        if (filename == null)
+        {
+            filename = sanitizeFilename(title) + ".testcase";
+        }
+        return filename;
+    }
+
+    /**
+     * Get the filename of the definition this test case comes from: its own .testcase
+     * file, or the .generator file for a generated instance. Suites reference this name.
+     */
+    public String getDefinitionFilename()
+    {
+        return definitionFilename != null ? definitionFilename : getFilename();
+    }
+
+    // Marks this test case as an instance produced by a generator
+    void setDefinitionFilename(String definitionFilename)
+    {
+        this.definitionFilename = definitionFilename;
     }
 
     /**
      * Save test case to a file under rootFolder/test-cases (case-insensitive folder lookup).
      * Creates the folder if it does not exist, writes fields in order.
+     * Input data or expected output that one line cannot hold as is (line breaks, surrounding
+     * whitespace) is written escaped after "@text:"; values over SIDECAR_CHARS go byte for byte
+     * into name.in / name.expected, referenced with "@file:". Those sidecars belong to name.testcase
+     * and are deleted once it no longer refers to them.
      */
     public void saveToFile(String rootFolder) throws IOException
     {
-        File rootFolderFile = new File(rootFolder);
-        File testCasesFolder = findFolderCaseInsensitive(rootFolderFile, "test-cases");
+        File testCasesFolder = getTestCasesFolder(rootFolder);
+        File testCaseFile = new File(testCasesFolder, getFilename());
+        if (baseFolder == null)
+        {
+            baseFolder = testCasesFolder; // New test case: "@file:" references resolve from here
+        }
+
+        String baseName = baseName(getFilename());
+        File inputSidecar = new File(testCasesFolder, baseName + ".in");
+        File expectedSidecar = new File(testCasesFolder, baseName + ".expected");
+        String input = lineOrFileReference(getInputData(), inputSidecar);
+        String expected = lineOrFileReference(getExpectedOutput(), expectedSidecar);
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(testCaseFile), StandardCharsets.UTF_8)))
+        {
+            writer.println(title);
+            writer.println(type);
+            writer.println(input);
+            writer.println(expected);
+        }
+        deleteUnlessReferenced(inputSidecar, input, expected);
+        deleteUnlessReferenced(expectedSidecar, input, expected);
+    }
+
+    /**
+     * Saves a test case whose title (and so its filename) changed since it was saved as
+     * previousFilename: sidecars of the old name move to the new one, and the old .testcase
+     * file and any sidecars left over are deleted, so no stale copy is loaded next time.
+     */
+    public void saveRenamedToFile(String rootFolder, String previousFilename) throws IOException
+    {
+        if (previousFilename.equals(getFilename()))
+        {
+            saveToFile(rootFolder);
+            return;
+        }
+        File testCasesFolder = getTestCasesFolder(rootFolder);
+        String oldBase = baseName(previousFilename);
+        String newBase = baseName(getFilename());
+        if (getInputData() != null && getInputData().equals(FILE_REFERENCE_PREFIX + oldBase + ".in"))
+        {
+            setInputData(moveSidecar(testCasesFolder, oldBase, newBase, ".in"));
+        }
+        if (getExpectedOutput() != null && getExpectedOutput().equals(FILE_REFERENCE_PREFIX + oldBase + ".expected"))
+        {
+            setExpectedOutput(moveSidecar(testCasesFolder, oldBase, newBase, ".expected"));
+        }
+        saveToFile(rootFolder);
+        deleteSavedFiles(testCasesFolder, previousFilename);
+    }
+
+    /**
+     * Deletes a saved test case: its .testcase file and the name.in / name.expected sidecars.
+     */
+    public static void deleteSavedFiles(File testCasesFolder, String filename)
+    {
+        String baseName = baseName(filename);
+        for (File file : new File[] { new File(testCasesFolder, filename),
+                new File(testCasesFolder, baseName + ".in"), new File(testCasesFolder, baseName + ".expected") })
+        {
+            if (!file.delete() && file.exists())
+            {
+                System.err.println("Could not delete test case file: " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the .testcase filename that owns a sidecar (name.in or name.expected), or null
+     * if name is not a sidecar name.
+     */
+    public static String sidecarOwner(String name)
+    {
+        for (String extension : new String[] { ".in", ".expected" })
+        {
+            if (name.endsWith(extension) && name.length() > extension.length())
+            {
+                return name.substring(0, name.length() - extension.length()) + ".testcase";
+            }
+        }
+        return null;
+    }
+
+    // Finds rootFolder/test-cases (any case), creating it if it does not exist
+    private static File getTestCasesFolder(String rootFolder)
+    {
+        File testCasesFolder = findFolderCaseInsensitive(new File(rootFolder), "test-cases");
         if (testCasesFolder == null)
         {
             // Folder doesn't exist, create it with standard name
             testCasesFolder = new File(rootFolder, "test-cases");
             testCasesFolder.mkdirs();
         }
+        return testCasesFolder;
+    }
 
-        File testCaseFile = new File(testCasesFolder, getFilename());
+    // "name.testcase" -> "name"
+    private static String baseName(String filename)
+    {
+        return filename.endsWith(".testcase") ? filename.substring(0, filename.length() - ".testcase".length()) : filename;
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(testCaseFile)))
+    // Renames oldBase + extension to newBase + extension and returns the reference to the new file
+    private static String moveSidecar(File folder, String oldBase, String newBase, String extension) throws IOException
+    {
+        File from = new File(folder, oldBase + extension);
+        File to = new File(folder, newBase + extension);
+        if (from.exists())
         {
-            writer.println(title);
-            writer.println(type);
-            writer.println(inputData);
-            writer.println(expectedOutput);
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return FILE_REFERENCE_PREFIX + to.getName();
+    }
+
+    // Deletes a sidecar written by an earlier save that neither line refers to any more
+    private static void deleteUnlessReferenced(File sidecar, String inputLine, String expectedLine)
+    {
+        String reference = FILE_REFERENCE_PREFIX + sidecar.getName();
+        if (!reference.equals(inputLine) && !reference.equals(expectedLine) && sidecar.exists() && !sidecar.delete())
+        {
+            System.err.println("Could not delete old test case file: " + sidecar.getName());
+        }
+    }
+
+    // Returns what to put on a .testcase line for value: the value itself if a line holds it unchanged,
+    // an "@text:" line with escapes if not, or, for a value over SIDECAR_CHARS, a "@file:" reference
+    // to sidecar, which then receives the exact bytes. A "@file:" value the user typed stays as it is.
+    static String lineOrFileReference(String value, File sidecar) throws IOException
+    {
+        String text = value != null ? value : "";
+        if (text.length() > SIDECAR_CHARS)
+        {
+            Files.write(sidecar.toPath(), text.getBytes(StandardCharsets.UTF_8));
+            return FILE_REFERENCE_PREFIX + sidecar.getName();
+        }
+        if (text.indexOf('\n') < 0 && text.indexOf('\r') < 0 && text.equals(text.trim())
+                && !text.startsWith(ESCAPED_TEXT_PREFIX))
+        {
+            return text;
+        }
+        return escapeLine(text);
+    }
+
+    // Writes text on one line after "@text:": backslash, line breaks, control characters,
+    // and spaces at either end (which loading would trim) become escapes
+    static String escapeLine(String text)
+    {
+        StringBuilder line = new StringBuilder(ESCAPED_TEXT_PREFIX);
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '\\') line.append("\\\\");
+            else if (c == '\n') line.append("\\n");
+            else if (c == '\r') line.append("\\r");
+            else if (c == '\t') line.append("\\t");
+            else if (c == ' ' && (i == 0 || i == text.length() - 1)) line.append("\\s");
+            else if (c < ' ') line.append(String.format("\\u%04x", (int) c));
+            else line.append(c);
+        }
+        return line.toString();
+    }
+
+    // Turns a (trimmed) input or expected line back into its value, undoing escapeLine
+    static String lineValue(String line)
+    {
+        if (!line.startsWith(ESCAPED_TEXT_PREFIX))
+        {
+            return line;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = ESCAPED_TEXT_PREFIX.length(); i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c != '\\' || i + 1 == line.length())
+            {
+                text.append(c);
+                continue;
+            }
+            char escape = line.charAt(++i);
+            if (escape == 'n') text.append('\n');
+            else if (escape == 'r') text.append('\r');
+            else if (escape == 't') text.append('\t');
+            else if (escape == 's') text.append(' ');
+            else if (escape == 'u' && i + 4 < line.length() && line.substring(i + 1, i + 5).matches("[0-9a-fA-F]{4}"))
+            {
+                text.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                i += 4;
+            }
+            else text.append(escape);
         }
+        return text.toString();
     }
 
     /**
@@ -81,15 +410,83 @@ public class TestCase
         }
          // Trim each field to remove extra spaces or newline characters.
          // This prevents formatting issues if the .testcase file contains trailing spaces.
-          return new TestCase(
+          TestCase testCase = new TestCase(
             lines.get(0).trim(), // title
-            lines.get(2).trim(), // inputData
-            lines.get(3).trim(), // expectedOutput
+            lineValue(lines.get(2).trim()), // inputData
+            lineValue(lines.get(3).trim()), // expectedOutput
             lines.get(1).trim()  // type
        );
+          testCase.baseFolder = testCaseFile.getAbsoluteFile().getParentFile();
+          return testCase;
 
     }
 
+    /**
+     * Load only the title and type of a test case (the first two lines of the file).
+     * Input data and expected output are read from the file on first use and kept
+     * in a size-bounded cache, so opening a large test bank stays fast.
+     */
+    public static TestCase loadMetadataFromFile(File testCaseFile) throws IOException
+    {
+        String title;
+        String type;
+        try (BufferedReader reader = Files.newBufferedReader(testCaseFile.toPath()))
+        {
+            title = reader.readLine();
+            type = reader.readLine();
+        }
+        if (title == null || type == null)
+        {
+            throw new IOException("Invalid test case file format");
+        }
+
+        TestCase testCase = new TestCase(title.trim(), null, null, type.trim());
+        testCase.baseFolder = testCaseFile.getAbsoluteFile().getParentFile();
+        testCase.bodyLoader = () -> readBodyFromFile(testCaseFile);
+        return testCase;
+    }
+
+    // Creates a test case whose body is supplied later by the given loader (used by TestBank)
+    static TestCase withBodyLoader(String title, String type, File baseFolder, BodyLoader loader)
+    {
+        TestCase testCase = new TestCase(title, null, null, type);
+        testCase.baseFolder = baseFolder;
+        testCase.bodyLoader = loader;
+        return testCase;
+    }
+
+    // Returns how the body is loaded, or null if it is held in memory (used by TestBank)
+    BodyLoader getBodyLoader()
+    {
+        return bodyLoader;
+    }
+
+    // Points a lazily loaded body at a new copy of the same content, e.g. after its bank was rewritten
+    synchronized void rebindBody(BodyLoader loader)
+    {
+        if (bodyLoader != null)
+        {
+            bodyLoader = loader;
+        }
+    }
+
+    // Reads lines 3 and 4 (input data and expected output) of a .testcase file
+    private static String[] readBodyFromFile(File testCaseFile) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(testCaseFile.toPath()))
+        {
+            reader.readLine(); // title
+            reader.readLine(); // type
+            String input = reader.readLine();
+            String expected = reader.readLine();
+            if (input == null || expected == null)
+            {
+                throw new IOException("Invalid test case file format");
+            }
+            return new String[] { lineValue(input.trim()), lineValue(expected.trim()) };
+        }
+    }
+
     // Helper method to find a folder by name case-insensitively
     // Returns the actual folder File if found, or null if not found
     private static File findFolderCaseInsensitive(File parentFolder, String folderName)
@@ -119,6 +516,6 @@ public class TestCase
      */
     private String sanitizeFilename(String name)
     {
-        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return INVALID_FILENAME_CHARS.matcher(name).replaceAll("_");
     }
 }
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache for the bodies (input data + expected output) of
+ * lazily loaded test cases. The cache is bounded by the total number of characters
+ * it holds, so a test bank with thousands of large cases cannot fill the heap;
+ * evicted bodies are simply read from disk again the next time they are needed.
+ * The expected output compiled for a cached body is kept in the same entry, counted
+ * against the budget, and evicted together with it.
+ */
+public class TestCaseBodyCache
+{
+    // Default budget: 16 million characters of input/expected data
+    private static final long DEFAULT_MAX_CHARS = 16L * 1024 * 1024;
+
+    private final long maxChars; // Budget for all cached bodies together
+    private long cachedChars = 0; // Characters currently held
+    private final LinkedHashMap<TestCase, Entry> entries = new LinkedHashMap<>(64, 0.75f, true); // Access order = LRU
+
+    // A cached body and, once compiled, the expectation built from its expected output
+    private static final class Entry
+    {
+        final String[] body;
+        OutputComparator.Expectation expectation; // Guarded by the cache
+
+        Entry(String[] body)
+        {
+            this.body = body;
+        }
+    }
+
+    /**
+     * Constructor: creates a cache with the default size budget.
+     */
+    public TestCaseBodyCache()
+    {
+        this(DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * Constructor: creates a cache holding at most maxChars characters of bodies.
+     */
+    public TestCaseBodyCache(long maxChars)
+    {
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Returns the cached body of a test case, loading it with the given loader on a miss.
+     */
+    public String[] get(TestCase testCase, TestCase.BodyLoader loader) throws IOException
+    {
+        return entry(testCase, loader).body;
+    }
+
+    /**
+     * Returns the compiled expected output of a test case, compiling it from the cached body
+     * on first use. It is dropped when the body is evicted or removed.
+     */
+    public OutputComparator.Expectation getExpectation(TestCase testCase, TestCase.BodyLoader loader) throws IOException
+    {
+        Entry entry = entry(testCase, loader);
+        synchronized (this)
+        {
+            if (entry.expectation != null)
+            {
+                return entry.expectation;
+            }
+        }
+
+        OutputComparator.Expectation compiled = OutputComparators.compile(testCase.getType(), entry.body[1]);
+        synchronized (this)
+        {
+            if (entry.expectation != null)
+            {
+                return entry.expectation; // Another thread compiled it meanwhile
+            }
+            if (entries.get(testCase) == entry) // Not evicted or removed while compiling
+            {
+                entry.expectation = compiled;
+                cachedChars += expectationSize(entry);
+                evictOverBudget(testCase);
+            }
+        }
+        return compiled;
+    }
+
+    // Returns the entry of a test case, loading its body on a miss
+    // The file is read outside the lock so parallel executions do not wait on each other's IO
+    private Entry entry(TestCase testCase, TestCase.BodyLoader loader) throws IOException
+    {
+        synchronized (this)
+        {
+            Entry entry = entries.get(testCase);
+            if (entry != null)
+            {
+                return entry;
+            }
+        }
+
+        Entry entry = new Entry(loader.load());
+        synchronized (this)
+        {
+            Entry previous = entries.put(testCase, entry);
+            if (previous != null)
+            {
+                cachedChars -= sizeOf(previous); // Another thread loaded it meanwhile
+            }
+            cachedChars += sizeOf(entry);
+            evictOverBudget(testCase);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the cached body of a test case and its compiled expectation (e.g. after it was edited in memory).
+     */
+    public synchronized void remove(TestCase testCase)
+    {
+        Entry entry = entries.remove(testCase);
+        if (entry != null)
+        {
+            cachedChars -= sizeOf(entry);
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        cachedChars = 0;
+    }
+
+    // Removes least recently used bodies until the cache fits its budget again
+    // The entry just loaded is always kept, even if it alone exceeds the budget
+    private void evictOverBudget(TestCase justLoaded)
+    {
+        Iterator<Map.Entry<TestCase, Entry>> it = entries.entrySet().iterator();
+        while (cachedChars > maxChars && it.hasNext())
+        {
+            Map.Entry<TestCase, Entry> eldest = it.next();
+            if (eldest.getKey() == justLoaded)
+            {
+                continue;
+            }
+            cachedChars -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    // Number of characters held by one entry
+    private static long sizeOf(Entry entry)
+    {
+        long size = 0;
+        for (String part : entry.body)
+        {
+            size += part != null ? part.length() : 0;
+        }
+        return size + (entry.expectation != null ? expectationSize(entry) : 0);
+    }
+
+    // A compiled expectation is counted as large as the expected output it was built from
+    private static long expectationSize(Entry entry)
+    {
+        return entry.body[1] != null ? entry.body[1].length() : 0;
+    }
+}
@@ -0,0 +1,130 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests for TestCaseBodyCache: hits, the character budget, and least-recently-used eviction
+ * of bodies together with their compiled expectations.
+ */
+public class TestCaseBodyCacheTest
+{
+    @Test
+    public void secondGetIsServedFromTheCache() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(100);
+        TestCase testCase = new TestCase("A", null, null, "String");
+        CountingLoader loader = new CountingLoader("in", "out");
+
+        String[] body = cache.get(testCase, loader);
+        assertArrayEquals(new Object[] { "in", "out" }, body);
+        assertSame(body, cache.get(testCase, loader));
+        assertEquals(1, loader.loads);
+    }
+
+    @Test
+    public void leastRecentlyUsedBodiesAreEvictedOverBudget() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(10);
+        TestCase a = new TestCase("A", null, null, "String");
+        TestCase b = new TestCase("B", null, null, "String");
+        TestCase c = new TestCase("C", null, null, "String");
+        CountingLoader loaderA = new CountingLoader("aaa", "a");
+        CountingLoader loaderB = new CountingLoader("bbb", "b");
+        CountingLoader loaderC = new CountingLoader("ccc", "c");
+
+        cache.get(a, loaderA);
+        cache.get(b, loaderB);
+        cache.get(a, loaderA); // A is now the most recently used
+        cache.get(c, loaderC); // 12 characters: B has to go
+
+        cache.get(a, loaderA);
+        assertEquals(1, loaderA.loads);
+        cache.get(b, loaderB);
+        assertEquals(2, loaderB.loads);
+    }
+
+    @Test
+    public void bodyLargerThanTheBudgetIsStillReturned() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(4);
+        TestCase testCase = new TestCase("A", null, null, "String");
+        CountingLoader loader = new CountingLoader("0123456789", "");
+
+        assertEquals("0123456789", cache.get(testCase, loader)[0]);
+        cache.get(testCase, loader);
+        assertEquals(1, loader.loads); // Kept until something else needs the room
+    }
+
+    @Test
+    public void removedBodyIsLoadedAgain() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(100);
+        TestCase testCase = new TestCase("A", null, null, "String");
+        CountingLoader loader = new CountingLoader("in", "out");
+
+        cache.get(testCase, loader);
+        cache.remove(testCase);
+        cache.get(testCase, loader);
+        cache.clear();
+        cache.get(testCase, loader);
+        assertEquals(3, loader.loads);
+    }
+
+    @Test
+    public void expectationIsCompiledOnceAndEvictedWithItsBody() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(12);
+        TestCase a = new TestCase("A", null, null, "Int");
+        TestCase b = new TestCase("B", null, null, "String");
+        CountingLoader loaderA = new CountingLoader("1", "42");
+        CountingLoader loaderB = new CountingLoader("bbbb", "bbbb");
+
+        OutputComparator.Expectation expectation = cache.getExpectation(a, loaderA);
+        assertTrue(expectation.matches(" 42\n"));
+        assertSame(expectation, cache.getExpectation(a, loaderA));
+        assertEquals(1, loaderA.loads);
+
+        cache.getExpectation(b, loaderB); // Body and expectation of B leave no room for A
+        assertNotSame(expectation, cache.getExpectation(a, loaderA));
+        assertEquals(2, loaderA.loads);
+    }
+
+    @Test
+    public void removedExpectationIsCompiledAgain() throws IOException
+    {
+        TestCaseBodyCache cache = new TestCaseBodyCache(100);
+        TestCase testCase = new TestCase("A", null, null, "String");
+        CountingLoader loader = new CountingLoader("in", "out");
+
+        OutputComparator.Expectation expectation = cache.getExpectation(testCase, loader);
+        cache.remove(testCase);
+        assertNotSame(expectation, cache.getExpectation(testCase, loader));
+    }
+
+    // Returns a fixed body and counts how often it was read
+    static class CountingLoader implements TestCase.BodyLoader
+    {
+        private final String input;
+        private final String expected;
+        int loads;
+
+        CountingLoader(String input, String expected)
+        {
+            this.input = input;
+            this.expected = expected;
+        }
+
+        @Override
+        public String[] load()
+        {
+            loads++;
+            return new String[] { input, expected };
+        }
+    }
+}
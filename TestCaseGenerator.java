@@ -0,0 +1,675 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parameterized test case: one definition that stands for many test cases.
+ * Input and expected output are templates with ${...} placeholders, filled from a
+ * parameter range (every combination) or a seeded random source. Instances are
+ * produced lazily, one at a time, while the suite executes; they are never stored.
+ *
+ * File format (.generator, saved next to the .testcase files):
+ *   line 1: title
+ *   line 2: type (Int, Double, String, ...)
+ *   line 3: input template,    e.g.  ${a},${b}
+ *   line 4: expected template, e.g.  ${a+b}     (may be empty)
+ *   line 5: parameters,        e.g.  a=1..20; b=-5..5 step 5
+ *                              or    random seed=42 count=200; a=-100..100; b={0,1,-1}
+ */
+public class TestCaseGenerator
+{
+    private String title; // Title of the generator; instance titles add the parameter values
+    private String type; // Type of every generated test case
+    private String inputTemplate; // Template for the input data
+    private String expectedTemplate; // Template for the expected output
+    private String parameterSpec; // Parameter ranges (see class comment)
+
+    // ${expression} placeholder inside a template
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]*)\\}");
+    // Characters not allowed in filenames
+    private static final Pattern INVALID_FILENAME_CHARS = Pattern.compile("[^a-zA-Z0-9._-]");
+
+    /**
+     * Constructor: Initializes all fields of the generator.
+     */
+    public TestCaseGenerator(String title, String type, String inputTemplate,
+                             String expectedTemplate, String parameterSpec)
+    {
+        this.title = title;
+        this.type = type;
+        this.inputTemplate = inputTemplate;
+        this.expectedTemplate = expectedTemplate;
+        this.parameterSpec = parameterSpec;
+    }
+
+    // Getter methods for all fields
+    public String getTitle() { return title; }
+    public String getType() { return type; }
+    public String getInputTemplate() { return inputTemplate; }
+    public String getExpectedTemplate() { return expectedTemplate; }
+    public String getParameterSpec() { return parameterSpec; }
+
+    /**
+     * Get the filename for this generator based on its title.
+     */
+    public String getFilename()
+    {
+        return INVALID_FILENAME_CHARS.matcher(title).replaceAll("_") + ".generator";
+    }
+
+    /**
+     * Returns the number of test cases this generator produces.
+     */
+    public long getInstanceCount()
+    {
+        ParameterSpace space = ParameterSpace.parse(parameterSpec);
+        return space.size();
+    }
+
+    /**
+     * Returns the generated test cases. Each iteration recreates them on the fly
+     * (random mode uses the fixed seed), so every student sees the same instances.
+     */
+    public Iterable<TestCase> instances()
+    {
+        return instances(null, 0);
+    }
+
+    /**
+     * Returns count randomly drawn test cases, whatever mode the parameters use (ranges are
+     * sampled instead of enumerated). Used by the fuzzer to draw fresh inputs from the same spec.
+     */
+    public Iterable<TestCase> randomInstances(long seed, long count)
+    {
+        return instances(seed, count);
+    }
+
+    // randomSeed null = use the parameters as written
+    private Iterable<TestCase> instances(Long randomSeed, long randomCount)
+    {
+        return () -> new Iterator<TestCase>()
+        {
+            private final ParameterSpace space = randomSeed == null
+                    ? ParameterSpace.parse(parameterSpec)
+                    : ParameterSpace.parse(parameterSpec).randomized(randomSeed, randomCount);
+            private long next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < space.size();
+            }
+
+            @Override
+            public TestCase next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return createInstance(space.values(next++));
+            }
+        };
+    }
+
+    /**
+     * Parses the parameters and checks every ${...} expression of both templates, so mistakes
+     * show up when the generator is created or loaded rather than in the middle of a run.
+     * Throws IllegalArgumentException describing the problem.
+     */
+    public void validate()
+    {
+        ParameterSpace space = ParameterSpace.parse(parameterSpec);
+        if (space.size() <= 0)
+        {
+            throw new IllegalArgumentException("parameters produce no test cases");
+        }
+        Set<String> names = new HashSet<>(space.names);
+        for (String template : new String[] { inputTemplate, expectedTemplate })
+        {
+            if (template == null)
+            {
+                continue;
+            }
+            Matcher matcher = PLACEHOLDER.matcher(template);
+            while (matcher.find())
+            {
+                String expression = matcher.group(1).trim();
+                if (!names.contains(expression))
+                {
+                    Expression.check(expression, names);
+                }
+            }
+        }
+    }
+
+    // Builds one concrete test case from a set of parameter values
+    // Expressions were checked by validate(), but a value can still make one fail (e.g. ${a/b} with b=0);
+    // such an instance becomes a test case whose body cannot be loaded, which Program records as an error
+    private TestCase createInstance(Map<String, String> values)
+    {
+        StringBuilder instanceTitle = new StringBuilder(title).append(" [");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : values.entrySet())
+        {
+            if (!first)
+            {
+                instanceTitle.append(", ");
+            }
+            instanceTitle.append(entry.getKey()).append('=').append(entry.getValue());
+            first = false;
+        }
+        instanceTitle.append(']');
+
+        TestCase testCase;
+        try
+        {
+            testCase = new TestCase(instanceTitle.toString(),
+                    fillTemplate(inputTemplate, values),
+                    fillTemplate(expectedTemplate, values),
+                    type);
+        }
+        catch (ArithmeticException | IllegalArgumentException e)
+        {
+            String problem = e instanceof ArithmeticException ? "arithmetic error (" + e.getMessage() + ")" : e.getMessage();
+            testCase = TestCase.withBodyLoader(instanceTitle.toString(), type, null, () -> {
+                throw new IOException("Cannot generate instance: " + problem);
+            });
+        }
+        testCase.setDefinitionFilename(getFilename());
+        return testCase;
+    }
+
+    // Replaces every ${expression} of a template with its value
+    private String fillTemplate(String template, Map<String, String> values)
+    {
+        if (template == null || template.isEmpty())
+        {
+            return "";
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuffer filled = new StringBuffer();
+        while (matcher.find())
+        {
+            String expression = matcher.group(1).trim();
+            String value = values.containsKey(expression)
+                    ? values.get(expression)
+                    : new Expression(expression, values).evaluate();
+            matcher.appendReplacement(filled, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(filled);
+        return filled.toString();
+    }
+
+    /**
+     * Save generator to rootFolder/test-cases as a .generator file.
+     */
+    public void saveToFile(String rootFolder) throws IOException
+    {
+        File testCasesFolder = null;
+        File[] folders = new File(rootFolder).listFiles(File::isDirectory);
+        if (folders != null)
+        {
+            for (File folder : folders)
+            {
+                if (folder.getName().equalsIgnoreCase("test-cases"))
+                {
+                    testCasesFolder = folder;
+                }
+            }
+        }
+        if (testCasesFolder == null)
+        {
+            testCasesFolder = new File(rootFolder, "test-cases");
+            testCasesFolder.mkdirs();
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(testCasesFolder, getFilename()))))
+        {
+            writer.println(title);
+            writer.println(type);
+            writer.println(inputTemplate);
+            writer.println(expectedTemplate != null ? expectedTemplate : "");
+            writer.println(parameterSpec);
+        }
+    }
+
+    /**
+     * Load a generator from a .generator file. The parameter line is validated right away.
+     */
+    public static TestCaseGenerator loadFromFile(File generatorFile) throws IOException
+    {
+        List<String> lines = Files.readAllLines(generatorFile.toPath());
+        if (lines.size() < 5)
+        {
+            throw new IOException("Invalid generator file format");
+        }
+        TestCaseGenerator generator = new TestCaseGenerator(
+                lines.get(0).trim(),
+                lines.get(1).trim(),
+                lines.get(2).trim(),
+                lines.get(3).trim(),
+                lines.get(4).trim());
+        try
+        {
+            generator.validate();
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Invalid generator: " + e.getMessage());
+        }
+        return generator;
+    }
+
+    /**
+     * The set of parameter combinations described by the parameter line.
+     * Range mode enumerates every combination (like nested loops, last parameter fastest);
+     * random mode draws count combinations from a seeded Random, so index i always
+     * maps to the same values.
+     */
+    private static class ParameterSpace
+    {
+        private final List<String> names = new ArrayList<>();
+        private final List<List<String>> choices = new ArrayList<>(); // Explicit value lists, or null for ranges
+        private final List<double[]> ranges = new ArrayList<>(); // {low, high, step}, or null for value lists
+        private final List<Boolean> decimal = new ArrayList<>(); // Range uses decimals
+        private boolean random = false;
+        private long seed = 0;
+        private long count = 0;
+
+        static ParameterSpace parse(String spec)
+        {
+            ParameterSpace space = new ParameterSpace();
+            if (spec == null || spec.trim().isEmpty())
+            {
+                throw new IllegalArgumentException("no parameters given");
+            }
+            for (String item : spec.split(";"))
+            {
+                item = item.trim();
+                if (item.isEmpty())
+                {
+                    continue;
+                }
+                if (item.startsWith("random"))
+                {
+                    space.random = true;
+                    for (String setting : item.substring("random".length()).trim().split("\\s+"))
+                    {
+                        if (setting.startsWith("seed="))
+                        {
+                            space.seed = Long.parseLong(setting.substring(5));
+                        }
+                        else if (setting.startsWith("count="))
+                        {
+                            space.count = Long.parseLong(setting.substring(6));
+                        }
+                    }
+                    continue;
+                }
+                space.addParameter(item);
+            }
+            if (space.names.isEmpty())
+            {
+                throw new IllegalArgumentException("no parameters given");
+            }
+            return space;
+        }
+
+        // Parses "name=low..high [step s]" or "name={v1,v2,...}"
+        private void addParameter(String item)
+        {
+            int eq = item.indexOf('=');
+            if (eq <= 0)
+            {
+                throw new IllegalArgumentException("expected name=range in '" + item + "'");
+            }
+            String name = item.substring(0, eq).trim();
+            String definition = item.substring(eq + 1).trim();
+            names.add(name);
+
+            if (definition.startsWith("{") && definition.endsWith("}"))
+            {
+                List<String> values = new ArrayList<>();
+                for (String value : definition.substring(1, definition.length() - 1).split(","))
+                {
+                    values.add(value.trim());
+                }
+                choices.add(values);
+                ranges.add(null);
+                decimal.add(false);
+                return;
+            }
+
+            String step = "1";
+            int stepAt = definition.indexOf("step");
+            if (stepAt >= 0)
+            {
+                step = definition.substring(stepAt + 4).trim();
+                definition = definition.substring(0, stepAt).trim();
+            }
+            int dots = definition.indexOf("..");
+            if (dots < 0)
+            {
+                throw new IllegalArgumentException("expected low..high in '" + item + "'");
+            }
+            String low = definition.substring(0, dots).trim();
+            String high = definition.substring(dots + 2).trim();
+            double[] range = { Double.parseDouble(low), Double.parseDouble(high), Double.parseDouble(step) };
+            if (range[2] <= 0 || range[1] < range[0])
+            {
+                throw new IllegalArgumentException("empty range in '" + item + "'");
+            }
+            choices.add(null);
+            ranges.add(range);
+            decimal.add(low.contains(".") || high.contains(".") || step.contains("."));
+        }
+
+        // Switches to random mode with the given seed and count
+        ParameterSpace randomized(long seed, long count)
+        {
+            this.random = true;
+            this.seed = seed;
+            this.count = count;
+            return this;
+        }
+
+        // Number of values parameter i can take in range mode
+        private long valueCount(int i)
+        {
+            if (choices.get(i) != null)
+            {
+                return choices.get(i).size();
+            }
+            double[] range = ranges.get(i);
+            return (long) Math.floor((range[1] - range[0]) / range[2] + 1e-9) + 1;
+        }
+
+        // Value number k of parameter i, formatted as it appears in templates
+        private String valueAt(int i, long k)
+        {
+            if (choices.get(i) != null)
+            {
+                return choices.get(i).get((int) k);
+            }
+            double value = ranges.get(i)[0] + k * ranges.get(i)[2];
+            return decimal.get(i) ? Double.toString(value) : Long.toString(Math.round(value));
+        }
+
+        long size()
+        {
+            if (random)
+            {
+                return count;
+            }
+            long size = 1;
+            try
+            {
+                for (int i = 0; i < names.size(); i++)
+                {
+                    size = Math.multiplyExact(size, valueCount(i));
+                }
+            }
+            catch (ArithmeticException e)
+            {
+                throw new IllegalArgumentException("parameters produce too many combinations");
+            }
+            return size;
+        }
+
+        // Scrambles nearby seeds; java.util.Random gives almost the same first value for seeds that differ by little
+        private static long mix(long value)
+        {
+            value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+            value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+            return value ^ (value >>> 31);
+        }
+
+        // Parameter values of combination number index
+        Map<String, String> values(long index)
+        {
+            Map<String, String> values = new java.util.LinkedHashMap<>();
+            if (random)
+            {
+                // Seed per index, so instance i is the same no matter how many were generated before
+                Random rng = new Random(mix(seed * 31 + index));
+                for (int i = 0; i < names.size(); i++)
+                {
+                    if (choices.get(i) == null && decimal.get(i))
+                    {
+                        double[] range = ranges.get(i);
+                        values.put(names.get(i), Double.toString(range[0] + rng.nextDouble() * (range[1] - range[0])));
+                    }
+                    else
+                    {
+                        values.put(names.get(i), valueAt(i, (long) (rng.nextDouble() * valueCount(i))));
+                    }
+                }
+                return values;
+            }
+
+            long remaining = index;
+            String[] ordered = new String[names.size()];
+            for (int i = names.size() - 1; i >= 0; i--)
+            {
+                long n = valueCount(i);
+                ordered[i] = valueAt(i, remaining % n);
+                remaining /= n;
+            }
+            for (int i = 0; i < names.size(); i++)
+            {
+                values.put(names.get(i), ordered[i]);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Small arithmetic evaluator for expected-output templates: numbers, parameters,
+     * + - * / %, unary minus and parentheses. Whole numbers use long arithmetic
+     * (so 7/2 is 3, as in the student's Java program); any decimal switches to double.
+     */
+    private static class Expression
+    {
+        private final String text;
+        private final Map<String, String> values;
+        private final Set<String> names; // Set when only checking: the parameters that may appear
+        private int pos = 0;
+
+        Expression(String text, Map<String, String> values)
+        {
+            this(text, values, null);
+        }
+
+        private Expression(String text, Map<String, String> values, Set<String> names)
+        {
+            this.text = text;
+            this.values = values;
+            this.names = names;
+        }
+
+        // Checks the syntax of an expression and that it only names the given parameters, without computing anything
+        static void check(String text, Set<String> names)
+        {
+            new Expression(text, java.util.Collections.emptyMap(), names).evaluate();
+        }
+
+        String evaluate()
+        {
+            Number result = parseSum();
+            skipSpaces();
+            if (pos != text.length())
+            {
+                throw new IllegalArgumentException("Cannot evaluate '" + text + "'");
+            }
+            return result.toString();
+        }
+
+        private Number parseSum()
+        {
+            Number left = parseProduct();
+            while (true)
+            {
+                skipSpaces();
+                if (accept('+'))
+                {
+                    left = apply('+', left, parseProduct());
+                }
+                else if (accept('-'))
+                {
+                    left = apply('-', left, parseProduct());
+                }
+                else
+                {
+                    return left;
+                }
+            }
+        }
+
+        private Number parseProduct()
+        {
+            Number left = parseUnary();
+            while (true)
+            {
+                skipSpaces();
+                if (accept('*'))
+                {
+                    left = apply('*', left, parseUnary());
+                }
+                else if (accept('/'))
+                {
+                    left = apply('/', left, parseUnary());
+                }
+                else if (accept('%'))
+                {
+                    left = apply('%', left, parseUnary());
+                }
+                else
+                {
+                    return left;
+                }
+            }
+        }
+
+        private Number parseUnary()
+        {
+            skipSpaces();
+            if (accept('-'))
+            {
+                return apply('-', 0L, parseUnary());
+            }
+            if (accept('('))
+            {
+                Number inner = parseSum();
+                skipSpaces();
+                if (!accept(')'))
+                {
+                    throw new IllegalArgumentException("Missing ')' in '" + text + "'");
+                }
+                return inner;
+            }
+
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos))
+                    || text.charAt(pos) == '.' || text.charAt(pos) == '_'))
+            {
+                pos++;
+            }
+            String token = text.substring(start, pos);
+            if (token.isEmpty())
+            {
+                throw new IllegalArgumentException("Cannot evaluate '" + text + "'");
+            }
+            if (names != null)
+            {
+                if (names.contains(token))
+                {
+                    return 1L; // Checking only: any number stands in for a parameter
+                }
+                if (!Character.isDigit(token.charAt(0)) && token.charAt(0) != '.')
+                {
+                    throw new IllegalArgumentException("Unknown parameter '" + token + "' in '" + text + "'");
+                }
+            }
+            String literal = values.containsKey(token) ? values.get(token) : token;
+            return parseNumber(literal);
+        }
+
+        private static Number parseNumber(String literal)
+        {
+            try
+            {
+                if (literal.contains(".") || literal.contains("e") || literal.contains("E"))
+                {
+                    return Double.parseDouble(literal);
+                }
+                return Long.parseLong(literal);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("Not a number: '" + literal + "'");
+            }
+        }
+
+        private Number apply(char op, Number a, Number b)
+        {
+            if (names != null)
+            {
+                return a; // Checking only: no arithmetic, so a value that would divide by zero is not an error here
+            }
+            if (a instanceof Long && b instanceof Long)
+            {
+                long x = a.longValue();
+                long y = b.longValue();
+                switch (op)
+                {
+                    case '+': return x + y;
+                    case '-': return x - y;
+                    case '*': return x * y;
+                    case '/': return x / y;
+                    default:  return x % y;
+                }
+            }
+            double x = a.doubleValue();
+            double y = b.doubleValue();
+            switch (op)
+            {
+                case '+': return x + y;
+                case '-': return x - y;
+                case '*': return x * y;
+                case '/': return x / y;
+                default:  return x % y;
+            }
+        }
+
+        private boolean accept(char c)
+        {
+            if (pos < text.length() && text.charAt(pos) == c)
+            {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces()
+        {
+            while (pos < text.length() && text.charAt(pos) == ' ')
+            {
+                pos++;
+            }
+        }
+    }
+}
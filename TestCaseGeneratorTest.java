@@ -0,0 +1,188 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TestCaseGenerator: parameter ranges and value lists, template expressions,
+ * seeded random instances, and the checks run when a generator is created or loaded.
+ */
+public class TestCaseGeneratorTest
+{
+    private File root;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        root = Files.createTempDirectory("generator-test").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(root);
+    }
+
+    @Test
+    public void rangesAreEnumeratedWithTheLastParameterFastest()
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Add", "Int", "${a} ${b}", "${a+b}", "a=1..2; b=-5..5 step 5");
+        assertEquals(6, generator.getInstanceCount());
+
+        List<TestCase> instances = list(generator.instances());
+        assertEquals(6, instances.size());
+        assertEquals("Add [a=1, b=-5]", instances.get(0).getTitle());
+        assertEquals("1 -5", instances.get(0).getInputData());
+        assertEquals("-4", instances.get(0).getExpectedOutput());
+        assertEquals("Add [a=2, b=5]", instances.get(5).getTitle());
+        assertEquals("7", instances.get(5).getExpectedOutput());
+        assertEquals("Add.generator", instances.get(0).getDefinitionFilename());
+    }
+
+    @Test
+    public void valueListsAndDecimalRangesKeepTheirSpelling()
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Mix", "String", "${op} ${x}", "", "op={add, sub}; x=0.5..1.5 step 0.5");
+        List<String> inputs = new ArrayList<>();
+        for (TestCase testCase : generator.instances())
+        {
+            inputs.add(testCase.getInputData());
+        }
+        assertEquals(Arrays.asList("add 0.5", "add 1.0", "add 1.5", "sub 0.5", "sub 1.0", "sub 1.5"), inputs);
+    }
+
+    @Test
+    public void expressionsFollowJavaArithmetic()
+    {
+        assertEquals("3", expected("${7/2}", "a=1..1"));
+        assertEquals("3.5", expected("${7.0/2}", "a=1..1"));
+        assertEquals("-1", expected("${-7%3}", "a=1..1"));
+        assertEquals("14", expected("${2*(a+b)}", "a=3..3; b=4..4"));
+        assertEquals("-2", expected("${-(a - b) * 2}", "a=3..3; b=2..2"));
+        assertEquals("6 and 9", expected("${a*2} and ${a*3}", "a=3..3"));
+    }
+
+    @Test
+    public void randomInstancesAreRepeatableAndInRange()
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Rand", "Int", "${a} ${c}", "${a}", "random seed=42 count=50; a=-10..10; c={x,y}");
+        assertEquals(50, generator.getInstanceCount());
+
+        List<TestCase> first = list(generator.instances());
+        List<TestCase> second = list(generator.instances());
+        assertEquals(50, first.size());
+        for (int i = 0; i < first.size(); i++)
+        {
+            assertEquals(first.get(i).getInputData(), second.get(i).getInputData());
+            String[] parts = first.get(i).getInputData().split(" ");
+            int a = Integer.parseInt(parts[0]);
+            assertTrue(a >= -10 && a <= 10);
+            assertTrue(parts[1].equals("x") || parts[1].equals("y"));
+        }
+    }
+
+    @Test
+    public void fuzzingDrawsFromEnumeratedRangesToo()
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Add", "Int", "${a}", "${a}", "a=1..1000");
+        List<TestCase> drawn = list(generator.randomInstances(7, 20));
+        assertEquals(20, drawn.size());
+        assertEquals(drawn.get(3).getInputData(), list(generator.randomInstances(7, 20)).get(3).getInputData());
+        for (TestCase testCase : drawn)
+        {
+            int a = Integer.parseInt(testCase.getInputData());
+            assertTrue(a >= 1 && a <= 1000);
+        }
+        assertEquals(1000, generator.getInstanceCount()); // The generator itself still enumerates
+    }
+
+    @Test
+    public void instanceThatCannotBeComputedIsAnErrorWhenRead()
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Div", "Int", "${a} ${b}", "${a/b}", "a=1..1; b=0..1");
+        List<TestCase> instances = list(generator.instances());
+        try
+        {
+            instances.get(0).getExpectedOutput();
+            fail("Expected an UncheckedIOException");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertTrue(e.getMessage().contains("arithmetic error"));
+        }
+        assertEquals("1", instances.get(1).getExpectedOutput());
+    }
+
+    @Test
+    public void mistakesAreReportedWhenTheGeneratorIsChecked()
+    {
+        assertInvalid("${a+c}", "a=1..3", "Unknown parameter 'c'");
+        assertInvalid("${(a+1}", "a=1..3", "Missing ')'");
+        assertInvalid("${a}", "a=5..1", "empty range");
+        assertInvalid("${a}", "a", "expected name=range");
+        assertInvalid("${a}", "", "no parameters given");
+        assertInvalid("${a}", "a=1..1000000; b=1..1000000; c=1..1000000; d=1..1000000", "too many combinations");
+    }
+
+    @Test
+    public void generatorSurvivesSaveAndLoad() throws IOException
+    {
+        TestCaseGenerator generator = new TestCaseGenerator("Add two", "Int", "${a},${b}", "${a+b}", "a=1..3; b={0,1}");
+        generator.saveToFile(root.getPath());
+
+        TestCaseGenerator loaded = TestCaseGenerator.loadFromFile(new File(root, "test-cases/Add_two.generator"));
+        assertEquals("${a},${b}", loaded.getInputTemplate());
+        assertEquals("${a+b}", loaded.getExpectedTemplate());
+        assertEquals(6, loaded.getInstanceCount());
+
+        Files.write(new File(root, "test-cases/Bad.generator").toPath(), "Bad\nInt\n${a}\n${z}\na=1..2\n".getBytes("UTF-8"));
+        try
+        {
+            TestCaseGenerator.loadFromFile(new File(root, "test-cases/Bad.generator"));
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().startsWith("Invalid generator"));
+        }
+    }
+
+    private static String expected(String template, String parameters)
+    {
+        return new TestCaseGenerator("E", "String", "", template, parameters).instances().iterator().next().getExpectedOutput();
+    }
+
+    private static void assertInvalid(String template, String parameters, String message)
+    {
+        try
+        {
+            new TestCaseGenerator("Bad", "Int", "", template, parameters).validate();
+            fail("Expected an IllegalArgumentException for " + parameters);
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private static List<TestCase> list(Iterable<TestCase> testCases)
+    {
+        List<TestCase> list = new ArrayList<>();
+        for (TestCase testCase : testCases)
+        {
+            list.add(testCase);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,210 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TestCase files: loading only the metadata and reading the body on demand, values
+ * that need escapes, and sidecar files for large values through saves, renames and deletes.
+ */
+public class TestCaseTest
+{
+    private File root;
+    private File testCasesFolder;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        root = Files.createTempDirectory("test-case-test").toFile();
+        testCasesFolder = new File(root, "test-cases");
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResultsFileTest.deleteRecursively(root);
+    }
+
+    @Test
+    public void metadataLoadLeavesTheBodyOnDisk() throws IOException
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(root.getPath());
+        File file = new File(testCasesFolder, "Sum.testcase");
+
+        TestCase loaded = TestCase.loadMetadataFromFile(file);
+        assertEquals("Sum", loaded.getTitle());
+        assertEquals("Int", loaded.getType());
+        assertTrue(!loaded.isBodyLoaded());
+
+        assertEquals("1 2", loaded.getInputData());
+        assertEquals("3", loaded.getExpectedOutput());
+        assertTrue(!loaded.isBodyLoaded()); // Read through the cache, not kept in the object
+    }
+
+    @Test
+    public void editingPinsTheBodyInMemory() throws IOException
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(root.getPath());
+        File file = new File(testCasesFolder, "Sum.testcase");
+        TestCase loaded = TestCase.loadMetadataFromFile(file);
+
+        loaded.setExpectedOutput("4");
+        assertTrue(loaded.isBodyLoaded());
+        assertTrue(file.delete());
+        assertEquals("1 2", loaded.getInputData()); // The file is gone, the edit is not
+        assertEquals("4", loaded.getExpectedOutput());
+    }
+
+    @Test
+    public void unreadableBodyIsAnErrorNotAnEmptyTestCase() throws IOException
+    {
+        File file = new File(root, "Broken.testcase");
+        Files.write(file.toPath(), "Broken\nString\n".getBytes(StandardCharsets.UTF_8));
+
+        TestCase loaded = TestCase.loadMetadataFromFile(file);
+        try
+        {
+            loaded.getExpectedOutput();
+            fail("Expected an UncheckedIOException");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertTrue(e.getMessage().contains("Broken.testcase"));
+        }
+    }
+
+    @Test
+    public void changedTypeRecompilesTheExpectation() throws IOException
+    {
+        new TestCase("Area", "2", "3.14", "String").saveToFile(root.getPath());
+        TestCase loaded = TestCase.loadMetadataFromFile(new File(testCasesFolder, "Area.testcase"));
+        assertTrue(!loaded.getExpectation().matches("3.1400001"));
+
+        loaded.setType("Double");
+        assertTrue(loaded.getExpectation().matches("3.1400001"));
+        assertTrue(!loaded.isBodyLoaded()); // Still read from the file
+    }
+
+    @Test
+    public void fileWithoutTitleAndTypeIsRejected() throws IOException
+    {
+        File file = new File(root, "Empty.testcase");
+        Files.write(file.toPath(), "Only a title\n".getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            TestCase.loadMetadataFromFile(file);
+            fail("Expected an IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("Invalid test case file format"));
+        }
+    }
+
+    @Test
+    public void valuesThatNeedEscapesSurviveSaveAndLoad() throws IOException
+    {
+        List<String> values = Arrays.asList("1 2\n3 4\n", "  padded  ", "tab\there", "C:\\new\\table",
+                "\\n is not a line break", "@text:literal", "\r\n", "", "bell\u0007", "\u00e9t\u00e9");
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++)
+        {
+            String value = values.get(i);
+            new TestCase("Case " + i, value, value, "String").saveToFile(root.getPath());
+            titles.add("Case_" + i + ".testcase");
+        }
+
+        for (int i = 0; i < values.size(); i++)
+        {
+            File file = new File(testCasesFolder, titles.get(i));
+            assertEquals(4, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+            TestCase loaded = TestCase.loadFromFile(file);
+            assertEquals(values.get(i), loaded.getInputData());
+            assertEquals(values.get(i), loaded.getExpectedOutput());
+            assertEquals(values.get(i), TestCase.loadMetadataFromFile(file).getExpectedOutput());
+        }
+    }
+
+    @Test
+    public void onlyValuesOneLineCannotHoldAreEscaped() throws IOException
+    {
+        File unused = new File(root, "unused.in");
+        assertEquals("1 2", TestCase.lineOrFileReference("1 2", unused));
+        assertEquals("C:\\temp", TestCase.lineOrFileReference("C:\\temp", unused));
+        assertEquals("@text:a\\nb\\\\c\\s", TestCase.lineOrFileReference("a\nb\\c ", unused));
+        assertTrue(!unused.exists());
+        assertEquals("a\nb\\c ", TestCase.lineValue("@text:a\\nb\\\\c\\s"));
+        assertEquals("written by hand", TestCase.lineValue("written by hand"));
+    }
+
+    @Test
+    public void largeValueGoesToASidecarThatFollowsTheTestCase() throws IOException
+    {
+        String large = ResultsFileTest.repeat("0123456789\n", TestCase.SIDECAR_CHARS / 11 + 1);
+        TestCase testCase = new TestCase("Big", large, "done", "String");
+        testCase.saveToFile(root.getPath());
+
+        File sidecar = new File(testCasesFolder, "Big.in");
+        assertEquals(large, new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.UTF_8));
+        TestCase loaded = TestCase.loadFromFile(new File(testCasesFolder, "Big.testcase"));
+        assertEquals(TestCase.FILE_REFERENCE_PREFIX + "Big.in", loaded.getInputData());
+        assertEquals(sidecar.getAbsoluteFile(), loaded.getInputFile());
+        assertNull(loaded.getExpectedFile());
+
+        testCase.setInputData("small again");
+        testCase.saveToFile(root.getPath());
+        assertTrue(!sidecar.exists()); // No longer referenced
+    }
+
+    @Test
+    public void renamedTestCaseTakesItsSidecarAlong() throws IOException
+    {
+        String large = ResultsFileTest.repeat("x", TestCase.SIDECAR_CHARS + 1);
+        new TestCase("Old", "1", large, "String").saveToFile(root.getPath());
+        TestCase loaded = TestCase.loadFromFile(new File(testCasesFolder, "Old.testcase"));
+        ListOfTestCases list = new ListOfTestCases();
+        list.addTestCase(loaded);
+
+        list.updateTestCase(loaded, "New", loaded.getInputData(), loaded.getExpectedOutput(), loaded.getType());
+        loaded.saveRenamedToFile(root.getPath(), "Old.testcase");
+
+        assertTrue(!new File(testCasesFolder, "Old.testcase").exists());
+        assertTrue(!new File(testCasesFolder, "Old.expected").exists());
+        TestCase renamed = TestCase.loadFromFile(new File(testCasesFolder, "New.testcase"));
+        assertEquals(TestCase.FILE_REFERENCE_PREFIX + "New.expected", renamed.getExpectedOutput());
+        assertEquals(large, new String(Files.readAllBytes(renamed.getExpectedFile().toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deletingATestCaseRemovesItsSidecars() throws IOException
+    {
+        String large = ResultsFileTest.repeat("x", TestCase.SIDECAR_CHARS + 1);
+        new TestCase("Big", large, large, "String").saveToFile(root.getPath());
+        assertTrue(new File(testCasesFolder, "Big.expected").exists());
+
+        TestCase.deleteSavedFiles(testCasesFolder, "Big.testcase");
+        assertEquals(0, testCasesFolder.list().length);
+    }
+
+    @Test
+    public void sidecarNamesMapToTheirTestCase()
+    {
+        assertEquals("Big.testcase", TestCase.sidecarOwner("Big.in"));
+        assertEquals("Big.testcase", TestCase.sidecarOwner("Big.expected"));
+        assertNull(TestCase.sidecarOwner("Big.testcase"));
+        assertNull(TestCase.sidecarOwner(".in"));
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps the in-memory test cases and suites in step with the test-cases/ and
+ * test-suites/ folders while the application is running. When a TA edits a file
+ * on the shared drive, only that one file is reloaded (or removed) and the
+ * listener is told exactly which test cases and suites changed.
+ */
+public class TestDefinitionWatcher
+{
+    /**
+     * Notified (on a watcher thread) after the lists have been updated.
+     */
+    public interface Listener
+    {
+        // changedFilenames holds test case (or generator) filenames whose content (or sidecar file) changed or that were removed
+        void testCasesChanged(Set<String> changedFilenames);
+
+        // changedSuites holds suite filenames that were added, modified or removed
+        void testSuitesChanged(Set<String> changedSuiteFilenames);
+    }
+
+    // Editors often save in several steps (truncate, write, rename), so wait for the file to settle
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final ListOfTestCases listOfTestCases;
+    private final ListOfTestCaseGenerators listOfGenerators;
+    private final ListOfTestSuites listOfTestSuites;
+    private final Listener listener;
+    private FolderWatcher testCaseWatcher; // Watches test-cases/, null if the folder is missing
+    private FolderWatcher suiteWatcher; // Watches test-suites/, null if the folder is missing
+    private File testCasesFolder;
+    private File suitesFolder;
+    private int session = 0; // Bumped by stop(), so changes still pending for a stopped watch are ignored
+
+    /**
+     * Constructor: prepares a watcher that updates the given lists. Call start() to begin.
+     */
+    public TestDefinitionWatcher(ListOfTestCases listOfTestCases, ListOfTestCaseGenerators listOfGenerators,
+                                 ListOfTestSuites listOfTestSuites, Listener listener)
+    {
+        this.listOfTestCases = listOfTestCases;
+        this.listOfGenerators = listOfGenerators;
+        this.listOfTestSuites = listOfTestSuites;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching the given test-cases and test-suites folders.
+     * Either folder may be null or missing, in which case it is simply not watched.
+     */
+    public synchronized void start(File testCasesFolder, File suitesFolder) throws IOException
+    {
+        stop();
+        this.testCasesFolder = testCasesFolder;
+        this.suitesFolder = suitesFolder;
+
+        int started = session;
+        if (testCasesFolder != null && testCasesFolder.isDirectory())
+        {
+            testCaseWatcher = new FolderWatcher(testCasesFolder, DEBOUNCE_MILLIS, names -> reloadTestCases(started, names));
+            testCaseWatcher.start();
+        }
+        if (suitesFolder != null && suitesFolder.isDirectory())
+        {
+            suiteWatcher = new FolderWatcher(suitesFolder, DEBOUNCE_MILLIS, names -> reloadSuites(started, names));
+            suiteWatcher.start();
+        }
+    }
+
+    /**
+     * Stops watching both folders. Waits for a reload in progress, and none starts afterwards,
+     * so the lists can be cleared safely once this returns.
+     */
+    public synchronized void stop()
+    {
+        session++;
+        if (testCaseWatcher != null)
+        {
+            testCaseWatcher.stop();
+            testCaseWatcher = null;
+        }
+        if (suiteWatcher != null)
+        {
+            suiteWatcher.stop();
+            suiteWatcher = null;
+        }
+    }
+
+    // Reloads each changed .testcase (or .generator) file on its own and reports the ones whose content really changed
+    private void reloadTestCases(int started, Set<String> names)
+    {
+        Set<String> changed = new LinkedHashSet<>();
+        synchronized (this)
+        {
+            if (started != session)
+            {
+                return; // Stopped, or restarted on another folder, while these changes were pending
+            }
+            for (String name : names)
+            {
+                if (name.endsWith(".generator"))
+                {
+                    reloadGenerator(name, changed);
+                    continue;
+                }
+                if (!name.endsWith(".testcase"))
+                {
+                    String owner = TestCase.sidecarOwner(name);
+                    if (owner != null)
+                    {
+                        reloadSidecarOwner(name, owner, changed);
+                    }
+                    continue;
+                }
+
+                File file = new File(testCasesFolder, name);
+                if (!file.exists())
+                {
+                    if (listOfTestCases.removeTestCaseByFilename(name) != null)
+                    {
+                        changed.add(name);
+                    }
+                    continue;
+                }
+
+                try
+                {
+                    TestCase loaded = TestCase.loadFromFile(file);
+                    TestCase previous = listOfTestCases.replaceTestCase(loaded);
+                    // Our own saves also land here; skip them when nothing actually changed
+                    if (previous == null || !sameDefinition(previous, loaded))
+                    {
+                        changed.add(loaded.getFilename());
+                    }
+                }
+                catch (IOException e)
+                {
+                    // Half-written file; the next modification event will retry
+                    System.err.println("Error reloading test case: " + name + " - " + e.getMessage());
+                }
+            }
+        }
+
+        if (!changed.isEmpty() && listener != null)
+        {
+            listener.testCasesChanged(changed);
+        }
+    }
+
+    // A changed name.in / name.expected reloads name.testcase if that refers to it: the .testcase file itself
+    // is unchanged, but the test case is replaced so the new content is read (and its expected output compiled again)
+    private void reloadSidecarOwner(String sidecarName, String owner, Set<String> changed)
+    {
+        File file = new File(testCasesFolder, owner);
+        if (changed.contains(owner) || !file.exists() || listOfTestCases.getTestCaseByFilename(owner) == null)
+        {
+            return;
+        }
+
+        try
+        {
+            TestCase loaded = TestCase.loadFromFile(file);
+            File sidecar = new File(testCasesFolder, sidecarName).getAbsoluteFile();
+            if (sidecar.equals(loaded.getInputFile()) || sidecar.equals(loaded.getExpectedFile()))
+            {
+                listOfTestCases.replaceTestCase(loaded);
+                changed.add(owner);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reloading test case: " + owner + " - " + e.getMessage());
+        }
+    }
+
+    // Reloads one .generator file; any change to it affects all of its instances
+    private void reloadGenerator(String name, Set<String> changed)
+    {
+        File file = new File(testCasesFolder, name);
+        if (!file.exists())
+        {
+            if (listOfGenerators.removeGeneratorByFilename(name) != null)
+            {
+                changed.add(name);
+            }
+            return;
+        }
+
+        try
+        {
+            TestCaseGenerator loaded = TestCaseGenerator.loadFromFile(file);
+            listOfGenerators.addGenerator(loaded);
+            changed.add(loaded.getFilename());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error reloading generator: " + name + " - " + e.getMessage());
+        }
+    }
+
+    // Reloads each changed .suite file on its own
+    private void reloadSuites(int started, Set<String> names)
+    {
+        Set<String> changed = new LinkedHashSet<>();
+        synchronized (this)
+        {
+            if (started != session)
+            {
+                return; // Stopped, or restarted on another folder, while these changes were pending
+            }
+            for (String name : names)
+            {
+                if (!name.endsWith(".suite"))
+                {
+                    continue;
+                }
+
+                File file = new File(suitesFolder, name);
+                if (!file.exists())
+                {
+                    if (listOfTestSuites.removeSuiteByFilename(name) != null)
+                    {
+                        changed.add(name);
+                    }
+                    continue;
+                }
+
+                try
+                {
+                    TestSuite loaded = TestSuite.loadFromFile(file);
+                    TestSuite previous = listOfTestSuites.replaceSuite(loaded);
+                    if (previous == null || !previous.getTestCaseFilenames().equals(loaded.getTestCaseFilenames()))
+                    {
+                        changed.add(loaded.getFilename());
+                    }
+                }
+                catch (IOException e)
+                {
+                    System.err.println("Error reloading test suite: " + name + " - " + e.getMessage());
+                }
+            }
+        }
+
+        if (!changed.isEmpty() && listener != null)
+        {
+            listener.testSuitesChanged(changed);
+        }
+    }
+
+    // Compares every field that influences grading
+    private boolean sameDefinition(TestCase a, TestCase b)
+    {
+        try
+        {
+            return a.getTitle().equals(b.getTitle())
+                    && String.valueOf(a.getType()).equals(String.valueOf(b.getType()))
+                    && String.valueOf(a.getInputData()).equals(String.valueOf(b.getInputData()))
+                    && String.valueOf(a.getExpectedOutput()).equals(String.valueOf(b.getExpectedOutput()));
+        }
+        catch (UncheckedIOException e)
+        {
+            return false; // One side cannot be read, so treat it as changed
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TestDefinitionWatcher: single files are reloaded or removed as they change on
+ * disk, saves that change nothing are not reported, and a stopped watch changes nothing.
+ * An edited sidecar file reloads the test case that refers to it.
+ */
+public class TestDefinitionWatcherTest
+{
+    private static final long QUIET_MILLIS = 1500; // Well past the watcher's debounce period
+
+    private File root;
+    private File testCasesFolder;
+    private File suitesFolder;
+    private ListOfTestCases testCases;
+    private ListOfTestCaseGenerators generators;
+    private ListOfTestSuites suites;
+    private TestDefinitionWatcher watcher;
+    private final BlockingQueue<Set<String>> changedTestCases = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Set<String>> changedSuites = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws IOException
+    {
+        root = Files.createTempDirectory("definition-watcher-test").toFile();
+        testCasesFolder = new File(root, "test-cases");
+        suitesFolder = new File(root, "test-suites");
+        assertTrue(testCasesFolder.mkdir() && suitesFolder.mkdir());
+
+        testCases = new ListOfTestCases();
+        generators = new ListOfTestCaseGenerators();
+        suites = new ListOfTestSuites();
+        watcher = new TestDefinitionWatcher(testCases, generators, suites, new TestDefinitionWatcher.Listener()
+        {
+            @Override
+            public void testCasesChanged(Set<String> changedFilenames)
+            {
+                changedTestCases.add(changedFilenames);
+            }
+
+            @Override
+            public void testSuitesChanged(Set<String> changedSuiteFilenames)
+            {
+                changedSuites.add(changedSuiteFilenames);
+            }
+        });
+    }
+
+    @After
+    public void tearDown()
+    {
+        watcher.stop();
+        ResultsFileTest.deleteRecursively(root);
+    }
+
+    @Test
+    public void editedTestCaseIsReloadedAndReported() throws Exception
+    {
+        TestCase original = new TestCase("Sum", "1 2", "3", "Int");
+        original.saveToFile(root.getPath());
+        testCases.addTestCase(TestCase.loadFromFile(new File(testCasesFolder, "Sum.testcase")));
+        watcher.start(testCasesFolder, suitesFolder);
+
+        new TestCase("Sum", "1 2", "4", "Int").saveToFile(root.getPath());
+        assertEquals(Collections.singleton("Sum.testcase"), changedTestCases.poll(10, TimeUnit.SECONDS));
+        assertEquals("4", testCases.getTestCaseByTitle("Sum").getExpectedOutput());
+        assertEquals(1, testCases.getTestCases().size());
+    }
+
+    @Test
+    public void savingTheSameDefinitionAgainIsNotReported() throws Exception
+    {
+        TestCase testCase = new TestCase("Sum", "1 2", "3", "Int");
+        testCase.saveToFile(root.getPath());
+        testCases.addTestCase(TestCase.loadFromFile(new File(testCasesFolder, "Sum.testcase")));
+        watcher.start(testCasesFolder, suitesFolder);
+
+        testCase.saveToFile(root.getPath()); // e.g. the application's own save
+        assertNull(changedTestCases.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void deletedTestCaseIsRemoved() throws Exception
+    {
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(root.getPath());
+        testCases.addTestCase(TestCase.loadFromFile(new File(testCasesFolder, "Sum.testcase")));
+        watcher.start(testCasesFolder, suitesFolder);
+
+        assertTrue(new File(testCasesFolder, "Sum.testcase").delete());
+        assertEquals(Collections.singleton("Sum.testcase"), changedTestCases.poll(10, TimeUnit.SECONDS));
+        assertNull(testCases.getTestCaseByFilename("Sum.testcase"));
+    }
+
+    @Test
+    public void editedGeneratorIsReloaded() throws Exception
+    {
+        watcher.start(testCasesFolder, suitesFolder);
+        new TestCaseGenerator("Add", "Int", "${a} ${b}", "${a+b}", "a=1..3; b=1..2").saveToFile(root.getPath());
+
+        assertEquals(Collections.singleton("Add.generator"), changedTestCases.poll(10, TimeUnit.SECONDS));
+        assertEquals(6, generators.getGeneratorByFilename("Add.generator").getInstanceCount());
+    }
+
+    @Test
+    public void suiteChangesAreReloadedAndReported() throws Exception
+    {
+        watcher.start(testCasesFolder, suitesFolder);
+        TestSuite suite = new TestSuite("Week 1");
+        suite.addTestCaseFilename("Sum.testcase");
+        suite.saveToFile(root.getPath());
+
+        assertEquals(Collections.singleton("Week_1.suite"), changedSuites.poll(10, TimeUnit.SECONDS));
+        TestSuite loaded = suites.findSuiteByTitle("Week 1");
+        assertNotNull(loaded);
+        assertTrue(loaded.containsTestCaseFilename("Sum.testcase"));
+
+        assertTrue(new File(suitesFolder, "Week_1.suite").delete());
+        assertEquals(Collections.singleton("Week_1.suite"), changedSuites.poll(10, TimeUnit.SECONDS));
+        assertTrue(suites.getSuites().isEmpty());
+    }
+
+    @Test
+    public void editedSidecarReloadsTheTestCaseThatUsesIt() throws Exception
+    {
+        String large = ResultsFileTest.repeat("x", TestCase.SIDECAR_CHARS + 1);
+        new TestCase("Big", "1", large, "String").saveToFile(root.getPath());
+        testCases.addTestCase(TestCase.loadFromFile(new File(testCasesFolder, "Big.testcase")));
+        watcher.start(testCasesFolder, suitesFolder);
+
+        TestCase before = testCases.getTestCaseByFilename("Big.testcase");
+        Files.write(new File(testCasesFolder, "Big.expected").toPath(), "short now".getBytes("UTF-8"));
+        assertEquals(Collections.singleton("Big.testcase"), changedTestCases.poll(10, TimeUnit.SECONDS));
+        assertTrue(testCases.getTestCaseByFilename("Big.testcase") != before); // Replaced, so compiled anew
+    }
+
+    @Test
+    public void stoppedWatchLeavesTheListsAlone() throws Exception
+    {
+        watcher.start(testCasesFolder, suitesFolder);
+        watcher.stop();
+
+        new TestCase("Sum", "1 2", "3", "Int").saveToFile(root.getPath());
+        assertNull(changedTestCases.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(testCases.getTestCases().isEmpty());
+    }
+}
@@ -1,6 +1,10 @@
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Stores ALL results of running an entire test suite against all students' programs.
@@ -22,11 +26,72 @@ public class TestExecutionResults implements Serializable
     private String codePath;         // Path inside each student folder where code files are located
 
     // The full list of individual test results (one per student per test case)
+    // Never changed in place: a regrade swaps in a new list, so views handed out stay consistent
     private List<TestResult> results;
 
     // The number of test cases in the suite (calculated automatically)
     private int totalTestCases;
 
+    // Full-text index over the actual outputs, saved with the results (null in files saved before it existed)
+    private OutputSearchIndex searchIndex;
+
+    // Reads the saved index when it is first needed (results opened from a ResultsStore)
+    private transient Supplier<OutputSearchIndex> searchIndexLoader;
+
+    // Per-student aggregates of the current results, worked out on first use
+    private transient Map<String, StudentSummary> studentSummaries;
+
+    /**
+     * Counts of one student's results by status, their credit, and the results themselves.
+     */
+    public static class StudentSummary
+    {
+        private final String studentName;
+        private final List<TestResult> results = new ArrayList<>();
+        private final int[] counts = new int[ResultStatus.values().length];
+        private double credit;
+
+        private StudentSummary(String studentName)
+        {
+            this.studentName = studentName;
+        }
+
+        private void add(TestResult result)
+        {
+            results.add(result);
+            counts[result.getResultStatus().ordinal()]++;
+            credit += result.getCredit();
+        }
+
+        public String getStudentName() { return studentName; }
+        public int getCount(ResultStatus status) { return counts[status.ordinal()]; }
+        public double getCredit() { return credit; }
+
+        /**
+         * Returns the student's results in run order (read-only).
+         */
+        public List<TestResult> getResults()
+        {
+            return Collections.unmodifiableList(results);
+        }
+
+        /**
+         * Number of results that count as test cases (all but SKIPPED entries).
+         */
+        public int getGradedCount()
+        {
+            return results.size() - getCount(ResultStatus.SKIPPED);
+        }
+
+        /**
+         * True if the student has graded results and every one of them is a compile error.
+         */
+        public boolean isAllCompileErrors()
+        {
+            return getGradedCount() > 0 && getCount(ResultStatus.COMPILE_ERROR) == getGradedCount();
+        }
+    }
+
     /**
      * Creates a TestExecutionResults object containing metadata and the full list of results.
      *
@@ -66,9 +131,128 @@ public class TestExecutionResults implements Serializable
     public String getCodePath() { return codePath; }
 
     /**
-     * Returns a COPY of the results list so callers cannot modify the internal list.
+     * Returns a read-only view of the results. The view does not change if watch mode
+     * regrades a student afterwards (call again for the new results).
+     */
+    public synchronized List<TestResult> getResults() { return Collections.unmodifiableList(results); }
+
+    /**
+     * Returns the aggregates of every student, in run order (read-only, computed once).
      */
-    public List<TestResult> getResults() { return new ArrayList<>(results); }
+    public synchronized Map<String, StudentSummary> getStudentSummaries()
+    {
+        if (studentSummaries == null)
+        {
+            Map<String, StudentSummary> summaries = new LinkedHashMap<>();
+            for (TestResult result : results)
+            {
+                summaries.computeIfAbsent(result.getStudentName(), StudentSummary::new).add(result);
+            }
+            studentSummaries = Collections.unmodifiableMap(summaries);
+        }
+        return studentSummaries;
+    }
+
+    /**
+     * Returns how many results have a status, over all students.
+     */
+    public synchronized int getStatusCount(ResultStatus status)
+    {
+        int count = 0;
+        for (StudentSummary summary : getStudentSummaries().values())
+        {
+            count += summary.getCount(status);
+        }
+        return count;
+    }
 
-    public int getTotalTestCases() { return totalTestCases; }
+    public synchronized int getTotalTestCases() { return totalTestCases; }
+
+    /**
+     * Returns the search index over the outputs, building it now if these results were
+     * created (or saved) without one.
+     */
+    public synchronized OutputSearchIndex getSearchIndex()
+    {
+        if (searchIndex == null && searchIndexLoader != null)
+        {
+            useSearchIndex(searchIndexLoader.get());
+            searchIndexLoader = null;
+        }
+        if (searchIndex == null)
+        {
+            searchIndex = new OutputSearchIndex();
+            for (TestResult result : results)
+            {
+                searchIndex.add(result);
+            }
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Uses an index built while the run executed, if it holds exactly these results.
+     * Returns false (and keeps building lazily) otherwise.
+     */
+    public synchronized boolean useSearchIndex(OutputSearchIndex index)
+    {
+        if (index == null || !index.covers(results))
+        {
+            return false;
+        }
+        searchIndex = index;
+        return true;
+    }
+
+    /**
+     * Sets where the saved search index is read from the first time it is needed.
+     */
+    synchronized void setSearchIndexLoader(Supplier<OutputSearchIndex> loader)
+    {
+        searchIndexLoader = loader;
+    }
+
+    /**
+     * Returns the results of one student, in run order.
+     */
+    public synchronized List<TestResult> getStudentResults(String studentName)
+    {
+        StudentSummary summary = getStudentSummaries().get(studentName);
+        return summary != null ? summary.getResults() : Collections.<TestResult>emptyList();
+    }
+
+    /**
+     * Replaces every result of one student with a fresh set of results.
+     * Used by watch mode, where a single submission is regraded while the run stays live.
+     * A student that had no results yet is appended at the end.
+     */
+    public synchronized void replaceStudentResults(String studentName, List<TestResult> newResults)
+    {
+        // Keep the student's position in the list so the UI does not jump around
+        int insertAt = -1;
+        for (int i = 0; i < results.size(); i++)
+        {
+            if (results.get(i).getStudentName().equals(studentName))
+            {
+                insertAt = i;
+                break;
+            }
+        }
+        List<TestResult> updated = new ArrayList<>(results);
+        updated.removeIf(r -> r.getStudentName().equals(studentName));
+        if (insertAt < 0 || insertAt > updated.size())
+        {
+            insertAt = updated.size();
+        }
+        updated.addAll(insertAt, newResults);
+        results = updated;
+        searchIndex = null; // Rebuilt on next use
+        searchIndexLoader = null;
+        studentSummaries = null;
+
+        totalTestCases = (int) results.stream()
+                .map(TestResult::getTestCaseTitle)
+                .distinct()
+                .count();
+    }
 }
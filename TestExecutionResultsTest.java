@@ -0,0 +1,124 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the result model: ResultStatus, credit, per-student aggregates, read-only views
+ * and a watch-mode regrade replacing one student's results.
+ */
+public class TestExecutionResultsTest
+{
+    @Test
+    public void statusTextMapsToTheEnum()
+    {
+        for (ResultStatus status : ResultStatus.values())
+        {
+            assertSame(status, ResultStatus.of(status.getLabel()));
+        }
+        assertSame(ResultStatus.COMPILE_ERROR, ResultStatus.of("COMPILE ERROR"));
+        assertSame(ResultStatus.SKIPPED, ResultStatus.of("SKIPPED - NO MAIN METHOD"));
+        assertSame(ResultStatus.OTHER, ResultStatus.of("passed"));
+        assertSame(ResultStatus.OTHER, ResultStatus.of(null));
+
+        TestResult skipped = result("alice", "T1", "SKIPPED - NO MAIN METHOD", null);
+        assertSame(ResultStatus.SKIPPED, skipped.getResultStatus());
+        assertEquals("SKIPPED - NO MAIN METHOD", skipped.getStatus()); // The text is kept as created
+    }
+
+    @Test
+    public void onlyPassedAndScoredFailuresEarnCredit()
+    {
+        assertEquals(1.0, result("a", "T", "PASSED", null).getCredit(), 0);
+        assertEquals(0.4, result("a", "T", "FAILED", 0.4).getCredit(), 0);
+        assertEquals(0.0, result("a", "T", "FAILED", null).getCredit(), 0);
+        assertEquals(0.0, result("a", "T", "RUNTIME ERROR", 0.9).getCredit(), 0);
+    }
+
+    @Test
+    public void studentsAreSummarizedInRunOrder()
+    {
+        TestExecutionResults results = sample();
+        assertEquals(Arrays.asList("alice", "bob", "carol"), new ArrayList<>(results.getStudentSummaries().keySet()));
+
+        TestExecutionResults.StudentSummary alice = results.getStudentSummaries().get("alice");
+        assertEquals(1, alice.getCount(ResultStatus.PASSED));
+        assertEquals(1, alice.getCount(ResultStatus.FAILED));
+        assertEquals(1.5, alice.getCredit(), 1e-9);
+        assertEquals(2, alice.getGradedCount());
+        assertTrue(!alice.isAllCompileErrors());
+
+        TestExecutionResults.StudentSummary bob = results.getStudentSummaries().get("bob");
+        assertTrue(bob.isAllCompileErrors());
+        assertEquals(0, results.getStudentSummaries().get("carol").getGradedCount()); // Skipped only
+
+        assertEquals(2, results.getStatusCount(ResultStatus.COMPILE_ERROR));
+        assertEquals(2, results.getTotalTestCases());
+        assertEquals(2, results.getStudentResults("alice").size());
+        assertTrue(results.getStudentResults("nobody").isEmpty());
+    }
+
+    @Test
+    public void viewsAreReadOnlyAndIndependentOfTheCallersList()
+    {
+        List<TestResult> list = new ArrayList<>(sample().getResults());
+        TestExecutionResults results = new TestExecutionResults("Suite", "/submissions", "src", list);
+        list.clear();
+        assertEquals(5, results.getResults().size());
+        try
+        {
+            results.getResults().remove(0);
+            fail("Expected an UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // Read-only, as documented
+        }
+    }
+
+    @Test
+    public void regradeReplacesOneStudentInPlace()
+    {
+        TestExecutionResults results = sample();
+        List<TestResult> before = results.getResults();
+        results.getSearchIndex();
+
+        results.replaceStudentResults("bob", Arrays.asList(result("bob", "T1", "PASSED", null), result("bob", "T3", "PASSED", null)));
+        results.replaceStudentResults("dave", Arrays.asList(result("dave", "T1", "FAILED", 0.1)));
+
+        List<String> order = new ArrayList<>();
+        for (TestResult result : results.getResults())
+        {
+            order.add(result.getStudentName() + "/" + result.getTestCaseTitle());
+        }
+        assertEquals(Arrays.asList("alice/T1", "alice/T2", "bob/T1", "bob/T3", "carol/T1", "dave/T1"), order);
+        assertEquals(5, before.size()); // A view handed out earlier does not change
+        assertEquals("COMPILE ERROR", before.get(2).getStatus());
+
+        assertTrue(!results.getStudentSummaries().get("bob").isAllCompileErrors());
+        assertEquals(2.0, results.getStudentSummaries().get("bob").getCredit(), 1e-9);
+        assertEquals(3, results.getTotalTestCases());
+        assertTrue(results.getSearchIndex().covers(results.getResults()));
+    }
+
+    private static TestExecutionResults sample()
+    {
+        return new TestExecutionResults("Suite", "/submissions", "src", Arrays.asList(
+                result("alice", "T1", "PASSED", null),
+                result("alice", "T2", "FAILED", 0.5),
+                result("bob", "T1", "COMPILE ERROR", null),
+                result("bob", "T2", "COMPILE ERROR", null),
+                result("carol", "T1", "SKIPPED - NO MAIN METHOD", null)));
+    }
+
+    private static TestResult result(String student, String testCase, String status, Double similarity)
+    {
+        return new TestResult(student, testCase, status, "out", "expected", similarity);
+    }
+}
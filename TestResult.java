@@ -1,4 +1,8 @@
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 /**
  * Represents the result of running ONE test case for ONE student.
@@ -17,6 +21,25 @@ public class TestResult implements Serializable
     private String status;           // PASSED, FAILED, COMPILE ERROR, RUNTIME ERROR, SKIPPED
     private String actualOutput;     // What the student's program produced
     private String expectedOutput;   // What the program SHOULD have produced
+    private Double similarity;       // Partial credit 0.0-1.0 for failed results (null if not scored)
+    private String errorOutput;      // What the program wrote to stderr (null for results saved before it was kept)
+    private transient ResultStatus resultStatus; // status as an enum, worked out on first use
+    private transient SpilledOutput spilledActual; // Set instead of actualOutput for very large outputs
+    private transient File expectedFile; // Set instead of expectedOutput when the test case keeps it in a file
+
+    // Outputs of a result opened from a results file stay on disk until asked for (see ResultsStore)
+    private transient OutputLoader outputLoader;
+    private transient int actualNumber;
+    private transient int expectedNumber;
+    private transient int errorNumber;
+
+    /**
+     * Fetches an output by its number in a results file (0 stands for null).
+     */
+    interface OutputLoader
+    {
+        String loadOutput(int number);
+    }
 
     /**
      * Constructor: creates a new TestResult object with all required information.
@@ -31,29 +54,290 @@ public class TestResult implements Serializable
         this.expectedOutput = expectedOutput;
     }
 
+    /**
+     * Constructor: creates a TestResult with a similarity score (see OutputSimilarity).
+     */
+    public TestResult(String studentName, String testCaseTitle, String status,
+                      String actualOutput, String expectedOutput, Double similarity)
+    {
+        this(studentName, testCaseTitle, status, actualOutput, expectedOutput);
+        this.similarity = similarity;
+    }
+
+    /**
+     * Constructor: creates a TestResult with a similarity score and the program's stderr.
+     */
+    public TestResult(String studentName, String testCaseTitle, String status,
+                      String actualOutput, String expectedOutput, Double similarity, String errorOutput)
+    {
+        this(studentName, testCaseTitle, status, actualOutput, expectedOutput, similarity);
+        this.errorOutput = errorOutput;
+    }
+
+    /**
+     * Creates a result whose outputs are fetched from loader each time they are asked for.
+     */
+    static TestResult withLazyOutputs(String studentName, String testCaseTitle, String status, Double similarity,
+                                      OutputLoader loader, int actualNumber, int expectedNumber, int errorNumber)
+    {
+        TestResult result = new TestResult(studentName, testCaseTitle, status, null, null, similarity);
+        result.outputLoader = loader;
+        result.actualNumber = actualNumber;
+        result.expectedNumber = expectedNumber;
+        result.errorNumber = errorNumber;
+        return result;
+    }
+
+    // Returns where the outputs are fetched from, or null if they are held in memory (used by ResultsStore)
+    OutputLoader getOutputLoader()
+    {
+        return outputLoader;
+    }
+
+    /**
+     * Creates a result graded against a test case's external expected-output file, which is
+     * read when the expected output is asked for instead of being copied into every result.
+     */
+    static TestResult withExpectedFile(String studentName, String testCaseTitle, String status,
+                                       String actualOutput, File expectedFile, String errorOutput)
+    {
+        TestResult result = new TestResult(studentName, testCaseTitle, status, actualOutput, null, null, errorOutput);
+        result.expectedFile = expectedFile;
+        return result;
+    }
+
+    /**
+     * Replaces this result's strings with the equal copies held by pool, so results that
+     * printed the same thing (and every result of a test case's expected output) share one
+     * String, as do the names and titles repeated across results.
+     */
+    void shareStrings(OutputPool pool)
+    {
+        studentName = pool.share(studentName);
+        testCaseTitle = pool.share(testCaseTitle);
+        status = pool.share(status);
+        if (outputLoader == null)
+        {
+            actualOutput = pool.share(actualOutput);
+            expectedOutput = pool.share(expectedOutput);
+            errorOutput = pool.share(errorOutput);
+        }
+    }
+
     // --- Getter Methods (used by UI and other classes) ---
 
     public String getStudentName() { return studentName; }
     public String getTestCaseTitle() { return testCaseTitle; }
     public String getStatus() { return status; }
-    public String getActualOutput() { return actualOutput; }
-    public String getExpectedOutput() { return expectedOutput; }
+
+    /**
+     * Returns true if the actual output was too large to keep in memory and is read from a
+     * temporary file when asked for (see SpilledOutput).
+     */
+    public boolean isActualOutputSpilled()
+    {
+        return spilledActual != null;
+    }
+
+    /**
+     * Returns the length of the actual output in characters, without reading a spilled output.
+     */
+    public long getActualOutputLength()
+    {
+        if (spilledActual != null)
+        {
+            return spilledActual.getLength();
+        }
+        String actual = getActualOutput();
+        return actual != null ? actual.length() : 0;
+    }
+
+    /**
+     * Returns the start of the actual output (at most maxChars characters).
+     */
+    public String getActualOutputPreview(int maxChars)
+    {
+        if (spilledActual != null)
+        {
+            return spilledActual.preview(maxChars);
+        }
+        String actual = getActualOutput();
+        return actual == null || actual.length() <= maxChars ? actual : actual.substring(0, maxChars);
+    }
+
+    /**
+     * Moves the actual output to a temporary file if it is longer than SpilledOutput.SPILL_CHARS.
+     * If it cannot be written it stays in memory.
+     */
+    void spillLargeOutput()
+    {
+        if (actualOutput == null || actualOutput.length() <= SpilledOutput.SPILL_CHARS)
+        {
+            return;
+        }
+        try
+        {
+            spilledActual = SpilledOutput.spill(actualOutput);
+            actualOutput = null;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not spill output of " + studentName + " | " + testCaseTitle + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a spilled actual output, once this result has been replaced
+     * by a new one. The output reads as unavailable afterwards.
+     */
+    void deleteSpilledOutput()
+    {
+        if (spilledActual != null)
+        {
+            spilledActual.delete();
+        }
+    }
+
+    /**
+     * Returns the status as an enum, for comparisons (getStatus() keeps the exact text).
+     */
+    public ResultStatus getResultStatus()
+    {
+        if (resultStatus == null)
+        {
+            resultStatus = ResultStatus.of(status); // Same value from any thread, so no locking needed
+        }
+        return resultStatus;
+    }
+    public String getActualOutput()
+    {
+        if (spilledActual != null)
+        {
+            return spilledActual.load(); // Read from disk each time: large outputs are not kept on the heap
+        }
+        return outputLoader != null ? outputLoader.loadOutput(actualNumber) : actualOutput;
+    }
+
+    public String getExpectedOutput()
+    {
+        if (expectedFile != null)
+        {
+            try
+            {
+                return new String(Files.readAllBytes(expectedFile.toPath()), StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Error reading expected output " + expectedFile.getName() + ": " + e.getMessage());
+                return "ERROR: Expected output not readable (" + e.getMessage() + ")";
+            }
+        }
+        return outputLoader != null ? outputLoader.loadOutput(expectedNumber) : expectedOutput;
+    }
+
+    /**
+     * Returns the test case file the expected output is read from, or null if the result holds it.
+     */
+    public File getExpectedFile()
+    {
+        return expectedFile;
+    }
+    public Double getSimilarity() { return similarity; }
+
+    public String getErrorOutput()
+    {
+        String error = outputLoader != null ? outputLoader.loadOutput(errorNumber) : errorOutput;
+        return error != null ? error : "";
+    }
+
+    /**
+     * Returns the credit this result earns: 1 for PASSED, the similarity score for a scored
+     * FAILED result, and 0 otherwise (errors, skipped, or results saved before scoring existed).
+     */
+    public double getCredit()
+    {
+        if (getResultStatus() == ResultStatus.PASSED)
+        {
+            return 1.0;
+        }
+        return getResultStatus() == ResultStatus.FAILED && similarity != null ? similarity : 0.0;
+    }
+
+    /**
+     * Returns the actual output as lines for paging through it in a viewer.
+     */
+    public LineSource getActualOutputLines() { return new TextLineSource(getActualOutput()); }
+
+    /**
+     * Like getActualOutputLines, but a spilled output is paged from its file instead of read in.
+     * The caller closes the source when done if it is Closeable.
+     */
+    public LineSource openActualOutputLines()
+    {
+        if (spilledActual != null)
+        {
+            try
+            {
+                return spilledActual.openLines();
+            }
+            catch (IOException e)
+            {
+                return new TextLineSource("ERROR: Output no longer available (" + e.getMessage() + ")");
+            }
+        }
+        return getActualOutputLines();
+    }
+
+    /**
+     * Returns the expected output as lines for paging through it in a viewer. An expected output
+     * kept in a file is paged from that file; the caller closes the source when done if it is Closeable.
+     */
+    public LineSource getExpectedOutputLines()
+    {
+        if (expectedFile != null)
+        {
+            try
+            {
+                return new FileLineSource(expectedFile);
+            }
+            catch (IOException e)
+            {
+                return new TextLineSource("ERROR: Expected output not readable (" + e.getMessage() + ")");
+            }
+        }
+        return new TextLineSource(getExpectedOutput());
+    }
 
     /**
      * Returns a simplified string for displaying the result in lists.
      * Example Outputs:
      *   "Alice | Test1 | PASSED"
+     *   "Carol | Test2 | FAILED (87% similar)"
      *   "Bob | SKIPPED - missing file"
      */
     public String toDisplayString()
     {
         // If the test case was skipped, show only student + skip reason
-        if (status.startsWith("SKIPPED"))
+        if (getResultStatus() == ResultStatus.SKIPPED)
         {
             return studentName + " | " + status;
         }
 
         // Normal display format for passed/failed/errors
+        if (getResultStatus() == ResultStatus.FAILED && similarity != null)
+        {
+            return studentName + " | " + testCaseTitle + " | " + status + " (" + (int) Math.floor(similarity * 100) + "% similar)";
+        }
         return studentName + " | " + testCaseTitle + " | " + status;
     }
+
+    // A result whose outputs are still on disk is serialized with them read in
+    private Object writeReplace()
+    {
+        if (outputLoader == null && spilledActual == null && expectedFile == null)
+        {
+            return this;
+        }
+        return new TestResult(studentName, testCaseTitle, status, getActualOutput(), getExpectedOutput(), similarity, getErrorOutput());
+    }
 }
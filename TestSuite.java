@@ -1,5 +1,9 @@
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.io.*;
 import java.nio.file.Files;
 
@@ -7,6 +11,10 @@ public class TestSuite
 {
     private String title; // Title of the test suite
     private List<String> testCaseFilenames; // Stores filenames of test cases included in the suite
+    private Set<String> testCaseFilenameSet; // Same filenames as a set, for constant-time membership checks
+
+    // Characters not allowed in filenames (compiled once)
+    private static final Pattern INVALID_FILENAME_CHARS = Pattern.compile("[^a-zA-Z0-9._-]");
 
     /**
      * Constructor: Initializes a TestSuite with a title and empty list of test case filenames.
@@ -16,14 +24,27 @@ public class TestSuite
     {
         this.title = title;
         this.testCaseFilenames = new ArrayList<>();
+        this.testCaseFilenameSet = new HashSet<>();
     }
 
     // Getter and setter for suite title
+    // The title decides the filename, so a stored suite is renamed through ListOfTestSuites.renameSuite
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    void setTitle(String title) { this.title = title; }
 
-    // Returns the list of test case filenames
-    public List<String> getTestCaseFilenames() { return testCaseFilenames; }
+    /**
+     * Get the filename this suite is saved under, based on its title.
+     */
+    public String getFilename()
+    {
+        return sanitizeFilename(title) + ".suite";
+    }
+
+    // Returns the list of test case filenames (read-only; use add/remove to change membership)
+    public List<String> getTestCaseFilenames() { return Collections.unmodifiableList(testCaseFilenames); }
+
+    // Returns true if the suite includes the given test case filename
+    public boolean containsTestCaseFilename(String filename) { return testCaseFilenameSet.contains(filename); }
 
     // Add a test case filename if not null, empty, or duplicate
     // Additional: Maintains unique references for each suite
@@ -36,7 +57,7 @@ public class TestSuite
      }
 
     // Only add if non-empty and not already in the list
-    if (filename != null && !filename.isEmpty() && !testCaseFilenames.contains(filename))
+    if (filename != null && !filename.isEmpty() && testCaseFilenameSet.add(filename))
     {
         testCaseFilenames.add(filename);
      }
@@ -46,7 +67,10 @@ public class TestSuite
     // Remove a test case filename from the suite
     public void removeTestCaseFilename(String filename)
     {
-        testCaseFilenames.remove(filename);
+        if (testCaseFilenameSet.remove(filename))
+        {
+            testCaseFilenames.remove(filename);
+        }
     }
 
     /**
@@ -64,8 +88,7 @@ public class TestSuite
             suitesFolder.mkdirs(); // Ensure folder exists
         }
 
-        String filename = sanitizeFilename(title) + ".suite";
-        File suiteFile = new File(suitesFolder, filename);
+        File suiteFile = new File(suitesFolder, getFilename());
 
         try (PrintWriter writer = new PrintWriter(new FileWriter(suiteFile)))
         {
@@ -130,6 +153,6 @@ public class TestSuite
      */
     private String sanitizeFilename(String name)
     {
-        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return INVALID_FILENAME_CHARS.matcher(name).replaceAll("_");
     }
 }
@@ -0,0 +1,64 @@
+/**
+ * Lines of an output held in memory as a single String. Only the start offset of each
+ * line is stored; a line is cut out of the String when it is asked for.
+ */
+public class TextLineSource implements LineSource
+{
+    private final String text;
+    private int[] lineStarts; // Offset of the first character of each line
+    private int lineCount;
+
+    /**
+     * Constructor: indexes the line starts of text (null is treated as empty).
+     */
+    public TextLineSource(String text)
+    {
+        this.text = text != null ? text : "";
+        this.lineStarts = new int[16];
+        if (this.text.isEmpty())
+        {
+            return;
+        }
+        addLineStart(0);
+        for (int i = 0; i < this.text.length(); i++)
+        {
+            char c = this.text.charAt(i);
+            if (c == '\r' && i + 1 < this.text.length() && this.text.charAt(i + 1) == '\n')
+            {
+                i++;
+            }
+            if ((c == '\n' || c == '\r') && i + 1 < this.text.length())
+            {
+                addLineStart(i + 1);
+            }
+        }
+    }
+
+    private void addLineStart(int offset)
+    {
+        if (lineCount == lineStarts.length)
+        {
+            lineStarts = java.util.Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    @Override
+    public int getLineCount()
+    {
+        return lineCount;
+    }
+
+    @Override
+    public String getLine(int index)
+    {
+        int start = lineStarts[index];
+        int end = index + 1 < lineCount ? lineStarts[index + 1] : text.length();
+        // Drop the terminator (\n, \r or \r\n)
+        while (end > start && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r'))
+        {
+            end--;
+        }
+        return text.substring(start, end);
+    }
+}
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
@@ -7,10 +8,19 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.scene.control.ListView;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class Ui
 {
+    // Combined output size above which the comparison screen skips the line diff and opens the side-by-side viewers
+    private static final long MAX_DIFF_CHARS = 2_000_000;
+
+    // Characters of a spilled output shown when it cannot be paged from disk (e.g. with stderr appended)
+    private static final int SPILLED_PREVIEW_CHARS = 64 * 1024;
+
     private Coordinator coordinator;
     private Stage primaryStage;
 
@@ -189,10 +199,11 @@ public class Ui
         Button createSuiteButton = new Button("Create New Suite");
         Button selectSuiteButton = new Button("Select Existing Suite");
         Button createCaseButton = new Button("Create New Test Case");
+        Button createGeneratorButton = new Button("Create Test Case Generator");
         Button manageCasesButton = new Button("Manage Test Cases");
 
         // style buttons (apply consistent style + hover)
-        Button[] topButtons = {browseSaveFolderButton, createSuiteButton, selectSuiteButton, createCaseButton, manageCasesButton};
+        Button[] topButtons = {browseSaveFolderButton, createSuiteButton, selectSuiteButton, createCaseButton, createGeneratorButton, manageCasesButton};
         for (Button b : topButtons) {
             styleButton(b);
         }
@@ -220,6 +231,7 @@ public class Ui
                 suiteLabel,
                 new Separator(),
                 createCaseButton,
+                createGeneratorButton,
                 manageCasesButton,
                 new Separator(),
                 new Label("Test Cases in Suite:"),
@@ -269,10 +281,15 @@ public class Ui
                 for (String filename : coordinator.getCurrentTestSuite().getTestCaseFilenames())
                 {
                     TestCase tc = coordinator.getTestCaseByFilename(filename);
+                    TestCaseGenerator generator = coordinator.getGeneratorByFilename(filename);
                     if (tc != null)
                     {
                         testCaseList.getItems().add(tc.getTitle() + " (" + filename + ")");
                     }
+                    else if (generator != null)
+                    {
+                        testCaseList.getItems().add(generator.getTitle() + " [" + generator.getInstanceCount() + " generated] (" + filename + ")");
+                    }
                     else
                     {
                         testCaseList.getItems().add(filename + " (not found)");
@@ -294,9 +311,17 @@ public class Ui
             File selected = chooser.showDialog(primaryStage);
             if (selected != null)
             {
-                coordinator.setSaveFolder(selected.getAbsolutePath());
-                updateSaveFolderLabel.run();
-                refreshSuiteCaseList.run();
+                // Loading runs in the background; the screen stays usable and refreshes when done
+                saveFolderLabel.setText("Loading test cases and suites from " + selected.getAbsolutePath() + " ...");
+                coordinator.setSaveFolderAsync(selected.getAbsolutePath()).whenComplete((ignored, error) ->
+                    Platform.runLater(() -> {
+                        updateSaveFolderLabel.run();
+                        refreshSuiteCaseList.run();
+                        if (error != null)
+                        {
+                            showErrorDialog("Load Error", "Failed to load test folder: " + error.getMessage());
+                        }
+                    }));
             }
         });
 
@@ -364,6 +389,25 @@ public class Ui
             }
         });
 
+        // Button action: Creates a parameterized test case generator
+        // The generator is saved next to the test cases and can be added to suites like a test case
+        createGeneratorButton.setOnAction(e -> {
+            TestCaseGenerator generator = promptTestCaseGenerator();
+            if (generator != null)
+            {
+                try
+                {
+                    coordinator.createAndSaveGenerator(generator);
+                    showInfoDialog("Generator Created", "Generator '" + generator.getTitle() + "' has been saved. It produces "
+                            + generator.getInstanceCount() + " test cases.");
+                }
+                catch (Exception ex)
+                {
+                    showErrorDialog("Error", "Failed to save generator: " + ex.getMessage());
+                }
+            }
+        });
+
         manageCasesButton.setOnAction(e -> {
             showTestCaseManagementScreen();
         });
@@ -433,6 +477,8 @@ public class Ui
             showMainMenuScreen();
         });
 
+        // Test case and suite files edited on disk are reloaded in the background; refresh on the FX thread
+        coordinator.setTestDefinitionChangeListener(() -> Platform.runLater(refreshSuiteCaseList));
 
         refreshSuiteCaseList.run();
         primaryStage.setScene(scene);
@@ -448,10 +494,12 @@ public class Ui
         titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 24px;");
 
         Button loadResultsButton = new Button("Load Saved Results");
-        Button compareResultsButton = new Button("Compare Two Result Files");
+        Button compareResultsButton = new Button("Compare Result Files");
+        Button convertResultsButton = new Button("Convert .ser Files to .tres");
+        Button recoverJournalButton = new Button("Recover Results From Journal");
         Button backToMainButton = new Button("Back to Main Menu");
 
-        Button[] btns = {loadResultsButton, compareResultsButton, backToMainButton};
+        Button[] btns = {loadResultsButton, compareResultsButton, convertResultsButton, recoverJournalButton, backToMainButton};
         for (Button b : btns) {
             styleButton(b, "10 20");
         }
@@ -461,6 +509,8 @@ public class Ui
                 new Separator(),
                 loadResultsButton,
                 compareResultsButton,
+                convertResultsButton,
+                recoverJournalButton,
                 new Separator(),
                 backToMainButton
         );
@@ -474,7 +524,7 @@ public class Ui
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Load Saved Test Results");
             fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Serialized Files", "*.ser")
+                new FileChooser.ExtensionFilter("Result Files", "*.tres", "*.ser")
             );
             fileChooser.getExtensionFilters().add(
                 new FileChooser.ExtensionFilter("All Files", "*.*")
@@ -495,43 +545,105 @@ public class Ui
             }
         });
 
-        // Button action: Compares success rates from two different result files
+        // Button action: Compares success rates across any number of result files (rounds, sections, years)
+        // Files are loaded in parallel in the background; rounds are ordered by file name
         compareResultsButton.setOnAction(e -> {
             FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Select First Result File");
+            fileChooser.setTitle("Select Result Files to Compare (two or more)");
             fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Serialized Files", "*.ser")
+                new FileChooser.ExtensionFilter("Result Files", "*.tres", "*.ser")
             );
             fileChooser.getExtensionFilters().add(
                 new FileChooser.ExtensionFilter("All Files", "*.*")
             );
-            
-            File firstFile = fileChooser.showOpenDialog(primaryStage);
-            if (firstFile != null)
+
+            List<File> chosen = fileChooser.showOpenMultipleDialog(primaryStage);
+            if (chosen == null)
+            {
+                return;
+            }
+            if (chosen.size() < 2)
             {
+                showErrorDialog("Compare Results", "Please select at least two result files to compare.");
+                return;
+            }
+            List<File> files = new java.util.ArrayList<>(chosen);
+            files.sort(java.util.Comparator.comparing(File::getName));
+
+            compareResultsButton.setDisable(true);
+            CompletableFuture.supplyAsync(() -> {
                 try
                 {
-                    TestExecutionResults firstResults = coordinator.loadTestExecutionResults(firstFile);
-                    
-                    // Now select second file
-                    fileChooser.setTitle("Select Second Result File");
-                    File secondFile = fileChooser.showOpenDialog(primaryStage);
-                    if (secondFile != null)
-                    {
-                    try
+                    return coordinator.compareResults(files);
+                }
+                catch (IOException ex)
+                {
+                    throw new java.util.concurrent.CompletionException(ex);
+                }
+            }).whenComplete((comparison, error) -> Platform.runLater(() -> {
+                compareResultsButton.setDisable(false);
+                if (error != null)
+                {
+                    showErrorDialog("Load Error", "Failed to load result files: " + (error.getCause() != null ? error.getCause().getMessage() : error.getMessage()));
+                }
+                else
+                {
+                    showSuccessRateComparisonScreen(comparison);
+                }
+            }));
+        });
+
+        // Button action: Rewrites old serialized result files in the binary format, next to the originals
+        convertResultsButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Select Serialized Result Files");
+            fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Serialized Files", "*.ser")
+            );
+
+            List<File> files = fileChooser.showOpenMultipleDialog(primaryStage);
+            if (files != null && !files.isEmpty())
+            {
+                try
+                {
+                    List<File> converted = coordinator.convertSerializedResults(files);
+                    StringBuilder message = new StringBuilder("Converted " + converted.size() + " file(s):\n");
+                    for (File file : converted)
                     {
-                        TestExecutionResults secondResults = coordinator.loadTestExecutionResults(secondFile);
-                        showSuccessRateComparisonScreen(firstResults, secondResults, firstFile.getName(), secondFile.getName());
-                    }
-                        catch (Exception ex)
-                        {
-                            showErrorDialog("Load Error", "Failed to load second result file: " + ex.getMessage());
-                        }
+                        message.append(file.getAbsolutePath()).append("\n");
                     }
+                    showInfoDialog("Conversion Complete", message.toString());
+                }
+                catch (Exception ex)
+                {
+                    showErrorDialog("Conversion Error", "Failed to convert results: " + ex.getMessage());
+                }
+            }
+        });
+
+        // Button action: Rebuilds the results of a run (finished or cut short) from its journal
+        recoverJournalButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Select Results Journal");
+            fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Results Journals", "*" + ResultsJournal.EXTENSION)
+            );
+            File journalFile = coordinator.getResultsJournalFile();
+            if (journalFile != null && journalFile.getParentFile().isDirectory())
+            {
+                fileChooser.setInitialDirectory(journalFile.getParentFile());
+            }
+
+            File file = fileChooser.showOpenDialog(primaryStage);
+            if (file != null)
+            {
+                try
+                {
+                    showLoadedResultsScreen(coordinator.loadResultsJournal(file));
                 }
                 catch (Exception ex)
                 {
-                    showErrorDialog("Load Error", "Failed to load first result file: " + ex.getMessage());
+                    showErrorDialog("Load Error", "Failed to read journal: " + ex.getMessage());
                 }
             }
         });
@@ -554,11 +666,13 @@ public class Ui
         testCaseList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
         Button editCaseButton = new Button("Edit Selected Test Case");
         Button deleteCaseButton = new Button("Delete Selected Test Case");
+        Button packBankButton = new Button("Pack All Into Test Bank File");
+        Button unpackBankButton = new Button("Unpack Test Bank To .testcase Files");
         Button backButton = new Button("Back");
         Button restartButton = new Button("Restart from Beginning");
 
         // style buttons
-        Button[] bset = {editCaseButton, deleteCaseButton, backButton, restartButton};
+        Button[] bset = {editCaseButton, deleteCaseButton, packBankButton, unpackBankButton, backButton, restartButton};
         for (Button b : bset) {
             styleButton(b);
         }
@@ -569,6 +683,7 @@ public class Ui
                 new Separator(),
                 editCaseButton,
                 deleteCaseButton,
+                new HBox(10, packBankButton, unpackBankButton),
                 backButton,
                 restartButton
         );
@@ -607,14 +722,8 @@ public class Ui
                     {
                         try
                         {
-                            // Update the test case
-                            tc.setTitle(edited.getTitle());
-                            tc.setInputData(edited.getInputData());
-                            tc.setExpectedOutput(edited.getExpectedOutput());
-                            tc.setType(edited.getType());
-                            
-                            // Save the updated test case
-                            coordinator.createAndSaveTestCase(tc);
+                            // Update and save the test case (keeps the filename/title indexes in step)
+                            coordinator.updateTestCase(tc, edited);
                             refreshCaseList.run();
                             showInfoDialog("Test Case Updated", "Test case has been updated and saved.");
                         }
@@ -641,17 +750,13 @@ public class Ui
                     // Remove from list
                     coordinator.getListOfTestCases().removeTestCase(tc);
                     
-                    // Delete file
+                    // Delete file (and its .in / .expected sidecars, if any)
                     try
                     {
                         String saveFolder = coordinator.getSaveFolder();
                         if (saveFolder != null && !saveFolder.isEmpty())
                         {
-                            File testCaseFile = new File(new File(saveFolder, "test-cases"), filename);
-                            if (testCaseFile.exists())
-                            {
-                                testCaseFile.delete();
-                            }
+                            TestCase.deleteSavedFiles(new File(saveFolder, "test-cases"), filename);
                         }
                     }
                     catch (Exception ex)
@@ -664,6 +769,33 @@ public class Ui
             }
         });
 
+        // Button action: Packs every test case into one indexed, compressed test bank file
+        // The save folder then loads from the bank (loose .testcase files still take precedence)
+        packBankButton.setOnAction(e -> {
+            try
+            {
+                File bankFile = coordinator.packTestBank();
+                showInfoDialog("Test Bank Written", "All test cases have been packed into:\n" + bankFile.getAbsolutePath());
+            }
+            catch (Exception ex)
+            {
+                showErrorDialog("Error", "Failed to write test bank: " + ex.getMessage());
+            }
+        });
+
+        // Button action: Exports the test bank back to one .testcase file per test case
+        unpackBankButton.setOnAction(e -> {
+            try
+            {
+                int count = coordinator.unpackTestBank();
+                showInfoDialog("Test Bank Unpacked", count + " test cases have been written to the test-cases folder.");
+            }
+            catch (Exception ex)
+            {
+                showErrorDialog("Error", "Failed to unpack test bank: " + ex.getMessage());
+            }
+        });
+
         backButton.setOnAction(e -> {
             showResultsManagementScreen();
         });
@@ -672,6 +804,9 @@ public class Ui
             showWelcomeScreen();
         });
 
+        // Keep the list current when test case files are edited on disk
+        coordinator.setTestDefinitionChangeListener(() -> Platform.runLater(refreshCaseList));
+
         refreshCaseList.run();
         primaryStage.setScene(scene);
     }
@@ -736,14 +871,36 @@ public class Ui
         Label codePathLabel = new Label("Code path within each submission folder:");
 
         Button executeButton = new Button("Execute Test Suite");
+        // Results are journaled as they are produced; a run that was cut short can pick up where it stopped
+        CheckBox resumeBox = new CheckBox("Resume the last run of this suite (skip results already in its journal)");
+        resumeBox.setSelected(coordinator.hasResultsJournal());
+        resumeBox.setDisable(!coordinator.hasResultsJournal());
+        Button watchButton = new Button("Start Watch Mode (grade uploads as they arrive)");
         Button backButton = new Button("Back");
 
+        // Reference solution: an instructor's submission whose output is taken as the expected output
+        Label referenceLabel = new Label("Reference Solution: " +
+            (coordinator.getReferenceSolutionName() != null ? coordinator.getReferenceSolutionName() : "None"));
+        Button referenceButton = new Button("Select Reference Solution");
+        Button generateExpectedButton = new Button("Fill Empty Expected Outputs");
+        Button verifyExpectedButton = new Button("Verify Expected Outputs");
+        Button fuzzButton = new Button("Fuzz a Submission");
+        HBox referenceButtonsBox = new HBox(10, referenceButton, generateExpectedButton, verifyExpectedButton, fuzzButton);
+        referenceButtonsBox.setStyle("-fx-alignment: center;");
+
         // styles
         rootFolderLabel.setStyle("-fx-text-fill: #E8E8F2;");
         codePathLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        resumeBox.setStyle("-fx-text-fill: #E8E8F2;");
+        referenceLabel.setStyle("-fx-text-fill: #E8E8F2;");
         codePathField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-padding: 6 8;");
         styleButton(executeButton, "8 14");
+        styleButton(watchButton, "8 14");
         styleButton(backButton);
+        Button[] referenceButtons = {referenceButton, generateExpectedButton, verifyExpectedButton, fuzzButton};
+        for (Button b : referenceButtons) {
+            styleButton(b);
+        }
 
         VBox layout = new VBox(15,
                 new Label("Execute Test Suite: " + coordinator.getCurrentTestSuite().getTitle()),
@@ -752,7 +909,12 @@ public class Ui
                 codePathLabel,
                 codePathField,
                 new Separator(),
+                referenceLabel,
+                referenceButtonsBox,
+                new Separator(),
                 executeButton,
+                resumeBox,
+                watchButton,
                 backButton
         );
         // style header label
@@ -760,7 +922,144 @@ public class Ui
 
         layout.setStyle("-fx-padding: 30; -fx-alignment: center; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
 
-        Scene scene = new Scene(layout, 800, 500);
+        Scene scene = new Scene(layout, 800, 600);
+
+        // Button action: Selects the reference solution folder (uses the same code path as the students)
+        referenceButton.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select Reference Solution Folder");
+            File selected = chooser.showDialog(primaryStage);
+            if (selected != null)
+            {
+                try
+                {
+                    coordinator.setReferenceSolution(selected.getAbsolutePath(), codePathField.getText().trim());
+                    referenceLabel.setText("Reference Solution: " + coordinator.getReferenceSolutionName());
+                }
+                catch (Exception ex)
+                {
+                    showErrorDialog("Reference Solution Error", ex.getMessage());
+                }
+            }
+        });
+
+        // Button action: Runs the reference over the suite in the background and fills empty expected outputs
+        generateExpectedButton.setOnAction(e -> {
+            referenceLabel.setText("Running reference solution ...");
+            CompletableFuture.supplyAsync(() -> {
+                try
+                {
+                    return coordinator.generateExpectedOutputs(false);
+                }
+                catch (IOException ex)
+                {
+                    throw new java.util.concurrent.CompletionException(ex);
+                }
+            }).whenComplete((updated, error) -> Platform.runLater(() -> {
+                referenceLabel.setText("Reference Solution: " + coordinator.getReferenceSolutionName());
+                if (error != null)
+                {
+                    showErrorDialog("Reference Solution Error", error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                }
+                else
+                {
+                    showInfoDialog("Expected Outputs", updated + " test case(s) updated from the reference solution.");
+                }
+            }));
+        });
+
+        // Button action: Runs the reference over the suite in the background and lists disagreeing test cases
+        verifyExpectedButton.setOnAction(e -> {
+            referenceLabel.setText("Running reference solution ...");
+            CompletableFuture.supplyAsync(() -> {
+                try
+                {
+                    return coordinator.verifyExpectedOutputs();
+                }
+                catch (IOException ex)
+                {
+                    throw new java.util.concurrent.CompletionException(ex);
+                }
+            }).whenComplete((mismatches, error) -> Platform.runLater(() -> {
+                referenceLabel.setText("Reference Solution: " + coordinator.getReferenceSolutionName());
+                if (error != null)
+                {
+                    showErrorDialog("Reference Solution Error", error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                }
+                else if (mismatches.isEmpty())
+                {
+                    showInfoDialog("Expected Outputs", "All expected outputs match the reference solution.");
+                }
+                else
+                {
+                    StringBuilder message = new StringBuilder();
+                    for (ReferenceOracle.Mismatch mismatch : mismatches)
+                    {
+                        message.append(mismatch.getTestCase().getTitle())
+                               .append(": expected '").append(mismatch.getTestCase().getExpectedOutput())
+                               .append("', reference prints '").append(mismatch.getReferenceOutput()).append("'\n");
+                    }
+                    showErrorDialog("Expected Outputs Disagree", message.toString());
+                }
+            }));
+        });
+
+        // Button action: Fuzzes one submission against the reference, drawing inputs from a generator
+        // Runs in the background; shows the smallest input where the two programs disagree
+        fuzzButton.setOnAction(e -> {
+            List<String> generatorFilenames = new java.util.ArrayList<>();
+            for (TestCaseGenerator generator : coordinator.getListOfGenerators().getGenerators())
+            {
+                generatorFilenames.add(generator.getFilename());
+            }
+            if (generatorFilenames.isEmpty())
+            {
+                showErrorDialog("No Generators", "Fuzzing draws its inputs from a test case generator. Please create one first.");
+                return;
+            }
+
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Select Submission Folder to Fuzz");
+            chooser.setInitialDirectory(coordinator.getRootFolder() != null ? new File(coordinator.getRootFolder()) : null);
+            File submission = chooser.showDialog(primaryStage);
+            if (submission == null)
+            {
+                return;
+            }
+
+            ChoiceDialog<String> dialog = new ChoiceDialog<>(generatorFilenames.get(0), generatorFilenames);
+            dialog.setTitle("Fuzz a Submission");
+            dialog.setHeaderText(null);
+            dialog.setContentText("Draw inputs from generator:");
+            String codePath = codePathField.getText().trim();
+            dialog.showAndWait().ifPresent(generatorFilename -> {
+                referenceLabel.setText("Fuzzing " + submission.getName() + " ...");
+                CompletableFuture.supplyAsync(() -> {
+                    try
+                    {
+                        return coordinator.fuzzAgainstReference(submission.getAbsolutePath(), codePath, generatorFilename, 10000);
+                    }
+                    catch (IOException ex)
+                    {
+                        throw new java.util.concurrent.CompletionException(ex);
+                    }
+                }).whenComplete((report, error) -> Platform.runLater(() -> {
+                    referenceLabel.setText("Reference Solution: " + coordinator.getReferenceSolutionName());
+                    if (error != null)
+                    {
+                        showErrorDialog("Fuzzing Error", error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                    }
+                    else if (report.foundDisagreement())
+                    {
+                        showErrorDialog("Disagreement Found: " + submission.getName(), report.toString());
+                    }
+                    else
+                    {
+                        showInfoDialog("Fuzzing Finished: " + submission.getName(), report.toString());
+                    }
+                }));
+            });
+        });
 
         // Button action: Executes the test suite on all student submissions
         // Gets the code path (if specified) and triggers test execution
@@ -769,7 +1068,7 @@ public class Ui
             try
             {
                 // Execute the test suite and get results
-                List<TestResult> results = coordinator.executeTestSuite(codePath);
+                List<TestResult> results = coordinator.executeTestSuite(codePath, resumeBox.isSelected());
                 showResultsScreen(results);
             }
             catch (Exception ex)
@@ -778,6 +1077,13 @@ public class Ui
             }
         });
 
+        // Button action: Starts watch mode on the root folder
+        // Every submission is graded once, then only new or modified submissions are regraded
+        watchButton.setOnAction(e -> {
+            String codePath = codePathField.getText().trim();
+            showWatchModeScreen(codePath);
+        });
+
         backButton.setOnAction(e -> {
             showMainMenuScreen();
         });
@@ -785,6 +1091,74 @@ public class Ui
         primaryStage.setScene(scene);
     }
 
+    // Method to display the watch mode screen
+    // Starts watching the root folder and shows the live results, refreshed each time a
+    // submission has been graded. Stopping returns to the execute screen; results are kept
+    private void showWatchModeScreen(String codePath)
+    {
+        Coordinator coordinator = this.coordinator;
+
+        Label titleLabel = new Label("Watch Mode: " + coordinator.getCurrentTestSuite().getTitle());
+        titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
+        Label statusLabel = new Label("Watching " + coordinator.getRootFolder() + " ...");
+        statusLabel.setStyle("-fx-text-fill: #E8E8F2;");
+
+        ListView<TestResult> resultsList = new ListView<>();
+        resultsList.setPrefHeight(400);
+        resultsList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
+        resultsList.setCellFactory(list -> new ResultCell());
+
+        Button viewResultsButton = new Button("Open Results Screen");
+        Button stopButton = new Button("Stop Watch Mode");
+        Button[] btns = {viewResultsButton, stopButton};
+        for (Button b : btns) {
+            styleButton(b);
+        }
+
+        VBox layout = new VBox(10,
+                titleLabel,
+                statusLabel,
+                new Separator(),
+                resultsList,
+                new Separator(),
+                viewResultsButton,
+                stopButton
+        );
+        layout.setStyle("-fx-padding: 20; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
+
+        Scene scene = new Scene(layout, 1000, 700);
+
+        try
+        {
+            // Listener runs on a grading thread, so hand the refresh over to the FX thread
+            TestExecutionResults liveResults = coordinator.startWatchMode(codePath, (studentName, results) ->
+                Platform.runLater(() -> {
+                    resultsList.getItems().setAll(coordinator.getLastExecutionResults());
+                    statusLabel.setText("Watching " + coordinator.getRootFolder() + " - last graded: "
+                            + studentName + " at " + new java.util.Date());
+                }));
+            statusLabel.setText("Watching " + coordinator.getRootFolder() + " - grading "
+                    + liveResults.getTestSuiteTitle() + " as submissions arrive");
+        }
+        catch (Exception ex)
+        {
+            showErrorDialog("Watch Mode Error", "Failed to start watch mode: " + ex.getMessage());
+            return;
+        }
+
+        viewResultsButton.setOnAction(e -> {
+            // Watch mode keeps running in the background while results are reviewed
+            showResultsScreen(coordinator.getLastExecutionResults());
+        });
+
+        stopButton.setOnAction(e -> {
+            coordinator.stopWatchMode();
+            showExecuteTestSuiteScreen();
+        });
+
+        primaryStage.setScene(scene);
+    }
+
     // Method to display the test execution results screen
     // Shows a list of all students with their test case results (PASSED/FAILED/COMPILE ERROR)
     // User can select a result to view detailed side-by-side comparison
@@ -797,23 +1171,27 @@ public class Ui
         titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
         
         // ListView to show students and their results
-        ListView<String> resultsList = new ListView<>();
+        ListView<TestResult> resultsList = new ListView<>();
         resultsList.setPrefHeight(400);
         resultsList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
+        resultsList.setCellFactory(list -> new ResultCell());
 
         Button viewComparisonButton = new Button("View Comparison (Selected)");
+        Button groupOutputsButton = new Button("Group Wrong Outputs");
+        Button runtimeErrorsButton = new Button("Search Runtime Errors");
         Button saveAsButton = new Button("Save Results As... (Text)");
-        Button saveSerializedButton = new Button("Save Results (Serialized)");
+        Button saveSerializedButton = new Button("Save Results (Binary)");
+        Button exportReportsButton = new Button("Export Reports...");
         Button backButton = new Button("Back");
         Button restartButton = new Button("Restart from Beginning");
 
-        Button[] btns = {viewComparisonButton, saveAsButton, saveSerializedButton, backButton, restartButton};
+        Button[] btns = {viewComparisonButton, groupOutputsButton, runtimeErrorsButton, saveAsButton, saveSerializedButton, exportReportsButton, backButton, restartButton};
         for (Button b : btns) {
             styleButton(b);
         }
 
         // Put save buttons in same row with left alignment
-        HBox saveButtonsBox = new HBox(10, saveAsButton, saveSerializedButton);
+        HBox saveButtonsBox = new HBox(10, saveAsButton, saveSerializedButton, exportReportsButton);
         saveButtonsBox.setAlignment(javafx.geometry.Pos.BASELINE_LEFT);
         
         VBox layout = new VBox(10,
@@ -822,7 +1200,7 @@ public class Ui
                 new Label("Results (Student - Test Case - Status):"),
                 resultsList,
                 new Separator(),
-                viewComparisonButton,
+                new HBox(10, viewComparisonButton, groupOutputsButton, runtimeErrorsButton),
                 saveButtonsBox,
                 backButton,
                 restartButton
@@ -836,81 +1214,70 @@ public class Ui
         Scene scene = new Scene(layout, 1000, 700);
 
         // Display actual results from execution with dividers between different students
-        String currentStudent = null;
-        for (TestResult result : results)
-        {
-            String studentName = result.getStudentName();
-            
-            // Add divider when student changes (skip for first student)
-            if (currentStudent != null && !currentStudent.equals(studentName))
+        // (also used to show just the results matching an output search)
+        java.util.function.Consumer<List<TestResult>> showInList = shown -> {
+            resultsList.getItems().clear();
+            String currentStudent = null;
+            for (TestResult result : shown)
+            {
+                String studentName = result.getStudentName();
+                
+                // Add divider when student changes (skip for first student)
+                if (currentStudent != null && !currentStudent.equals(studentName))
+                {
+                    resultsList.getItems().add(null); // Shown as a divider
+                }
+                
+                resultsList.getItems().add(result);
+                currentStudent = studentName;
+            }
+        };
+        showInList.accept(results);
+
+        // Search the outputs with the index built during the run (or build one if these results are not the last run)
+        OutputSearchIndex[] fallbackIndex = new OutputSearchIndex[1];
+        java.util.function.Supplier<OutputSearchIndex> searchIndex = () -> {
+            OutputSearchIndex runIndex = coordinator.getOutputSearchIndex();
+            if (runIndex.covers(results))
             {
-                resultsList.getItems().add("-----------------------------------");
+                return runIndex;
             }
-            
-            resultsList.getItems().add(result.toDisplayString());
-            currentStudent = studentName;
-        }
-        
-        // Store results for comparison screen access
-        final List<TestResult> resultsForComparison = new java.util.ArrayList<>(results);
+            synchronized (fallbackIndex)
+            {
+                if (fallbackIndex[0] == null)
+                {
+                    fallbackIndex[0] = new TestExecutionResults("", "", "", results).getSearchIndex();
+                }
+                return fallbackIndex[0];
+            }
+        };
+        HBox searchBar = createOutputSearchBar(searchIndex, showInList, () -> showInList.accept(results));
+        layout.getChildren().add(3, searchBar);
         
         // Button action: Opens the side-by-side comparison screen for the selected result
-        // Parses the result string to extract student name and test case title
-        // Result format is "StudentName | TestCaseTitle | Status" or "-----------------------------------" for dividers
+        // Rows hold the results themselves; dividers between students are null rows
         viewComparisonButton.setOnAction(e -> {
-            String selected = resultsList.getSelectionModel().getSelectedItem();
-            if (selected != null && !selected.equals("-----------------------------------"))
+            TestResult result = resultsList.getSelectionModel().getSelectedItem();
+            if (result == null)
             {
-                // Parse selected item to get student and test case
-                // Format: "StudentName | TestCaseTitle | Status" or "StudentName | Status" for skipped
-                String[] parts = selected.split("\\|");
-                if (parts.length >= 2)
-                {
-                    String studentName = parts[0].trim();
-                    
-                    // Check if this is a skipped entry (only 2 parts)
-                    if (parts.length == 2)
-                    {
-                        // Skipped entry - show message that comparison is not available
-                        showErrorDialog("No Comparison Available", "This entry was skipped (no main method found). Comparison is not available.");
-                        return;
-                    }
-                    
-                    // Normal entry with test case
-                    String testCaseTitle = parts[1].trim();
-                    
-                    // Find the corresponding TestResult
-                    TestResult result = null;
-                    for (TestResult r : resultsForComparison)
-                    {
-                        if (r.getStudentName().equals(studentName) && 
-                            r.getTestCaseTitle().equals(testCaseTitle))
-                        {
-                            result = r;
-                            break;
-                        }
-                    }
-                    
-                    if (result != null)
-                    {
-                        showComparisonScreen(result);
-                    }
-                    else
-                    {
-                        showErrorDialog("Result Not Found", "Could not find result data.");
-                    }
-                }
-                else
-                {
-                    showErrorDialog("Invalid Format", "Could not parse result selection.");
-                }
+                showErrorDialog("No Selection", "Please select a result to compare.");
+            }
+            else if (result.getResultStatus() == ResultStatus.SKIPPED)
+            {
+                showErrorDialog("No Comparison Available", "This entry was skipped (no main method found). Comparison is not available.");
             }
             else
             {
-                showErrorDialog("No Selection", "Please select a result to compare.");
+                showComparisonScreen(result);
             }
         });
 
+        // Button action: Opens the failing outputs grouped by content, one entry per distinct wrong output
+        groupOutputsButton.setOnAction(e -> showOutputClustersScreen(results));
+
+        // Button action: Opens the runtime error search (fingerprints indexed while the run executed)
+        runtimeErrorsButton.setOnAction(e -> showRuntimeErrorsScreen(results));
+
         // Button action: Saves the test results to a text file
         saveAsButton.setOnAction(e -> {
             FileChooser fileChooser = new FileChooser();
@@ -942,12 +1309,49 @@ public class Ui
             }
         });
         
-        // Button action: Saves the test results as a serialized object
-        saveSerializedButton.setOnAction(e -> {
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Save Test Results (Serialized)");
-            fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Serialized Files", "*.ser")
+        // Button action: Writes every report format (text, gradebook CSV, JSON, JUnit XML, HTML) into a folder
+        // in one pass over the results, in the background
+        exportReportsButton.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Export Reports To Folder");
+            File folder = chooser.showDialog(primaryStage);
+            if (folder == null)
+            {
+                return;
+            }
+            String suiteTitle = coordinator.getCurrentTestSuite().getTitle();
+            java.util.Map<ReportEngine.Format, File> targets = ReportEngine.targets(folder, sanitizeFilename(suiteTitle) + "_results",
+                    java.util.EnumSet.allOf(ReportEngine.Format.class));
+            exportReportsButton.setDisable(true);
+            CompletableFuture.supplyAsync(() -> {
+                try
+                {
+                    return ReportEngine.write(suiteTitle, results, targets);
+                }
+                catch (IOException ex)
+                {
+                    throw new java.util.concurrent.CompletionException(ex);
+                }
+            }).whenComplete((totals, error) -> Platform.runLater(() -> {
+                exportReportsButton.setDisable(false);
+                if (error != null)
+                {
+                    showErrorDialog("Export Error", "Failed to export reports: " + (error.getCause() != null ? error.getCause().getMessage() : error.getMessage()));
+                }
+                else
+                {
+                    showInfoDialog("Reports Exported", totals.getTotal() + " result(s) of " + totals.getStudentCount()
+                            + " student(s) written to:\n" + folder.getAbsolutePath());
+                }
+            }));
+        });
+
+        // Button action: Saves the test results in the binary results format (see ResultsFile)
+        saveSerializedButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Save Test Results (Binary)");
+            fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Result Files", "*" + ResultsFile.EXTENSION)
             );
             fileChooser.getExtensionFilters().add(
                 new FileChooser.ExtensionFilter("All Files", "*.*")
@@ -955,7 +1359,7 @@ public class Ui
             
             // Suggest a filename based on suite title
             String suiteTitle = coordinator.getCurrentTestSuite().getTitle();
-            String suggestedFilename = sanitizeFilename(suiteTitle) + "_results.ser";
+            String suggestedFilename = sanitizeFilename(suiteTitle) + "_results" + ResultsFile.EXTENSION;
             fileChooser.setInitialFileName(suggestedFilename);
             
             File file = fileChooser.showSaveDialog(primaryStage);
@@ -971,9 +1375,8 @@ public class Ui
                         results
                     );
                     
-                    // Save using serialization
                     coordinator.saveTestExecutionResults(executionResults, file);
-                    showInfoDialog("Results Saved", "Test results have been saved (serialized) to:\n" + file.getAbsolutePath());
+                    showInfoDialog("Results Saved", "Test results have been saved to:\n" + file.getAbsolutePath());
                 }
                 catch (Exception ex)
                 {
@@ -993,6 +1396,271 @@ public class Ui
         primaryStage.setScene(scene);
     }
 
+    // Builds the "search outputs" row shared by the results screens
+    // Queries run in the background; showMatches gets the matching results, showAll restores the full list
+    private HBox createOutputSearchBar(java.util.function.Supplier<OutputSearchIndex> index,
+                                       java.util.function.Consumer<List<TestResult>> showMatches, Runnable showAll)
+    {
+        TextField queryField = new TextField();
+        queryField.setPromptText("Search outputs, e.g. DEBUG or NullPointer");
+        queryField.setPrefColumnCount(30);
+        queryField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+        CheckBox wholeWordsBox = new CheckBox("Whole words");
+        wholeWordsBox.setStyle("-fx-text-fill: #E8E8F2;");
+        Button searchButton = new Button("Search Outputs");
+        Button showAllButton = new Button("Show All");
+        styleButton(searchButton);
+        styleButton(showAllButton);
+        Label statusLabel = new Label();
+        statusLabel.setStyle("-fx-text-fill: #B8B8CC;");
+
+        Runnable search = () -> {
+            String query = queryField.getText();
+            if (query == null || query.trim().isEmpty())
+            {
+                showAll.run();
+                statusLabel.setText("");
+                return;
+            }
+            boolean wholeWords = wholeWordsBox.isSelected();
+            searchButton.setDisable(true);
+            statusLabel.setText("Searching ...");
+            CompletableFuture.supplyAsync(() -> wholeWords ? index.get().findTokens(query) : index.get().findSubstring(query))
+                    .whenComplete((matches, error) -> Platform.runLater(() -> {
+                        searchButton.setDisable(false);
+                        if (error != null)
+                        {
+                            statusLabel.setText("Search failed: " + error.getMessage());
+                            return;
+                        }
+                        statusLabel.setText(matches.size() + " match(es)");
+                        showMatches.accept(matches);
+                    }));
+        };
+        searchButton.setOnAction(e -> search.run());
+        queryField.setOnAction(e -> search.run());
+        showAllButton.setOnAction(e -> {
+            queryField.clear();
+            statusLabel.setText("");
+            showAll.run();
+        });
+
+        HBox bar = new HBox(10, queryField, wholeWordsBox, searchButton, showAllButton, statusLabel);
+        bar.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        return bar;
+    }
+
+    // Method to display the failing results grouped by output: each entry is one distinct wrong output
+    // of a test case with the number of students who produced it, so a class is reviewed in a few clicks
+    private void showOutputClustersScreen(List<TestResult> results)
+    {
+        Label titleLabel = new Label("Wrong Outputs by Test Case");
+        titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
+
+        Label summaryLabel = new Label("Grouping outputs ...");
+        summaryLabel.setStyle("-fx-text-fill: #E8E8F2;");
+
+        ListView<OutputClusters.Cluster> clusterList = new ListView<>();
+        clusterList.setPrefHeight(330);
+        clusterList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
+        clusterList.setCellFactory(list -> new ListCell<OutputClusters.Cluster>()
+        {
+            @Override
+            protected void updateItem(OutputClusters.Cluster cluster, boolean empty)
+            {
+                super.updateItem(cluster, empty);
+                setText(empty || cluster == null ? null : cluster.toDisplayString());
+            }
+        });
+
+        // Students in the selected group
+        TextArea studentsArea = new TextArea();
+        studentsArea.setEditable(false);
+        studentsArea.setWrapText(true);
+        studentsArea.setPrefRowCount(5);
+        studentsArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+
+        CheckBox nearDuplicatesBox = new CheckBox("Merge nearly identical outputs");
+        nearDuplicatesBox.setStyle("-fx-text-fill: #E8E8F2;");
+
+        Button viewOutputButton = new Button("View Output (Selected)");
+        Button backButton = new Button("Back to Results");
+        Button restartButton = new Button("Restart from Beginning");
+
+        Button[] btns = {viewOutputButton, backButton, restartButton};
+        for (Button b : btns) {
+            styleButton(b);
+        }
+
+        Label studentsLabel = new Label("Students in selected group:");
+        studentsLabel.setStyle("-fx-text-fill: #E8E8F2;");
+
+        VBox layout = new VBox(10,
+                titleLabel,
+                new Separator(),
+                summaryLabel,
+                nearDuplicatesBox,
+                clusterList,
+                studentsLabel,
+                studentsArea,
+                new Separator(),
+                viewOutputButton,
+                backButton,
+                restartButton
+        );
+        layout.setStyle("-fx-padding: 20; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
+
+        Scene scene = new Scene(layout, 1000, 750);
+
+        // Grouping hashes every failing output (and compares groups when merging), so run it off the UI thread
+        Runnable regroup = () -> {
+            boolean merge = nearDuplicatesBox.isSelected();
+            nearDuplicatesBox.setDisable(true);
+            summaryLabel.setText("Grouping outputs ...");
+            CompletableFuture.supplyAsync(() -> OutputClusters.cluster(results, merge)).whenComplete((clusters, error) -> Platform.runLater(() -> {
+                nearDuplicatesBox.setDisable(false);
+                if (error != null)
+                {
+                    summaryLabel.setText("Could not group outputs: " + error.getMessage());
+                    return;
+                }
+                int failing = 0;
+                for (OutputClusters.Cluster cluster : clusters)
+                {
+                    failing += cluster.size();
+                }
+                summaryLabel.setText(failing + " failing result(s) in " + clusters.size() + " distinct output(s)");
+                clusterList.getItems().setAll(clusters);
+                studentsArea.clear();
+            }));
+        };
+        nearDuplicatesBox.setOnAction(e -> regroup.run());
+        regroup.run();
+
+        clusterList.getSelectionModel().selectedItemProperty().addListener((obs, old, cluster) -> {
+            studentsArea.setText(cluster == null ? "" : String.join(", ", cluster.getStudentNames()));
+        });
+
+        // Button action: Opens the comparison screen for the group's representative output
+        viewOutputButton.setOnAction(e -> {
+            OutputClusters.Cluster selected = clusterList.getSelectionModel().getSelectedItem();
+            if (selected == null)
+            {
+                showErrorDialog("No Selection", "Please select a group of outputs to view.");
+                return;
+            }
+            showComparisonScreen(selected.getRepresentative());
+        });
+
+        backButton.setOnAction(e -> showResultsScreen(results));
+
+        restartButton.setOnAction(e -> showWelcomeScreen());
+
+        primaryStage.setScene(scene);
+    }
+
+    // Method to search the runtime errors of the last run by exception type and method
+    // Fingerprints (exception type + top student frames) were indexed while the run executed
+    private void showRuntimeErrorsScreen(List<TestResult> results)
+    {
+        RuntimeErrorIndex index = coordinator.getRuntimeErrorIndex();
+
+        Label titleLabel = new Label("Runtime Errors");
+        titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
+
+        // Distinct crashes, most common first
+        ListView<String> fingerprintList = new ListView<>();
+        fingerprintList.setPrefHeight(180);
+        fingerprintList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
+        for (java.util.Map.Entry<String, Integer> fingerprint : index.getFingerprintCounts())
+        {
+            fingerprintList.getItems().add(fingerprint.getValue() + " x " + fingerprint.getKey());
+        }
+
+        TextField exceptionField = new TextField();
+        exceptionField.setPromptText("Exception, e.g. ArrayIndexOutOfBounds");
+        TextField methodField = new TextField();
+        methodField.setPromptText("Method, e.g. parse()");
+        exceptionField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+        methodField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+
+        ListView<String> matchList = new ListView<>();
+        matchList.setPrefHeight(250);
+        matchList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
+
+        Label matchLabel = new Label();
+        matchLabel.setStyle("-fx-text-fill: #E8E8F2;");
+
+        Button searchButton = new Button("Search");
+        Button viewComparisonButton = new Button("View Comparison (Selected)");
+        Button backButton = new Button("Back to Results");
+        Button restartButton = new Button("Restart from Beginning");
+
+        Button[] btns = {searchButton, viewComparisonButton, backButton, restartButton};
+        for (Button b : btns) {
+            styleButton(b);
+        }
+
+        Label fingerprintLabel = new Label(index.size() + " runtime error(s) by crash site:");
+        fingerprintLabel.setStyle("-fx-text-fill: #E8E8F2;");
+
+        VBox layout = new VBox(10,
+                titleLabel,
+                new Separator(),
+                fingerprintLabel,
+                fingerprintList,
+                new HBox(10, exceptionField, methodField, searchButton),
+                matchLabel,
+                matchList,
+                new Separator(),
+                viewComparisonButton,
+                backButton,
+                restartButton
+        );
+        layout.setStyle("-fx-padding: 20; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
+
+        Scene scene = new Scene(layout, 1000, 750);
+
+        // Matches are kept alongside the display strings so the selection maps back to its result
+        List<RuntimeErrorIndex.Entry> shownMatches = new java.util.ArrayList<>();
+        Runnable search = () -> {
+            shownMatches.clear();
+            shownMatches.addAll(index.find(exceptionField.getText(), methodField.getText()));
+            matchList.getItems().clear();
+            for (RuntimeErrorIndex.Entry entry : shownMatches)
+            {
+                matchList.getItems().add(entry.toDisplayString());
+            }
+            java.util.Set<String> students = new java.util.HashSet<>();
+            for (RuntimeErrorIndex.Entry entry : shownMatches)
+            {
+                students.add(entry.getStudentName());
+            }
+            matchLabel.setText(shownMatches.size() + " error(s) from " + students.size() + " student(s):");
+        };
+        searchButton.setOnAction(e -> search.run());
+        exceptionField.setOnAction(e -> search.run());
+        methodField.setOnAction(e -> search.run());
+        search.run();
+
+        viewComparisonButton.setOnAction(e -> {
+            int selected = matchList.getSelectionModel().getSelectedIndex();
+            if (selected < 0)
+            {
+                showErrorDialog("No Selection", "Please select a runtime error to view.");
+                return;
+            }
+            RuntimeErrorIndex.Entry entry = shownMatches.get(selected);
+            showComparisonScreen(entry.getResult()); // The entry's own result: titles need not be unique
+        });
+
+        backButton.setOnAction(e -> showResultsScreen(results));
+
+        restartButton.setOnAction(e -> showWelcomeScreen());
+
+        primaryStage.setScene(scene);
+    }
+
     // Method to display loaded test results in a simple text-based interface
     // Shows results in a non-modifiable text box as specified in feature 3
     private void showLoadedResultsScreen(TestExecutionResults executionResults)
@@ -1031,7 +1699,7 @@ public class Ui
             }
             
             // Write result line
-            if (result.getStatus().startsWith("SKIPPED"))
+            if (result.getResultStatus() == ResultStatus.SKIPPED)
             {
                 content.append(studentName).append(" | ").append(result.getStatus()).append("\n");
             }
@@ -1048,13 +1716,12 @@ public class Ui
         content.append("\n");
         content.append(repeatString("=", 80)).append("\n");
         content.append("Summary:\n");
-        List<TestResult> results = executionResults.getResults();
-        int total = results.size();
-        long passed = results.stream().filter(r -> r.getStatus().equals("PASSED")).count();
-        long failed = results.stream().filter(r -> r.getStatus().equals("FAILED")).count();
-        long compileErrors = results.stream().filter(r -> r.getStatus().equals("COMPILE ERROR")).count();
-        long runtimeErrors = results.stream().filter(r -> r.getStatus().equals("RUNTIME ERROR")).count();
-        long skipped = results.stream().filter(r -> r.getStatus().startsWith("SKIPPED")).count();
+        int total = executionResults.getResults().size();
+        int passed = executionResults.getStatusCount(ResultStatus.PASSED);
+        int failed = executionResults.getStatusCount(ResultStatus.FAILED);
+        int compileErrors = executionResults.getStatusCount(ResultStatus.COMPILE_ERROR);
+        int runtimeErrors = executionResults.getStatusCount(ResultStatus.RUNTIME_ERROR);
+        int skipped = executionResults.getStatusCount(ResultStatus.SKIPPED);
         
         content.append("Total Results: ").append(total).append("\n");
         content.append("Passed: ").append(passed).append("\n");
@@ -1064,6 +1731,18 @@ public class Ui
         content.append("Skipped: ").append(skipped).append("\n");
         
         resultsArea.setText(content.toString());
+
+        // Output search over the index saved with the results; matches replace the listing until "Show All"
+        String fullListing = content.toString();
+        HBox searchBar = createOutputSearchBar(executionResults::getSearchIndex, matches -> {
+            StringBuilder matchText = new StringBuilder();
+            matchText.append(matches.size()).append(" result(s) whose output matches:\n\n");
+            for (TestResult match : matches)
+            {
+                matchText.append(match.toDisplayString()).append("\n");
+            }
+            resultsArea.setText(matchText.toString());
+        }, () -> resultsArea.setText(fullListing));
         
         Button backButton = new Button("Back");
         Button restartButton = new Button("Restart from Beginning");
@@ -1077,6 +1756,7 @@ public class Ui
                 titleLabel,
                 new Separator(),
                 new Label("Results:"),
+                searchBar,
                 resultsArea,
                 new Separator(),
                 backButton,
@@ -1105,193 +1785,64 @@ public class Ui
         primaryStage.setScene(scene);
     }
 
-    // Method to display side-by-side comparison of success rates from two result files
-    // Shows success rate as a fraction (passed/total) for each student
-    // Handles special cases: no resubmission, compile errors, etc.
-    private void showSuccessRateComparisonScreen(TestExecutionResults firstResults, TestExecutionResults secondResults, String firstFileName, String secondFileName)
+    // Method to display the comparison of success rates across result files
+    // Shows each student's success rate (passed/total) in every round and the change in credit,
+    // then per-test case pass counts and the tests each student newly passed or no longer passes
+    private void showSuccessRateComparisonScreen(ComparisonEngine.Comparison comparison)
     {
-        Label titleLabel = new Label("Success Rate Comparison");
+        Label titleLabel = new Label("Success Rate Comparison (" + comparison.getRounds().size() + " result files)");
         titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
-        
-        // Non-modifiable text areas for side-by-side display
-        TextArea firstResultsArea = new TextArea();
-        firstResultsArea.setEditable(false);
-        firstResultsArea.setWrapText(true);
-        firstResultsArea.setPrefRowCount(25);
-        firstResultsArea.setPrefColumnCount(50);
-        firstResultsArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-font-family: 'Courier New', monospace;");
-        
-        TextArea secondResultsArea = new TextArea();
-        secondResultsArea.setEditable(false);
-        secondResultsArea.setWrapText(true);
-        secondResultsArea.setPrefRowCount(25);
-        secondResultsArea.setPrefColumnCount(50);
-        secondResultsArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-font-family: 'Courier New', monospace;");
-        
-        // Calculate success rates for each student in both files
-        java.util.Map<String, String> firstRates = calculateSuccessRates(firstResults);
-        java.util.Map<String, String> secondRates = calculateSuccessRates(secondResults);
-        
-        // Get all unique student names from both files
-        java.util.Set<String> allStudents = new java.util.HashSet<>();
-        allStudents.addAll(firstRates.keySet());
-        allStudents.addAll(secondRates.keySet());
-        java.util.List<String> sortedStudents = new java.util.ArrayList<>(allStudents);
-        java.util.Collections.sort(sortedStudents);
-        
-        // Build text content for both sides
-        StringBuilder firstContent = new StringBuilder();
-        StringBuilder secondContent = new StringBuilder();
-        
-        // Headers
-        firstContent.append("First Submission\n");
-        firstContent.append("File: ").append(firstFileName).append("\n");
-        firstContent.append("Suite: ").append(firstResults.getTestSuiteTitle()).append("\n");
-        firstContent.append(repeatString("=", 50)).append("\n");
-        firstContent.append(String.format("%-30s %s\n", "Student", "Success Rate"));
-        firstContent.append(repeatString("-", 50)).append("\n");
-        
-        secondContent.append("Second Submission\n");
-        secondContent.append("File: ").append(secondFileName).append("\n");
-        secondContent.append("Suite: ").append(secondResults.getTestSuiteTitle()).append("\n");
-        secondContent.append(repeatString("=", 50)).append("\n");
-        secondContent.append(String.format("%-30s %s\n", "Student", "Success Rate"));
-        secondContent.append(repeatString("-", 50)).append("\n");
-        
-        // Add each student's success rate
-        for (String student : sortedStudents)
-        {
-            String firstRate = firstRates.getOrDefault(student, "No submission");
-            String secondRate = secondRates.getOrDefault(student, "No submission");
-            
-            firstContent.append(String.format("%-30s %s\n", student, firstRate));
-            secondContent.append(String.format("%-30s %s\n", student, secondRate));
-        }
-        
-        firstResultsArea.setText(firstContent.toString());
-        secondResultsArea.setText(secondContent.toString());
-        
-        Label firstLabel = new Label("First Submission:");
-        firstLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
-        Label secondLabel = new Label("Second Submission:");
-        secondLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
-        
+
+        // Non-modifiable text areas: rates by student on top, test cases and changes below
+        TextArea ratesArea = new TextArea(ComparisonEngine.formatRates(comparison));
+        ratesArea.setEditable(false);
+        ratesArea.setPrefRowCount(16);
+        ratesArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-font-family: 'Courier New', monospace;");
+
+        TextArea changesArea = new TextArea(ComparisonEngine.formatChanges(comparison));
+        changesArea.setEditable(false);
+        changesArea.setPrefRowCount(12);
+        changesArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-font-family: 'Courier New', monospace;");
+
+        Label ratesLabel = new Label("Success Rate by Round:");
+        ratesLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
+        Label changesLabel = new Label("Improvements (+) and Regressions (-):");
+        changesLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
+
         Button backButton = new Button("Back");
         Button restartButton = new Button("Restart from Beginning");
-        
+
         Button[] btns = {backButton, restartButton};
         for (Button b : btns) {
             styleButton(b);
         }
-        
-        HBox comparisonBox = new HBox(20,
-                new VBox(5, firstLabel, firstResultsArea),
-                new VBox(5, secondLabel, secondResultsArea)
-        );
-        comparisonBox.setStyle("-fx-padding: 10;");
-        
+
         VBox layout = new VBox(10,
                 titleLabel,
                 new Separator(),
-                comparisonBox,
+                ratesLabel,
+                ratesArea,
+                changesLabel,
+                changesArea,
                 new Separator(),
                 backButton,
                 restartButton
         );
-        
+
         layout.setStyle("-fx-padding: 20; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
-        
+
         Scene scene = new Scene(layout, 1200, 750);
-        
+
         backButton.setOnAction(e -> {
             showResultsManagementScreen();
         });
-        
+
         restartButton.setOnAction(e -> {
             showWelcomeScreen();
         });
-        
+
         primaryStage.setScene(scene);
     }
-    
-    // Helper method to calculate success rates for each student in a result set
-    // Returns a map from student name to success rate string (e.g., "3/5" or "COMPILE ERROR")
-    // Success rate = number of test cases passed / total number of test cases in the test suite
-    private java.util.Map<String, String> calculateSuccessRates(TestExecutionResults results)
-    {
-        java.util.Map<String, String> rates = new java.util.HashMap<>();
-        java.util.Map<String, java.util.List<TestResult>> studentResults = new java.util.HashMap<>();
-        
-        // Group results by student
-        for (TestResult result : results.getResults())
-        {
-            String studentName = result.getStudentName();
-            if (!studentResults.containsKey(studentName))
-            {
-                studentResults.put(studentName, new java.util.ArrayList<>());
-            }
-            studentResults.get(studentName).add(result);
-        }
-        
-        int totalTestCases = results.getTotalTestCases();
-        
-        // Calculate success rate for each student
-        for (java.util.Map.Entry<String, java.util.List<TestResult>> entry : studentResults.entrySet())
-        {
-            String studentName = entry.getKey();
-            java.util.List<TestResult> studentTestResults = entry.getValue();
-            
-            // Filter out skipped entries (they don't count toward test cases)
-            java.util.List<TestResult> validResults = new java.util.ArrayList<>();
-            for (TestResult result : studentTestResults)
-            {
-                if (!result.getStatus().startsWith("SKIPPED"))
-                {
-                    validResults.add(result);
-                }
-            }
-            
-            // If no valid results, mark as no submission
-            if (validResults.isEmpty())
-            {
-                rates.put(studentName, "No submission");
-                continue;
-            }
-            
-            // Check if all tests failed to compile
-            boolean allCompileErrors = true;
-            for (TestResult result : validResults)
-            {
-                if (!result.getStatus().equals("COMPILE ERROR"))
-                {
-                    allCompileErrors = false;
-                    break;
-                }
-            }
-            
-            if (allCompileErrors)
-            {
-                rates.put(studentName, "COMPILE ERROR");
-                continue;
-            }
-            
-            // Count passed tests
-            int passed = 0;
-            for (TestResult result : validResults)
-            {
-                if (result.getStatus().equals("PASSED"))
-                {
-                    passed++;
-                }
-            }
-            
-            // Calculate success rate as fraction: passed / total test cases in suite
-            // Use totalTestCases from the suite (as per requirement)
-            rates.put(studentName, passed + "/" + totalTestCases);
-        }
-        
-        return rates;
-    }
 
     // Helper method to sanitize a string to be a valid filename
     private String sanitizeFilename(String name)
@@ -1314,62 +1865,12 @@ public class Ui
     // Formats results with student names, test cases, and status
     private void saveResultsToFile(List<TestResult> results, File file, String suiteTitle) throws java.io.IOException
     {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file)))
-        {
-            // Write header
-            writer.println("Test Results for: " + suiteTitle);
-            writer.println("Generated: " + new java.util.Date());
-            writer.println(repeatString("=", 80));
-            writer.println();
-            
-            // Group results by student
-            String currentStudent = null;
-            for (TestResult result : results)
-            {
-                String studentName = result.getStudentName();
-                
-                // Add divider when student changes
-                if (currentStudent != null && !currentStudent.equals(studentName))
-                {
-                    writer.println(repeatString("-", 80));
-                }
-                
-                // Write result line
-                if (result.getStatus().startsWith("SKIPPED"))
-                {
-                    writer.println(studentName + " | " + result.getStatus());
-                }
-                else
-                {
-                    writer.println(studentName + " | " + result.getTestCaseTitle() + " | " + result.getStatus());
-                }
-                
-                currentStudent = studentName;
-            }
-            
-            // Write summary
-            writer.println();
-            writer.println(repeatString("=", 80));
-            writer.println("Summary:");
-            int total = results.size();
-            long passed = results.stream().filter(r -> r.getStatus().equals("PASSED")).count();
-            long failed = results.stream().filter(r -> r.getStatus().equals("FAILED")).count();
-            long compileErrors = results.stream().filter(r -> r.getStatus().equals("COMPILE ERROR")).count();
-            long runtimeErrors = results.stream().filter(r -> r.getStatus().equals("RUNTIME ERROR")).count();
-            long skipped = results.stream().filter(r -> r.getStatus().startsWith("SKIPPED")).count();
-            
-            writer.println("Total Results: " + total);
-            writer.println("Passed: " + passed);
-            writer.println("Failed: " + failed);
-            writer.println("Compile Errors: " + compileErrors);
-            writer.println("Runtime Errors: " + runtimeErrors);
-            writer.println("Skipped: " + skipped);
-        }
+        ReportEngine.write(suiteTitle, results, java.util.Collections.singletonMap(ReportEngine.Format.TEXT, file));
     }
 
-    // Method to display the side-by-side comparison screen
-    // Shows expected output (from test case) and actual output (from program execution) side by side
-    // Allows user to visually compare what was expected vs what the program actually produced
+    // Method to display the comparison screen
+    // Shows a line-by-line diff of the expected output (from test case) and the actual output (from program execution)
+    // Missing and extra lines are highlighted, and changed lines show exactly which characters differ
     private void showComparisonScreen(TestResult result)
     {
         Coordinator coordinator = this.coordinator;
@@ -1377,78 +1878,176 @@ public class Ui
         Label titleLabel = new Label("Comparison: " + result.getStudentName() + " - " + result.getTestCaseTitle());
         titleLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600; -fx-font-size: 18;");
 
-        TextArea expectedArea = new TextArea();
-        expectedArea.setEditable(false);
-        expectedArea.setPrefRowCount(15);
-        expectedArea.setPrefColumnCount(40);
-        expectedArea.setWrapText(true);
-        expectedArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
-
-        TextArea actualArea = new TextArea();
-        actualArea.setEditable(false);
-        actualArea.setPrefRowCount(15);
-        actualArea.setPrefColumnCount(40);
-        actualArea.setWrapText(true);
-        actualArea.setStyle("-fx-control-inner-background: #262634; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
-
-        Label expectedLabel = new Label("Expected Output:");
-        expectedLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
-        Label actualLabel = new Label("Actual Output:");
-        actualLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
-
+        // Diff of expected vs actual output: "-" lines are expected but missing, "+" lines were printed instead
+        // The list only creates cells for visible rows, so very long outputs stay responsive
+        Label diffSummaryLabel = new Label("Computing differences ...");
+        diffSummaryLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        ListView<LineDiff.Row> diffList = new ListView<>();
+        diffList.setPrefHeight(420);
+        diffList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6;");
+        diffList.setCellFactory(list -> new DiffRowCell());
+
+        Label diffLabel = new Label("Expected (-) vs Actual (+):");
+        diffLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
+
+        // Side-by-side viewers page through the full outputs line by line, whatever their size
+        OutputViewer expectedViewer = new OutputViewer("Expected Output:");
+        OutputViewer actualViewer = new OutputViewer("Actual Output:");
+        HBox.setHgrow(expectedViewer, javafx.scene.layout.Priority.ALWAYS);
+        HBox.setHgrow(actualViewer, javafx.scene.layout.Priority.ALWAYS);
+        HBox sideBySideBox = new HBox(10, expectedViewer, actualViewer);
+        sideBySideBox.setPrefHeight(420);
+
+        Button viewToggleButton = new Button("Side by Side View");
+        Button mismatchButton = new Button("Jump to First Mismatch");
         Button backButton = new Button("Back to Results");
         Button restartButton = new Button("Restart from Beginning");
 
-        Button[] smallBtns = {backButton, restartButton};
+        Button[] smallBtns = {viewToggleButton, mismatchButton, backButton, restartButton};
         for (Button b : smallBtns) {
             styleButton(b);
         }
+        mismatchButton.setDisable(true);
 
-        HBox comparisonBox = new HBox(20,
-                new VBox(5, expectedLabel, expectedArea),
-                new VBox(5, actualLabel, actualArea)
-        );
+        VBox comparisonBox = new VBox(5, diffLabel, diffSummaryLabel, diffList);
         comparisonBox.setStyle("-fx-padding: 10;");
 
         VBox layout = new VBox(10,
                 titleLabel,
                 new Separator(),
                 comparisonBox,
+                new HBox(10, viewToggleButton, mismatchButton),
                 new Separator(),
                 backButton,
                 restartButton
         );
         layout.setStyle("-fx-padding: 20; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
 
-        Scene scene = new Scene(layout, 1100, 600);
+        Scene scene = new Scene(layout, 1100, 650);
 
         // Display actual output data from TestResult
-        String expectedOutput = result.getExpectedOutput();
-        String actualOutput = result.getActualOutput();
-        
-        expectedArea.setText(expectedOutput != null ? expectedOutput : "");
-        String status = result.getStatus();
-        if (status.equals("COMPILE ERROR"))
+        // An expected output kept in a file is not read in here: the viewers and the diff page it from the file
+        String expectedOutput = result.getExpectedFile() != null || result.getExpectedOutput() == null
+                ? "" : result.getExpectedOutput();
+        String actualOutput;
+        if (result.isActualOutputSpilled())
+        {
+            // Too large to read in: the side-by-side view pages it from disk, anything else shows the start
+            actualOutput = result.getActualOutputPreview(SPILLED_PREVIEW_CHARS)
+                    + "\n[... " + result.getActualOutputLength() + " characters in total]";
+        }
+        else
         {
-            actualArea.setText("Compilation failed - no output available");
+            actualOutput = result.getActualOutput() != null ? result.getActualOutput() : "";
         }
-        else if (status.equals("RUNTIME ERROR"))
+        boolean rawOutputs = true; // False once a status message replaces the outputs
+        ResultStatus status = result.getResultStatus();
+        if (status == ResultStatus.COMPILE_ERROR)
         {
-            actualArea.setText((actualOutput != null && !actualOutput.isEmpty() ? actualOutput : "") + 
-                "\n\n[Program exited with non-zero exit code]");
+            actualOutput = "Compilation failed - no output available";
+            rawOutputs = false;
         }
-        else if (status.startsWith("SKIPPED"))
+        else if (status == ResultStatus.RUNTIME_ERROR)
+        {
+            actualOutput = actualOutput + "\n\n[Program exited with non-zero exit code]";
+            if (!result.getErrorOutput().isEmpty())
+            {
+                actualOutput = actualOutput + "\n\n[stderr]\n" + result.getErrorOutput();
+            }
+            rawOutputs = false;
+        }
+        else if (status == ResultStatus.SKIPPED)
         {
             // For skipped folders, show a clear message
-            actualArea.setText("Folder \"" + result.getStudentName() + "\" didn't contain main method, skipped");
-            expectedArea.setText("N/A - Folder was skipped");
+            actualOutput = "Folder \"" + result.getStudentName() + "\" didn't contain main method, skipped";
+            expectedOutput = "N/A - Folder was skipped";
+            rawOutputs = false;
+        }
+
+        // The expected output is shown as is unless the folder was skipped; one kept in a file is paged from it
+        boolean rawExpected = status != ResultStatus.SKIPPED;
+        expectedViewer.setSource(rawExpected ? result.getExpectedOutputLines() : new TextLineSource(expectedOutput));
+        actualViewer.setSource(rawOutputs ? result.openActualOutputLines() : new TextLineSource(actualOutput));
+
+        // Switch between the diff and the side-by-side viewers
+        viewToggleButton.setOnAction(e -> {
+            boolean showingDiff = comparisonBox.getChildren().contains(diffList);
+            if (showingDiff)
+            {
+                comparisonBox.getChildren().setAll(sideBySideBox);
+                viewToggleButton.setText("Diff View");
+            }
+            else
+            {
+                comparisonBox.getChildren().setAll(diffLabel, diffSummaryLabel, diffList);
+                viewToggleButton.setText("Side by Side View");
+            }
+            mismatchButton.setDisable(!showingDiff);
+        });
+
+        mismatchButton.setOnAction(e -> {
+            mismatchButton.setDisable(true);
+            OutputViewer.jumpToFirstMismatch(expectedViewer, actualViewer, line -> {
+                mismatchButton.setDisable(false);
+                if (line < 0)
+                {
+                    showInfoDialog("No Mismatch", "The outputs are identical line by line (ignoring trailing spaces).");
+                }
+            });
+        });
+
+        // Compute the diff on a background thread; the screen shows up immediately.
+        // Outputs too large to diff in reasonable time open straight in the side-by-side view.
+        String expectedText = expectedOutput;
+        String actualText = actualOutput;
+        File expectedFile = rawExpected ? result.getExpectedFile() : null;
+        LineSource expectedSource = expectedViewer.getSource();
+        long expectedLength = expectedFile != null ? expectedFile.length() : expectedText.length();
+        boolean tooLargeToDiff = result.isActualOutputSpilled() || expectedLength + actualText.length() > MAX_DIFF_CHARS;
+        javafx.concurrent.Task<List<LineDiff.Row>> diffTask = new javafx.concurrent.Task<List<LineDiff.Row>>()
+        {
+            @Override
+            protected List<LineDiff.Row> call()
+            {
+                List<String> expectedLines = expectedFile != null
+                        ? LineSource.readAll(expectedSource) : LineDiff.splitLines(expectedText);
+                List<String> actualLines = LineDiff.splitLines(actualText);
+                return LineDiff.toRows(expectedLines, actualLines, LineDiff.diffLines(expectedLines, actualLines));
+            }
+        };
+        diffTask.setOnSucceeded(event -> {
+            List<LineDiff.Row> rows = diffTask.getValue();
+            int deleted = 0;
+            int inserted = 0;
+            int changed = 0;
+            for (LineDiff.Row row : rows)
+            {
+                if (row.getKind() == LineDiff.Kind.DELETE) deleted++;
+                else if (row.getKind() == LineDiff.Kind.INSERT) inserted++;
+                else if (row.getKind() == LineDiff.Kind.CHANGE) changed++;
+            }
+            diffSummaryLabel.setText(deleted + inserted + changed == 0
+                    ? "Outputs are identical line by line"
+                    : changed + " changed, " + deleted + " missing, " + inserted + " extra line(s)");
+            diffList.getItems().setAll(rows);
+        });
+        diffTask.setOnFailed(event -> diffSummaryLabel.setText("Could not compute differences: " + diffTask.getException()));
+        if (tooLargeToDiff)
+        {
+            diffSummaryLabel.setText("Outputs are too large to diff - use the side by side view");
+            viewToggleButton.fire();
         }
         else
         {
-            actualArea.setText(actualOutput != null ? actualOutput : "");
+            Thread diffThread = new Thread(diffTask, "output-diff");
+            diffThread.setDaemon(true);
+            diffThread.start();
         }
 
         backButton.setOnAction(e -> {
+            diffTask.cancel();
+            expectedViewer.close();
+            actualViewer.close();
             // Always try to go back to results screen with stored results
             List<TestResult> storedResults = coordinator.getLastExecutionResults();
             if (storedResults != null && !storedResults.isEmpty())
@@ -1464,6 +2063,9 @@ public class Ui
         });
 
         restartButton.setOnAction(e -> {
+            diffTask.cancel();
+            expectedViewer.close();
+            actualViewer.close();
             showWelcomeScreen();
         });
 
@@ -1486,18 +2088,33 @@ public class Ui
         TextField inputField = new TextField();
         TextField expectedField = new TextField();
 
+        // Large or multi-line data can live in external files, streamed during execution
+        inputField.setPromptText("Input, or @file:path/to/input.txt");
+        expectedField.setPromptText("Expected output, or @file:path/to/expected.txt");
+
         titleField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
         inputField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
         expectedField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
 
+        // Type picks the output comparator; options can be typed after a colon, e.g. Tokens:tolerance=0.01
         ComboBox<String> typeCombo = new ComboBox<>();
-        typeCombo.getItems().addAll("Boolean", "Int", "Double", "String");
+        typeCombo.getItems().addAll(OutputComparators.getNames());
+        typeCombo.setEditable(true);
 
         if (existing != null)
         {
+            try
+            {
+                inputField.setText(existing.getInputData());
+                expectedField.setText(existing.getExpectedOutput());
+            }
+            catch (UncheckedIOException ex)
+            {
+                // Editing would save empty fields over the real (unreadable) body
+                showErrorDialog("Error", ex.getMessage());
+                return null;
+            }
             titleField.setText(existing.getTitle());
-            inputField.setText(existing.getInputData());
-            expectedField.setText(existing.getExpectedOutput());
             typeCombo.setValue(existing.getType());
         }
 
@@ -1522,7 +2139,7 @@ public class Ui
                 String title = titleField.getText().trim();
                 String input = inputField.getText();
                 String expected = expectedField.getText();
-                String type = typeCombo.getValue();
+                String type = typeCombo.getEditor().getText(); // The typed text: getValue() lags until the editor commits
                 
                 // Validate input
                 if (title == null || title.isEmpty())
@@ -1531,11 +2148,21 @@ public class Ui
                     return null;
                 }
                 
-                if (type == null || type.isEmpty())
+                if (type == null || type.trim().isEmpty())
                 {
                     showErrorDialog("Validation Error", "Please select a test case type.");
                     return null;
                 }
+
+                try
+                {
+                    OutputComparators.forType(type);
+                }
+                catch (IllegalArgumentException ex)
+                {
+                    showErrorDialog("Validation Error", "Invalid test case type: " + ex.getMessage());
+                    return null;
+                }
                 
                 return new TestCase(title, input, expected, type);
             }
@@ -1545,6 +2172,195 @@ public class Ui
         return dialog.showAndWait().orElse(null);
     }
 
+    // Method to display a dialog for creating a test case generator
+    // Input and expected output are templates with ${...} placeholders filled from the parameters
+    // Returns the generator if user clicks OK and the parameters are valid, or null otherwise
+    private TestCaseGenerator promptTestCaseGenerator()
+    {
+        Dialog<TestCaseGenerator> dialog = new Dialog<>();
+        dialog.setTitle("Create Test Case Generator");
+
+        ButtonType okButtonType = new ButtonType("OK", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(okButtonType, ButtonType.CANCEL);
+
+        TextField titleField = new TextField();
+        TextField inputField = new TextField();
+        TextField expectedField = new TextField();
+        TextField parametersField = new TextField();
+
+        inputField.setPromptText("e.g. ${a},${b}");
+        expectedField.setPromptText("e.g. ${a+b}");
+        parametersField.setPromptText("e.g. a=1..20; b=-5..5 step 5   or   random seed=42 count=200; a=-100..100");
+
+        TextField[] fields = {titleField, inputField, expectedField, parametersField};
+        for (TextField field : fields) {
+            field.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
+        }
+
+        // Type picks the output comparator; options can be typed after a colon, e.g. Tokens:tolerance=0.01
+        ComboBox<String> typeCombo = new ComboBox<>();
+        typeCombo.getItems().addAll(OutputComparators.getNames());
+        typeCombo.setEditable(true);
+
+        VBox content = new VBox(10,
+                new Label("Title:"), titleField,
+                new Label("Input Template:"), inputField,
+                new Label("Expected Output Template:"), expectedField,
+                new Label("Parameters:"), parametersField,
+                new Label("Type:"), typeCombo
+        );
+
+        // style labels inside dialog content
+        for (javafx.scene.Node node : content.getChildren()) {
+            if (node instanceof Label) ((Label) node).setStyle("-fx-text-fill: #E8E8F2;");
+        }
+        content.setStyle("-fx-padding: 10; -fx-background-color: #232334;");
+
+        dialog.getDialogPane().setContent(content);
+
+        dialog.setResultConverter(button -> {
+            if (button == okButtonType)
+            {
+                String title = titleField.getText().trim();
+                String type = typeCombo.getEditor().getText();
+
+                // Validate input
+                if (title.isEmpty())
+                {
+                    showErrorDialog("Validation Error", "Generator title cannot be empty.");
+                    return null;
+                }
+
+                if (type == null || type.trim().isEmpty())
+                {
+                    showErrorDialog("Validation Error", "Please select a test case type.");
+                    return null;
+                }
+
+                try
+                {
+                    OutputComparators.forType(type);
+                }
+                catch (IllegalArgumentException ex)
+                {
+                    showErrorDialog("Validation Error", "Invalid test case type: " + ex.getMessage());
+                    return null;
+                }
+
+                TestCaseGenerator generator = new TestCaseGenerator(title, type, inputField.getText(),
+                        expectedField.getText(), parametersField.getText());
+                try
+                {
+                    generator.validate();
+                }
+                catch (IllegalArgumentException ex)
+                {
+                    showErrorDialog("Validation Error", "Invalid generator: " + ex.getMessage());
+                    return null;
+                }
+                return generator;
+            }
+            return null;
+        });
+
+        return dialog.showAndWait().orElse(null);
+    }
+
+    // List cell for one result row ("Student | Test Case | Status"); a null row is a divider between students
+    private static class ResultCell extends ListCell<TestResult>
+    {
+        @Override
+        protected void updateItem(TestResult result, boolean empty)
+        {
+            super.updateItem(result, empty);
+            if (empty)
+            {
+                setText(null);
+            }
+            else
+            {
+                setText(result != null ? result.toDisplayString() : "-----------------------------------");
+            }
+        }
+    }
+
+    // List cell for one row of the output diff
+    // Unchanged lines are plain, missing expected lines red, extra actual lines green;
+    // changed lines show both versions with the differing characters highlighted
+    private static class DiffRowCell extends ListCell<LineDiff.Row>
+    {
+        private static final String MONO = "-fx-font-family: 'monospaced'; -fx-text-fill: #E8E8F2; ";
+        private static final String DELETED_LINE = "-fx-background-color: #4a2630;";
+        private static final String INSERTED_LINE = "-fx-background-color: #24452f;";
+        private static final String DELETED_CHARS = "-fx-background-color: #8c3a4a;";
+        private static final String INSERTED_CHARS = "-fx-background-color: #3a8c55;";
+
+        @Override
+        protected void updateItem(LineDiff.Row row, boolean empty)
+        {
+            super.updateItem(row, empty);
+            setText(null);
+            if (empty || row == null)
+            {
+                setGraphic(null);
+                setStyle("");
+                return;
+            }
+
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 4;");
+            switch (row.getKind())
+            {
+                case EQUAL:
+                    setGraphic(plainLine(" ", row.getExpectedLine(), row.getActualLine(), row.getExpectedText(), ""));
+                    break;
+                case DELETE:
+                    setGraphic(plainLine("-", row.getExpectedLine(), 0, row.getExpectedText(), DELETED_LINE));
+                    break;
+                case INSERT:
+                    setGraphic(plainLine("+", 0, row.getActualLine(), row.getActualText(), INSERTED_LINE));
+                    break;
+                default:
+                    setGraphic(new VBox(
+                            segmentedLine("-", row.getExpectedLine(), 0, row.getExpectedSegments(), DELETED_LINE, DELETED_CHARS),
+                            segmentedLine("+", 0, row.getActualLine(), row.getActualSegments(), INSERTED_LINE, INSERTED_CHARS)));
+                    break;
+            }
+        }
+
+        // Gutter: marker plus expected/actual line numbers (blank when the side has no line)
+        private static String gutter(String marker, int expectedLine, int actualLine)
+        {
+            return String.format("%s %6s %6s  ", marker,
+                    expectedLine > 0 ? Integer.toString(expectedLine) : "",
+                    actualLine > 0 ? Integer.toString(actualLine) : "");
+        }
+
+        private static Label plainLine(String marker, int expectedLine, int actualLine, String text, String lineStyle)
+        {
+            Label label = new Label(gutter(marker, expectedLine, actualLine) + text);
+            label.setStyle(MONO + lineStyle);
+            label.setMaxWidth(Double.MAX_VALUE);
+            return label;
+        }
+
+        private static javafx.scene.text.TextFlow segmentedLine(String marker, int expectedLine, int actualLine,
+                                                                List<LineDiff.Segment> segments, String lineStyle, String changedStyle)
+        {
+            javafx.scene.text.TextFlow flow = new javafx.scene.text.TextFlow();
+            Label gutterLabel = new Label(gutter(marker, expectedLine, actualLine));
+            gutterLabel.setStyle(MONO);
+            flow.getChildren().add(gutterLabel);
+            for (LineDiff.Segment segment : segments)
+            {
+                Label piece = new Label(segment.getText());
+                piece.setStyle(MONO + (segment.getKind() == LineDiff.Kind.EQUAL ? "" : changedStyle));
+                flow.getChildren().add(piece);
+            }
+            flow.setStyle(lineStyle);
+            return flow;
+        }
+    }
+
     // Helper method to apply consistent button styling with hover effects
     // Standard button style with default padding (6 12)
     private void styleButton(Button button)